@@ -12,9 +12,15 @@ android {
         targetSdk = 36
         versionCode = 1
         versionName = "1.0"
+
+        // Sample accounts and patients on a new install (DatabaseSeeder); debug builds opt in
+        resValue("bool", "seed_sample_data", "false")
     }
 
     buildTypes {
+        debug {
+            resValue("bool", "seed_sample_data", "true")
+        }
         release {
             isMinifyEnabled = false
             proguardFiles(
@@ -22,12 +28,45 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release code signed with the debug key, for the :macrobenchmark scenarios
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            // StartupBenchmark measures a first launch that seeds, as every install used to
+            resValue("bool", "seed_sample_data", "true")
+        }
     }
 
     buildFeatures {
         viewBinding = true
     }
 
+    sourceSets {
+        // Test fixtures shared by the unit tests and the benchmarks (SyntheticDataGenerator).
+        // Benchmark builds ship them so SyntheticPracticeActivity can generate the practice
+        // on the device; their unit tests get them from there.
+        getByName("testDebug").java.srcDir("src/sharedTest/java")
+        getByName("testRelease").java.srcDir("src/sharedTest/java")
+        getByName("benchmark").java.srcDir("src/sharedTest/java")
+    }
+
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                it.maxHeapSize = "3g"
+                // Benchmarks take minutes; run them with ./gradlew testDebugUnitTest -Pbenchmarks
+                if (!project.hasProperty("benchmarks")) {
+                    it.exclude("**/*Benchmark.class")
+                }
+                project.findProperty("benchmarks.maxRegression")?.let { ratio ->
+                    it.systemProperty("benchmarks.maxRegression", ratio)
+                }
+            }
+        }
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_21
         targetCompatibility = JavaVersion.VERSION_21
@@ -43,6 +82,9 @@ dependencies {
     implementation(libs.cardview)
     implementation(libs.coordinatorlayout)
     implementation(libs.circleimageview)
+
+    testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
 }
 
 java {
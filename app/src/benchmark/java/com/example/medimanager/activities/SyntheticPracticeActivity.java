@@ -0,0 +1,69 @@
+package com.example.medimanager.activities;
+
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.view.Gravity;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.medimanager.database.DatabaseExecutors;
+import com.example.medimanager.database.SyntheticDataGenerator;
+import com.example.medimanager.database.UserDAO;
+import com.example.medimanager.models.User;
+import com.example.medimanager.utils.SessionManager;
+
+/**
+ * Entry point for the :macrobenchmark scenarios, in benchmark builds only. Generates the
+ * synthetic large practice the first time it runs, signs in as its busiest doctor and opens
+ * MainActivity. Later launches only sign in again, so the practice is generated once per
+ * install. The optional "scale" extra shrinks the practice the way
+ * -Dbenchmarks.practiceScale does for the unit-test benchmarks.
+ */
+public class SyntheticPracticeActivity extends AppCompatActivity {
+
+    public static final String EXTRA_SCALE = "scale";
+
+    private static final String PREFS_NAME = "synthetic_practice";
+    private static final String PREF_DOCTOR_ID = "doctor_id";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        TextView status = new TextView(this);
+        status.setGravity(Gravity.CENTER);
+        status.setText("Generating the synthetic practice…");
+        setContentView(status);
+
+        double scale = getIntent().getDoubleExtra(EXTRA_SCALE, 1);
+        DatabaseExecutors executors = DatabaseExecutors.getInstance();
+        executors.writer().execute(() -> {
+            User doctor = new UserDAO(this).getUserById(doctorId(scale));
+            executors.mainThread().post(() -> openPractice(doctor));
+        });
+    }
+
+    // Runs on the writer thread
+    private long doctorId(double scale) {
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        long doctorId = prefs.getLong(PREF_DOCTOR_ID, -1);
+        if (doctorId == -1) {
+            SyntheticDataGenerator.Config config = SyntheticDataGenerator.Config.largePractice().scaled(scale);
+            doctorId = new SyntheticDataGenerator(this).generate(config, null).getFirstDoctorId();
+            prefs.edit().putLong(PREF_DOCTOR_ID, doctorId).commit();
+        }
+        return doctorId;
+    }
+
+    private void openPractice(User doctor) {
+        if (isFinishing()) {
+            return;
+        }
+        new SessionManager(this).saveLoginSession(doctor.getId(), doctor.getEmail(), doctor.getFullName(), true);
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        startActivity(intent);
+        finish();
+    }
+}
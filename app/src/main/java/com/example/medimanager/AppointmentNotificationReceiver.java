@@ -15,29 +15,61 @@ import android.os.Build;
 import androidx.core.app.NotificationCompat;
 
 import com.example.medimanager.activities.MainActivity;
-import com.example.medimanager.utils.Constants;
+import com.example.medimanager.database.DatabaseExecutors;
+import com.example.medimanager.models.Appointment;
+import com.example.medimanager.utils.NotificationHelper;
+import com.example.medimanager.utils.ReminderScheduler;
 
+import java.util.List;
+
+/**
+ * Fired by the single alarm that {@link ReminderScheduler} keeps armed. Delivers every
+ * reminder due in the current window as one batch, then re-arms the alarm.
+ */
 public class AppointmentNotificationReceiver extends BroadcastReceiver {
 
     private static final String CHANNEL_ID = "appointment_reminders";
+    private static final String GROUP_REMINDERS = "com.example.medimanager.REMINDERS";
+    private static final int SUMMARY_NOTIFICATION_ID = 0;
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        // Check if notifications are enabled
-        android.content.SharedPreferences prefs = context.getSharedPreferences(Constants.PREFS_NAME, Context.MODE_PRIVATE);
-        boolean areNotificationsEnabled = prefs.getBoolean(Constants.PREF_NOTIFICATIONS_ENABLED, true);
-
-        if (!areNotificationsEnabled) {
+        if (!ReminderScheduler.ACTION_REMINDERS_DUE.equals(intent.getAction())) {
             return;
         }
 
-        int appointmentId = intent.getIntExtra("appointment_id", -1);
-        String patientName = intent.getStringExtra("patient_name");
-        String appointmentTime = intent.getStringExtra("appointment_time");
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        try {
+            // Delivery flags the appointments it reminded, so it runs with the other writes
+            DatabaseExecutors.getInstance().writer().execute(() -> {
+                try {
+                    deliverDueReminders(appContext);
+                    ReminderScheduler.reschedule(appContext);
+                } finally {
+                    pendingResult.finish();
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingResult.finish();
+            throw e;
+        }
+    }
+
+    private void deliverDueReminders(Context context) {
+        // Collect even when notifications are off, so reminders are not replayed later
+        List<Appointment> due = ReminderScheduler.collectDueReminders(context);
+        if (due.isEmpty() || !NotificationHelper.areNotificationsEnabled(context)) {
+            return;
+        }
 
-        if (appointmentId != -1) {
-            createNotificationChannel(context);
-            showNotification(context, appointmentId, patientName, appointmentTime);
+        createNotificationChannel(context);
+        for (Appointment appointment : due) {
+            showNotification(context, appointment.getId(), appointment.getPatientName(),
+                    appointment.getAppointmentTime());
+        }
+        if (due.size() > 1) {
+            showSummary(context, due.size());
         }
     }
 
@@ -99,9 +131,32 @@ public class AppointmentNotificationReceiver extends BroadcastReceiver {
                 .setVibrate(new long[]{0, 500, 200, 500})
                 .setLights(Color.BLUE, 1000, 500)
                 .setColor(context.getResources().getColor(R.color.primary, null))
-                .setDefaults(NotificationCompat.DEFAULT_ALL);
+                .setDefaults(NotificationCompat.DEFAULT_ALL)
+                .setGroup(GROUP_REMINDERS);
 
         NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
         notificationManager.notify(appointmentId, builder.build());
     }
+
+    private void showSummary(Context context, int count) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        PendingIntent pendingIntent = PendingIntent.getActivity(context, SUMMARY_NOTIFICATION_ID, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        String contentText = context.getString(R.string.notification_reminders_summary, count);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notifications)
+                .setContentTitle(context.getString(R.string.notification_appointment_reminder_title))
+                .setContentText(contentText)
+                .setCategory(NotificationCompat.CATEGORY_REMINDER)
+                .setContentIntent(pendingIntent)
+                .setAutoCancel(true)
+                .setColor(context.getResources().getColor(R.color.primary, null))
+                .setGroup(GROUP_REMINDERS)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN);
+
+        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        notificationManager.notify(SUMMARY_NOTIFICATION_ID, builder.build());
+    }
 }
@@ -0,0 +1,41 @@
+package com.example.medimanager;
+
+import android.app.Application;
+import android.content.SharedPreferences;
+import android.os.Trace;
+
+import com.example.medimanager.database.DatabaseExecutors;
+import com.example.medimanager.database.DatabaseSeeder;
+import com.example.medimanager.database.QueryProfiler;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.PasswordUtils;
+import com.example.medimanager.utils.ReminderScheduler;
+
+public class MediManagerApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Trace.beginSection("MediManagerApplication.onCreate");
+
+        // Before anything opens the database, so the first queries use the saved settings.
+        // Profiling walks the stack per statement, so it stays off until switched on
+        SharedPreferences preferences = getSharedPreferences(Constants.PREFS_NAME, MODE_PRIVATE);
+        QueryProfiler profiler = QueryProfiler.getInstance();
+        profiler.setEnabled(preferences.getBoolean(Constants.PREF_QUERY_PROFILING, false));
+        profiler.setSlowQueryThresholdMillis(
+                preferences.getLong(Constants.PREF_SLOW_QUERY_MILLIS, Constants.SLOW_QUERY_MILLIS));
+
+        // Keep the reminder alarm in step with appointment writes, and arm it in case
+        // it was lost (force stop, or an update from a version with per-appointment alarms)
+        ReminderScheduler.observeAppointments(this);
+        ReminderScheduler.rescheduleAsync(this);
+
+        // Pick the PBKDF2 iteration count before anyone logs in or registers
+        DatabaseExecutors.getInstance().reader().execute(() -> PasswordUtils.calibrate(this));
+
+        // First launch only: sample data goes in on the writer thread, not on first open
+        DatabaseSeeder.seedAsync(this);
+        Trace.endSection();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.medimanager;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.example.medimanager.database.DatabaseExecutors;
+import com.example.medimanager.utils.DateUtils;
+import com.example.medimanager.utils.ReminderScheduler;
+
+/**
+ * Re-arms the reminder alarm after events that clear alarms or move the wall clock:
+ * reboot, app update, and time or time zone changes.
+ */
+public class ReminderBootReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action)
+                && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)
+                && !Intent.ACTION_TIME_CHANGED.equals(action)
+                && !Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            return;
+        }
+        if (Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            // Before rescheduling, which reads the local date through DateUtils
+            DateUtils.onTimeZoneChanged();
+        }
+
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        try {
+            DatabaseExecutors.getInstance().reader().execute(() -> {
+                try {
+                    ReminderScheduler.reschedule(appContext);
+                } finally {
+                    pendingResult.finish();
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingResult.finish();
+            throw e;
+        }
+    }
+}
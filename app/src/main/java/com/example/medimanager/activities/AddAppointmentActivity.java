@@ -1,29 +1,27 @@
 package com.example.medimanager.activities;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
-import android.content.Context;
-import android.content.Intent;
 import android.os.Bundle;
 import android.widget.ArrayAdapter;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.example.medimanager.AppointmentNotificationReceiver;
 import com.example.medimanager.R;
 import com.example.medimanager.database.AppointmentDAO;
+import com.example.medimanager.database.AppointmentScheduler;
 import com.example.medimanager.database.PatientDAO;
 import com.example.medimanager.database.UserDAO;
 import com.example.medimanager.databinding.ActivityAddAppointmentBinding;
 import com.example.medimanager.models.Appointment;
-import com.example.medimanager.models.Patient;
+import com.example.medimanager.models.PatientSummary;
 import com.example.medimanager.models.User;
+import com.example.medimanager.utils.AppointmentApprovalHelper;
 import com.example.medimanager.utils.AppointmentStatusUtils;
 import com.example.medimanager.utils.Constants;
 import com.example.medimanager.utils.DateUtils;
 import com.example.medimanager.utils.DateTimePickerHelper;
 import com.example.medimanager.utils.NotificationHelper;
+import com.example.medimanager.utils.ReminderScheduler;
 import com.example.medimanager.utils.SessionManager;
 
 import java.text.ParseException;
@@ -40,9 +38,10 @@ public class AddAppointmentActivity extends AppCompatActivity {
 
     // Data
     private AppointmentDAO appointmentDAO;
+    private AppointmentScheduler appointmentScheduler;
     private PatientDAO patientDAO;
     private Appointment currentAppointment;
-    private List<Patient> patientList;
+    private List<PatientSummary> patientList;
     private int selectedPatientId = -1;
     private int appointmentId = -1;
     private boolean isEditMode = false;
@@ -66,6 +65,7 @@ public class AddAppointmentActivity extends AppCompatActivity {
         // Initialize helpers and DAOs
         sessionManager = new SessionManager(this);
         appointmentDAO = new AppointmentDAO(this);
+        appointmentScheduler = new AppointmentScheduler(this);
         patientDAO = new PatientDAO(this);
 
         // Load doctor id
@@ -115,7 +115,7 @@ public class AddAppointmentActivity extends AppCompatActivity {
         patientList = patientDAO.getAllPatients(doctorId);
 
         List<String> patientNames = new ArrayList<>();
-        for (Patient patient : patientList) {
+        for (PatientSummary patient : patientList) {
             patientNames.add(patient.getFullName());
         }
 
@@ -204,17 +204,10 @@ public class AddAppointmentActivity extends AppCompatActivity {
                 e.printStackTrace();
             }
 
-            try {
-                SimpleDateFormat timeFormat = new SimpleDateFormat(Constants.TIME_FORMAT, Locale.getDefault());
-                Date parsedTime = timeFormat.parse(currentAppointment.getAppointmentTime());
-                if (parsedTime != null) {
-                    Calendar timeCal = Calendar.getInstance();
-                    timeCal.setTime(parsedTime);
-                    selectedHour = timeCal.get(Calendar.HOUR_OF_DAY);
-                    selectedMinute = timeCal.get(Calendar.MINUTE);
-                }
-            } catch (ParseException e) {
-                e.printStackTrace();
+            int startMinute = currentAppointment.getStartMinute();
+            if (startMinute >= 0) {
+                selectedHour = startMinute / 60;
+                selectedMinute = startMinute % 60;
             }
         }
     }
@@ -277,14 +270,28 @@ public class AddAppointmentActivity extends AppCompatActivity {
         currentAppointment.setStatus(status);
 
         if (isEditMode && appointmentId != -1) {
-            // Update existing appointment
             currentAppointment.setId(appointmentId);
             if (currentAppointment.getDoctorId() == 0) {
                 currentAppointment.setDoctorId(doctorId);
             }
-            int result = appointmentDAO.updateAppointment(currentAppointment);
+        }
+
+        // Refuse double bookings; the check and the write share one transaction, and
+        // cancelled appointments do not hold a slot
+        AppointmentScheduler.Booking booking = appointmentScheduler.book(currentAppointment);
+        if (!booking.getSlotCheck().isFree()) {
+            AppointmentApprovalHelper.showSlotConflictDialog(this, booking.getSlotCheck(), startMinute -> {
+                selectedHour = startMinute / 60;
+                selectedMinute = startMinute % 60;
+                binding.etAppointmentTime.setText(DateUtils.formatMinutes(startMinute));
+                saveAppointment();
+            });
+            return;
+        }
 
-            if (result > 0) {
+        if (isEditMode && appointmentId != -1) {
+            // Update existing appointment
+            if (booking.isSaved()) {
                 Toast.makeText(this, R.string.appointment_updated, Toast.LENGTH_SHORT).show();
                 setResult(RESULT_OK);
                 finish();
@@ -293,13 +300,15 @@ public class AddAppointmentActivity extends AppCompatActivity {
             }
         } else {
             // Insert new appointment
-            long id = appointmentDAO.insertAppointment(currentAppointment);
-
-            if (id > 0) {
+            if (booking.isSaved()) {
+                currentAppointment.setId((int) booking.getResult());
                 Toast.makeText(this, R.string.appointment_added, Toast.LENGTH_SHORT).show();
 
-                // Schedule notification (1 hour before)
-                scheduleNotification(currentAppointment);
+                // The reminder alarm is re-armed by ReminderScheduler after the write
+                if (currentAppointment.isScheduled()
+                        && ReminderScheduler.getReminderTime(currentAppointment) > System.currentTimeMillis()) {
+                    Toast.makeText(this, R.string.reminder_set_one_hour, Toast.LENGTH_SHORT).show();
+                }
 
                 // Notify patient about the new appointment
                 UserDAO userDAO = new UserDAO(this);
@@ -321,51 +330,9 @@ public class AddAppointmentActivity extends AppCompatActivity {
         }
     }
 
-    private void scheduleNotification(Appointment appointment) {
-        try {
-            // Parse date and time
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd hh:mm a", Locale.getDefault());
-            String dateTimeString = appointment.getAppointmentDate() + " " + appointment.getAppointmentTime();
-            Date appointmentDateTime = sdf.parse(dateTimeString);
-
-            if (appointmentDateTime != null) {
-                // Schedule notification 1 hour before
-                long notificationTime = appointmentDateTime.getTime() - (60 * 60 * 1000);
-
-                if (notificationTime > System.currentTimeMillis()) {
-                    // Create notification intent
-                    Intent intent = new Intent(this, AppointmentNotificationReceiver.class);
-                    intent.putExtra("appointment_id", appointment.getId());
-                    intent.putExtra("patient_name", appointment.getPatientName());
-                    intent.putExtra("appointment_time", appointment.getAppointmentTime());
-
-                    PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                            this,
-                            (int) appointment.getId(),
-                            intent,
-                            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                    );
-
-                    AlarmManager alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
-                    if (alarmManager != null) {
-                        alarmManager.setExactAndAllowWhileIdle(
-                                AlarmManager.RTC_WAKEUP,
-                                notificationTime,
-                                pendingIntent
-                        );
-
-                        Toast.makeText(this, R.string.reminder_set_one_hour, Toast.LENGTH_SHORT).show();
-                    }
-                }
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-    }
-
     private String getSelectedPatientName() {
         if (patientList != null) {
-            for (Patient patient : patientList) {
+            for (PatientSummary patient : patientList) {
                 if (patient.getId() == selectedPatientId) {
                     return patient.getFullName();
                 }
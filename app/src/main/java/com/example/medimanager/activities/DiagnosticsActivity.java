@@ -0,0 +1,119 @@
+package com.example.medimanager.activities;
+
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.view.inputmethod.EditorInfo;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.medimanager.R;
+import com.example.medimanager.database.PatientDAO;
+import com.example.medimanager.database.QueryProfiler;
+import com.example.medimanager.database.UserDAO;
+import com.example.medimanager.databinding.ActivityDiagnosticsBinding;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.FrameMetricsCollector;
+
+import java.util.List;
+
+/**
+ * Hidden screen with per-method query timings, per-screen frame timings and cache counters.
+ * Query timing is off by default in every build; the switch here turns it on or off and
+ * remembers the choice. The DAO benchmark lives with the unit tests (see
+ * app/benchmarks/README.md).
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private ActivityDiagnosticsBinding binding;
+    private SharedPreferences sharedPreferences;
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
+    private final FrameMetricsCollector frameMetrics = FrameMetricsCollector.getInstance();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        binding = ActivityDiagnosticsBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+
+        sharedPreferences = getSharedPreferences(Constants.PREFS_NAME, MODE_PRIVATE);
+
+        setupToolbar();
+        setupListeners();
+        showStats();
+    }
+
+    private void setupToolbar() {
+        binding.toolbar.setNavigationOnClickListener(v -> finish());
+    }
+
+    private void setupListeners() {
+        binding.switchProfiling.setChecked(profiler.isEnabled());
+        binding.switchProfiling.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            profiler.setEnabled(isChecked);
+            sharedPreferences.edit()
+                    .putBoolean(Constants.PREF_QUERY_PROFILING, isChecked)
+                    .apply();
+        });
+
+        binding.etSlowQueryMillis.setText(String.valueOf(profiler.getSlowQueryThresholdMillis()));
+        binding.etSlowQueryMillis.setOnEditorActionListener((v, actionId, event) -> {
+            if (actionId == EditorInfo.IME_ACTION_DONE) {
+                applyThreshold();
+            }
+            return false;
+        });
+
+        binding.btnRefresh.setOnClickListener(v -> showStats());
+
+        binding.btnReset.setOnClickListener(v -> {
+            profiler.reset();
+            frameMetrics.reset();
+            showStats();
+        });
+    }
+
+    private void applyThreshold() {
+        String text = binding.etSlowQueryMillis.getText() != null
+                ? binding.etSlowQueryMillis.getText().toString().trim() : "";
+        if (TextUtils.isEmpty(text)) {
+            return;
+        }
+        try {
+            long millis = Long.parseLong(text);
+            profiler.setSlowQueryThresholdMillis(millis);
+            sharedPreferences.edit()
+                    .putLong(Constants.PREF_SLOW_QUERY_MILLIS, profiler.getSlowQueryThresholdMillis())
+                    .apply();
+        } catch (NumberFormatException e) {
+            binding.etSlowQueryMillis.setText(String.valueOf(profiler.getSlowQueryThresholdMillis()));
+        }
+    }
+
+    private void showStats() {
+        binding.tvCacheStats.setText("PatientDAO cache: " + PatientDAO.getCacheStats()
+                + "\nUserDAO cache: " + UserDAO.getCacheStats());
+
+        List<FrameMetricsCollector.Entry> frames = frameMetrics.snapshot();
+        if (frames.isEmpty()) {
+            binding.tvFrameStats.setText(R.string.no_frames_recorded);
+        } else {
+            StringBuilder text = new StringBuilder();
+            for (FrameMetricsCollector.Entry entry : frames) {
+                text.append(entry).append('\n');
+            }
+            binding.tvFrameStats.setText(text);
+        }
+
+        List<QueryProfiler.Entry> entries = profiler.snapshot();
+        if (entries.isEmpty()) {
+            binding.tvQueryStats.setText(R.string.no_queries_recorded);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (QueryProfiler.Entry entry : entries) {
+            text.append(entry).append('\n');
+        }
+        binding.tvQueryStats.setText(text);
+    }
+}
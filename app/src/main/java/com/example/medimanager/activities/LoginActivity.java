@@ -9,6 +9,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.medimanager.R;
+import com.example.medimanager.database.AsyncDAO;
 import com.example.medimanager.database.UserDAO;
 import com.example.medimanager.databinding.ActivityLoginBinding;
 import com.example.medimanager.models.User;
@@ -18,6 +19,7 @@ public class LoginActivity extends AppCompatActivity {
 
     private ActivityLoginBinding binding;
     private UserDAO userDAO;
+    private AsyncDAO asyncDAO;
     private boolean isDoctorSelected = true;
 
     @Override
@@ -35,9 +37,13 @@ public class LoginActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         userDAO = new UserDAO(this);
+        asyncDAO = new AsyncDAO(this);
 
         setupRoleSelection();
         setupClickListeners();
+
+        // The form needs no data, so the login screen is complete as soon as it is laid out
+        reportFullyDrawn();
     }
 
     private void setupRoleSelection() {
@@ -106,13 +112,24 @@ public class LoginActivity extends AppCompatActivity {
 
     private void performLogin(String email, String password) {
         String role = isDoctorSelected ? "doctor" : "patient";
-        User user = userDAO.authenticateUser(email, password, role);
 
-        if (user == null) {
-            Toast.makeText(this, R.string.invalid_credentials, Toast.LENGTH_SHORT).show();
-            return;
-        }
+        // Verifying the password is deliberately slow; keep the button off until it is done.
+        // It only reads, so it stays off the writer; an upgraded hash is queued separately
+        binding.btnLogin.setEnabled(false);
+        asyncDAO.read("login", () -> userDAO.authenticateUser(email, password, role), user -> {
+            binding.btnLogin.setEnabled(true);
+            if (user == null) {
+                Toast.makeText(this, R.string.invalid_credentials, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            completeLogin(user, email);
+        }, error -> {
+            binding.btnLogin.setEnabled(true);
+            Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
+        });
+    }
 
+    private void completeLogin(User user, String email) {
         // Save login state
         SharedPreferences prefs = getSharedPreferences(Constants.PREFS_NAME, MODE_PRIVATE);
         SharedPreferences.Editor editor = prefs.edit();
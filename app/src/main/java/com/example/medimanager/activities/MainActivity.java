@@ -8,9 +8,11 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
 
 import com.example.medimanager.R;
 import com.example.medimanager.databinding.ActivityMainBinding;
@@ -20,12 +22,14 @@ import com.example.medimanager.fragments.PatientHomeFragment;
 import com.example.medimanager.fragments.PatientsFragment;
 import com.example.medimanager.fragments.ProfileFragment;
 import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.FrameMetricsCollector;
 import com.example.medimanager.utils.NotificationHelper;
 
 public class MainActivity extends AppCompatActivity {
 
     private ActivityMainBinding binding;
     private boolean isDoctor = true;
+    private final FrameMetricsCollector frameMetrics = FrameMetricsCollector.getInstance();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -45,6 +49,14 @@ public class MainActivity extends AppCompatActivity {
         // Setup navigation based on role
         setupNavigation();
 
+        // Attribute frame times to whichever screen is showing
+        getSupportFragmentManager().registerFragmentLifecycleCallbacks(new FragmentManager.FragmentLifecycleCallbacks() {
+            @Override
+            public void onFragmentResumed(@NonNull FragmentManager fm, @NonNull Fragment f) {
+                frameMetrics.setScreen(f.getClass().getSimpleName());
+            }
+        }, false);
+
         // Set the initial fragment
         if (savedInstanceState == null) {
             if (isDoctor) {
@@ -56,6 +68,18 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        frameMetrics.attach(getWindow());
+    }
+
+    @Override
+    protected void onPause() {
+        frameMetrics.detach(getWindow());
+        super.onPause();
+    }
+
     private void setupNavigation() {
         if (isDoctor) {
             // Doctor sees full navigation
@@ -5,8 +5,6 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.widget.Toast;
 
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
@@ -14,15 +12,21 @@ import com.example.medimanager.R;
 import com.example.medimanager.adapters.AppointmentAdapter;
 import com.example.medimanager.adapters.ConsultationAdapter;
 import com.example.medimanager.database.AppointmentDAO;
+import com.example.medimanager.database.AppointmentScheduler;
+import com.example.medimanager.database.AsyncDAO;
 import com.example.medimanager.database.ConsultationDAO;
+import com.example.medimanager.database.DatabaseChangeBus;
+import com.example.medimanager.database.DatabaseHelper;
 import com.example.medimanager.database.PatientDAO;
 import com.example.medimanager.databinding.ActivityPatientDetailsBinding;
 import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.AppointmentRow;
 import com.example.medimanager.models.Consultation;
 import com.example.medimanager.models.Patient;
 import com.example.medimanager.utils.AppointmentApprovalHelper;
 import com.example.medimanager.utils.AppointmentStatusUtils;
 import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
 import com.example.medimanager.utils.NotificationHelper;
 
 import java.util.ArrayList;
@@ -37,26 +41,17 @@ public class PatientDetailsActivity extends AppCompatActivity {
     private PatientDAO patientDAO;
     private ConsultationDAO consultationDAO;
     private AppointmentDAO appointmentDAO;
+    private AppointmentScheduler appointmentScheduler;
+    private AsyncDAO asyncDAO;
 
     // Adapters
     private ConsultationAdapter consultationAdapter;
     private AppointmentAdapter appointmentAdapter;
     private List<Consultation> consultations;
-    private List<Appointment> appointments;
+    private List<AppointmentRow> appointments;
 
     private int patientId;
 
-    private final ActivityResultLauncher<Intent> formLauncher = registerForActivityResult(
-            new ActivityResultContracts.StartActivityForResult(),
-            result -> {
-                if (result.getResultCode() == RESULT_OK) {
-                    loadPatientData();
-                    loadConsultations();
-                    loadAppointments();
-                }
-            }
-    );
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -75,12 +70,14 @@ public class PatientDetailsActivity extends AppCompatActivity {
         patientDAO = new PatientDAO(this);
         consultationDAO = new ConsultationDAO(this);
         appointmentDAO = new AppointmentDAO(this);
+        appointmentScheduler = new AppointmentScheduler(this);
+        asyncDAO = new AsyncDAO(this);
 
         // Initialize UI
         setupClickListeners();
         setupRecyclerViews();
 
-        // Load data
+        // Load data; each part reloads on its own when the forms opened from here save
         loadPatientData();
         loadConsultations();
         loadAppointments();
@@ -95,7 +92,7 @@ public class PatientDetailsActivity extends AppCompatActivity {
             Intent intent = new Intent(PatientDetailsActivity.this, AddPatientActivity.class);
             intent.putExtra(Constants.EXTRA_PATIENT_ID, patientId);
             intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
-            formLauncher.launch(intent);
+            startActivity(intent);
         });
 
         // Delete button
@@ -105,21 +102,21 @@ public class PatientDetailsActivity extends AppCompatActivity {
         binding.btnBookAppointment.setOnClickListener(v -> {
             Intent intent = new Intent(PatientDetailsActivity.this, AddAppointmentActivity.class);
             intent.putExtra(Constants.EXTRA_PATIENT_ID, patientId);
-            formLauncher.launch(intent);
+            startActivity(intent);
         });
 
         // Add consultation
         binding.btnAddConsultation.setOnClickListener(v -> {
             Intent intent = new Intent(PatientDetailsActivity.this, AddConsultationActivity.class);
             intent.putExtra(Constants.EXTRA_PATIENT_ID, patientId);
-            formLauncher.launch(intent);
+            startActivity(intent);
         });
     }
 
     private void setupRecyclerViews() {
         // Consultations RecyclerView
         consultations = new ArrayList<>();
-        consultationAdapter = new ConsultationAdapter(this, consultations);
+        consultationAdapter = new ConsultationAdapter(this);
         binding.rvConsultations.setLayoutManager(new LinearLayoutManager(this));
         binding.rvConsultations.setAdapter(consultationAdapter);
         binding.rvConsultations.setNestedScrollingEnabled(false);
@@ -149,7 +146,7 @@ public class PatientDetailsActivity extends AppCompatActivity {
                 intent.putExtra(Constants.EXTRA_CONSULTATION_ID, consultation.getId());
                 intent.putExtra(Constants.EXTRA_PATIENT_ID, patientId);
                 intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
-                formLauncher.launch(intent);
+                startActivity(intent);
             }
 
             @Override
@@ -160,17 +157,17 @@ public class PatientDetailsActivity extends AppCompatActivity {
 
         // Appointments RecyclerView
         appointments = new ArrayList<>();
-        appointmentAdapter = new AppointmentAdapter(this, appointments);
+        appointmentAdapter = new AppointmentAdapter(this);
         binding.rvAppointments.setLayoutManager(new LinearLayoutManager(this));
         binding.rvAppointments.setAdapter(appointmentAdapter);
         binding.rvAppointments.setNestedScrollingEnabled(false);
 
         appointmentAdapter.setOnItemClickListener(new AppointmentAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(Appointment appointment) {
+            public void onItemClick(AppointmentRow appointment) {
                 // If pending, show approval dialog
                 if (appointment.isPending()) {
-                    showApprovalDialog(appointment);
+                    openApprovalDialog(appointment);
                 } else {
                     // Show appointment info
                     String info = getString(R.string.appointment_info,
@@ -183,37 +180,53 @@ public class PatientDetailsActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onStatusClick(Appointment appointment) {
+            public void onStatusClick(AppointmentRow appointment) {
                 // If pending, show approval dialog instead of cycling status
                 if (appointment.isPending()) {
-                    showApprovalDialog(appointment);
+                    openApprovalDialog(appointment);
                 } else {
                     // Toggle status
                     String newStatus = appointment.isScheduled() ? Constants.STATUS_COMPLETED : Constants.STATUS_SCHEDULED;
-                    appointmentDAO.updateAppointmentStatus(appointment.getId(), newStatus);
-                    appointment.setStatus(newStatus);
-                    appointmentAdapter.notifyDataSetChanged();
-                    Toast.makeText(PatientDetailsActivity.this, R.string.status_updated, Toast.LENGTH_SHORT).show();
+                    asyncDAO.write(() -> appointmentDAO.updateAppointmentStatus(appointment.getId(), newStatus), result -> {
+                        // Swap in an updated copy so the adapter rebinds just this row
+                        AppointmentRow updated = new AppointmentRow(appointment);
+                        updated.setStatus(newStatus);
+                        int index = appointments.indexOf(appointment);
+                        if (index != -1) {
+                            appointments.set(index, updated);
+                        }
+                        appointmentAdapter.updateList(appointments);
+                        Toast.makeText(PatientDetailsActivity.this, R.string.status_updated, Toast.LENGTH_SHORT).show();
+                    }, this::showError);
                 }
             }
 
             @Override
-            public void onEditClick(Appointment appointment) {
+            public void onEditClick(AppointmentRow appointment) {
                 Intent intent = new Intent(PatientDetailsActivity.this, AddAppointmentActivity.class);
                 intent.putExtra(Constants.EXTRA_APPOINTMENT_ID, appointment.getId());
                 intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
-                formLauncher.launch(intent);
+                startActivity(intent);
             }
 
             @Override
-            public void onDeleteClick(Appointment appointment) {
+            public void onDeleteClick(AppointmentRow appointment) {
                 showDeleteAppointmentDialog(appointment);
             }
         });
     }
 
     private void loadPatientData() {
-        patient = patientDAO.getPatientById(patientId);
+        DatabaseChangeBus.ChangeFilter row = DatabaseChangeBus.onRow(DatabaseHelper.TABLE_PATIENTS, patientId);
+        asyncDAO.observe("patient", row, () -> patientDAO.getPatientById(patientId), this::showPatient);
+    }
+
+    private void showPatient(Patient loadedPatient) {
+        if (isFinishing()) {
+            // Deleted from this screen; the reload that follows is expected to find nothing
+            return;
+        }
+        patient = loadedPatient;
 
         if (patient != null) {
             // Set patient info
@@ -235,17 +248,23 @@ public class PatientDetailsActivity extends AppCompatActivity {
     }
 
     private void loadConsultations() {
-        List<Consultation> loadedConsultations = consultationDAO.getConsultationsByPatient(patientId);
-        consultations.clear();
-        consultations.addAll(loadedConsultations);
-        consultationAdapter.notifyDataSetChanged();
+        DatabaseChangeBus.ChangeFilter tables = DatabaseChangeBus.onTables(DatabaseHelper.TABLE_CONSULTATIONS);
+        asyncDAO.observe("consultations", tables, () -> consultationDAO.getConsultationsByPatient(patientId), loadedConsultations -> {
+            consultations.clear();
+            consultations.addAll(loadedConsultations);
+            consultationAdapter.updateList(consultations);
+        });
     }
 
     private void loadAppointments() {
-        List<Appointment> loadedAppointments = appointmentDAO.getAppointmentsByPatient(patientId);
-        appointments.clear();
-        appointments.addAll(loadedAppointments);
-        appointmentAdapter.notifyDataSetChanged();
+        // Rows show the doctor's name, so user edits matter too
+        DatabaseChangeBus.ChangeFilter tables = DatabaseChangeBus.onTables(DatabaseHelper.TABLE_APPOINTMENTS,
+                DatabaseHelper.TABLE_USERS);
+        asyncDAO.observe("appointments", tables, () -> appointmentDAO.getAppointmentsByPatient(patientId), loadedAppointments -> {
+            appointments.clear();
+            appointments.addAll(loadedAppointments);
+            appointmentAdapter.updateList(appointments);
+        });
     }
 
     private void showDeleteConfirmationDialog() {
@@ -259,15 +278,15 @@ public class PatientDetailsActivity extends AppCompatActivity {
     }
 
     private void deletePatient() {
-        int result = patientDAO.deletePatient(patientId);
-
-        if (result > 0) {
-            Toast.makeText(this, R.string.patient_deleted, Toast.LENGTH_SHORT).show();
-            setResult(RESULT_OK);
-            finish();
-        } else {
-            Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        asyncDAO.write(() -> patientDAO.deletePatient(patientId), result -> {
+            if (result > 0) {
+                Toast.makeText(this, R.string.patient_deleted, Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                finish();
+            } else {
+                Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
     private void showDeleteConsultationDialog(final Consultation consultation) {
@@ -279,7 +298,7 @@ public class PatientDetailsActivity extends AppCompatActivity {
                 .show();
     }
 
-    private void showDeleteAppointmentDialog(final Appointment appointment) {
+    private void showDeleteAppointmentDialog(final AppointmentRow appointment) {
         new AlertDialog.Builder(this)
                 .setTitle(R.string.delete_appointment)
                 .setMessage(R.string.delete_appointment_message)
@@ -288,24 +307,33 @@ public class PatientDetailsActivity extends AppCompatActivity {
                 .show();
     }
 
-    private void deleteAppointment(Appointment appointment) {
-        int result = appointmentDAO.deleteAppointment(appointment.getId());
-        if (result > 0) {
-            loadAppointments();
-            Toast.makeText(this, R.string.appointment_deleted, Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+    private void deleteAppointment(AppointmentRow appointment) {
+        asyncDAO.write(() -> appointmentDAO.deleteAppointment(appointment.getId()), result -> {
+            if (result > 0) {
+                Toast.makeText(this, R.string.appointment_deleted, Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
     private void deleteConsultation(Consultation consultation) {
-        int result = consultationDAO.deleteConsultation(consultation.getId());
-        if (result > 0) {
-            Toast.makeText(this, R.string.consultation_deleted, Toast.LENGTH_SHORT).show();
-            loadConsultations();
-        } else {
-            Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        asyncDAO.write(() -> consultationDAO.deleteConsultation(consultation.getId()), result -> {
+            if (result > 0) {
+                Toast.makeText(this, R.string.consultation_deleted, Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
+    }
+
+    // Rows leave out notes, and approving rewrites the whole appointment, so load it first
+    private void openApprovalDialog(AppointmentRow row) {
+        asyncDAO.read("approval", () -> appointmentDAO.getAppointmentById(row.getId()), appointment -> {
+            if (appointment != null && appointment.isPending()) {
+                showApprovalDialog(appointment);
+            }
+        }, this::showError);
     }
 
     private void showApprovalDialog(Appointment appointment) {
@@ -321,7 +349,7 @@ public class PatientDetailsActivity extends AppCompatActivity {
                         Intent intent = new Intent(PatientDetailsActivity.this, AddAppointmentActivity.class);
                         intent.putExtra(Constants.EXTRA_APPOINTMENT_ID, appt.getId());
                         intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
-                        formLauncher.launch(intent);
+                        startActivity(intent);
                     }
 
                     @Override
@@ -332,16 +360,26 @@ public class PatientDetailsActivity extends AppCompatActivity {
     }
 
     private void approveAppointment(Appointment appointment) {
-        int result = appointmentDAO.updateAppointmentStatus(appointment.getId(), Constants.STATUS_SCHEDULED);
-        if (result > 0) {
-            Toast.makeText(this, R.string.appointment_approved, Toast.LENGTH_SHORT).show();
-            // Notify patient about approval
-            NotificationHelper.notifyPatientAppointmentApproved(this,
-                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
-            loadAppointments();
-        } else {
-            Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        // Pending requests do not hold a slot; booking checks the confirmed ones and approves
+        // in one transaction, so two approvals cannot take the same slot
+        Appointment approved = new Appointment(appointment);
+        approved.setStatus(Constants.STATUS_SCHEDULED);
+        asyncDAO.write(() -> appointmentScheduler.book(approved), booking -> {
+            if (booking.isSaved()) {
+                Toast.makeText(this, R.string.appointment_approved, Toast.LENGTH_SHORT).show();
+                // Notify patient about approval
+                NotificationHelper.notifyPatientAppointmentApproved(this,
+                        approved.getAppointmentDate(), approved.getAppointmentTime());
+            } else if (!booking.getSlotCheck().isFree()) {
+                AppointmentApprovalHelper.showSlotConflictDialog(this, booking.getSlotCheck(), startMinute -> {
+                    Appointment moved = new Appointment(appointment);
+                    moved.setAppointmentTime(DateUtils.formatMinutes(startMinute));
+                    approveAppointment(moved);
+                });
+            } else {
+                Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
     private void showRejectConfirmationDialog(Appointment appointment) {
@@ -356,15 +394,19 @@ public class PatientDetailsActivity extends AppCompatActivity {
     }
 
     private void rejectAppointment(Appointment appointment) {
-        int result = appointmentDAO.deleteAppointment(appointment.getId());
-        if (result > 0) {
-            Toast.makeText(this, R.string.appointment_rejected, Toast.LENGTH_SHORT).show();
-            // Notify patient about rejection
-            NotificationHelper.notifyPatientAppointmentRejected(this,
-                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
-            loadAppointments();
-        } else {
-            Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        asyncDAO.write(() -> appointmentDAO.deleteAppointment(appointment.getId()), result -> {
+            if (result > 0) {
+                Toast.makeText(this, R.string.appointment_rejected, Toast.LENGTH_SHORT).show();
+                // Notify patient about rejection
+                NotificationHelper.notifyPatientAppointmentRejected(this,
+                        appointment.getAppointmentDate(), appointment.getAppointmentTime());
+            } else {
+                Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
+    }
+
+    private void showError(Throwable error) {
+        Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
     }
 }
@@ -9,6 +9,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.medimanager.R;
+import com.example.medimanager.database.AsyncDAO;
 import com.example.medimanager.database.PatientDAO;
 import com.example.medimanager.database.UserDAO;
 import com.example.medimanager.databinding.ActivityRegisterBinding;
@@ -22,6 +23,7 @@ public class RegisterActivity extends AppCompatActivity {
     private ActivityRegisterBinding binding;
     private UserDAO userDAO;
     private PatientDAO patientDAO;
+    private AsyncDAO asyncDAO;
     private boolean isDoctorSelected = true;
 
     @Override
@@ -32,6 +34,7 @@ public class RegisterActivity extends AppCompatActivity {
 
         userDAO = new UserDAO(this);
         patientDAO = new PatientDAO(this);
+        asyncDAO = new AsyncDAO(this);
 
         setupRoleSelection();
         setupClickListeners();
@@ -136,33 +139,48 @@ public class RegisterActivity extends AppCompatActivity {
         user.setPassword(password);
         user.setRole(isDoctorSelected ? "doctor" : "patient");
 
-        // Register user
-        long userId = userDAO.registerUser(user);
+        // Hashing the password is deliberately slow; keep the button off until it is done
+        boolean isDoctor = isDoctorSelected;
+        binding.btnRegister.setEnabled(false);
+        asyncDAO.write(() -> {
+            long id = userDAO.registerUser(user);
+            if (id != -1 && !isDoctor) {
+                linkPatientRecord(email, id);
+            }
+            return id;
+        }, userId -> {
+            binding.btnRegister.setEnabled(true);
+            if (userId == -1) {
+                binding.tilEmail.setError(getString(R.string.email_already_registered));
+                binding.etEmail.requestFocus();
+                return;
+            }
+            completeRegistration(userId, email, isDoctor);
+        }, error -> {
+            binding.btnRegister.setEnabled(true);
+            Toast.makeText(this, R.string.error_occurred, Toast.LENGTH_SHORT).show();
+        });
+    }
 
-        if (userId == -1) {
-            binding.tilEmail.setError(getString(R.string.email_already_registered));
-            binding.etEmail.requestFocus();
-            return;
+    // Auto-link: if registering as patient, attach an existing patient record with this email
+    private void linkPatientRecord(String email, long userId) {
+        Patient existingPatient = patientDAO.getPatientByEmail(email);
+        if (existingPatient != null && existingPatient.getUserId() == null) {
+            // Link the patient record to this new user account
+            existingPatient.setUserId((int) userId);
+            patientDAO.updatePatient(existingPatient);
         }
+    }
 
+    private void completeRegistration(long userId, String email, boolean isDoctor) {
         // Registration successful - auto login
         Toast.makeText(this, R.string.registration_success, Toast.LENGTH_SHORT).show();
 
-        // Auto-link: If registering as patient, check if a patient record exists with this email
-        if (!isDoctorSelected) {
-            Patient existingPatient = patientDAO.getPatientByEmail(email);
-            if (existingPatient != null && existingPatient.getUserId() == null) {
-                // Link the patient record to this new user account
-                existingPatient.setUserId((int) userId);
-                patientDAO.updatePatient(existingPatient);
-            }
-        }
-
         // Save login state
         SharedPreferences prefs = getSharedPreferences(Constants.PREFS_NAME, MODE_PRIVATE);
         SharedPreferences.Editor editor = prefs.edit();
         editor.putBoolean(Constants.PREF_IS_LOGGED_IN, true);
-        editor.putBoolean(Constants.PREF_IS_DOCTOR, isDoctorSelected);
+        editor.putBoolean(Constants.PREF_IS_DOCTOR, isDoctor);
         editor.putString(Constants.PREF_USER_EMAIL, email);
         editor.putLong(Constants.PREF_USER_ID, userId);
         editor.apply();
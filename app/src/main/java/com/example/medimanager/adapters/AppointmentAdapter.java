@@ -2,39 +2,64 @@ package com.example.medimanager.adapters;
 
 import android.content.Context;
 import android.graphics.Color;
+import android.os.Trace;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.medimanager.R;
 import com.example.medimanager.databinding.ItemAppointmentBinding;
-import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.AppointmentRow;
 import com.example.medimanager.utils.AppointmentStatusUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class AppointmentAdapter extends RecyclerView.Adapter<AppointmentAdapter.AppointmentViewHolder> {
+public class AppointmentAdapter extends ListAdapter<AppointmentRow, AppointmentAdapter.AppointmentViewHolder> {
+
+    // Rows are matched by id, so a status change rebinds only that row
+    private static final DiffUtil.ItemCallback<AppointmentRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<AppointmentRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AppointmentRow oldItem, @NonNull AppointmentRow newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull AppointmentRow oldItem, @NonNull AppointmentRow newItem) {
+            return oldItem.getPatientId() == newItem.getPatientId()
+                    && oldItem.getDoctorId() == newItem.getDoctorId()
+                    && oldItem.getStartMinute() == newItem.getStartMinute()
+                    && Objects.equals(oldItem.getPatientName(), newItem.getPatientName())
+                    && Objects.equals(oldItem.getDoctorName(), newItem.getDoctorName())
+                    && Objects.equals(oldItem.getAppointmentDate(), newItem.getAppointmentDate())
+                    && Objects.equals(oldItem.getAppointmentTime(), newItem.getAppointmentTime())
+                    && Objects.equals(oldItem.getReason(), newItem.getReason())
+                    && Objects.equals(oldItem.getStatus(), newItem.getStatus());
+        }
+    };
 
     private final Context context;
-    private List<Appointment> appointmentList;
     private OnItemClickListener listener;
     private boolean readOnly = false;
     private boolean showDoctorName = false;
 
     // Interface for click listeners
     public interface OnItemClickListener {
-        void onItemClick(Appointment appointment);
-        void onStatusClick(Appointment appointment);
-        void onEditClick(Appointment appointment);
-        void onDeleteClick(Appointment appointment);
+        void onItemClick(AppointmentRow appointment);
+        void onStatusClick(AppointmentRow appointment);
+        void onEditClick(AppointmentRow appointment);
+        void onDeleteClick(AppointmentRow appointment);
     }
 
-    public AppointmentAdapter(Context context, List<Appointment> appointmentList) {
+    public AppointmentAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.appointmentList = appointmentList;
     }
 
     public void setOnItemClickListener(OnItemClickListener listener) {
@@ -42,13 +67,17 @@ public class AppointmentAdapter extends RecyclerView.Adapter<AppointmentAdapter.
     }
 
     public void setReadOnly(boolean readOnly) {
-        this.readOnly = readOnly;
-        notifyDataSetChanged();
+        if (this.readOnly != readOnly) {
+            this.readOnly = readOnly;
+            notifyItemRangeChanged(0, getItemCount());
+        }
     }
 
     public void setShowDoctorName(boolean showDoctorName) {
-        this.showDoctorName = showDoctorName;
-        notifyDataSetChanged();
+        if (this.showDoctorName != showDoctorName) {
+            this.showDoctorName = showDoctorName;
+            notifyItemRangeChanged(0, getItemCount());
+        }
     }
 
     @NonNull
@@ -60,26 +89,18 @@ public class AppointmentAdapter extends RecyclerView.Adapter<AppointmentAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull AppointmentViewHolder holder, int position) {
-        Appointment appointment = appointmentList.get(position);
-        holder.bind(appointment);
-    }
-
-    @Override
-    public int getItemCount() {
-        return appointmentList != null ? appointmentList.size() : 0;
-    }
-
-    public void updateList(List<Appointment> newList) {
-        this.appointmentList = newList;
-        notifyDataSetChanged();
+        Trace.beginSection("AppointmentAdapter.bind");
+        try {
+            AppointmentRow appointment = getItem(position);
+            holder.bind(appointment);
+        } finally {
+            Trace.endSection();
+        }
     }
 
-    public void removeItem(int position) {
-        if (appointmentList != null && position >= 0 && position < appointmentList.size()) {
-            appointmentList.remove(position);
-            notifyItemRemoved(position);
-            notifyItemRangeChanged(position, appointmentList.size());
-        }
+    // Diff against the shown list in the background; the caller keeps ownership of newList
+    public void updateList(List<AppointmentRow> newList) {
+        submitList(newList != null ? new ArrayList<>(newList) : null);
     }
 
     public class AppointmentViewHolder extends RecyclerView.ViewHolder {
@@ -90,7 +111,7 @@ public class AppointmentAdapter extends RecyclerView.Adapter<AppointmentAdapter.
             this.binding = binding;
         }
 
-        public void bind(final Appointment appointment) {
+        public void bind(final AppointmentRow appointment) {
             // Set name based on mode - show doctor name for patients, patient name for doctors
             if (showDoctorName) {
                 // Patient portal - show doctor name with "Dr." prefix
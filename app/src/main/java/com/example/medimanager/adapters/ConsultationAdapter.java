@@ -1,10 +1,13 @@
 package com.example.medimanager.adapters;
 
 import android.content.Context;
+import android.os.Trace;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.medimanager.R;
@@ -12,12 +15,30 @@ import com.example.medimanager.databinding.ItemConsultationBinding;
 import com.example.medimanager.models.Consultation;
 import com.example.medimanager.utils.DateUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
-public class ConsultationAdapter extends RecyclerView.Adapter<ConsultationAdapter.ConsultationViewHolder> {
+public class ConsultationAdapter extends ListAdapter<Consultation, ConsultationAdapter.ConsultationViewHolder> {
+
+    private static final DiffUtil.ItemCallback<Consultation> DIFF_CALLBACK = new DiffUtil.ItemCallback<Consultation>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Consultation oldItem, @NonNull Consultation newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Consultation oldItem, @NonNull Consultation newItem) {
+            return oldItem.getPatientId() == newItem.getPatientId()
+                    && Objects.equals(oldItem.getConsultationDate(), newItem.getConsultationDate())
+                    && Objects.equals(oldItem.getDiagnosis(), newItem.getDiagnosis())
+                    && Objects.equals(oldItem.getTreatment(), newItem.getTreatment())
+                    && Objects.equals(oldItem.getPrescription(), newItem.getPrescription())
+                    && Objects.equals(oldItem.getNotes(), newItem.getNotes());
+        }
+    };
 
     private final Context context;
-    private List<Consultation> consultationList;
     private OnItemClickListener listener;
 
     public interface OnItemClickListener {
@@ -26,9 +47,9 @@ public class ConsultationAdapter extends RecyclerView.Adapter<ConsultationAdapte
         void onDeleteClick(Consultation consultation);
     }
 
-    public ConsultationAdapter(Context context, List<Consultation> consultationList) {
+    public ConsultationAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.consultationList = consultationList;
     }
 
     public void setOnItemClickListener(OnItemClickListener listener) {
@@ -44,24 +65,18 @@ public class ConsultationAdapter extends RecyclerView.Adapter<ConsultationAdapte
 
     @Override
     public void onBindViewHolder(@NonNull ConsultationViewHolder holder, int position) {
-        Consultation consultation = consultationList.get(position);
-        holder.bind(consultation);
-    }
-
-    @Override
-    public int getItemCount() {
-        return consultationList != null ? consultationList.size() : 0;
+        Trace.beginSection("ConsultationAdapter.bind");
+        try {
+            Consultation consultation = getItem(position);
+            holder.bind(consultation);
+        } finally {
+            Trace.endSection();
+        }
     }
 
+    // Diff against the shown list in the background; the caller keeps ownership of newList
     public void updateList(List<Consultation> newList) {
-        this.consultationList = newList;
-        notifyDataSetChanged();
-    }
-
-    public void removeItem(int position) {
-        consultationList.remove(position);
-        notifyItemRemoved(position);
-        notifyItemRangeChanged(position, consultationList.size());
+        submitList(newList != null ? new ArrayList<>(newList) : null);
     }
 
     public class ConsultationViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,41 @@
+package com.example.medimanager.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Asks for the next page once the last visible item comes within
+ * {@code prefetchDistance} items of the end of the loaded list.
+ */
+public class PagingScrollListener extends RecyclerView.OnScrollListener {
+
+    // Interface for the screen that owns the paged list
+    public interface PageLoader {
+        boolean isLoading();
+        boolean hasMorePages();
+        void loadNextPage();
+    }
+
+    private final LinearLayoutManager layoutManager;
+    private final PageLoader loader;
+    private final int prefetchDistance;
+
+    public PagingScrollListener(LinearLayoutManager layoutManager, int prefetchDistance, PageLoader loader) {
+        this.layoutManager = layoutManager;
+        this.prefetchDistance = prefetchDistance;
+        this.loader = loader;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0 || loader.isLoading() || !loader.hasMorePages()) {
+            return;
+        }
+
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= layoutManager.getItemCount() - prefetchDistance) {
+            loader.loadNextPage();
+        }
+    }
+}
@@ -2,35 +2,58 @@ package com.example.medimanager.adapters;
 
 import android.content.Context;
 import android.graphics.Color;
+import android.os.Trace;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.medimanager.R;
 import com.example.medimanager.databinding.ItemPatientBinding;
-import com.example.medimanager.models.Patient;
+import com.example.medimanager.models.PatientSummary;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
 
-public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientViewHolder> {
+public class PatientAdapter extends ListAdapter<PatientSummary, PatientAdapter.PatientViewHolder> {
+
+    // Rows are matched by id and rebound only when a field differs
+    private static final DiffUtil.ItemCallback<PatientSummary> DIFF_CALLBACK = new DiffUtil.ItemCallback<PatientSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull PatientSummary oldItem, @NonNull PatientSummary newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull PatientSummary oldItem, @NonNull PatientSummary newItem) {
+            return Objects.equals(oldItem.getFirstName(), newItem.getFirstName())
+                    && Objects.equals(oldItem.getLastName(), newItem.getLastName())
+                    && Objects.equals(oldItem.getDateOfBirth(), newItem.getDateOfBirth())
+                    && Objects.equals(oldItem.getGender(), newItem.getGender())
+                    && Objects.equals(oldItem.getPhone(), newItem.getPhone())
+                    && Objects.equals(oldItem.getBloodGroup(), newItem.getBloodGroup())
+                    && Objects.equals(oldItem.getLastVisit(), newItem.getLastVisit());
+        }
+    };
 
     private final Context context;
-    private List<Patient> patientList;
     private OnItemClickListener listener;
 
     // Interface for click listeners
     public interface OnItemClickListener {
-        void onItemClick(Patient patient);
-        void onEditClick(Patient patient);
-        void onDeleteClick(Patient patient);
+        void onItemClick(PatientSummary patient);
+        void onEditClick(PatientSummary patient);
+        void onDeleteClick(PatientSummary patient);
     }
 
-    public PatientAdapter(Context context, List<Patient> patientList) {
+    public PatientAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.patientList = patientList;
     }
 
     public void setOnItemClickListener(OnItemClickListener listener) {
@@ -46,24 +69,18 @@ public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientV
 
     @Override
     public void onBindViewHolder(@NonNull PatientViewHolder holder, int position) {
-        Patient patient = patientList.get(position);
-        holder.bind(patient);
-    }
-
-    @Override
-    public int getItemCount() {
-        return patientList != null ? patientList.size() : 0;
-    }
-
-    public void updateList(List<Patient> newList) {
-        this.patientList = newList;
-        notifyDataSetChanged();
+        Trace.beginSection("PatientAdapter.bind");
+        try {
+            PatientSummary patient = getItem(position);
+            holder.bind(patient);
+        } finally {
+            Trace.endSection();
+        }
     }
 
-    public void removeItem(int position) {
-        patientList.remove(position);
-        notifyItemRemoved(position);
-        notifyItemRangeChanged(position, patientList.size());
+    // Diff against the shown list in the background; the caller keeps ownership of newList
+    public void updateList(List<PatientSummary> newList) {
+        submitList(newList != null ? new ArrayList<>(newList) : null);
     }
 
     private int getRandomAvatarColor() {
@@ -87,7 +104,7 @@ public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientV
             this.binding = binding;
         }
 
-        public void bind(final Patient patient) {
+        public void bind(final PatientSummary patient) {
             // Set patient name
             binding.tvPatientName.setText(patient.getFullName());
 
@@ -111,6 +128,10 @@ public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientV
                 binding.tvBloodGroup.setText(context.getString(com.example.medimanager.R.string.blood_unknown));
             }
 
+            // Set phone
+            String phone = patient.getPhone();
+            binding.tvPhone.setText(phone != null && !phone.isEmpty() ? phone : context.getString(R.string.no_phone));
+
             // Set last visit
             String lastVisit = patient.getLastVisit();
             if (lastVisit != null && !lastVisit.isEmpty()) {
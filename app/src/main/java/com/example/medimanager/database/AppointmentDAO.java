@@ -7,33 +7,97 @@ import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
 import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.AppointmentRow;
 import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class AppointmentDAO {
     private final DatabaseHelper dbHelper;
+    private final DatabaseChangeBus changes = DatabaseChangeBus.getInstance();
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
+    private final StatementPool statements;
     private static final String TAG = "AppointmentDAO";
+    // Ids bound per statement when updating a list of appointments
+    private static final int MAX_BOUND_IDS = 500;
+
+    // Hot statements, compiled once and reused through the StatementPool
+    private static final String INSERT_APPOINTMENT =
+            "INSERT INTO " + DatabaseHelper.TABLE_APPOINTMENTS + " (" +
+                    DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_DOCTOR_ID + ", " +
+                    DatabaseHelper.KEY_APPOINTMENT_DATE + ", " + DatabaseHelper.KEY_APPOINTMENT_TIME + ", " +
+                    DatabaseHelper.KEY_START_MINUTE + ", " + DatabaseHelper.KEY_REASON + ", " +
+                    DatabaseHelper.KEY_STATUS + ", " + DatabaseHelper.KEY_NOTES +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS =
+            "UPDATE " + DatabaseHelper.TABLE_APPOINTMENTS + " SET " + DatabaseHelper.KEY_STATUS +
+                    " = ? WHERE " + DatabaseHelper.KEY_ID + " = ?";
+    private static final String DELETE_APPOINTMENT =
+            "DELETE FROM " + DatabaseHelper.TABLE_APPOINTMENTS + " WHERE " + DatabaseHelper.KEY_ID + " = ?";
+    private static final String COUNT_TODAY =
+            "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND " +
+                    DatabaseHelper.KEY_APPOINTMENT_DATE + " = ?";
+    private static final String COUNT_UPCOMING =
+            "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND (" +
+                    DatabaseHelper.KEY_STATUS + " = '" + Constants.STATUS_SCHEDULED + "' OR " +
+                    DatabaseHelper.KEY_STATUS + " = '" + Constants.STATUS_IN_PROGRESS + "')";
+
+    // List screens show only these columns; notes and timestamps stay behind until an
+    // appointment is opened by id
+    private static final String SELECT_ROWS =
+            "SELECT a." + DatabaseHelper.KEY_ID + ", a." + DatabaseHelper.KEY_PATIENT_ID +
+                    ", a." + DatabaseHelper.KEY_DOCTOR_ID + ", a." + DatabaseHelper.KEY_APPOINTMENT_DATE +
+                    ", a." + DatabaseHelper.KEY_APPOINTMENT_TIME + ", a." + DatabaseHelper.KEY_START_MINUTE +
+                    ", a." + DatabaseHelper.KEY_REASON + ", a." + DatabaseHelper.KEY_STATUS + ", p." +
+                    DatabaseHelper.KEY_FIRST_NAME + " || ' ' || p." + DatabaseHelper.KEY_LAST_NAME +
+                    " as patient_name, u." + DatabaseHelper.KEY_USER_FIRST_NAME + " || ' ' || u." +
+                    DatabaseHelper.KEY_USER_LAST_NAME + " as doctor_name FROM " +
+                    DatabaseHelper.TABLE_APPOINTMENTS + " a " +
+                    "LEFT JOIN " + DatabaseHelper.TABLE_PATIENTS + " p ON a." +
+                    DatabaseHelper.KEY_PATIENT_ID + " = p." + DatabaseHelper.KEY_ID +
+                    " LEFT JOIN " + DatabaseHelper.TABLE_USERS + " u ON a." +
+                    DatabaseHelper.KEY_DOCTOR_ID + " = u." + DatabaseHelper.KEY_ID;
 
     public AppointmentDAO(Context context) {
         dbHelper = DatabaseHelper.getInstance(context);
+        statements = dbHelper.getStatementPool();
     }
 
     // Create
     public long insertAppointment(Appointment appointment) {
+        try {
+            long id = insertRow(appointment);
+            if (id != -1) {
+                changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, id, DatabaseChangeBus.Operation.INSERT);
+            }
+            return id;
+        } finally {
+            AppointmentScheduler.invalidateSchedules();
+        }
+    }
+
+    // Create - Neither publishes nor drops the schedules; for callers that hold a
+    // transaction and do both once it has committed
+    long insertRow(Appointment appointment) {
         SQLiteDatabase database = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.KEY_PATIENT_ID, appointment.getPatientId());
-        values.put(DatabaseHelper.KEY_DOCTOR_ID, appointment.getDoctorId());
-        values.put(DatabaseHelper.KEY_APPOINTMENT_DATE, appointment.getAppointmentDate());
-        values.put(DatabaseHelper.KEY_APPOINTMENT_TIME, appointment.getAppointmentTime());
-        values.put(DatabaseHelper.KEY_REASON, appointment.getReason());
-        values.put(DatabaseHelper.KEY_STATUS, appointment.getStatus());
-        values.put(DatabaseHelper.KEY_NOTES, appointment.getNotes());
+        // The text is kept for display; sorting and scheduling use the numeric start minute
+        appointment.setStartMinute(DateUtils.parseTimeToMinutes(appointment.getAppointmentTime()));
 
         try {
-            return database.insert(DatabaseHelper.TABLE_APPOINTMENTS, null, values);
+            return statements.executeInsert(database, INSERT_APPOINTMENT, statement -> {
+                statement.bindLong(1, appointment.getPatientId());
+                statement.bindLong(2, appointment.getDoctorId());
+                StatementPool.bindText(statement, 3, appointment.getAppointmentDate());
+                StatementPool.bindText(statement, 4, appointment.getAppointmentTime());
+                statement.bindLong(5, appointment.getStartMinute());
+                StatementPool.bindText(statement, 6, appointment.getReason());
+                StatementPool.bindText(statement, 7, appointment.getStatus());
+                StatementPool.bindText(statement, 8, appointment.getNotes());
+            });
         } catch (Exception e) {
             Log.e(TAG, "Error inserting appointment", e);
             return -1;
@@ -73,29 +137,22 @@ public class AppointmentDAO {
     }
 
     // Read - Get all appointments
-    public List<Appointment> getAllAppointments(int doctorId) {
-        List<Appointment> appointments = new ArrayList<>();
+    public List<AppointmentRow> getAllAppointments(int doctorId) {
+        List<AppointmentRow> appointments = new ArrayList<>();
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        String query = "SELECT a.*, p." + DatabaseHelper.KEY_FIRST_NAME + " || ' ' || p." +
-                DatabaseHelper.KEY_LAST_NAME + " as patient_name, " +
-                "u." + DatabaseHelper.KEY_USER_FIRST_NAME + " || ' ' || u." +
-                DatabaseHelper.KEY_USER_LAST_NAME + " as doctor_name FROM " +
-                DatabaseHelper.TABLE_APPOINTMENTS + " a " +
-                "LEFT JOIN " + DatabaseHelper.TABLE_PATIENTS + " p ON a." +
-                DatabaseHelper.KEY_PATIENT_ID + " = p." + DatabaseHelper.KEY_ID +
-                " LEFT JOIN " + DatabaseHelper.TABLE_USERS + " u ON a." +
-                DatabaseHelper.KEY_DOCTOR_ID + " = u." + DatabaseHelper.KEY_ID +
+        String query = SELECT_ROWS +
                 " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ?" +
                 " ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " DESC, a." +
-                DatabaseHelper.KEY_APPOINTMENT_TIME + " DESC";
+                DatabaseHelper.KEY_START_MINUTE + " DESC";
 
         Cursor cursor = null;
         try {
             cursor = database.rawQuery(query, new String[]{String.valueOf(doctorId)});
 
             if (cursor.moveToFirst()) {
+                AppointmentRowColumns columns = new AppointmentRowColumns(cursor);
                 do {
-                    appointments.add(cursorToAppointment(cursor));
+                    appointments.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -110,27 +167,21 @@ public class AppointmentDAO {
     }
 
     // Read - Get appointments by patient
-    public List<Appointment> getAppointmentsByPatient(int patientId) {
-        List<Appointment> appointments = new ArrayList<>();
+    public List<AppointmentRow> getAppointmentsByPatient(int patientId) {
+        List<AppointmentRow> appointments = new ArrayList<>();
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        String query = "SELECT a.*, p." + DatabaseHelper.KEY_FIRST_NAME + " || ' ' || p." +
-                DatabaseHelper.KEY_LAST_NAME + " as patient_name, " +
-                "u." + DatabaseHelper.KEY_USER_FIRST_NAME + " || ' ' || u." +
-                DatabaseHelper.KEY_USER_LAST_NAME + " as doctor_name FROM " +
-                DatabaseHelper.TABLE_APPOINTMENTS + " a " +
-                "LEFT JOIN " + DatabaseHelper.TABLE_PATIENTS + " p ON a." +
-                DatabaseHelper.KEY_PATIENT_ID + " = p." + DatabaseHelper.KEY_ID +
-                " LEFT JOIN " + DatabaseHelper.TABLE_USERS + " u ON a." +
-                DatabaseHelper.KEY_DOCTOR_ID + " = u." + DatabaseHelper.KEY_ID +
+        String query = SELECT_ROWS +
                 " WHERE a." + DatabaseHelper.KEY_PATIENT_ID + " = ?" +
-                " ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " DESC";
+                " ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " DESC, a." +
+                DatabaseHelper.KEY_START_MINUTE + " DESC";
 
         Cursor cursor = null;
         try {
             cursor = database.rawQuery(query, new String[]{String.valueOf(patientId)});
             if (cursor.moveToFirst()) {
+                AppointmentRowColumns columns = new AppointmentRowColumns(cursor);
                 do {
-                    appointments.add(cursorToAppointment(cursor));
+                    appointments.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -145,7 +196,122 @@ public class AppointmentDAO {
     }
 
     // Read - Get today's appointments
-    public List<Appointment> getTodayAppointments(int doctorId, String today) {
+    public List<AppointmentRow> getTodayAppointments(int doctorId, String today) {
+        List<AppointmentRow> appointments = new ArrayList<>();
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        String query = SELECT_ROWS +
+                " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " = ?" +
+                " ORDER BY a." + DatabaseHelper.KEY_START_MINUTE + " ASC";
+
+        Cursor cursor = null;
+        try {
+            cursor = database.rawQuery(query, new String[]{String.valueOf(doctorId), today});
+
+            if (cursor.moveToFirst()) {
+                AppointmentRowColumns columns = new AppointmentRowColumns(cursor);
+                do {
+                    appointments.add(columns.read(cursor));
+                } while (cursor.moveToNext());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading today's appointments", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return appointments;
+    }
+
+    // Read - Get appointments by status
+    public List<AppointmentRow> getAppointmentsByStatus(int doctorId, String status) {
+        List<AppointmentRow> appointments = new ArrayList<>();
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        String query = SELECT_ROWS +
+                " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND a." + DatabaseHelper.KEY_STATUS + " = ?" +
+                " ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " DESC, a." +
+                DatabaseHelper.KEY_START_MINUTE + " DESC";
+
+        Cursor cursor = null;
+        try {
+            cursor = database.rawQuery(query, new String[]{String.valueOf(doctorId), status});
+
+            if (cursor.moveToFirst()) {
+                AppointmentRowColumns columns = new AppointmentRowColumns(cursor);
+                do {
+                    appointments.add(columns.read(cursor));
+                } while (cursor.moveToNext());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading appointments by status", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return appointments;
+    }
+
+    // Read - One keyset page of a doctor's appointments, newest first.
+    // Pass the last appointment of the previous page as "after" (null for the first page)
+    // and null status for all statuses.
+    public List<AppointmentRow> getAppointmentsPage(int doctorId, String status, AppointmentRow after, int limit) {
+        List<AppointmentRow> appointments = new ArrayList<>();
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        List<String> args = new ArrayList<>();
+        StringBuilder query = new StringBuilder(SELECT_ROWS +
+                " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ?");
+        args.add(String.valueOf(doctorId));
+
+        if (status != null) {
+            query.append(" AND a." + DatabaseHelper.KEY_STATUS + " = ?");
+            args.add(status);
+        }
+
+        if (after != null) {
+            // (date, start_minute, id) < (after.date, after.start_minute, after.id), written out
+            // because row values are not available on older SQLite; the leading bound lets the index seek
+            query.append(" AND a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " <= ? AND (a." +
+                    DatabaseHelper.KEY_APPOINTMENT_DATE + " < ? OR a." +
+                    DatabaseHelper.KEY_START_MINUTE + " < ? OR (a." +
+                    DatabaseHelper.KEY_START_MINUTE + " = ? AND a." +
+                    DatabaseHelper.KEY_ID + " < ?))");
+            args.add(after.getAppointmentDate());
+            args.add(after.getAppointmentDate());
+            args.add(String.valueOf(after.getStartMinute()));
+            args.add(String.valueOf(after.getStartMinute()));
+            args.add(String.valueOf(after.getId()));
+        }
+
+        query.append(" ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " DESC, a." +
+                DatabaseHelper.KEY_START_MINUTE + " DESC, a." +
+                DatabaseHelper.KEY_ID + " DESC LIMIT " + limit);
+
+        Cursor cursor = null;
+        try {
+            cursor = database.rawQuery(query.toString(), args.toArray(new String[0]));
+
+            if (cursor.moveToFirst()) {
+                AppointmentRowColumns columns = new AppointmentRowColumns(cursor);
+                do {
+                    appointments.add(columns.read(cursor));
+                } while (cursor.moveToNext());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading appointments page", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return appointments;
+    }
+
+    // Read - A doctor's appointments on one day starting in [fromMinute, toMinute)
+    public List<Appointment> getAppointmentsInRange(int doctorId, String date, int fromMinute, int toMinute) {
         List<Appointment> appointments = new ArrayList<>();
         SQLiteDatabase database = dbHelper.getReadableDatabase();
         String query = "SELECT a.*, p." + DatabaseHelper.KEY_FIRST_NAME + " || ' ' || p." +
@@ -157,20 +323,25 @@ public class AppointmentDAO {
                 DatabaseHelper.KEY_PATIENT_ID + " = p." + DatabaseHelper.KEY_ID +
                 " LEFT JOIN " + DatabaseHelper.TABLE_USERS + " u ON a." +
                 DatabaseHelper.KEY_DOCTOR_ID + " = u." + DatabaseHelper.KEY_ID +
-                " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " = ?" +
-                " ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_TIME + " ASC";
+                " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND a." +
+                DatabaseHelper.KEY_APPOINTMENT_DATE + " = ? AND a." +
+                DatabaseHelper.KEY_START_MINUTE + " >= ? AND a." +
+                DatabaseHelper.KEY_START_MINUTE + " < ?" +
+                " ORDER BY a." + DatabaseHelper.KEY_START_MINUTE + " ASC";
 
         Cursor cursor = null;
         try {
-            cursor = database.rawQuery(query, new String[]{String.valueOf(doctorId), today});
+            cursor = database.rawQuery(query, new String[]{
+                    String.valueOf(doctorId), date, String.valueOf(fromMinute), String.valueOf(toMinute)});
 
             if (cursor.moveToFirst()) {
+                AppointmentColumns columns = new AppointmentColumns(cursor);
                 do {
-                    appointments.add(cursorToAppointment(cursor));
+                    appointments.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error loading today's appointments", e);
+            Log.e(TAG, "Error loading appointments in range", e);
         } finally {
             if (cursor != null) {
                 cursor.close();
@@ -180,33 +351,75 @@ public class AppointmentDAO {
         return appointments;
     }
 
-    // Read - Get appointments by status
-    public List<Appointment> getAppointmentsByStatus(int doctorId, String status) {
+    // Read - Earliest scheduled appointment not yet reminded that starts after (date, minute),
+    // for arming the reminder alarm
+    public Appointment getNextScheduledAppointment(String afterDate, int afterMinute) {
+        Appointment appointment = null;
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        // The literals let SQLite use the partial idx_appointments_reminder_due
+        String query = "SELECT * FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
+                " WHERE " + DatabaseHelper.KEY_STATUS + " = '" + Constants.STATUS_SCHEDULED + "'" +
+                " AND " + DatabaseHelper.KEY_REMINDED + " = 0" +
+                " AND " + DatabaseHelper.KEY_APPOINTMENT_DATE + " >= ?" +
+                " AND (" + DatabaseHelper.KEY_APPOINTMENT_DATE + " > ? OR " +
+                DatabaseHelper.KEY_START_MINUTE + " > ?)" +
+                " ORDER BY " + DatabaseHelper.KEY_APPOINTMENT_DATE + " ASC, " +
+                DatabaseHelper.KEY_START_MINUTE + " ASC LIMIT 1";
+
+        Cursor cursor = null;
+        try {
+            cursor = database.rawQuery(query, new String[]{
+                    afterDate, afterDate, String.valueOf(afterMinute)});
+
+            if (cursor.moveToFirst()) {
+                appointment = cursorToAppointment(cursor);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading next scheduled appointment", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return appointment;
+    }
+
+    // Read - Scheduled appointments not yet reminded starting after (fromDate, fromMinute) and
+    // at or before (toDate, toMinute), with patient names, for delivering a batch of reminders
+    public List<Appointment> getScheduledAppointmentsBetween(String fromDate, int fromMinute,
+                                                             String toDate, int toMinute) {
         List<Appointment> appointments = new ArrayList<>();
         SQLiteDatabase database = dbHelper.getReadableDatabase();
         String query = "SELECT a.*, p." + DatabaseHelper.KEY_FIRST_NAME + " || ' ' || p." +
-                DatabaseHelper.KEY_LAST_NAME + " as patient_name, " +
-                "u." + DatabaseHelper.KEY_USER_FIRST_NAME + " || ' ' || u." +
-                DatabaseHelper.KEY_USER_LAST_NAME + " as doctor_name FROM " +
+                DatabaseHelper.KEY_LAST_NAME + " as patient_name FROM " +
                 DatabaseHelper.TABLE_APPOINTMENTS + " a " +
                 "LEFT JOIN " + DatabaseHelper.TABLE_PATIENTS + " p ON a." +
                 DatabaseHelper.KEY_PATIENT_ID + " = p." + DatabaseHelper.KEY_ID +
-                " LEFT JOIN " + DatabaseHelper.TABLE_USERS + " u ON a." +
-                DatabaseHelper.KEY_DOCTOR_ID + " = u." + DatabaseHelper.KEY_ID +
-                " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND a." + DatabaseHelper.KEY_STATUS + " = ?" +
-                " ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " DESC";
+                " WHERE a." + DatabaseHelper.KEY_STATUS + " = '" + Constants.STATUS_SCHEDULED + "'" +
+                " AND a." + DatabaseHelper.KEY_REMINDED + " = 0" +
+                " AND a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " >= ?" +
+                " AND a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " <= ?" +
+                " AND (a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " > ? OR a." +
+                DatabaseHelper.KEY_START_MINUTE + " > ?)" +
+                " AND (a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " < ? OR a." +
+                DatabaseHelper.KEY_START_MINUTE + " <= ?)" +
+                " ORDER BY a." + DatabaseHelper.KEY_APPOINTMENT_DATE + " ASC, a." +
+                DatabaseHelper.KEY_START_MINUTE + " ASC";
 
         Cursor cursor = null;
         try {
-            cursor = database.rawQuery(query, new String[]{String.valueOf(doctorId), status});
+            cursor = database.rawQuery(query, new String[]{
+                    fromDate, toDate, fromDate, String.valueOf(fromMinute), toDate, String.valueOf(toMinute)});
 
             if (cursor.moveToFirst()) {
+                AppointmentColumns columns = new AppointmentColumns(cursor);
                 do {
-                    appointments.add(cursorToAppointment(cursor));
+                    appointments.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error loading appointments by status", e);
+            Log.e(TAG, "Error loading due appointments", e);
         } finally {
             if (cursor != null) {
                 cursor.close();
@@ -218,45 +431,109 @@ public class AppointmentDAO {
 
     // Update
     public int updateAppointment(Appointment appointment) {
+        try {
+            int rows = updateRow(appointment);
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, appointment.getId(), DatabaseChangeBus.Operation.UPDATE);
+            }
+            return rows;
+        } finally {
+            AppointmentScheduler.invalidateSchedules();
+        }
+    }
+
+    // Update - Neither publishes nor drops the schedules, like insertRow
+    int updateRow(Appointment appointment) {
         SQLiteDatabase database = dbHelper.getWritableDatabase();
         ContentValues values = new ContentValues();
         values.put(DatabaseHelper.KEY_PATIENT_ID, appointment.getPatientId());
         values.put(DatabaseHelper.KEY_DOCTOR_ID, appointment.getDoctorId());
         values.put(DatabaseHelper.KEY_APPOINTMENT_DATE, appointment.getAppointmentDate());
         values.put(DatabaseHelper.KEY_APPOINTMENT_TIME, appointment.getAppointmentTime());
+        // The text is kept for display; sorting and scheduling use the numeric start minute
+        appointment.setStartMinute(DateUtils.parseTimeToMinutes(appointment.getAppointmentTime()));
+        values.put(DatabaseHelper.KEY_START_MINUTE, appointment.getStartMinute());
         values.put(DatabaseHelper.KEY_REASON, appointment.getReason());
         values.put(DatabaseHelper.KEY_STATUS, appointment.getStatus());
         values.put(DatabaseHelper.KEY_NOTES, appointment.getNotes());
 
         try {
-            return database.update(
+            long start = System.nanoTime();
+            int rows = database.update(
                     DatabaseHelper.TABLE_APPOINTMENTS,
                     values,
                     DatabaseHelper.KEY_ID + " = ?",
                     new String[]{String.valueOf(appointment.getId())}
             );
+            profiler.recordWrite("UPDATE " + DatabaseHelper.TABLE_APPOINTMENTS, start, rows);
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error updating appointment", e);
             return 0;
         }
     }
 
-    // Update status only
-    public int updateAppointmentStatus(int id, String status) {
+    // Update - Flag appointments whose reminder has gone out, so no later batch repeats it.
+    // All or nothing: returns appointments.size(), or 0 with nothing flagged if any row fails.
+    // Not published: no screen shows the flag, and the caller re-arms the alarm itself
+    public int markReminded(List<Appointment> appointments) {
+        if (appointments.isEmpty()) {
+            return 0;
+        }
         SQLiteDatabase database = dbHelper.getWritableDatabase();
         ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.KEY_STATUS, status);
+        values.put(DatabaseHelper.KEY_REMINDED, 1);
 
+        int flagged = 0;
+        database.beginTransactionNonExclusive();
         try {
-            return database.update(
-                    DatabaseHelper.TABLE_APPOINTMENTS,
-                    values,
-                    DatabaseHelper.KEY_ID + " = ?",
-                    new String[]{String.valueOf(id)}
-            );
+            // Chunked to stay under SQLite's bound-parameter limit (999 before 3.32)
+            for (int from = 0; from < appointments.size(); from += MAX_BOUND_IDS) {
+                int to = Math.min(from + MAX_BOUND_IDS, appointments.size());
+                StringBuilder placeholders = new StringBuilder();
+                String[] ids = new String[to - from];
+                for (int i = 0; i < ids.length; i++) {
+                    placeholders.append(i == 0 ? "?" : ", ?");
+                    ids[i] = String.valueOf(appointments.get(from + i).getId());
+                }
+
+                long start = System.nanoTime();
+                int rows = database.update(DatabaseHelper.TABLE_APPOINTMENTS, values,
+                        DatabaseHelper.KEY_ID + " IN (" + placeholders + ")", ids);
+                profiler.recordWrite("UPDATE " + DatabaseHelper.TABLE_APPOINTMENTS, start, rows);
+                flagged += rows;
+            }
+            if (flagged != appointments.size()) {
+                Log.e(TAG, "Flagged " + flagged + " of " + appointments.size() + " reminded appointments");
+                return 0;
+            }
+            database.setTransactionSuccessful();
+            return flagged;
+        } catch (Exception e) {
+            Log.e(TAG, "Error marking appointments reminded", e);
+            return 0;
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    // Update status only
+    public int updateAppointmentStatus(int id, String status) {
+        SQLiteDatabase database = dbHelper.getWritableDatabase();
+        try {
+            int rows = statements.executeUpdateDelete(database, UPDATE_STATUS, statement -> {
+                StatementPool.bindText(statement, 1, status);
+                statement.bindLong(2, id);
+            });
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, id, DatabaseChangeBus.Operation.UPDATE);
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error updating appointment status", e);
             return 0;
+        } finally {
+            AppointmentScheduler.invalidateSchedules();
         }
     }
 
@@ -264,97 +541,147 @@ public class AppointmentDAO {
     public int deleteAppointment(int id) {
         SQLiteDatabase database = dbHelper.getWritableDatabase();
         try {
-            return database.delete(
-                    DatabaseHelper.TABLE_APPOINTMENTS,
-                    DatabaseHelper.KEY_ID + " = ?",
-                    new String[]{String.valueOf(id)}
-            );
+            int rows = statements.executeUpdateDelete(database, DELETE_APPOINTMENT,
+                    statement -> statement.bindLong(1, id));
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, id, DatabaseChangeBus.Operation.DELETE);
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error deleting appointment", e);
             return 0;
+        } finally {
+            AppointmentScheduler.invalidateSchedules();
         }
     }
 
     // Statistics
         public int getTodayAppointmentsCount(int doctorId, String today) {
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        int count = 0;
-        Cursor cursor = null;
         try {
-            cursor = database.rawQuery(
-                    "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
-                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND " +
-                    DatabaseHelper.KEY_APPOINTMENT_DATE + " = ?",
-                new String[]{String.valueOf(doctorId), today}
-            );
-
-            if (cursor.moveToFirst()) {
-                count = cursor.getInt(0);
-            }
+            return (int) statements.simpleQueryForLong(database, COUNT_TODAY, statement -> {
+                statement.bindLong(1, doctorId);
+                StatementPool.bindText(statement, 2, today);
+            });
         } catch (Exception e) {
             Log.e(TAG, "Error counting today's appointments", e);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            return 0;
         }
-
-        return count;
     }
 
         public int getUpcomingAppointmentsCount(int doctorId) {
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        int count = 0;
-        Cursor cursor = null;
         try {
-            cursor = database.rawQuery(
-                    "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
-                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND (" +
-                    DatabaseHelper.KEY_STATUS + " = '" + Constants.STATUS_SCHEDULED + "' OR " +
-                    DatabaseHelper.KEY_STATUS + " = '" + Constants.STATUS_IN_PROGRESS + "')",
-                new String[]{String.valueOf(doctorId)}
-            );
-
-            if (cursor.moveToFirst()) {
-                count = cursor.getInt(0);
-            }
+            return (int) statements.simpleQueryForLong(database, COUNT_UPCOMING,
+                    statement -> statement.bindLong(1, doctorId));
         } catch (Exception e) {
             Log.e(TAG, "Error counting upcoming appointments", e);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            return 0;
         }
-
-        return count;
     }
 
-    // Helper method
+    // Helper method - Map a single row; loops over many rows resolve AppointmentColumns once instead
     private Appointment cursorToAppointment(Cursor cursor) {
-        Appointment appointment = new Appointment();
-
-        appointment.setId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ID)));
-        appointment.setPatientId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PATIENT_ID)));
-        appointment.setDoctorId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DOCTOR_ID)));
-        appointment.setAppointmentDate(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_DATE)));
-        appointment.setAppointmentTime(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_TIME)));
-        appointment.setReason(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_REASON)));
-        appointment.setStatus(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_STATUS)));
-        appointment.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_NOTES)));
-        appointment.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_CREATED_AT)));
-
-        // Get patient name from JOIN
-        int nameIndex = cursor.getColumnIndex("patient_name");
-        if (nameIndex != -1) {
-            appointment.setPatientName(cursor.getString(nameIndex));
+        return new AppointmentColumns(cursor).read(cursor);
+    }
+
+    /**
+     * Column positions of an appointment cursor, looked up once per cursor so that
+     * mapping a row is only positional reads. Package-private for CursorMappingBenchmark.
+     */
+    static final class AppointmentColumns {
+        private final int id;
+        private final int patientId;
+        private final int doctorId;
+        private final int date;
+        private final int time;
+        private final int startMinute;
+        private final int reason;
+        private final int status;
+        private final int notes;
+        private final int createdAt;
+        // Present only when the query joins the patient or doctor name
+        private final int patientName;
+        private final int doctorName;
+
+        AppointmentColumns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ID);
+            patientId = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PATIENT_ID);
+            doctorId = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DOCTOR_ID);
+            date = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_DATE);
+            time = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_TIME);
+            startMinute = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_START_MINUTE);
+            reason = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_REASON);
+            status = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_STATUS);
+            notes = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_NOTES);
+            createdAt = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_CREATED_AT);
+            patientName = cursor.getColumnIndex("patient_name");
+            doctorName = cursor.getColumnIndex("doctor_name");
+        }
+
+        Appointment read(Cursor cursor) {
+            Appointment appointment = new Appointment();
+            appointment.setId(cursor.getInt(id));
+            appointment.setPatientId(cursor.getInt(patientId));
+            appointment.setDoctorId(cursor.getInt(doctorId));
+            appointment.setAppointmentDate(cursor.getString(date));
+            appointment.setAppointmentTime(cursor.getString(time));
+            appointment.setStartMinute(cursor.getInt(startMinute));
+            appointment.setReason(cursor.getString(reason));
+            appointment.setStatus(cursor.getString(status));
+            appointment.setNotes(cursor.getString(notes));
+            appointment.setCreatedAt(cursor.getString(createdAt));
+            if (patientName != -1) {
+                appointment.setPatientName(cursor.getString(patientName));
+            }
+            if (doctorName != -1) {
+                appointment.setDoctorName(cursor.getString(doctorName));
+            }
+            return appointment;
         }
+    }
 
-        // Get doctor name from JOIN
-        int doctorNameIndex = cursor.getColumnIndex("doctor_name");
-        if (doctorNameIndex != -1) {
-            appointment.setDoctorName(cursor.getString(doctorNameIndex));
+    /**
+     * Column positions of a SELECT_ROWS cursor, looked up once per cursor.
+     */
+    private static final class AppointmentRowColumns {
+        private final int id;
+        private final int patientId;
+        private final int doctorId;
+        private final int date;
+        private final int time;
+        private final int startMinute;
+        private final int reason;
+        private final int status;
+        private final int patientName;
+        private final int doctorName;
+
+        AppointmentRowColumns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ID);
+            patientId = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PATIENT_ID);
+            doctorId = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DOCTOR_ID);
+            date = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_DATE);
+            time = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_TIME);
+            startMinute = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_START_MINUTE);
+            reason = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_REASON);
+            status = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_STATUS);
+            patientName = cursor.getColumnIndexOrThrow("patient_name");
+            doctorName = cursor.getColumnIndexOrThrow("doctor_name");
         }
 
-        return appointment;
+        AppointmentRow read(Cursor cursor) {
+            AppointmentRow row = new AppointmentRow();
+            row.setId(cursor.getInt(id));
+            row.setPatientId(cursor.getInt(patientId));
+            row.setDoctorId(cursor.getInt(doctorId));
+            row.setAppointmentDate(cursor.getString(date));
+            row.setAppointmentTime(cursor.getString(time));
+            row.setStartMinute(cursor.getInt(startMinute));
+            row.setReason(cursor.getString(reason));
+            row.setStatus(cursor.getString(status));
+            row.setPatientName(cursor.getString(patientName));
+            row.setDoctorName(cursor.getString(doctorName));
+            return row;
+        }
     }
 }
@@ -0,0 +1,269 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.medimanager.models.Appointment;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Checks a doctor's day for overlapping bookings and suggests free slots.
+ *
+ * Each doctor/day is loaded once through AppointmentDAO.getAppointmentsInRange (an index
+ * seek on doctor, date and start minute) into a {@link DaySchedule}, which keeps the
+ * bookings in a TreeMap ordered by start minute. A slot check is then a single range
+ * lookup. Every appointment lasts APPOINTMENT_DURATION_MINUTES; pending requests and
+ * cancelled appointments do not hold their slot.
+ *
+ * Day schedules are cached across instances and dropped by AppointmentDAO on every write.
+ * Saving a booking goes through {@link #book}, which checks the slot against the database
+ * inside the write's transaction rather than against the cache.
+ */
+public class AppointmentScheduler {
+
+    private static final ModelCache<String, DaySchedule> schedules =
+            new ModelCache<>(Constants.SCHEDULE_CACHE_SIZE, schedule -> schedule);
+
+    private final DatabaseHelper dbHelper;
+    private final AppointmentDAO appointmentDAO;
+
+    public AppointmentScheduler(Context context) {
+        dbHelper = DatabaseHelper.getInstance(context);
+        appointmentDAO = new AppointmentDAO(context);
+    }
+
+    /**
+     * Outcome of a slot check: the first overlapping booking, if any, and the next free
+     * slots after the requested start.
+     */
+    public static final class SlotCheck {
+        private final int startMinute;
+        private final Appointment conflict;
+        private final List<Integer> alternatives;
+
+        SlotCheck(int startMinute, Appointment conflict, List<Integer> alternatives) {
+            this.startMinute = startMinute;
+            this.conflict = conflict;
+            this.alternatives = alternatives;
+        }
+
+        public boolean isFree() {
+            return conflict == null;
+        }
+
+        public int getStartMinute() {
+            return startMinute;
+        }
+
+        public Appointment getConflict() {
+            return conflict;
+        }
+
+        // Start minutes of free slots, earliest first; empty when the slot itself is free
+        public List<Integer> getAlternatives() {
+            return alternatives;
+        }
+    }
+
+    /**
+     * Outcome of {@link #book}: the slot check and, when the slot was free, the result of
+     * the write (the new row id for an insert, the updated row count otherwise).
+     */
+    public static final class Booking {
+        private final SlotCheck check;
+        private final long result;
+
+        Booking(SlotCheck check, long result) {
+            this.check = check;
+            this.result = result;
+        }
+
+        public boolean isSaved() {
+            return check.isFree() && result > 0;
+        }
+
+        public SlotCheck getSlotCheck() {
+            return check;
+        }
+
+        public long getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * Check an appointment's slot and save the appointment if it is free: inserted when it
+     * has no id yet, updated otherwise. The day is read inside the write's transaction,
+     * which holds the database's write lock, so no other booking can take the slot between
+     * the check and the write. Appointments that do not hold a slot are saved unchecked.
+     * Writes; call it on the writer thread.
+     */
+    public Booking book(Appointment appointment) {
+        SQLiteDatabase database = dbHelper.getWritableDatabase();
+        boolean insert = appointment.getId() <= 0;
+        Booking booking;
+        database.beginTransactionNonExclusive();
+        try {
+            int startMinute = DateUtils.parseTimeToMinutes(appointment.getAppointmentTime());
+            SlotCheck check = DaySchedule.holdsSlot(appointment) && startMinute >= 0
+                    ? check(startMinute, appointment.getId(),
+                            loadDaySchedule(appointment.getDoctorId(), appointment.getAppointmentDate()))
+                    : new SlotCheck(startMinute, null, Collections.emptyList());
+            if (!check.isFree()) {
+                return new Booking(check, 0);
+            }
+
+            long result = insert
+                    ? appointmentDAO.insertRow(appointment)
+                    : appointmentDAO.updateRow(appointment);
+            if (result > 0) {
+                database.setTransactionSuccessful();
+            }
+            booking = new Booking(check, result);
+        } finally {
+            database.endTransaction();
+        }
+
+        // Only now is the write visible to other connections
+        if (booking.isSaved()) {
+            invalidateSchedules();
+            DatabaseChangeBus.getInstance().publish(DatabaseHelper.TABLE_APPOINTMENTS,
+                    insert ? booking.getResult() : appointment.getId(),
+                    insert ? DatabaseChangeBus.Operation.INSERT : DatabaseChangeBus.Operation.UPDATE);
+        }
+        return booking;
+    }
+
+    /**
+     * Check whether an appointment's date and time are free for its doctor. The
+     * appointment itself is ignored, so an edit does not conflict with its old slot.
+     */
+    public SlotCheck checkSlot(Appointment appointment) {
+        int startMinute = DateUtils.parseTimeToMinutes(appointment.getAppointmentTime());
+        return checkSlot(appointment.getDoctorId(), appointment.getAppointmentDate(), startMinute,
+                appointment.getId());
+    }
+
+    public SlotCheck checkSlot(int doctorId, String date, int startMinute, int ignoreAppointmentId) {
+        if (startMinute < 0) {
+            // Unparseable time, nothing to compare against
+            return new SlotCheck(startMinute, null, Collections.emptyList());
+        }
+        return check(startMinute, ignoreAppointmentId, getDaySchedule(doctorId, date));
+    }
+
+    private static SlotCheck check(int startMinute, int ignoreAppointmentId, DaySchedule schedule) {
+
+        Appointment conflict = schedule.findConflict(startMinute,
+                Constants.APPOINTMENT_DURATION_MINUTES, ignoreAppointmentId);
+        if (conflict == null) {
+            return new SlotCheck(startMinute, null, Collections.emptyList());
+        }
+
+        List<Integer> alternatives = schedule.findFreeSlots(startMinute,
+                Constants.SUGGESTED_SLOT_COUNT, ignoreAppointmentId);
+        return new SlotCheck(startMinute, new Appointment(conflict), alternatives);
+    }
+
+    /**
+     * Start minutes of the next {@code count} free slots at or after {@code fromMinute}
+     * within working hours.
+     */
+    public List<Integer> findFreeSlots(int doctorId, String date, int fromMinute, int count) {
+        return getDaySchedule(doctorId, date).findFreeSlots(fromMinute, count, -1);
+    }
+
+    // Cache - Drop every day schedule; called after any appointment write
+    static void invalidateSchedules() {
+        schedules.invalidateAll();
+    }
+
+    private DaySchedule getDaySchedule(int doctorId, String date) {
+        String key = doctorId + "/" + date;
+        DaySchedule schedule = schedules.get(key);
+        if (schedule != null) {
+            return schedule;
+        }
+
+        long generation = schedules.generation();
+        schedule = loadDaySchedule(doctorId, date);
+        schedules.putIfCurrent(key, schedule, generation);
+        return schedule;
+    }
+
+    private DaySchedule loadDaySchedule(int doctorId, String date) {
+        return new DaySchedule(appointmentDAO.getAppointmentsInRange(doctorId, date, 0, 24 * 60));
+    }
+
+    /**
+     * Immutable interval index over one doctor's bookings for one day.
+     */
+    static final class DaySchedule {
+        // Keyed by start minute in the high bits and appointment id in the low bits,
+        // so bookings that start at the same minute each keep an entry
+        private final TreeMap<Long, Appointment> bookings = new TreeMap<>();
+
+        DaySchedule(List<Appointment> appointments) {
+            for (Appointment appointment : appointments) {
+                if (holdsSlot(appointment) && appointment.getStartMinute() >= 0) {
+                    bookings.put(key(appointment.getStartMinute(), appointment.getId()), appointment);
+                }
+            }
+        }
+
+        /**
+         * First booking overlapping [startMinute, startMinute + duration), or null.
+         * Bookings all have the same length, so only those starting within one
+         * duration before the slot can reach into it.
+         */
+        Appointment findConflict(int startMinute, int duration, int ignoreAppointmentId) {
+            long from = key(startMinute - Constants.APPOINTMENT_DURATION_MINUTES + 1, 0);
+            long to = key(startMinute + duration, 0);
+            for (Appointment booking : bookings.subMap(from, true, to, false).values()) {
+                if (booking.getId() != ignoreAppointmentId) {
+                    return booking;
+                }
+            }
+            return null;
+        }
+
+        List<Integer> findFreeSlots(int fromMinute, int count, int ignoreAppointmentId) {
+            int duration = Constants.APPOINTMENT_DURATION_MINUTES;
+            List<Integer> slots = new ArrayList<>(count);
+            int candidate = alignToSlot(Math.max(fromMinute, Constants.WORKDAY_START_MINUTE));
+            while (slots.size() < count && candidate + duration <= Constants.WORKDAY_END_MINUTE) {
+                Appointment conflict = findConflict(candidate, duration, ignoreAppointmentId);
+                if (conflict == null) {
+                    slots.add(candidate);
+                    candidate += duration;
+                } else {
+                    // Skip straight past the booking that is in the way
+                    candidate = alignToSlot(conflict.getStartMinute() + duration);
+                }
+            }
+            return slots;
+        }
+
+        private static boolean holdsSlot(Appointment appointment) {
+            return !appointment.isPending() && !appointment.isCancelled();
+        }
+
+        private static long key(int startMinute, int appointmentId) {
+            return ((long) startMinute << 32) | (appointmentId & 0xFFFFFFFFL);
+        }
+
+        // Round up to the slot grid that starts at the beginning of the working day
+        private static int alignToSlot(int minute) {
+            int duration = Constants.APPOINTMENT_DURATION_MINUTES;
+            int offset = minute - Constants.WORKDAY_START_MINUTE;
+            int slots = (offset + duration - 1) / duration;
+            return Constants.WORKDAY_START_MINUTE + Math.max(0, slots) * duration;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.medimanager.database;
+
+import android.os.Trace;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs PatientDAO / AppointmentDAO / ConsultationDAO calls off the main thread.
+ *
+ * Reads go to the shared reader pool, writes to the single writer executor so they
+ * stay serialized. Results are delivered on the main thread. When the owning
+ * lifecycle (a fragment view or an activity) is destroyed, queued reads are
+ * cancelled and no further callbacks are delivered; writes already submitted still
+ * run to completion.
+ *
+ * Observed queries re-run when {@link DatabaseChangeBus} reports a change their filter
+ * matches. While the owner is stopped, matching changes only mark the query stale and
+ * it re-runs once when the owner starts again, so a burst of edits made on another
+ * screen costs one reload per affected query on return.
+ *
+ * A task that throws is logged and, if an ErrorCallback was given, reported on the main
+ * thread, so a screen can re-enable what it disabled while the task ran.
+ *
+ * Each query and each delivered result is a trace section named after the owner and
+ * the read key ("PatientsFragment patients"), so a system trace shows every screen's
+ * load path on both threads.
+ */
+public class AsyncDAO implements LifecycleEventObserver, DatabaseChangeBus.Listener {
+
+    private static final String TAG = "AsyncDAO";
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public interface ErrorCallback {
+        void onError(Throwable error);
+    }
+
+    private static final class Observer {
+        final DatabaseChangeBus.ChangeFilter filter;
+        final Runnable refresh;
+        boolean stale;
+
+        Observer(DatabaseChangeBus.ChangeFilter filter, Runnable refresh) {
+            this.filter = filter;
+            this.refresh = refresh;
+        }
+    }
+
+    private final DatabaseExecutors executors;
+    private final Lifecycle lifecycle;
+    private final String traceName;
+    private final Map<Object, FutureTask<?>> pendingReads = new ConcurrentHashMap<>();
+    // Only touched on the main thread
+    private final Map<Object, Observer> observers = new LinkedHashMap<>();
+    private volatile boolean cancelled = false;
+
+    public AsyncDAO(LifecycleOwner owner) {
+        this(owner, owner.getClass().getSimpleName());
+    }
+
+    /**
+     * For fragments, whose view lifecycle owner does not say which screen it belongs to:
+     * traceName labels this instance's trace sections.
+     */
+    public AsyncDAO(LifecycleOwner owner, String traceName) {
+        executors = DatabaseExecutors.getInstance();
+        lifecycle = owner.getLifecycle();
+        lifecycle.addObserver(this);
+        this.traceName = traceName;
+    }
+
+    /**
+     * Run a query on the reader pool and deliver its result on the main thread.
+     */
+    public <T> void read(Callable<T> query, Callback<T> callback) {
+        read(null, query, callback);
+    }
+
+    /**
+     * Same as {@link #read(Callable, Callback)}, but a newer read submitted with the
+     * same key supersedes this one, so a slow stale result never overwrites a fresh one.
+     */
+    public <T> void read(Object key, Callable<T> query, Callback<T> callback) {
+        read(key, query, callback, null);
+    }
+
+    /**
+     * Same as {@link #read(Object, Callable, Callback)}, with onError called on the main
+     * thread instead of callback if the query throws.
+     */
+    public <T> void read(Object key, Callable<T> query, Callback<T> callback, ErrorCallback onError) {
+        if (cancelled) {
+            return;
+        }
+
+        final Object taskKey = key != null ? key : new Object();
+        String section = sectionName(key instanceof String ? (String) key : "read");
+        FutureTask<T> task = new FutureTask<T>(traced(section, query)) {
+            @Override
+            protected void done() {
+                pendingReads.remove(taskKey, this);
+                deliver(this, section, callback, onError);
+            }
+        };
+
+        FutureTask<?> previous = pendingReads.put(taskKey, task);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        execute(executors.reader(), task, onError);
+    }
+
+    /**
+     * Run a query now and again after every change matching {@code filter}, delivering
+     * each result on the main thread. Observing again with the same key replaces the
+     * previous query. Must be called on the main thread.
+     */
+    public <T> void observe(Object key, DatabaseChangeBus.ChangeFilter filter,
+                            Callable<T> query, Callback<T> callback) {
+        Runnable refresh = () -> read(key, query, callback);
+        onChange(key, filter, refresh);
+        refresh.run();
+    }
+
+    /**
+     * Run {@code action} on the main thread after every change matching {@code filter},
+     * for screens whose reload is more than a single query (paging, search).
+     * Must be called on the main thread.
+     */
+    public void onChange(Object key, DatabaseChangeBus.ChangeFilter filter, Runnable action) {
+        if (cancelled) {
+            return;
+        }
+        if (observers.isEmpty()) {
+            DatabaseChangeBus.getInstance().register(this);
+        }
+        observers.put(key, new Observer(filter, action));
+    }
+
+    @Override
+    public void onDatabaseChanged(List<DatabaseChangeBus.Change> changes) {
+        if (cancelled) {
+            return;
+        }
+        boolean started = lifecycle.getCurrentState().isAtLeast(Lifecycle.State.STARTED);
+        for (Observer observer : new ArrayList<>(observers.values())) {
+            if (!affects(observer.filter, changes)) {
+                continue;
+            }
+            if (started) {
+                observer.stale = false;
+                observer.refresh.run();
+            } else {
+                observer.stale = true;
+            }
+        }
+    }
+
+    /**
+     * Run a write on the serialized writer executor and deliver its result on the main thread.
+     */
+    public <T> void write(Callable<T> operation, Callback<T> callback) {
+        write(operation, callback, null);
+    }
+
+    /**
+     * Same as {@link #write(Callable, Callback)}, with onError called on the main thread
+     * instead of callback if the operation throws.
+     */
+    public <T> void write(Callable<T> operation, Callback<T> callback, ErrorCallback onError) {
+        if (cancelled) {
+            return;
+        }
+
+        String section = sectionName("write");
+        FutureTask<T> task = new FutureTask<T>(traced(section, operation)) {
+            @Override
+            protected void done() {
+                deliver(this, section, callback, onError);
+            }
+        };
+        execute(executors.writer(), task, onError);
+    }
+
+    /**
+     * Cancel all queued reads and stop delivering results.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (FutureTask<?> task : pendingReads.values()) {
+            task.cancel(false);
+        }
+        pendingReads.clear();
+        DatabaseChangeBus.getInstance().unregister(this);
+        observers.clear();
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_START) {
+            refreshStale();
+        } else if (event == Lifecycle.Event.ON_DESTROY) {
+            source.getLifecycle().removeObserver(this);
+            cancel();
+        }
+    }
+
+    private void refreshStale() {
+        for (Observer observer : new ArrayList<>(observers.values())) {
+            if (observer.stale) {
+                observer.stale = false;
+                observer.refresh.run();
+            }
+        }
+    }
+
+    private static boolean affects(DatabaseChangeBus.ChangeFilter filter,
+                                   List<DatabaseChangeBus.Change> changes) {
+        for (DatabaseChangeBus.Change change : changes) {
+            if (filter.affects(change)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void execute(Executor executor, FutureTask<?> task, ErrorCallback onError) {
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            // A full writer queue; the task will never run, so report it like a failure
+            Log.e(TAG, "Unable to schedule database task", e);
+            reportError(e, onError);
+        }
+    }
+
+    private String sectionName(String key) {
+        String name = traceName + " " + key;
+        // Trace rejects names over 127 characters; leave room for the " result" suffix
+        return name.length() > 120 ? name.substring(0, 120) : name;
+    }
+
+    private static <T> Callable<T> traced(String section, Callable<T> task) {
+        return () -> {
+            Trace.beginSection(section);
+            try {
+                return task.call();
+            } finally {
+                Trace.endSection();
+            }
+        };
+    }
+
+    private void reportError(Throwable error, ErrorCallback onError) {
+        if (onError == null) {
+            return;
+        }
+        executors.mainThread().post(() -> {
+            if (!cancelled) {
+                onError.onError(error);
+            }
+        });
+    }
+
+    private <T> void deliver(FutureTask<T> task, String section, Callback<T> callback,
+                             ErrorCallback onError) {
+        if (task.isCancelled() || cancelled) {
+            return;
+        }
+
+        final T result;
+        try {
+            result = task.get();
+        } catch (ExecutionException e) {
+            Throwable error = e.getCause();
+            Log.e(TAG, "Database task failed", error);
+            reportError(error, onError);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (callback == null) {
+            return;
+        }
+        executors.mainThread().post(() -> {
+            if (!cancelled) {
+                Trace.beginSection(section + " result");
+                try {
+                    callback.onResult(result);
+                } finally {
+                    Trace.endSection();
+                }
+            }
+        });
+    }
+}
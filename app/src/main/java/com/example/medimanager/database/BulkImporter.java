@@ -0,0 +1,459 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+import com.example.medimanager.utils.PhoneUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports patients, appointments or consultations for one doctor from a CSV or JSON file.
+ *
+ * Columns use the database column names (first_name, appointment_date, ...). Appointment
+ * and consultation rows name their patient with patient_id, patient_email or patient_phone.
+ * Rows are inserted with compiled statements, CHUNK_SIZE rows per transaction, so the
+ * file is streamed rather than loaded and other readers are only held off for one chunk
+ * at a time. Patients whose phone or email already exists for the doctor are skipped.
+ *
+ * Must be called off the main thread.
+ */
+public class BulkImporter {
+
+    private static final String TAG = "BulkImporter";
+
+    static final int CHUNK_SIZE = 1000;
+
+    public enum Type {
+        PATIENTS,
+        APPOINTMENTS,
+        CONSULTATIONS
+    }
+
+    public interface ProgressListener {
+        // Called on the importing thread after each committed chunk
+        void onProgress(int processed, int imported);
+    }
+
+    public static class Result {
+        private int processed;
+        private int imported;
+        private int duplicates;
+        private int invalid;
+        private long elapsedMillis;
+
+        public int getProcessed() {
+            return processed;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getInvalid() {
+            return invalid;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    private static final String INSERT_PATIENT =
+            "INSERT INTO " + DatabaseHelper.TABLE_PATIENTS + " (" +
+                    DatabaseHelper.KEY_DOCTOR_ID + ", " + DatabaseHelper.KEY_FIRST_NAME + ", " +
+                    DatabaseHelper.KEY_LAST_NAME + ", " + DatabaseHelper.KEY_DATE_OF_BIRTH + ", " +
+                    DatabaseHelper.KEY_GENDER + ", " + DatabaseHelper.KEY_PHONE + ", " +
+                    DatabaseHelper.KEY_EMAIL + ", " + DatabaseHelper.KEY_ADDRESS + ", " +
+                    DatabaseHelper.KEY_BLOOD_GROUP + ", " + DatabaseHelper.KEY_ALLERGIES + ", " +
+                    DatabaseHelper.KEY_LAST_VISIT + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_APPOINTMENT =
+            "INSERT INTO " + DatabaseHelper.TABLE_APPOINTMENTS + " (" +
+                    DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_DOCTOR_ID + ", " +
+                    DatabaseHelper.KEY_APPOINTMENT_DATE + ", " + DatabaseHelper.KEY_APPOINTMENT_TIME + ", " +
+                    DatabaseHelper.KEY_START_MINUTE + ", " + DatabaseHelper.KEY_REASON + ", " +
+                    DatabaseHelper.KEY_STATUS + ", " + DatabaseHelper.KEY_NOTES +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CONSULTATION =
+            "INSERT INTO " + DatabaseHelper.TABLE_CONSULTATIONS + " (" +
+                    DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_CONSULTATION_DATE + ", " +
+                    DatabaseHelper.KEY_DIAGNOSIS + ", " + DatabaseHelper.KEY_TREATMENT + ", " +
+                    DatabaseHelper.KEY_PRESCRIPTION + ", " + DatabaseHelper.KEY_NOTES +
+                    ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Only moves last_visit forward, as AddConsultationActivity does for a single visit
+    private static final String UPDATE_LAST_VISIT =
+            "UPDATE " + DatabaseHelper.TABLE_PATIENTS + " SET " + DatabaseHelper.KEY_LAST_VISIT +
+                    " = ? WHERE " + DatabaseHelper.KEY_ID + " = ? AND (" +
+                    DatabaseHelper.KEY_LAST_VISIT + " IS NULL OR " + DatabaseHelper.KEY_LAST_VISIT + " < ?)";
+
+    private static final String[] STATUSES = {
+            Constants.STATUS_PENDING,
+            Constants.STATUS_SCHEDULED,
+            Constants.STATUS_IN_PROGRESS,
+            Constants.STATUS_COMPLETED,
+            Constants.STATUS_CANCELLED
+    };
+
+    private final DatabaseHelper dbHelper;
+
+    // Lookups over the doctor's existing patients, filled once per import
+    private final Set<Integer> patientIds = new HashSet<>();
+    private final Map<String, Integer> patientsByEmail = new HashMap<>();
+    private final Map<String, Integer> patientsByPhone = new HashMap<>();
+    private final Map<Integer, String> latestVisits = new HashMap<>();
+
+    public BulkImporter(Context context) {
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Import every record of the stream as the given type for the doctor. Rows that fail
+     * validation are counted and skipped. If reading the stream fails, the chunk in
+     * progress is rolled back, earlier chunks stay imported, and the exception is rethrown.
+     */
+    public Result importRecords(Type type, InputStream input, int doctorId, ProgressListener listener)
+            throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        Result result = new Result();
+        SQLiteDatabase database = dbHelper.getWritableDatabase();
+        loadPatientKeys(database, doctorId);
+
+        SQLiteStatement insert = database.compileStatement(insertSql(type));
+        SQLiteStatement updateLastVisit = type == Type.CONSULTATIONS
+                ? database.compileStatement(UPDATE_LAST_VISIT) : null;
+        RecordReader reader = RecordReader.open(input);
+        try {
+            Map<String, String> record = reader.next();
+            while (record != null) {
+                int chunkEnd = result.processed + CHUNK_SIZE;
+                database.beginTransactionNonExclusive();
+                try {
+                    while (record != null && result.processed < chunkEnd) {
+                        result.processed++;
+                        insertRecord(type, record, doctorId, insert, result);
+                        record = reader.next();
+                    }
+                    if (updateLastVisit != null) {
+                        applyLatestVisits(updateLastVisit);
+                    }
+                    database.setTransactionSuccessful();
+                } finally {
+                    database.endTransaction();
+                    invalidateVisitedPatients();
+                }
+                publishChunk(type);
+
+                if (listener != null) {
+                    listener.onProgress(result.processed, result.imported);
+                }
+            }
+        } finally {
+            reader.close();
+            insert.close();
+            if (updateLastVisit != null) {
+                updateLastVisit.close();
+            }
+            clearLookups();
+        }
+
+        result.elapsedMillis = SystemClock.elapsedRealtime() - start;
+        Log.i(TAG, "Imported " + result.imported + "/" + result.processed + " " + type +
+                " in " + result.elapsedMillis + " ms (" + result.duplicates + " duplicates, " +
+                result.invalid + " invalid)");
+        return result;
+    }
+
+    private String insertSql(Type type) {
+        switch (type) {
+            case APPOINTMENTS:
+                return INSERT_APPOINTMENT;
+            case CONSULTATIONS:
+                return INSERT_CONSULTATION;
+            default:
+                return INSERT_PATIENT;
+        }
+    }
+
+    private void insertRecord(Type type, Map<String, String> record, int doctorId,
+                              SQLiteStatement insert, Result result) {
+        insert.clearBindings();
+        boolean bound;
+        switch (type) {
+            case APPOINTMENTS:
+                bound = bindAppointment(insert, record, doctorId);
+                break;
+            case CONSULTATIONS:
+                bound = bindConsultation(insert, record);
+                break;
+            default:
+                if (isDuplicatePatient(record)) {
+                    result.duplicates++;
+                    return;
+                }
+                bound = bindPatient(insert, record, doctorId);
+                break;
+        }
+        if (!bound) {
+            result.invalid++;
+            return;
+        }
+
+        try {
+            long id = insert.executeInsert();
+            if (id == -1) {
+                result.invalid++;
+                return;
+            }
+            result.imported++;
+            if (type == Type.PATIENTS) {
+                rememberPatient((int) id, record);
+            }
+        } catch (SQLiteException e) {
+            Log.w(TAG, "Skipping row " + result.processed + ": " + e.getMessage());
+            result.invalid++;
+        }
+    }
+
+    private boolean bindPatient(SQLiteStatement insert, Map<String, String> record, int doctorId) {
+        String firstName = record.get(DatabaseHelper.KEY_FIRST_NAME);
+        String lastName = record.get(DatabaseHelper.KEY_LAST_NAME);
+        String dateOfBirth = record.get(DatabaseHelper.KEY_DATE_OF_BIRTH);
+        String lastVisit = record.get(DatabaseHelper.KEY_LAST_VISIT);
+        if (firstName == null || lastName == null ||
+                (dateOfBirth != null && !DateUtils.isValidDate(dateOfBirth)) ||
+                (lastVisit != null && !DateUtils.isValidDate(lastVisit))) {
+            return false;
+        }
+
+        String phone = record.get(DatabaseHelper.KEY_PHONE);
+        insert.bindLong(1, doctorId);
+        insert.bindString(2, firstName);
+        insert.bindString(3, lastName);
+        bindText(insert, 4, dateOfBirth);
+        bindText(insert, 5, record.get(DatabaseHelper.KEY_GENDER));
+        bindText(insert, 6, phone != null ? PhoneUtils.formatForStorage(phone) : null);
+        bindText(insert, 7, record.get(DatabaseHelper.KEY_EMAIL));
+        bindText(insert, 8, record.get(DatabaseHelper.KEY_ADDRESS));
+        bindText(insert, 9, record.get(DatabaseHelper.KEY_BLOOD_GROUP));
+        bindText(insert, 10, record.get(DatabaseHelper.KEY_ALLERGIES));
+        bindText(insert, 11, lastVisit);
+        return true;
+    }
+
+    private boolean bindAppointment(SQLiteStatement insert, Map<String, String> record, int doctorId) {
+        int patientId = resolvePatient(record);
+        String date = record.get(DatabaseHelper.KEY_APPOINTMENT_DATE);
+        int startMinute = DateUtils.parseTimeToMinutes(record.get(DatabaseHelper.KEY_APPOINTMENT_TIME));
+        String status = record.get(DatabaseHelper.KEY_STATUS);
+        if (status == null) {
+            status = Constants.STATUS_SCHEDULED;
+        }
+        if (patientId == -1 || !DateUtils.isValidDate(date) || startMinute < 0 || !isValidStatus(status)) {
+            return false;
+        }
+
+        insert.bindLong(1, patientId);
+        insert.bindLong(2, doctorId);
+        insert.bindString(3, date);
+        // Stored in the time picker's format so imported rows display like entered ones
+        insert.bindString(4, DateUtils.formatMinutes(startMinute));
+        insert.bindLong(5, startMinute);
+        bindText(insert, 6, record.get(DatabaseHelper.KEY_REASON));
+        insert.bindString(7, status);
+        bindText(insert, 8, record.get(DatabaseHelper.KEY_NOTES));
+        return true;
+    }
+
+    private boolean bindConsultation(SQLiteStatement insert, Map<String, String> record) {
+        int patientId = resolvePatient(record);
+        String date = record.get(DatabaseHelper.KEY_CONSULTATION_DATE);
+        if (patientId == -1 || !DateUtils.isValidDate(date)) {
+            return false;
+        }
+
+        insert.bindLong(1, patientId);
+        insert.bindString(2, date);
+        bindText(insert, 3, record.get(DatabaseHelper.KEY_DIAGNOSIS));
+        bindText(insert, 4, record.get(DatabaseHelper.KEY_TREATMENT));
+        bindText(insert, 5, record.get(DatabaseHelper.KEY_PRESCRIPTION));
+        bindText(insert, 6, record.get(DatabaseHelper.KEY_NOTES));
+
+        String latest = latestVisits.get(patientId);
+        if (latest == null || latest.compareTo(date) < 0) {
+            latestVisits.put(patientId, date);
+        }
+        return true;
+    }
+
+    private void applyLatestVisits(SQLiteStatement update) {
+        for (Map.Entry<Integer, String> visit : latestVisits.entrySet()) {
+            update.bindString(1, visit.getValue());
+            update.bindLong(2, visit.getKey());
+            update.bindString(3, visit.getValue());
+            update.executeUpdateDelete();
+        }
+    }
+
+    // Cached patients are dropped once the chunk has committed, so a concurrent read
+    // cannot re-cache the old last_visit after the invalidation
+    private void invalidateVisitedPatients() {
+        for (Integer patientId : latestVisits.keySet()) {
+            PatientDAO.invalidateCachedPatient(patientId);
+        }
+        latestVisits.clear();
+    }
+
+    // One table-wide change per committed chunk rather than one per row
+    private void publishChunk(Type type) {
+        DatabaseChangeBus changes = DatabaseChangeBus.getInstance();
+        switch (type) {
+            case PATIENTS:
+                changes.publish(DatabaseHelper.TABLE_PATIENTS, DatabaseChangeBus.ALL_ROWS,
+                        DatabaseChangeBus.Operation.INSERT);
+                break;
+            case APPOINTMENTS:
+                changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, DatabaseChangeBus.ALL_ROWS,
+                        DatabaseChangeBus.Operation.INSERT);
+                AppointmentScheduler.invalidateSchedules();
+                break;
+            case CONSULTATIONS:
+                changes.publish(DatabaseHelper.TABLE_CONSULTATIONS, DatabaseChangeBus.ALL_ROWS,
+                        DatabaseChangeBus.Operation.INSERT);
+                // last_visit may have moved forward
+                changes.publish(DatabaseHelper.TABLE_PATIENTS, DatabaseChangeBus.ALL_ROWS,
+                        DatabaseChangeBus.Operation.UPDATE);
+                break;
+        }
+    }
+
+    // Helper method - Patient id named by patient_id, patient_email or patient_phone, or -1
+    private int resolvePatient(Map<String, String> record) {
+        String id = record.get(DatabaseHelper.KEY_PATIENT_ID);
+        if (id != null) {
+            try {
+                int patientId = Integer.parseInt(id);
+                return patientIds.contains(patientId) ? patientId : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        Integer patientId = null;
+        String email = emailKey(record.get("patient_" + DatabaseHelper.KEY_EMAIL));
+        if (email != null) {
+            patientId = patientsByEmail.get(email);
+        }
+        String phone = phoneKey(record.get("patient_" + DatabaseHelper.KEY_PHONE));
+        if (patientId == null && phone != null) {
+            patientId = patientsByPhone.get(phone);
+        }
+        return patientId != null ? patientId : -1;
+    }
+
+    private boolean isDuplicatePatient(Map<String, String> record) {
+        String email = emailKey(record.get(DatabaseHelper.KEY_EMAIL));
+        String phone = phoneKey(record.get(DatabaseHelper.KEY_PHONE));
+        return (email != null && patientsByEmail.containsKey(email)) ||
+                (phone != null && patientsByPhone.containsKey(phone));
+    }
+
+    private void rememberPatient(int id, Map<String, String> record) {
+        patientIds.add(id);
+        String email = emailKey(record.get(DatabaseHelper.KEY_EMAIL));
+        if (email != null) {
+            patientsByEmail.put(email, id);
+        }
+        String phone = phoneKey(record.get(DatabaseHelper.KEY_PHONE));
+        if (phone != null) {
+            patientsByPhone.put(phone, id);
+        }
+    }
+
+    private void loadPatientKeys(SQLiteDatabase database, int doctorId) {
+        clearLookups();
+        Cursor cursor = null;
+        try {
+            cursor = database.rawQuery("SELECT " + DatabaseHelper.KEY_ID + ", " +
+                    DatabaseHelper.KEY_EMAIL + ", " + DatabaseHelper.KEY_PHONE + " FROM " +
+                    DatabaseHelper.TABLE_PATIENTS + " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?",
+                    new String[]{String.valueOf(doctorId)});
+
+            while (cursor.moveToNext()) {
+                int id = cursor.getInt(0);
+                patientIds.add(id);
+                String email = emailKey(cursor.getString(1));
+                if (email != null) {
+                    patientsByEmail.put(email, id);
+                }
+                String phone = phoneKey(cursor.getString(2));
+                if (phone != null) {
+                    patientsByPhone.put(phone, id);
+                }
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    private void clearLookups() {
+        patientIds.clear();
+        patientsByEmail.clear();
+        patientsByPhone.clear();
+        latestVisits.clear();
+    }
+
+    private static boolean isValidStatus(String status) {
+        for (String known : STATUSES) {
+            if (known.equals(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String emailKey(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Phones compare on their stored form with everything but digits and '+' removed
+    private static String phoneKey(String phone) {
+        if (phone == null || phone.trim().isEmpty()) {
+            return null;
+        }
+        String stored = PhoneUtils.formatForStorage(PhoneUtils.stripPrefixForDisplay(phone.trim()));
+        return stored.replaceAll("[^0-9+]", "");
+    }
+
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.medimanager.database;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of a DAO cache's counters since process start, for sizing the cache.
+ */
+public class CacheStats {
+    private final int hits;
+    private final int misses;
+    private final int evictions;
+    private final int size;
+    private final int maxSize;
+
+    CacheStats(int hits, int misses, int evictions, int size, int maxSize) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public int getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public float getHitRate() {
+        int lookups = hits + misses;
+        return lookups == 0 ? 0f : (float) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "hits=%d misses=%d evictions=%d size=%d/%d hitRate=%.2f",
+                hits, misses, evictions, size, maxSize, getHitRate());
+    }
+}
@@ -7,6 +7,7 @@ import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
 import com.example.medimanager.models.Consultation;
+import com.example.medimanager.utils.DateUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,25 +15,43 @@ import java.util.List;
 public class ConsultationDAO {
 
     private final DatabaseHelper dbHelper;
+    private final DatabaseChangeBus changes = DatabaseChangeBus.getInstance();
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
+    private final StatementPool statements;
     private static final String TAG = "ConsultationDAO";
 
+    // Hot statements, compiled once and reused through the StatementPool;
+    // doctor_id is filled in from the patient by a trigger
+    private static final String INSERT_CONSULTATION =
+            "INSERT INTO " + DatabaseHelper.TABLE_CONSULTATIONS + " (" +
+                    DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_CONSULTATION_DATE + ", " +
+                    DatabaseHelper.KEY_DIAGNOSIS + ", " + DatabaseHelper.KEY_TREATMENT + ", " +
+                    DatabaseHelper.KEY_PRESCRIPTION + ", " + DatabaseHelper.KEY_NOTES +
+                    ") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_CONSULTATION =
+            "DELETE FROM " + DatabaseHelper.TABLE_CONSULTATIONS + " WHERE " + DatabaseHelper.KEY_ID + " = ?";
+
     public ConsultationDAO(Context context) {
         dbHelper = DatabaseHelper.getInstance(context);
+        statements = dbHelper.getStatementPool();
     }
 
     // Create - Insert new consultation
     public long insertConsultation(Consultation consultation) {
         SQLiteDatabase database = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.KEY_PATIENT_ID, consultation.getPatientId());
-        values.put(DatabaseHelper.KEY_CONSULTATION_DATE, consultation.getConsultationDate());
-        values.put(DatabaseHelper.KEY_DIAGNOSIS, consultation.getDiagnosis());
-        values.put(DatabaseHelper.KEY_TREATMENT, consultation.getTreatment());
-        values.put(DatabaseHelper.KEY_PRESCRIPTION, consultation.getPrescription());
-        values.put(DatabaseHelper.KEY_NOTES, consultation.getNotes());
-
         try {
-            return database.insert(DatabaseHelper.TABLE_CONSULTATIONS, null, values);
+            long id = statements.executeInsert(database, INSERT_CONSULTATION, statement -> {
+                statement.bindLong(1, consultation.getPatientId());
+                StatementPool.bindText(statement, 2, consultation.getConsultationDate());
+                StatementPool.bindText(statement, 3, consultation.getDiagnosis());
+                StatementPool.bindText(statement, 4, consultation.getTreatment());
+                StatementPool.bindText(statement, 5, consultation.getPrescription());
+                StatementPool.bindText(statement, 6, consultation.getNotes());
+            });
+            if (id != -1) {
+                changes.publish(DatabaseHelper.TABLE_CONSULTATIONS, id, DatabaseChangeBus.Operation.INSERT);
+            }
+            return id;
         } catch (Exception e) {
             Log.e(TAG, "Error inserting consultation", e);
             return -1;
@@ -83,8 +102,9 @@ public class ConsultationDAO {
             );
 
             if (cursor.moveToFirst()) {
+                ConsultationColumns columns = new ConsultationColumns(cursor);
                 do {
-                    consultations.add(cursorToConsultation(cursor));
+                    consultations.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -111,8 +131,9 @@ public class ConsultationDAO {
             );
 
             if (cursor.moveToFirst()) {
+                ConsultationColumns columns = new ConsultationColumns(cursor);
                 do {
-                    consultations.add(cursorToConsultation(cursor));
+                    consultations.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -126,6 +147,11 @@ public class ConsultationDAO {
         return consultations;
     }
 
+    // Read - Get a doctor's consultations, newest first (idx_consultations_doctor_date)
+    public List<Consultation> getAllConsultations(int doctorId) {
+        return getDoctorConsultations(doctorId, null);
+    }
+
     // Read - Get consultations by date
     public List<Consultation> getConsultationsByDate(String date) {
         List<Consultation> consultations = new ArrayList<>();
@@ -142,8 +168,9 @@ public class ConsultationDAO {
             );
 
             if (cursor.moveToFirst()) {
+                ConsultationColumns columns = new ConsultationColumns(cursor);
                 do {
-                    consultations.add(cursorToConsultation(cursor));
+                    consultations.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -169,12 +196,18 @@ public class ConsultationDAO {
         values.put(DatabaseHelper.KEY_NOTES, consultation.getNotes());
 
         try {
-            return database.update(
+            long start = System.nanoTime();
+            int rows = database.update(
                     DatabaseHelper.TABLE_CONSULTATIONS,
                     values,
                     DatabaseHelper.KEY_ID + " = ?",
                     new String[]{String.valueOf(consultation.getId())}
             );
+            profiler.recordWrite("UPDATE " + DatabaseHelper.TABLE_CONSULTATIONS, start, rows);
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_CONSULTATIONS, consultation.getId(), DatabaseChangeBus.Operation.UPDATE);
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error updating consultation", e);
             return 0;
@@ -185,40 +218,33 @@ public class ConsultationDAO {
     public int deleteConsultation(int id) {
         SQLiteDatabase database = dbHelper.getWritableDatabase();
         try {
-            return database.delete(
-                    DatabaseHelper.TABLE_CONSULTATIONS,
-                    DatabaseHelper.KEY_ID + " = ?",
-                    new String[]{String.valueOf(id)}
-            );
+            int rows = statements.executeUpdateDelete(database, DELETE_CONSULTATION,
+                    statement -> statement.bindLong(1, id));
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_CONSULTATIONS, id, DatabaseChangeBus.Operation.DELETE);
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error deleting consultation", e);
             return 0;
         }
     }
 
-    // Statistics - Get monthly consultations count
+    // Statistics - Get monthly consultations count (range over consultation_date, not strftime on every row)
     public int getMonthlyConsultationsCount() {
-        SQLiteDatabase database = dbHelper.getReadableDatabase();
-        String query = "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_CONSULTATIONS +
-                " WHERE strftime('%Y-%m', " + DatabaseHelper.KEY_CONSULTATION_DATE +
-                ") = strftime('%Y-%m', 'now')";
-
-        int count = 0;
-        Cursor cursor = null;
-        try {
-            cursor = database.rawQuery(query, null);
-            if (cursor.moveToFirst()) {
-                count = cursor.getInt(0);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error counting monthly consultations", e);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+        String[] month = DateUtils.getMonthRange();
+        return count(DatabaseHelper.KEY_CONSULTATION_DATE + " >= ? AND " +
+                        DatabaseHelper.KEY_CONSULTATION_DATE + " < ?",
+                new String[]{month[0], month[1]});
+    }
 
-        return count;
+    // Statistics - Get a doctor's consultations count for the current month
+    public int getMonthlyConsultationsCount(int doctorId) {
+        String[] month = DateUtils.getMonthRange();
+        return count(DatabaseHelper.KEY_DOCTOR_ID + " = ? AND " +
+                        DatabaseHelper.KEY_CONSULTATION_DATE + " >= ? AND " +
+                        DatabaseHelper.KEY_CONSULTATION_DATE + " < ?",
+                new String[]{String.valueOf(doctorId), month[0], month[1]});
     }
 
     // Statistics - Get total consultations count
@@ -245,6 +271,11 @@ public class ConsultationDAO {
         return count;
     }
 
+    // Statistics - Get a doctor's total consultations count
+    public int getTotalConsultationsCount(int doctorId) {
+        return count(DatabaseHelper.KEY_DOCTOR_ID + " = ?", new String[]{String.valueOf(doctorId)});
+    }
+
     // Get recent consultations (limit)
     public List<Consultation> getRecentConsultations(int limit) {
         List<Consultation> consultations = new ArrayList<>();
@@ -259,8 +290,9 @@ public class ConsultationDAO {
             );
 
             if (cursor.moveToFirst()) {
+                ConsultationColumns columns = new ConsultationColumns(cursor);
                 do {
-                    consultations.add(cursorToConsultation(cursor));
+                    consultations.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -274,28 +306,89 @@ public class ConsultationDAO {
         return consultations;
     }
 
-    // Search consultations by diagnosis
+    // Get a doctor's recent consultations (limit)
+    public List<Consultation> getRecentConsultations(int doctorId, int limit) {
+        return getDoctorConsultations(doctorId, String.valueOf(limit));
+    }
+
+    // Search consultations by diagnosis (prefix match on every word)
     public List<Consultation> searchByDiagnosis(String query) {
+        String match = SearchIndex.buildMatchQuery(query, DatabaseHelper.KEY_DIAGNOSIS);
+        String fts = SearchIndex.TABLE_CONSULTATIONS_FTS;
+        String sql = "SELECT c.* FROM " + fts + " CROSS JOIN " + DatabaseHelper.TABLE_CONSULTATIONS + " c" +
+                " ON c." + DatabaseHelper.KEY_ID + " = " + fts + ".rowid" +
+                " WHERE " + fts + " MATCH ?";
+        return searchConsultations(sql, match, null);
+    }
+
+    // Search a doctor's consultations by diagnosis, treatment, prescription or notes
+    public List<Consultation> searchConsultations(int doctorId, String query) {
+        String match = SearchIndex.buildMatchQuery(query, null);
+        String fts = SearchIndex.TABLE_CONSULTATIONS_FTS;
+        String sql = "SELECT c.* FROM " + fts + " CROSS JOIN " + DatabaseHelper.TABLE_CONSULTATIONS + " c" +
+                " ON c." + DatabaseHelper.KEY_ID + " = " + fts + ".rowid" +
+                " WHERE " + fts + " MATCH ? AND c." + DatabaseHelper.KEY_DOCTOR_ID + " = ?";
+        return searchConsultations(sql, match, String.valueOf(doctorId));
+    }
+
+    // Helper method - Run a full-text query; FTS5 ranks by bm25, the FTS4 fallback by date
+    private List<Consultation> searchConsultations(String sql, String match, String doctorId) {
         List<Consultation> consultations = new ArrayList<>();
+        if (match == null) {
+            return consultations;
+        }
+
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        String selection = DatabaseHelper.KEY_DIAGNOSIS + " LIKE ?";
-        String[] selectionArgs = new String[]{"%" + query + "%"};
+        String orderBy = SearchIndex.isFts5(database)
+                ? SearchIndex.TABLE_CONSULTATIONS_FTS + ".rank"
+                : "c." + DatabaseHelper.KEY_CONSULTATION_DATE + " DESC";
+        String[] args = doctorId != null ? new String[]{match, doctorId} : new String[]{match};
+
+        Cursor cursor = null;
+        try {
+            cursor = database.rawQuery(sql + " ORDER BY " + orderBy, args);
 
+            if (cursor.moveToFirst()) {
+                ConsultationColumns columns = new ConsultationColumns(cursor);
+                do {
+                    consultations.add(columns.read(cursor));
+                } while (cursor.moveToNext());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error searching consultations", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return consultations;
+    }
+
+    // Helper method - A doctor's consultations newest first, walking idx_consultations_doctor_date backwards
+    private List<Consultation> getDoctorConsultations(int doctorId, String limit) {
+        List<Consultation> consultations = new ArrayList<>();
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
         Cursor cursor = null;
         try {
             cursor = database.query(
                     DatabaseHelper.TABLE_CONSULTATIONS,
-                    null, selection, selectionArgs, null, null,
-                    DatabaseHelper.KEY_CONSULTATION_DATE + " DESC"
+                    null,
+                    DatabaseHelper.KEY_DOCTOR_ID + " = ?",
+                    new String[]{String.valueOf(doctorId)},
+                    null, null,
+                    DatabaseHelper.KEY_CONSULTATION_DATE + " DESC",
+                    limit
             );
 
             if (cursor.moveToFirst()) {
+                ConsultationColumns columns = new ConsultationColumns(cursor);
                 do {
-                    consultations.add(cursorToConsultation(cursor));
+                    consultations.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error searching consultations by diagnosis", e);
+            Log.e(TAG, "Error loading consultations by doctor", e);
         } finally {
             if (cursor != null) {
                 cursor.close();
@@ -305,44 +398,76 @@ public class ConsultationDAO {
         return consultations;
     }
 
-    // Helper method - Convert cursor to Consultation object
-    private Consultation cursorToConsultation(Cursor cursor) {
-        Consultation consultation = new Consultation();
-
-        int idIndex = cursor.getColumnIndex(DatabaseHelper.KEY_ID);
-        int patientIdIndex = cursor.getColumnIndex(DatabaseHelper.KEY_PATIENT_ID);
-        int dateIndex = cursor.getColumnIndex(DatabaseHelper.KEY_CONSULTATION_DATE);
-        int diagnosisIndex = cursor.getColumnIndex(DatabaseHelper.KEY_DIAGNOSIS);
-        int treatmentIndex = cursor.getColumnIndex(DatabaseHelper.KEY_TREATMENT);
-        int prescriptionIndex = cursor.getColumnIndex(DatabaseHelper.KEY_PRESCRIPTION);
-        int notesIndex = cursor.getColumnIndex(DatabaseHelper.KEY_NOTES);
-        int createdAtIndex = cursor.getColumnIndex(DatabaseHelper.KEY_CREATED_AT);
-
-        if (idIndex != -1) {
-            consultation.setId(cursor.getInt(idIndex));
-        }
-        if (patientIdIndex != -1) {
-            consultation.setPatientId(cursor.getInt(patientIdIndex));
-        }
-        if (dateIndex != -1) {
-            consultation.setConsultationDate(cursor.getString(dateIndex));
-        }
-        if (diagnosisIndex != -1) {
-            consultation.setDiagnosis(cursor.getString(diagnosisIndex));
-        }
-        if (treatmentIndex != -1) {
-            consultation.setTreatment(cursor.getString(treatmentIndex));
-        }
-        if (prescriptionIndex != -1) {
-            consultation.setPrescription(cursor.getString(prescriptionIndex));
-        }
-        if (notesIndex != -1) {
-            consultation.setNotes(cursor.getString(notesIndex));
+    // Helper method - COUNT(*) of consultations matching a selection, through a pooled statement
+    private int count(String selection, String[] selectionArgs) {
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        String sql = "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_CONSULTATIONS + " WHERE " + selection;
+        try {
+            return (int) statements.simpleQueryForLong(database, sql,
+                    statement -> statement.bindAllArgsAsStrings(selectionArgs));
+        } catch (Exception e) {
+            Log.e(TAG, "Error counting consultations", e);
+            return 0;
         }
-        if (createdAtIndex != -1) {
-            consultation.setCreatedAt(cursor.getString(createdAtIndex));
+    }
+
+    // Helper method - Map a single row; loops over many rows resolve ConsultationColumns once instead
+    private Consultation cursorToConsultation(Cursor cursor) {
+        return new ConsultationColumns(cursor).read(cursor);
+    }
+
+    /**
+     * Column positions of a consultation cursor, looked up once per cursor. Any column
+     * may be missing from a projection, in which case its field is left unset.
+     */
+    private static final class ConsultationColumns {
+        private final int id;
+        private final int patientId;
+        private final int date;
+        private final int diagnosis;
+        private final int treatment;
+        private final int prescription;
+        private final int notes;
+        private final int createdAt;
+
+        ConsultationColumns(Cursor cursor) {
+            id = cursor.getColumnIndex(DatabaseHelper.KEY_ID);
+            patientId = cursor.getColumnIndex(DatabaseHelper.KEY_PATIENT_ID);
+            date = cursor.getColumnIndex(DatabaseHelper.KEY_CONSULTATION_DATE);
+            diagnosis = cursor.getColumnIndex(DatabaseHelper.KEY_DIAGNOSIS);
+            treatment = cursor.getColumnIndex(DatabaseHelper.KEY_TREATMENT);
+            prescription = cursor.getColumnIndex(DatabaseHelper.KEY_PRESCRIPTION);
+            notes = cursor.getColumnIndex(DatabaseHelper.KEY_NOTES);
+            createdAt = cursor.getColumnIndex(DatabaseHelper.KEY_CREATED_AT);
         }
 
-        return consultation;
+        Consultation read(Cursor cursor) {
+            Consultation consultation = new Consultation();
+            if (id != -1) {
+                consultation.setId(cursor.getInt(id));
+            }
+            if (patientId != -1) {
+                consultation.setPatientId(cursor.getInt(patientId));
+            }
+            if (date != -1) {
+                consultation.setConsultationDate(cursor.getString(date));
+            }
+            if (diagnosis != -1) {
+                consultation.setDiagnosis(cursor.getString(diagnosis));
+            }
+            if (treatment != -1) {
+                consultation.setTreatment(cursor.getString(treatment));
+            }
+            if (prescription != -1) {
+                consultation.setPrescription(cursor.getString(prescription));
+            }
+            if (notes != -1) {
+                consultation.setNotes(cursor.getString(notes));
+            }
+            if (createdAt != -1) {
+                consultation.setCreatedAt(cursor.getString(createdAt));
+            }
+            return consultation;
+        }
     }
 }
@@ -0,0 +1,70 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.medimanager.models.DashboardStats;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+
+public class DashboardDAO {
+
+    private final DatabaseHelper dbHelper;
+    private static final String TAG = "DashboardDAO";
+
+    // Appointment counters come from one pass over the doctor's rows in
+    // idx_appointments_doctor_status_date_minute; patient and consultation counts are scalar subqueries,
+    // the latter a range scan of idx_consultations_doctor_date over the current month
+    private static final String DASHBOARD_QUERY =
+            "SELECT " +
+                    "(SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_PATIENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?), " +
+                    "(SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_CONSULTATIONS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND " +
+                    DatabaseHelper.KEY_CONSULTATION_DATE + " >= ? AND " +
+                    DatabaseHelper.KEY_CONSULTATION_DATE + " < ?), " +
+                    "COALESCE(SUM(CASE WHEN " + DatabaseHelper.KEY_STATUS + " IN ('" +
+                    Constants.STATUS_SCHEDULED + "', '" + Constants.STATUS_IN_PROGRESS +
+                    "') THEN 1 ELSE 0 END), 0), " +
+                    "COALESCE(SUM(CASE WHEN " + DatabaseHelper.KEY_APPOINTMENT_DATE +
+                    " = ? THEN 1 ELSE 0 END), 0), " +
+                    "COALESCE(SUM(CASE WHEN " + DatabaseHelper.KEY_STATUS + " = '" +
+                    Constants.STATUS_PENDING + "' THEN 1 ELSE 0 END), 0) " +
+                    "FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?";
+
+    public DashboardDAO(Context context) {
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    // Statistics - All home screen counters for a doctor in a single query
+    public DashboardStats getDashboardStats(int doctorId, String today) {
+        DashboardStats stats = new DashboardStats();
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        String[] month = DateUtils.getMonthRange();
+        String doctor = String.valueOf(doctorId);
+        Cursor cursor = null;
+        try {
+            cursor = database.rawQuery(DASHBOARD_QUERY,
+                    new String[]{doctor, doctor, month[0], month[1], today, doctor});
+
+            if (cursor.moveToFirst()) {
+                stats.setTotalPatients(cursor.getInt(0));
+                stats.setMonthlyConsultations(cursor.getInt(1));
+                stats.setUpcomingAppointments(cursor.getInt(2));
+                stats.setTodayAppointments(cursor.getInt(3));
+                stats.setPendingAppointments(cursor.getInt(4));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading dashboard statistics", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return stats;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.medimanager.database;
+
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide notifications of committed writes.
+ *
+ * DAOs publish a {@link Change} (table, row id, operation) after each write has
+ * committed. Changes published within COALESCE_WINDOW_MS of each other are delivered
+ * together, on the main thread, so a burst of writes reaches listeners as one batch.
+ */
+public final class DatabaseChangeBus {
+
+    private static final long COALESCE_WINDOW_MS = 50;
+
+    // Row id for changes that touch many or unknown rows of a table
+    public static final long ALL_ROWS = -1;
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    public static final class Change {
+        private final String table;
+        private final long rowId;
+        private final Operation operation;
+
+        Change(String table, long rowId, Operation operation) {
+            this.table = table;
+            this.rowId = rowId;
+            this.operation = operation;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getRowId() {
+            return rowId;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        @Override
+        public String toString() {
+            return operation + " " + table + (rowId == ALL_ROWS ? "" : " #" + rowId);
+        }
+    }
+
+    public interface Listener {
+        void onDatabaseChanged(List<Change> changes);
+    }
+
+    /**
+     * Decides whether a change can affect the result of a query.
+     */
+    public interface ChangeFilter {
+        boolean affects(Change change);
+    }
+
+    private static DatabaseChangeBus instance;
+
+    private final Handler mainHandler;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Change> pending = new ArrayList<>();
+    private boolean flushScheduled;
+
+    public static synchronized DatabaseChangeBus getInstance() {
+        if (instance == null) {
+            instance = new DatabaseChangeBus();
+        }
+        return instance;
+    }
+
+    private DatabaseChangeBus() {
+        mainHandler = DatabaseExecutors.getInstance().mainThread();
+    }
+
+    /**
+     * Filter matching any change to one of the tables.
+     */
+    public static ChangeFilter onTables(String... tables) {
+        return change -> {
+            for (String table : tables) {
+                if (table.equals(change.table)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Filter matching changes to one row, including table-wide changes.
+     */
+    public static ChangeFilter onRow(String table, long rowId) {
+        return change -> table.equals(change.table) &&
+                (change.rowId == rowId || change.rowId == ALL_ROWS);
+    }
+
+    public void register(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void unregister(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queue a committed change for delivery. Safe to call from any thread.
+     */
+    public void publish(String table, long rowId, Operation operation) {
+        synchronized (pending) {
+            pending.add(new Change(table, rowId, operation));
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        mainHandler.postDelayed(this::flush, COALESCE_WINDOW_MS);
+    }
+
+    private void flush() {
+        List<Change> batch;
+        synchronized (pending) {
+            batch = Collections.unmodifiableList(new ArrayList<>(pending));
+            pending.clear();
+            flushScheduled = false;
+        }
+
+        for (Listener listener : listeners) {
+            listener.onDatabaseChanged(batch);
+        }
+    }
+}
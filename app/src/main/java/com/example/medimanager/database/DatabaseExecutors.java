@@ -0,0 +1,104 @@
+package com.example.medimanager.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide executors for database work: a small reader pool, a single
+ * serialized writer and a handler for delivering results on the main thread.
+ *
+ * Both queues are bounded. A full reader queue first drops reads already superseded
+ * by a newer one with the same key, then cancels the oldest queued read; a read is
+ * cheap to repeat, and the next change or screen start issues it again. Writes are
+ * never dropped: a full writer queue rejects the new write, and AsyncDAO reports the
+ * RejectedExecutionException through the write's error callback.
+ */
+public final class DatabaseExecutors {
+
+    private static final int READER_THREADS = 3;
+    private static final int READER_QUEUE_CAPACITY = 64;
+    private static final int WRITER_QUEUE_CAPACITY = 256;
+
+    private static DatabaseExecutors instance;
+
+    private final ExecutorService readerExecutor;
+    private final ExecutorService writerExecutor;
+    private final Handler mainHandler;
+
+    public static synchronized DatabaseExecutors getInstance() {
+        if (instance == null) {
+            instance = new DatabaseExecutors();
+        }
+        return instance;
+    }
+
+    private DatabaseExecutors() {
+        readerExecutor = new ThreadPoolExecutor(READER_THREADS, READER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(READER_QUEUE_CAPACITY), new DatabaseThreadFactory("db-reader"),
+                new ShedOldestRead());
+        writerExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WRITER_QUEUE_CAPACITY), new DatabaseThreadFactory("db-writer"),
+                new ThreadPoolExecutor.AbortPolicy());
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    public ExecutorService reader() {
+        return readerExecutor;
+    }
+
+    public ExecutorService writer() {
+        return writerExecutor;
+    }
+
+    public Handler mainThread() {
+        return mainHandler;
+    }
+
+    private static final class ShedOldestRead implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            // Superseded keyed reads are cancelled but still queued
+            executor.purge();
+            if (executor.getQueue().remainingCapacity() == 0) {
+                Runnable oldest = executor.getQueue().poll();
+                if (oldest instanceof Future) {
+                    // Lets its AsyncDAO forget it; no result is delivered
+                    ((Future<?>) oldest).cancel(false);
+                }
+            }
+            executor.execute(task);
+        }
+    }
+
+    private static final class DatabaseThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        DatabaseThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, prefix + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -4,9 +4,15 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
 import android.util.Log;
 
-import com.example.medimanager.utils.PasswordUtils;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
@@ -15,7 +21,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     // Database Info
     private static final String DATABASE_NAME = "medimanager.db";
-    private static final int DATABASE_VERSION = 5;
+    private static final int DATABASE_VERSION = 13;
 
     // Table Names
     public static final String TABLE_PATIENTS = "patients";
@@ -52,8 +58,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     // Appointments Table Columns
     public static final String KEY_APPOINTMENT_DATE = "appointment_date";
     public static final String KEY_APPOINTMENT_TIME = "appointment_time";
+    public static final String KEY_START_MINUTE = "start_minute";
     public static final String KEY_REASON = "reason";
     public static final String KEY_STATUS = "status";
+    public static final String KEY_REMINDED = "reminded";
 
     // Users Table Columns
     public static final String KEY_USER_FIRST_NAME = "first_name";
@@ -88,6 +96,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             "CREATE TABLE " + TABLE_CONSULTATIONS + " (" +
                     KEY_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
                     KEY_PATIENT_ID + " INTEGER NOT NULL, " +
+                    KEY_DOCTOR_ID + " INTEGER, " +
                     KEY_CONSULTATION_DATE + " TEXT NOT NULL, " +
                     KEY_DIAGNOSIS + " TEXT, " +
                     KEY_TREATMENT + " TEXT, " +
@@ -105,9 +114,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     KEY_DOCTOR_ID + " INTEGER NOT NULL, " +
                     KEY_APPOINTMENT_DATE + " TEXT NOT NULL, " +
                     KEY_APPOINTMENT_TIME + " TEXT NOT NULL, " +
+                    KEY_START_MINUTE + " INTEGER NOT NULL DEFAULT -1, " +
                     KEY_REASON + " TEXT, " +
                     KEY_STATUS + " TEXT DEFAULT 'scheduled', " +
                     KEY_NOTES + " TEXT, " +
+                    KEY_REMINDED + " INTEGER NOT NULL DEFAULT 0, " +
                     KEY_CREATED_AT + " DATETIME DEFAULT CURRENT_TIMESTAMP, " +
                     "FOREIGN KEY(" + KEY_PATIENT_ID + ") REFERENCES " +
                     TABLE_PATIENTS + "(" + KEY_ID + ") ON DELETE CASCADE, " +
@@ -127,6 +138,112 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     KEY_CREATED_AT + " DATETIME DEFAULT CURRENT_TIMESTAMP" +
                     ")";
 
+    // Secondary indexes, one per DAO access path, each ending in the columns the path
+    // sorts by so no result needs a temporary sort (QueryPlanTest checks every DAO query).
+    // The appointment list indexes end in (date, start_minute) so keyset pages and time
+    // ranges are read in index order
+    private static final String[] CREATE_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_appointments_doctor_date_minute ON " + TABLE_APPOINTMENTS +
+                    " (" + KEY_DOCTOR_ID + ", " + KEY_APPOINTMENT_DATE + ", " + KEY_START_MINUTE + ")",
+            // Partial: only scheduled appointments whose reminder has not gone out yet
+            "CREATE INDEX IF NOT EXISTS idx_appointments_reminder_due ON " + TABLE_APPOINTMENTS +
+                    " (" + KEY_APPOINTMENT_DATE + ", " + KEY_START_MINUTE + ") WHERE " + KEY_STATUS +
+                    " = '" + Constants.STATUS_SCHEDULED + "' AND " + KEY_REMINDED + " = 0",
+            "CREATE INDEX IF NOT EXISTS idx_appointments_patient_date_minute ON " + TABLE_APPOINTMENTS +
+                    " (" + KEY_PATIENT_ID + ", " + KEY_APPOINTMENT_DATE + ", " + KEY_START_MINUTE + ")",
+            "CREATE INDEX IF NOT EXISTS idx_appointments_doctor_status_date_minute ON " + TABLE_APPOINTMENTS +
+                    " (" + KEY_DOCTOR_ID + ", " + KEY_STATUS + ", " + KEY_APPOINTMENT_DATE + ", " +
+                    KEY_START_MINUTE + ")",
+            "CREATE INDEX IF NOT EXISTS idx_consultations_patient_date ON " + TABLE_CONSULTATIONS +
+                    " (" + KEY_PATIENT_ID + ", " + KEY_CONSULTATION_DATE + ")",
+            "CREATE INDEX IF NOT EXISTS idx_consultations_doctor_date ON " + TABLE_CONSULTATIONS +
+                    " (" + KEY_DOCTOR_ID + ", " + KEY_CONSULTATION_DATE + ")",
+            "CREATE INDEX IF NOT EXISTS idx_consultations_date_created ON " + TABLE_CONSULTATIONS +
+                    " (" + KEY_CONSULTATION_DATE + ", " + KEY_CREATED_AT + ")",
+            "CREATE INDEX IF NOT EXISTS idx_patients_doctor_first_name ON " + TABLE_PATIENTS +
+                    " (" + KEY_DOCTOR_ID + ", " + KEY_FIRST_NAME + ")",
+            "CREATE INDEX IF NOT EXISTS idx_patients_doctor_created ON " + TABLE_PATIENTS +
+                    " (" + KEY_DOCTOR_ID + ", " + KEY_CREATED_AT + ")",
+            "CREATE INDEX IF NOT EXISTS idx_patients_user_id ON " + TABLE_PATIENTS +
+                    " (" + KEY_USER_ID + ")",
+            "CREATE INDEX IF NOT EXISTS idx_patients_email ON " + TABLE_PATIENTS +
+                    " (" + KEY_EMAIL + ")"
+    };
+
+    // consultations.doctor_id is a copy of the patient's doctor_id, kept in step here so
+    // every writer (DAO, bulk import) gets it without a lookup of its own
+    private static final String[] CREATE_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS consultations_doctor_insert AFTER INSERT ON " + TABLE_CONSULTATIONS +
+                    " WHEN NEW." + KEY_DOCTOR_ID + " IS NULL BEGIN " +
+                    "UPDATE " + TABLE_CONSULTATIONS + " SET " + KEY_DOCTOR_ID + " = (SELECT " + KEY_DOCTOR_ID +
+                    " FROM " + TABLE_PATIENTS + " WHERE " + KEY_ID + " = NEW." + KEY_PATIENT_ID + ")" +
+                    " WHERE " + KEY_ID + " = NEW." + KEY_ID + "; END",
+            "CREATE TRIGGER IF NOT EXISTS consultations_doctor_patient AFTER UPDATE OF " + KEY_PATIENT_ID +
+                    " ON " + TABLE_CONSULTATIONS + " BEGIN " +
+                    "UPDATE " + TABLE_CONSULTATIONS + " SET " + KEY_DOCTOR_ID + " = (SELECT " + KEY_DOCTOR_ID +
+                    " FROM " + TABLE_PATIENTS + " WHERE " + KEY_ID + " = NEW." + KEY_PATIENT_ID + ")" +
+                    " WHERE " + KEY_ID + " = NEW." + KEY_ID + "; END",
+            "CREATE TRIGGER IF NOT EXISTS patients_doctor_consultations AFTER UPDATE OF " + KEY_DOCTOR_ID +
+                    " ON " + TABLE_PATIENTS + " WHEN NEW." + KEY_DOCTOR_ID + " IS NOT OLD." + KEY_DOCTOR_ID +
+                    " BEGIN UPDATE " + TABLE_CONSULTATIONS + " SET " + KEY_DOCTOR_ID + " = NEW." + KEY_DOCTOR_ID +
+                    " WHERE " + KEY_PATIENT_ID + " = NEW." + KEY_ID + "; END",
+            // A moved appointment gets a reminder for its new time, whoever moved it
+            "CREATE TRIGGER IF NOT EXISTS appointments_reminder_reset AFTER UPDATE OF " +
+                    KEY_APPOINTMENT_DATE + ", " + KEY_START_MINUTE + " ON " + TABLE_APPOINTMENTS +
+                    " WHEN NEW." + KEY_REMINDED + " != 0 AND (NEW." + KEY_APPOINTMENT_DATE + " IS NOT OLD." +
+                    KEY_APPOINTMENT_DATE + " OR NEW." + KEY_START_MINUTE + " IS NOT OLD." + KEY_START_MINUTE + ")" +
+                    " BEGIN UPDATE " + TABLE_APPOINTMENTS + " SET " + KEY_REMINDED + " = 0" +
+                    " WHERE " + KEY_ID + " = NEW." + KEY_ID + "; END"
+    };
+
+    // Indexes replaced by wider ones in later schema versions
+    private static final String[] OBSOLETE_INDEXES = {
+            "idx_appointments_doctor_date",
+            "idx_appointments_doctor_status",
+            "idx_appointments_doctor_date_time",
+            "idx_appointments_doctor_status_date_time",
+            "idx_appointments_patient_date",
+            "idx_appointments_scheduled_start",
+            "idx_consultations_date"
+    };
+
+    /**
+     * Connection settings applied to every connection when the database is configured
+     * (to the primary connection only before API 30, see applyPragma).
+     * Sizes follow SQLite conventions: a negative cache size is in KiB, mmap size is in bytes.
+     */
+    public static final class PragmaProfile {
+        public static final PragmaProfile DEFAULT =
+                new PragmaProfile("NORMAL", -8192, 32L * 1024 * 1024, "MEMORY");
+
+        public final String synchronous;
+        public final int cacheSize;
+        public final long mmapSize;
+        public final String tempStore;
+
+        public PragmaProfile(String synchronous, int cacheSize, long mmapSize, String tempStore) {
+            this.synchronous = synchronous;
+            this.cacheSize = cacheSize;
+            this.mmapSize = mmapSize;
+            this.tempStore = tempStore;
+        }
+    }
+
+    private static PragmaProfile pragmaProfile = PragmaProfile.DEFAULT;
+
+    private final StatementPool statementPool = new StatementPool();
+
+    /**
+     * Override the connection settings. Must be called before the first {@link #getInstance}.
+     */
+    public static synchronized void setPragmaProfile(PragmaProfile profile) {
+        if (instance != null) {
+            Log.w(TAG, "Pragma profile set after the database was opened; ignoring");
+            return;
+        }
+        pragmaProfile = profile != null ? profile : PragmaProfile.DEFAULT;
+    }
+
     public static synchronized DatabaseHelper getInstance(Context context) {
         if (instance == null) {
             instance = new DatabaseHelper(context.getApplicationContext());
@@ -135,7 +252,59 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
 
     private DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Cursors come from the profiler so every query is timed per DAO method
+        super(context, DATABASE_NAME, QueryProfiler.getInstance().cursorFactory(), DATABASE_VERSION);
+        // WAL lets the reader pool query while a write is in progress
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    // Compiled statements shared by the DAOs for their hot writes and counts
+    StatementPool getStatementPool() {
+        return statementPool;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Enable foreign key constraints (must happen outside a transaction)
+        db.setForeignKeyConstraintsEnabled(true);
+
+        // These pragmas are per connection, while onConfigure runs on the primary one only
+        PragmaProfile profile = pragmaProfile;
+        applyPragma(db, "PRAGMA synchronous=" + profile.synchronous);
+        applyPragma(db, "PRAGMA cache_size=" + profile.cacheSize);
+        applyPragma(db, "PRAGMA mmap_size=" + profile.mmapSize);
+        applyPragma(db, "PRAGMA temp_store=" + profile.tempStore);
+    }
+
+    /**
+     * From API 30 the pragma is registered for every connection in the pool, so the WAL
+     * readers get it too. Before that, or if the platform rejects it (mmap_size returns a
+     * row, which older releases refuse here), only the primary connection gets it: writes
+     * and transactions use the profile, while concurrent reads keep SQLite's defaults.
+     */
+    private void applyPragma(SQLiteDatabase db, String pragma) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            try {
+                db.execPerConnectionSQL(pragma, null);
+                return;
+            } catch (Exception e) {
+                Log.w(TAG, "Applying " + pragma + " to the primary connection only", e);
+            }
+        }
+
+        // Some pragmas return a row, which execSQL rejects, so go through rawQuery
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(pragma, null);
+            cursor.moveToFirst();
+        } catch (Exception e) {
+            Log.e(TAG, "Error applying " + pragma, e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
     }
 
     @Override
@@ -148,16 +317,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(CREATE_TABLE_CONSULTATIONS);
         db.execSQL(CREATE_TABLE_APPOINTMENTS);
         db.execSQL(CREATE_TABLE_USERS);
-
-        // Insert sample data for testing
-        db.beginTransaction();
-        try {
-            insertSampleUsers(db);
-            insertSampleData(db);
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
-        }
+        createIndexes(db);
+        createTriggers(db);
+        SearchIndex.create(db);
+        // Sample data is seeded separately, off this call (see DatabaseSeeder)
     }
 
     @Override
@@ -174,84 +337,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         }
     }
 
-    @Override
-    public void onOpen(SQLiteDatabase db) {
-        super.onOpen(db);
-        // Enable foreign key constraints
-        db.execSQL("PRAGMA foreign_keys=ON;");
-    }
-
-    private void insertSampleData(SQLiteDatabase db) {
-        // Insert sample patients (Tunisian names and phone numbers)
-        // All sample patients belong to the sample doctor (id=1)
-        // First patient is linked to the sample patient user (user_id=2, Sarra Mejri)
-        db.execSQL("INSERT INTO " + TABLE_PATIENTS + " (" +
-                KEY_DOCTOR_ID + ", " + KEY_USER_ID + ", " + KEY_FIRST_NAME + ", " + KEY_LAST_NAME + ", " + KEY_DATE_OF_BIRTH + ", " +
-                KEY_GENDER + ", " + KEY_PHONE + ", " + KEY_EMAIL + ", " +
-                KEY_BLOOD_GROUP + ", " + KEY_LAST_VISIT + ") VALUES " +
-                "(1, 2, 'Sarra', 'Mejri', '1995-03-20', 'Female', '+216 98111222', 'patient@medimanager.tn', 'A+', '2025-11-10')");
-
-        db.execSQL("INSERT INTO " + TABLE_PATIENTS + " (" +
-                KEY_DOCTOR_ID + ", " + KEY_FIRST_NAME + ", " + KEY_LAST_NAME + ", " + KEY_DATE_OF_BIRTH + ", " +
-                KEY_GENDER + ", " + KEY_PHONE + ", " + KEY_EMAIL + ", " +
-                KEY_BLOOD_GROUP + ", " + KEY_LAST_VISIT + ") VALUES " +
-                "(1, 'Mohamed', 'Ben Ali', '1978-08-22', 'Male', '+216 55987654', 'mohamed.benali@email.tn', 'O+', '2025-11-12')");
-
-        db.execSQL("INSERT INTO " + TABLE_PATIENTS + " (" +
-                KEY_DOCTOR_ID + ", " + KEY_FIRST_NAME + ", " + KEY_LAST_NAME + ", " + KEY_DATE_OF_BIRTH + ", " +
-                KEY_GENDER + ", " + KEY_PHONE + ", " + KEY_EMAIL + ", " +
-                KEY_BLOOD_GROUP + ", " + KEY_LAST_VISIT + ") VALUES " +
-                "(1, 'Amira', 'Jaziri', '1997-03-08', 'Female', '+216 98765432', 'amira.jaziri@email.tn', 'B+', '2025-11-08')");
-
-        db.execSQL("INSERT INTO " + TABLE_PATIENTS + " (" +
-                KEY_DOCTOR_ID + ", " + KEY_FIRST_NAME + ", " + KEY_LAST_NAME + ", " + KEY_DATE_OF_BIRTH + ", " +
-                KEY_GENDER + ", " + KEY_PHONE + ", " + KEY_EMAIL + ", " +
-                KEY_BLOOD_GROUP + ", " + KEY_LAST_VISIT + ") VALUES " +
-                "(1, 'Ahmed', 'Gharbi', '1973-11-30', 'Male', '+216 22333444', 'ahmed.gharbi@email.tn', 'AB+', '2025-11-09')");
-
-        // Insert sample appointments (all belong to doctor id=1)
-        db.execSQL("INSERT INTO " + TABLE_APPOINTMENTS + " (" +
-                KEY_PATIENT_ID + ", " + KEY_DOCTOR_ID + ", " + KEY_APPOINTMENT_DATE + ", " + KEY_APPOINTMENT_TIME + ", " +
-                KEY_REASON + ", " + KEY_STATUS + ") VALUES " +
-                "(1, 1, '2025-11-12', '09:00 AM', 'Consultation Générale', 'completed')");
-
-        db.execSQL("INSERT INTO " + TABLE_APPOINTMENTS + " (" +
-                KEY_PATIENT_ID + ", " + KEY_DOCTOR_ID + ", " + KEY_APPOINTMENT_DATE + ", " + KEY_APPOINTMENT_TIME + ", " +
-                KEY_REASON + ", " + KEY_STATUS + ") VALUES " +
-                "(2, 1, '2025-11-12', '10:30 AM', 'Suivi', 'scheduled')");
-
-        db.execSQL("INSERT INTO " + TABLE_APPOINTMENTS + " (" +
-                KEY_PATIENT_ID + ", " + KEY_DOCTOR_ID + ", " + KEY_APPOINTMENT_DATE + ", " + KEY_APPOINTMENT_TIME + ", " +
-                KEY_REASON + ", " + KEY_STATUS + ") VALUES " +
-                "(3, 1, '2025-11-12', '02:00 PM', 'Urgence', 'scheduled')");
-
-        db.execSQL("INSERT INTO " + TABLE_APPOINTMENTS + " (" +
-                KEY_PATIENT_ID + ", " + KEY_DOCTOR_ID + ", " + KEY_APPOINTMENT_DATE + ", " + KEY_APPOINTMENT_TIME + ", " +
-                KEY_REASON + ", " + KEY_STATUS + ") VALUES " +
-                "(4, 1, '2025-11-12', '03:30 PM', 'Vaccination', 'scheduled')");
-    }
-
-    private void insertSampleUsers(SQLiteDatabase db) {
-        String doctorPassword = PasswordUtils.hashPassword("doctor123");
-        String patientPassword = PasswordUtils.hashPassword("patient123");
-
-        // Insert sample doctor account
-        // Email: doctor@medimanager.tn | Password: doctor123
-        db.execSQL("INSERT INTO " + TABLE_USERS + " (" +
-                KEY_USER_FIRST_NAME + ", " + KEY_USER_LAST_NAME + ", " +
-                KEY_USER_EMAIL + ", " + KEY_USER_PASSWORD + ", " +
-                KEY_USER_ROLE + ", " + KEY_USER_PHONE + ") VALUES " +
-                "('Amine', 'Ben Amor', 'doctor@medimanager.tn', '" + doctorPassword + "', 'doctor', '+216 71123456')");
-
-        // Insert sample patient account
-        // Email: patient@medimanager.tn | Password: patient123
-        db.execSQL("INSERT INTO " + TABLE_USERS + " (" +
-                KEY_USER_FIRST_NAME + ", " + KEY_USER_LAST_NAME + ", " +
-                KEY_USER_EMAIL + ", " + KEY_USER_PASSWORD + ", " +
-                KEY_USER_ROLE + ", " + KEY_USER_PHONE + ") VALUES " +
-                "('Sarra', 'Mejri', 'patient@medimanager.tn', '" + patientPassword + "', 'patient', '+216 98111222')");
-    }
-
     private void migrateSchema(SQLiteDatabase db) {
         ensureTable(db, TABLE_USERS, CREATE_TABLE_USERS);
         ensureTable(db, TABLE_PATIENTS, CREATE_TABLE_PATIENTS);
@@ -281,6 +366,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         ensureColumn(db, TABLE_PATIENTS, KEY_CREATED_AT, "DATETIME DEFAULT CURRENT_TIMESTAMP");
 
         ensureColumn(db, TABLE_CONSULTATIONS, KEY_PATIENT_ID, "INTEGER");
+        ensureColumn(db, TABLE_CONSULTATIONS, KEY_DOCTOR_ID, "INTEGER");
         ensureColumn(db, TABLE_CONSULTATIONS, KEY_CONSULTATION_DATE, "TEXT");
         ensureColumn(db, TABLE_CONSULTATIONS, KEY_DIAGNOSIS, "TEXT");
         ensureColumn(db, TABLE_CONSULTATIONS, KEY_TREATMENT, "TEXT");
@@ -292,10 +378,79 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         ensureColumn(db, TABLE_APPOINTMENTS, KEY_DOCTOR_ID, "INTEGER");
         ensureColumn(db, TABLE_APPOINTMENTS, KEY_APPOINTMENT_DATE, "TEXT");
         ensureColumn(db, TABLE_APPOINTMENTS, KEY_APPOINTMENT_TIME, "TEXT");
+        ensureColumn(db, TABLE_APPOINTMENTS, KEY_START_MINUTE, "INTEGER NOT NULL DEFAULT -1");
         ensureColumn(db, TABLE_APPOINTMENTS, KEY_REASON, "TEXT");
         ensureColumn(db, TABLE_APPOINTMENTS, KEY_STATUS, "TEXT DEFAULT 'scheduled'");
         ensureColumn(db, TABLE_APPOINTMENTS, KEY_NOTES, "TEXT");
+        ensureColumn(db, TABLE_APPOINTMENTS, KEY_REMINDED, "INTEGER NOT NULL DEFAULT 0");
         ensureColumn(db, TABLE_APPOINTMENTS, KEY_CREATED_AT, "DATETIME DEFAULT CURRENT_TIMESTAMP");
+
+        backfillStartMinutes(db);
+        backfillConsultationDoctors(db);
+
+        for (String indexName : OBSOLETE_INDEXES) {
+            db.execSQL("DROP INDEX IF EXISTS " + indexName);
+        }
+        createIndexes(db);
+        createTriggers(db);
+        SearchIndex.create(db);
+    }
+
+    /**
+     * Copy each patient's doctor_id onto their consultations that do not have one yet,
+     * in a single statement inside the caller's transaction.
+     */
+    private void backfillConsultationDoctors(SQLiteDatabase db) {
+        db.execSQL("UPDATE " + TABLE_CONSULTATIONS + " SET " + KEY_DOCTOR_ID + " = (SELECT p." +
+                KEY_DOCTOR_ID + " FROM " + TABLE_PATIENTS + " p WHERE p." + KEY_ID + " = " +
+                TABLE_CONSULTATIONS + "." + KEY_PATIENT_ID + ") WHERE " + KEY_DOCTOR_ID + " IS NULL");
+    }
+
+    /**
+     * Derive start_minute from the appointment_time text for rows that do not have it yet.
+     * Runs inside the caller's transaction. Rows are read first and updated afterwards, so
+     * the updates cannot move rows under an open cursor.
+     */
+    private void backfillStartMinutes(SQLiteDatabase db) {
+        List<long[]> updates = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT " + KEY_ID + ", " + KEY_APPOINTMENT_TIME +
+                " FROM " + TABLE_APPOINTMENTS + " WHERE " + KEY_START_MINUTE + " < 0", null);
+        try {
+            while (cursor.moveToNext()) {
+                int minutes = DateUtils.parseTimeToMinutes(cursor.getString(1));
+                if (minutes >= 0) {
+                    updates.add(new long[]{cursor.getLong(0), minutes});
+                } else {
+                    Log.w(TAG, "Unparseable appointment time for id " + cursor.getLong(0));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_APPOINTMENTS +
+                " SET " + KEY_START_MINUTE + " = ? WHERE " + KEY_ID + " = ?");
+        try {
+            for (long[] row : updates) {
+                update.bindLong(1, row[1]);
+                update.bindLong(2, row[0]);
+                update.executeUpdateDelete();
+            }
+        } finally {
+            update.close();
+        }
+    }
+
+    private void createIndexes(SQLiteDatabase db) {
+        for (String createIndexSql : CREATE_INDEXES) {
+            db.execSQL(createIndexSql);
+        }
+    }
+
+    private void createTriggers(SQLiteDatabase db) {
+        for (String createTriggerSql : CREATE_TRIGGERS) {
+            db.execSQL(createTriggerSql);
+        }
     }
 
     private void ensureTable(SQLiteDatabase db, String tableName, String createSql) {
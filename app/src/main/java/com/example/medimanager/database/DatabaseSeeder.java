@@ -0,0 +1,198 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import com.example.medimanager.R;
+import com.example.medimanager.utils.DateUtils;
+import com.example.medimanager.utils.PasswordUtils;
+
+/**
+ * Fills a new, empty database with the sample accounts, patients and appointments.
+ *
+ * Seeding used to run inside DatabaseHelper.onCreate, so whichever screen opened the
+ * database first paid for two PBKDF2 hashes and the inserts. It is now a separate job on
+ * the writer executor, enabled by the seed_sample_data resource (on for debug and benchmark
+ * builds). Passwords are hashed before the transaction starts, and rows go in through
+ * compiled statements in one transaction.
+ */
+public final class DatabaseSeeder {
+
+    private static final String TAG = "DatabaseSeeder";
+
+    // first name, last name, email, password, role, phone
+    private static final String[][] USERS = {
+            {"Amine", "Ben Amor", "doctor@medimanager.tn", "doctor123", "doctor", "+216 71123456"},
+            {"Sarra", "Mejri", "patient@medimanager.tn", "patient123", "patient", "+216 98111222"},
+    };
+
+    // first name, last name, date of birth, gender, phone, email, blood group, last visit.
+    // All belong to the sample doctor; the first is linked to the sample patient account.
+    private static final String[][] PATIENTS = {
+            {"Sarra", "Mejri", "1995-03-20", "Female", "+216 98111222", "patient@medimanager.tn", "A+", "2025-11-10"},
+            {"Mohamed", "Ben Ali", "1978-08-22", "Male", "+216 55987654", "mohamed.benali@email.tn", "O+", "2025-11-12"},
+            {"Amira", "Jaziri", "1997-03-08", "Female", "+216 98765432", "amira.jaziri@email.tn", "B+", "2025-11-08"},
+            {"Ahmed", "Gharbi", "1973-11-30", "Male", "+216 22333444", "ahmed.gharbi@email.tn", "AB+", "2025-11-09"},
+    };
+
+    // patient (index into PATIENTS), date, time, reason, status
+    private static final String[][] APPOINTMENTS = {
+            {"0", "2025-11-12", "09:00 AM", "Consultation Générale", "completed"},
+            {"1", "2025-11-12", "10:30 AM", "Suivi", "scheduled"},
+            {"2", "2025-11-12", "02:00 PM", "Urgence", "scheduled"},
+            {"3", "2025-11-12", "03:30 PM", "Vaccination", "scheduled"},
+    };
+
+    private static final String INSERT_USER = "INSERT INTO " + DatabaseHelper.TABLE_USERS + " (" +
+            DatabaseHelper.KEY_USER_FIRST_NAME + ", " + DatabaseHelper.KEY_USER_LAST_NAME + ", " +
+            DatabaseHelper.KEY_USER_EMAIL + ", " + DatabaseHelper.KEY_USER_PASSWORD + ", " +
+            DatabaseHelper.KEY_USER_ROLE + ", " + DatabaseHelper.KEY_USER_PHONE + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PATIENT = "INSERT INTO " + DatabaseHelper.TABLE_PATIENTS + " (" +
+            DatabaseHelper.KEY_DOCTOR_ID + ", " + DatabaseHelper.KEY_USER_ID + ", " +
+            DatabaseHelper.KEY_FIRST_NAME + ", " + DatabaseHelper.KEY_LAST_NAME + ", " +
+            DatabaseHelper.KEY_DATE_OF_BIRTH + ", " + DatabaseHelper.KEY_GENDER + ", " +
+            DatabaseHelper.KEY_PHONE + ", " + DatabaseHelper.KEY_EMAIL + ", " +
+            DatabaseHelper.KEY_BLOOD_GROUP + ", " + DatabaseHelper.KEY_LAST_VISIT +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_APPOINTMENT = "INSERT INTO " + DatabaseHelper.TABLE_APPOINTMENTS + " (" +
+            DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_DOCTOR_ID + ", " +
+            DatabaseHelper.KEY_APPOINTMENT_DATE + ", " + DatabaseHelper.KEY_APPOINTMENT_TIME + ", " +
+            DatabaseHelper.KEY_START_MINUTE + ", " + DatabaseHelper.KEY_REASON + ", " +
+            DatabaseHelper.KEY_STATUS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private DatabaseSeeder() {
+        throw new AssertionError("No instances.");
+    }
+
+    /**
+     * Queue seeding on the writer executor if this build opts in. Does nothing once the
+     * database has any user, so it is safe to call on every start.
+     */
+    public static void seedAsync(Context context) {
+        Context appContext = context.getApplicationContext();
+        if (!appContext.getResources().getBoolean(R.bool.seed_sample_data)) {
+            return;
+        }
+        try {
+            DatabaseExecutors.getInstance().writer().execute(() -> seed(appContext));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Unable to schedule seeding", e);
+        }
+    }
+
+    /**
+     * Insert the sample rows into an empty database. Runs PBKDF2 and a transaction,
+     * so call it on the writer thread. Returns whether anything was inserted.
+     */
+    public static boolean seed(Context context) {
+        Trace.beginSection("DatabaseSeeder.seed");
+        try {
+            SQLiteDatabase db = DatabaseHelper.getInstance(context).getWritableDatabase();
+            if (hasUsers(db)) {
+                return false;
+            }
+
+            long start = SystemClock.elapsedRealtime();
+            // Hash before taking the write lock; each hash is deliberately slow
+            PasswordUtils.calibrate(context);
+            String[] passwords = new String[USERS.length];
+            for (int i = 0; i < USERS.length; i++) {
+                passwords[i] = PasswordUtils.hashPassword(USERS[i][3]);
+            }
+
+            db.beginTransaction();
+            try {
+                // A user may have registered while the passwords were hashed
+                if (hasUsers(db)) {
+                    return false;
+                }
+                insertRows(db, passwords);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            DatabaseChangeBus changes = DatabaseChangeBus.getInstance();
+            changes.publish(DatabaseHelper.TABLE_USERS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.INSERT);
+            changes.publish(DatabaseHelper.TABLE_PATIENTS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.INSERT);
+            changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.INSERT);
+            AppointmentScheduler.invalidateSchedules();
+            Log.i(TAG, "Seeded sample data in " + (SystemClock.elapsedRealtime() - start) + " ms");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error seeding sample data", e);
+            return false;
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private static boolean hasUsers(SQLiteDatabase db) {
+        SQLiteStatement exists = db.compileStatement(
+                "SELECT EXISTS(SELECT 1 FROM " + DatabaseHelper.TABLE_USERS + ")");
+        try {
+            return exists.simpleQueryForLong() != 0;
+        } finally {
+            exists.close();
+        }
+    }
+
+    private static void insertRows(SQLiteDatabase db, String[] passwords) {
+        SQLiteStatement insertUser = db.compileStatement(INSERT_USER);
+        SQLiteStatement insertPatient = db.compileStatement(INSERT_PATIENT);
+        SQLiteStatement insertAppointment = db.compileStatement(INSERT_APPOINTMENT);
+        try {
+            long[] userIds = new long[USERS.length];
+            for (int i = 0; i < USERS.length; i++) {
+                String[] user = USERS[i];
+                insertUser.clearBindings();
+                insertUser.bindString(1, user[0]);
+                insertUser.bindString(2, user[1]);
+                insertUser.bindString(3, user[2]);
+                insertUser.bindString(4, passwords[i]);
+                insertUser.bindString(5, user[4]);
+                insertUser.bindString(6, user[5]);
+                userIds[i] = insertUser.executeInsert();
+            }
+            long doctorId = userIds[0];
+
+            long[] patientIds = new long[PATIENTS.length];
+            for (int i = 0; i < PATIENTS.length; i++) {
+                String[] patient = PATIENTS[i];
+                insertPatient.clearBindings();
+                insertPatient.bindLong(1, doctorId);
+                if (i == 0) {
+                    insertPatient.bindLong(2, userIds[1]);
+                } else {
+                    insertPatient.bindNull(2);
+                }
+                for (int column = 0; column < patient.length; column++) {
+                    insertPatient.bindString(column + 3, patient[column]);
+                }
+                patientIds[i] = insertPatient.executeInsert();
+            }
+
+            for (String[] appointment : APPOINTMENTS) {
+                insertAppointment.clearBindings();
+                insertAppointment.bindLong(1, patientIds[Integer.parseInt(appointment[0])]);
+                insertAppointment.bindLong(2, doctorId);
+                insertAppointment.bindString(3, appointment[1]);
+                insertAppointment.bindString(4, appointment[2]);
+                insertAppointment.bindLong(5, DateUtils.parseTimeToMinutes(appointment[2]));
+                insertAppointment.bindString(6, appointment[3]);
+                insertAppointment.bindString(7, appointment[4]);
+                insertAppointment.executeInsert();
+            }
+        } finally {
+            insertUser.close();
+            insertPatient.close();
+            insertAppointment.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.medimanager.database;
+
+import android.util.LruCache;
+
+/**
+ * Bounded LRU cache of model objects keyed by id, shared by every instance of a DAO.
+ *
+ * Models are mutable, so values are copied on the way in and on the way out; callers
+ * can edit what they get back without affecting the cache. DAO write methods invalidate
+ * the rows they change.
+ *
+ * A read that started before an invalidation may have loaded the old row, so loads are
+ * stored with {@link #putIfCurrent} and dropped if anything was invalidated meanwhile.
+ */
+final class ModelCache<K, V> {
+
+    interface Copier<V> {
+        V copy(V value);
+    }
+
+    private final LruCache<K, V> cache;
+    private final Copier<V> copier;
+    private long generation;
+
+    ModelCache(int maxSize, Copier<V> copier) {
+        cache = new LruCache<>(maxSize);
+        this.copier = copier;
+    }
+
+    /**
+     * Copy of the cached value, or null on a miss.
+     */
+    V get(K key) {
+        V value = cache.get(key);
+        return value != null ? copier.copy(value) : null;
+    }
+
+    /**
+     * Token to pass to {@link #putIfCurrent} for a value about to be loaded.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Cache a loaded value unless an invalidation happened after {@code loadedAt} was taken.
+     */
+    synchronized void putIfCurrent(K key, V value, long loadedAt) {
+        if (value != null && loadedAt == generation) {
+            cache.put(key, copier.copy(value));
+        }
+    }
+
+    synchronized void invalidate(K key) {
+        generation++;
+        cache.remove(key);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        cache.evictAll();
+    }
+
+    CacheStats stats() {
+        return new CacheStats(cache.hitCount(), cache.missCount(), cache.evictionCount(),
+                cache.size(), cache.maxSize());
+    }
+}
@@ -4,52 +4,104 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.text.TextUtils;
 import android.util.Log;
 
 import com.example.medimanager.models.Patient;
+import com.example.medimanager.models.PatientSummary;
+import com.example.medimanager.utils.Constants;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class PatientDAO {
     private final DatabaseHelper dbHelper;
+    private final DatabaseChangeBus changes = DatabaseChangeBus.getInstance();
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
+    private final StatementPool statements;
     private static final String TAG = "PatientDAO";
 
+    // Hot statements, compiled once and reused through the StatementPool
+    private static final String INSERT_PATIENT =
+            "INSERT INTO " + DatabaseHelper.TABLE_PATIENTS + " (" +
+                    DatabaseHelper.KEY_DOCTOR_ID + ", " + DatabaseHelper.KEY_USER_ID + ", " +
+                    DatabaseHelper.KEY_FIRST_NAME + ", " + DatabaseHelper.KEY_LAST_NAME + ", " +
+                    DatabaseHelper.KEY_DATE_OF_BIRTH + ", " + DatabaseHelper.KEY_GENDER + ", " +
+                    DatabaseHelper.KEY_PHONE + ", " + DatabaseHelper.KEY_EMAIL + ", " +
+                    DatabaseHelper.KEY_ADDRESS + ", " + DatabaseHelper.KEY_BLOOD_GROUP + ", " +
+                    DatabaseHelper.KEY_ALLERGIES + ", " + DatabaseHelper.KEY_LAST_VISIT +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_PATIENT =
+            "DELETE FROM " + DatabaseHelper.TABLE_PATIENTS + " WHERE " + DatabaseHelper.KEY_ID + " = ?";
+    private static final String SELECT_DOCTOR_ID =
+            "SELECT " + DatabaseHelper.KEY_DOCTOR_ID + " FROM " + DatabaseHelper.TABLE_PATIENTS +
+                    " WHERE " + DatabaseHelper.KEY_ID + " = ?";
+    private static final String COUNT_PATIENTS =
+            "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_PATIENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?";
+
+    // Shared by all instances; getPatientById reads through it
+    private static final ModelCache<Integer, Patient> cache =
+            new ModelCache<>(Constants.PATIENT_CACHE_SIZE, Patient::new);
+
+    // List screens show only these columns; the details and edit screens load the full row by id
+    private static final String[] SUMMARY_COLUMNS = {
+            DatabaseHelper.KEY_ID,
+            DatabaseHelper.KEY_FIRST_NAME,
+            DatabaseHelper.KEY_LAST_NAME,
+            DatabaseHelper.KEY_DATE_OF_BIRTH,
+            DatabaseHelper.KEY_GENDER,
+            DatabaseHelper.KEY_PHONE,
+            DatabaseHelper.KEY_BLOOD_GROUP,
+            DatabaseHelper.KEY_LAST_VISIT
+    };
+
     public PatientDAO(Context context) {
         dbHelper = DatabaseHelper.getInstance(context);
+        statements = dbHelper.getStatementPool();
     }
 
     // Create
     public long insertPatient(Patient patient) {
         SQLiteDatabase database = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.KEY_DOCTOR_ID, patient.getDoctorId());
-        if (patient.getUserId() != null) {
-            values.put(DatabaseHelper.KEY_USER_ID, patient.getUserId());
-        }
-        values.put(DatabaseHelper.KEY_FIRST_NAME, patient.getFirstName());
-        values.put(DatabaseHelper.KEY_LAST_NAME, patient.getLastName());
-        values.put(DatabaseHelper.KEY_DATE_OF_BIRTH, patient.getDateOfBirth());
-        values.put(DatabaseHelper.KEY_GENDER, patient.getGender());
-        values.put(DatabaseHelper.KEY_PHONE, patient.getPhone());
-        values.put(DatabaseHelper.KEY_EMAIL, patient.getEmail());
-        values.put(DatabaseHelper.KEY_ADDRESS, patient.getAddress());
-        values.put(DatabaseHelper.KEY_BLOOD_GROUP, patient.getBloodGroup());
-        values.put(DatabaseHelper.KEY_ALLERGIES, patient.getAllergies());
-        values.put(DatabaseHelper.KEY_LAST_VISIT, patient.getLastVisit());
-
         try {
-            return database.insert(DatabaseHelper.TABLE_PATIENTS, null, values);
+            long id = statements.executeInsert(database, INSERT_PATIENT, statement -> {
+                statement.bindLong(1, patient.getDoctorId());
+                if (patient.getUserId() != null) {
+                    statement.bindLong(2, patient.getUserId());
+                } else {
+                    statement.bindNull(2);
+                }
+                StatementPool.bindText(statement, 3, patient.getFirstName());
+                StatementPool.bindText(statement, 4, patient.getLastName());
+                StatementPool.bindText(statement, 5, patient.getDateOfBirth());
+                StatementPool.bindText(statement, 6, patient.getGender());
+                StatementPool.bindText(statement, 7, patient.getPhone());
+                StatementPool.bindText(statement, 8, patient.getEmail());
+                StatementPool.bindText(statement, 9, patient.getAddress());
+                StatementPool.bindText(statement, 10, patient.getBloodGroup());
+                StatementPool.bindText(statement, 11, patient.getAllergies());
+                StatementPool.bindText(statement, 12, patient.getLastVisit());
+            });
+            if (id != -1) {
+                changes.publish(DatabaseHelper.TABLE_PATIENTS, id, DatabaseChangeBus.Operation.INSERT);
+            }
+            return id;
         } catch (Exception e) {
             Log.e(TAG, "Error inserting patient", e);
             return -1;
         }
     }
 
-    // Read - Get by ID
+    // Read - Get by ID, served from the cache when possible
     public Patient getPatientById(int id) {
+        Patient patient = cache.get(id);
+        if (patient != null) {
+            return patient;
+        }
+
+        long generation = cache.generation();
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        Patient patient = null;
         Cursor cursor = null;
         try {
             cursor = database.query(
@@ -71,18 +123,19 @@ public class PatientDAO {
             }
         }
 
+        cache.putIfCurrent(id, patient, generation);
         return patient;
     }
 
     // Read - Get all patients
-    public List<Patient> getAllPatients(int doctorId) {
-        List<Patient> patients = new ArrayList<>();
+    public List<PatientSummary> getAllPatients(int doctorId) {
+        List<PatientSummary> patients = new ArrayList<>();
         SQLiteDatabase database = dbHelper.getReadableDatabase();
         Cursor cursor = null;
         try {
             cursor = database.query(
                 DatabaseHelper.TABLE_PATIENTS,
-                null,
+                SUMMARY_COLUMNS,
                 DatabaseHelper.KEY_DOCTOR_ID + " = ?",
                 new String[]{String.valueOf(doctorId)},
                 null,
@@ -91,8 +144,9 @@ public class PatientDAO {
             );
 
             if (cursor.moveToFirst()) {
+                PatientSummaryColumns columns = new PatientSummaryColumns(cursor);
                 do {
-                    patients.add(cursorToPatient(cursor));
+                    patients.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -106,9 +160,60 @@ public class PatientDAO {
         return patients;
     }
 
+    // Read - One keyset page of a doctor's patients ordered by first name.
+    // Pass the last patient of the previous page as "after" (null for the first page).
+    public List<PatientSummary> getPatientsPage(int doctorId, PatientSummary after, int limit) {
+        List<PatientSummary> patients = new ArrayList<>();
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        String selection = DatabaseHelper.KEY_DOCTOR_ID + " = ?";
+        String[] selectionArgs;
+        if (after == null) {
+            selectionArgs = new String[]{String.valueOf(doctorId)};
+        } else {
+            // (first_name, id) > (after.first_name, after.id)
+            selection += " AND " + DatabaseHelper.KEY_FIRST_NAME + " >= ? AND (" +
+                    DatabaseHelper.KEY_FIRST_NAME + " > ? OR " + DatabaseHelper.KEY_ID + " > ?)";
+            selectionArgs = new String[]{
+                    String.valueOf(doctorId),
+                    after.getFirstName(),
+                    after.getFirstName(),
+                    String.valueOf(after.getId())
+            };
+        }
+
+        Cursor cursor = null;
+        try {
+            cursor = database.query(
+                DatabaseHelper.TABLE_PATIENTS,
+                SUMMARY_COLUMNS,
+                selection,
+                selectionArgs,
+                null,
+                null,
+                DatabaseHelper.KEY_FIRST_NAME + " ASC, " + DatabaseHelper.KEY_ID + " ASC",
+                String.valueOf(limit)
+            );
+
+            if (cursor.moveToFirst()) {
+                PatientSummaryColumns columns = new PatientSummaryColumns(cursor);
+                do {
+                    patients.add(columns.read(cursor));
+                } while (cursor.moveToNext());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading patients page", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return patients;
+    }
+
     // Read - Get recent patients
-    public List<Patient> getRecentPatients(int doctorId, int limit) {
-        List<Patient> patients = new ArrayList<>();
+    public List<PatientSummary> getRecentPatients(int doctorId, int limit) {
+        List<PatientSummary> patients = new ArrayList<>();
         SQLiteDatabase database = dbHelper.getReadableDatabase();
         String selection = DatabaseHelper.KEY_DOCTOR_ID + " = ?";
         String[] selectionArgs = new String[]{String.valueOf(doctorId)};
@@ -117,7 +222,7 @@ public class PatientDAO {
         try {
             cursor = database.query(
                 DatabaseHelper.TABLE_PATIENTS,
-                null,
+                SUMMARY_COLUMNS,
                 selection,
                 selectionArgs,
                 null,
@@ -127,8 +232,9 @@ public class PatientDAO {
             );
 
             if (cursor.moveToFirst()) {
+                PatientSummaryColumns columns = new PatientSummaryColumns(cursor);
                 do {
-                    patients.add(cursorToPatient(cursor));
+                    patients.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -142,30 +248,35 @@ public class PatientDAO {
         return patients;
     }
 
-    // Read - Search patients
-        public List<Patient> searchPatients(int doctorId, String query) {
-        List<Patient> patients = new ArrayList<>();
+    // Read - Search patients by name, phone or email (prefix match on every word)
+    public List<PatientSummary> searchPatients(int doctorId, String query) {
+        List<PatientSummary> patients = new ArrayList<>();
+        String match = SearchIndex.buildMatchQuery(query, null);
+        if (match == null) {
+            return patients;
+        }
+
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        String selection = DatabaseHelper.KEY_DOCTOR_ID + " = ? AND (" +
-            DatabaseHelper.KEY_FIRST_NAME + " LIKE ? OR " +
-            DatabaseHelper.KEY_LAST_NAME + " LIKE ?)";
-        String[] selectionArgs = new String[]{
-            String.valueOf(doctorId),
-            "%" + query + "%",
-            "%" + query + "%"
-        };
+        // CROSS JOIN keeps the full-text table as the outer loop; FTS5 ranks by bm25,
+        // the FTS4 fallback has no ranking and sorts by name
+        String fts = SearchIndex.TABLE_PATIENTS_FTS;
+        String orderBy = SearchIndex.isFts5(database)
+                ? fts + ".rank"
+                : "p." + DatabaseHelper.KEY_FIRST_NAME + " ASC, p." + DatabaseHelper.KEY_ID + " ASC";
+        String sql = "SELECT p." + TextUtils.join(", p.", SUMMARY_COLUMNS) +
+                " FROM " + fts + " CROSS JOIN " + DatabaseHelper.TABLE_PATIENTS + " p" +
+                " ON p." + DatabaseHelper.KEY_ID + " = " + fts + ".rowid" +
+                " WHERE " + fts + " MATCH ? AND p." + DatabaseHelper.KEY_DOCTOR_ID + " = ?" +
+                " ORDER BY " + orderBy;
 
         Cursor cursor = null;
         try {
-            cursor = database.query(
-                    DatabaseHelper.TABLE_PATIENTS,
-                    null, selection, selectionArgs, null, null,
-                    DatabaseHelper.KEY_FIRST_NAME + " ASC"
-            );
+            cursor = database.rawQuery(sql, new String[]{match, String.valueOf(doctorId)});
 
             if (cursor.moveToFirst()) {
+                PatientSummaryColumns columns = new PatientSummaryColumns(cursor);
                 do {
-                    patients.add(cursorToPatient(cursor));
+                    patients.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -257,15 +368,39 @@ public class PatientDAO {
         values.put(DatabaseHelper.KEY_LAST_VISIT, patient.getLastVisit());
 
         try {
-            return database.update(
-                    DatabaseHelper.TABLE_PATIENTS,
-                    values,
-                    DatabaseHelper.KEY_ID + " = ?",
-                    new String[]{String.valueOf(patient.getId())}
-            );
+            // Read the doctor in the same transaction: if it changes, the
+            // patients_doctor_consultations trigger moves the consultations too
+            long previousDoctorId;
+            int rows;
+            database.beginTransactionNonExclusive();
+            try {
+                previousDoctorId = statements.simpleQueryForLong(database, SELECT_DOCTOR_ID,
+                        statement -> statement.bindLong(1, patient.getId()));
+                long start = System.nanoTime();
+                rows = database.update(
+                        DatabaseHelper.TABLE_PATIENTS,
+                        values,
+                        DatabaseHelper.KEY_ID + " = ?",
+                        new String[]{String.valueOf(patient.getId())}
+                );
+                profiler.recordWrite("UPDATE " + DatabaseHelper.TABLE_PATIENTS, start, rows);
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_PATIENTS, patient.getId(), DatabaseChangeBus.Operation.UPDATE);
+                if (previousDoctorId != patient.getDoctorId()) {
+                    changes.publish(DatabaseHelper.TABLE_CONSULTATIONS, DatabaseChangeBus.ALL_ROWS,
+                            DatabaseChangeBus.Operation.UPDATE);
+                }
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error updating patient", e);
             return 0;
+        } finally {
+            cache.invalidate(patient.getId());
         }
     }
 
@@ -276,15 +411,23 @@ public class PatientDAO {
         values.put(DatabaseHelper.KEY_LAST_VISIT, lastVisit);
 
         try {
-            return database.update(
+            long start = System.nanoTime();
+            int rows = database.update(
                     DatabaseHelper.TABLE_PATIENTS,
                     values,
                     DatabaseHelper.KEY_ID + " = ?",
                     new String[]{String.valueOf(patientId)}
             );
+            profiler.recordWrite("UPDATE " + DatabaseHelper.TABLE_PATIENTS, start, rows);
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_PATIENTS, patientId, DatabaseChangeBus.Operation.UPDATE);
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error updating last visit", e);
             return 0;
+        } finally {
+            cache.invalidate(patientId);
         }
     }
 
@@ -292,41 +435,49 @@ public class PatientDAO {
     public int deletePatient(int id) {
         SQLiteDatabase database = dbHelper.getWritableDatabase();
         try {
-            return database.delete(
-                    DatabaseHelper.TABLE_PATIENTS,
-                    DatabaseHelper.KEY_ID + " = ?",
-                    new String[]{String.valueOf(id)}
-            );
+            int rows = statements.executeUpdateDelete(database, DELETE_PATIENT,
+                    statement -> statement.bindLong(1, id));
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_PATIENTS, id, DatabaseChangeBus.Operation.DELETE);
+                // The patient's appointments and consultations go with it (ON DELETE CASCADE)
+                changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.DELETE);
+                changes.publish(DatabaseHelper.TABLE_CONSULTATIONS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.DELETE);
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error deleting patient", e);
             return 0;
+        } finally {
+            cache.invalidate(id);
+            AppointmentScheduler.invalidateSchedules();
         }
     }
 
+    // Cache - Drop a patient changed outside this DAO
+    static void invalidateCachedPatient(int id) {
+        cache.invalidate(id);
+    }
+
+    // Cache - Drop every patient, after a bulk change to many rows
+    static void invalidateCachedPatients() {
+        cache.invalidateAll();
+    }
+
+    // Cache - Counters for sizing PATIENT_CACHE_SIZE
+    public static CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
     // Statistics
     public int getTotalPatientsCount(int doctorId) {
         SQLiteDatabase database = dbHelper.getReadableDatabase();
-        int count = 0;
-        Cursor cursor = null;
         try {
-            cursor = database.rawQuery(
-                    "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_PATIENTS +
-                            " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?",
-                    new String[]{String.valueOf(doctorId)}
-            );
-
-            if (cursor.moveToFirst()) {
-                count = cursor.getInt(0);
-            }
+            return (int) statements.simpleQueryForLong(database, COUNT_PATIENTS,
+                    statement -> statement.bindLong(1, doctorId));
         } catch (Exception e) {
             Log.e(TAG, "Error counting patients", e);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
+            return 0;
         }
-
-        return count;
     }
 
     public List<Patient> getPatientsByDoctor(int doctorId) {
@@ -345,8 +496,9 @@ public class PatientDAO {
             );
 
             if (cursor.moveToFirst()) {
+                PatientColumns columns = new PatientColumns(cursor);
                 do {
-                    patients.add(cursorToPatient(cursor));
+                    patients.add(columns.read(cursor));
                 } while (cursor.moveToNext());
             }
         } catch (Exception e) {
@@ -360,28 +512,105 @@ public class PatientDAO {
         return patients;
     }
 
-    // Helper method to convert cursor to Patient object
+    // Helper method - Map a single row; loops over many rows resolve PatientColumns once instead
     private Patient cursorToPatient(Cursor cursor) {
-        Patient patient = new Patient();
+        return new PatientColumns(cursor).read(cursor);
+    }
 
-        patient.setId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ID)));
-        patient.setDoctorId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DOCTOR_ID)));
-        int userIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_ID);
-        if (!cursor.isNull(userIdIndex)) {
-            patient.setUserId(cursor.getInt(userIdIndex));
+    /**
+     * Column positions of a patient cursor, looked up once per cursor so that mapping
+     * a row is only positional reads.
+     */
+    private static final class PatientColumns {
+        private final int id;
+        private final int doctorId;
+        private final int userId;
+        private final int firstName;
+        private final int lastName;
+        private final int dateOfBirth;
+        private final int gender;
+        private final int phone;
+        private final int email;
+        private final int address;
+        private final int bloodGroup;
+        private final int allergies;
+        private final int lastVisit;
+        private final int createdAt;
+
+        PatientColumns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ID);
+            doctorId = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DOCTOR_ID);
+            userId = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_ID);
+            firstName = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_FIRST_NAME);
+            lastName = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_LAST_NAME);
+            dateOfBirth = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DATE_OF_BIRTH);
+            gender = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_GENDER);
+            phone = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PHONE);
+            email = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_EMAIL);
+            address = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ADDRESS);
+            bloodGroup = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_BLOOD_GROUP);
+            allergies = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ALLERGIES);
+            lastVisit = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_LAST_VISIT);
+            createdAt = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_CREATED_AT);
         }
-        patient.setFirstName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_FIRST_NAME)));
-        patient.setLastName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_LAST_NAME)));
-        patient.setDateOfBirth(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DATE_OF_BIRTH)));
-        patient.setGender(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_GENDER)));
-        patient.setPhone(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PHONE)));
-        patient.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_EMAIL)));
-        patient.setAddress(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ADDRESS)));
-        patient.setBloodGroup(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_BLOOD_GROUP)));
-        patient.setAllergies(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ALLERGIES)));
-        patient.setLastVisit(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_LAST_VISIT)));
-        patient.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_CREATED_AT)));
 
-        return patient;
+        Patient read(Cursor cursor) {
+            Patient patient = new Patient();
+            patient.setId(cursor.getInt(id));
+            patient.setDoctorId(cursor.getInt(doctorId));
+            if (!cursor.isNull(userId)) {
+                patient.setUserId(cursor.getInt(userId));
+            }
+            patient.setFirstName(cursor.getString(firstName));
+            patient.setLastName(cursor.getString(lastName));
+            patient.setDateOfBirth(cursor.getString(dateOfBirth));
+            patient.setGender(cursor.getString(gender));
+            patient.setPhone(cursor.getString(phone));
+            patient.setEmail(cursor.getString(email));
+            patient.setAddress(cursor.getString(address));
+            patient.setBloodGroup(cursor.getString(bloodGroup));
+            patient.setAllergies(cursor.getString(allergies));
+            patient.setLastVisit(cursor.getString(lastVisit));
+            patient.setCreatedAt(cursor.getString(createdAt));
+            return patient;
+        }
+    }
+
+    /**
+     * Column positions of a SUMMARY_COLUMNS cursor, looked up once per cursor.
+     */
+    private static final class PatientSummaryColumns {
+        private final int id;
+        private final int firstName;
+        private final int lastName;
+        private final int dateOfBirth;
+        private final int gender;
+        private final int phone;
+        private final int bloodGroup;
+        private final int lastVisit;
+
+        PatientSummaryColumns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ID);
+            firstName = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_FIRST_NAME);
+            lastName = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_LAST_NAME);
+            dateOfBirth = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DATE_OF_BIRTH);
+            gender = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_GENDER);
+            phone = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PHONE);
+            bloodGroup = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_BLOOD_GROUP);
+            lastVisit = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_LAST_VISIT);
+        }
+
+        PatientSummary read(Cursor cursor) {
+            PatientSummary summary = new PatientSummary();
+            summary.setId(cursor.getInt(id));
+            summary.setFirstName(cursor.getString(firstName));
+            summary.setLastName(cursor.getString(lastName));
+            summary.setDateOfBirth(cursor.getString(dateOfBirth));
+            summary.setGender(cursor.getString(gender));
+            summary.setPhone(cursor.getString(phone));
+            summary.setBloodGroup(cursor.getString(bloodGroup));
+            summary.setLastVisit(cursor.getString(lastVisit));
+            return summary;
+        }
     }
 }
@@ -0,0 +1,439 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.util.JsonWriter;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a doctor's patients together with their consultations and appointments.
+ *
+ * Three cursors are walked side by side instead of loading lists: patients, and the
+ * consultations and appointments joined to them, all in the order of
+ * idx_patients_doctor_first_name, so the child rows of each patient arrive right after
+ * it and no query needs a sort. Memory use does not grow with the size of the practice.
+ *
+ * NDJSON writes one line per patient with nested "consultations" and "appointments"
+ * arrays. CSV writes one row per record with a record_type column and the union of the
+ * three tables' columns, a patient row being followed by its child rows.
+ *
+ * Must be called off the main thread.
+ */
+public class PracticeExporter {
+
+    private static final String TAG = "PracticeExporter";
+
+    private static final int PROGRESS_INTERVAL = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    public interface ProgressListener {
+        // Called on the exporting thread every PROGRESS_INTERVAL patients and at the end
+        void onProgress(int exported, int total);
+    }
+
+    public static class Result {
+        private int patients;
+        private int consultations;
+        private int appointments;
+        private long elapsedMillis;
+
+        public int getPatients() {
+            return patients;
+        }
+
+        public int getConsultations() {
+            return consultations;
+        }
+
+        public int getAppointments() {
+            return appointments;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    private static final String RECORD_TYPE = "record_type";
+    private static final String TYPE_PATIENT = "patient";
+    private static final String TYPE_CONSULTATION = "consultation";
+    private static final String TYPE_APPOINTMENT = "appointment";
+
+    // Merge key carried by the child queries
+    private static final String SORT_NAME = "sort_name";
+
+    private static final String[] PATIENT_COLUMNS = {
+            DatabaseHelper.KEY_ID, DatabaseHelper.KEY_FIRST_NAME, DatabaseHelper.KEY_LAST_NAME,
+            DatabaseHelper.KEY_DATE_OF_BIRTH, DatabaseHelper.KEY_GENDER, DatabaseHelper.KEY_PHONE,
+            DatabaseHelper.KEY_EMAIL, DatabaseHelper.KEY_ADDRESS, DatabaseHelper.KEY_BLOOD_GROUP,
+            DatabaseHelper.KEY_ALLERGIES, DatabaseHelper.KEY_LAST_VISIT, DatabaseHelper.KEY_CREATED_AT
+    };
+
+    private static final String[] CONSULTATION_COLUMNS = {
+            DatabaseHelper.KEY_ID, DatabaseHelper.KEY_PATIENT_ID, DatabaseHelper.KEY_CONSULTATION_DATE,
+            DatabaseHelper.KEY_DIAGNOSIS, DatabaseHelper.KEY_TREATMENT, DatabaseHelper.KEY_PRESCRIPTION,
+            DatabaseHelper.KEY_NOTES, DatabaseHelper.KEY_CREATED_AT
+    };
+
+    private static final String[] APPOINTMENT_COLUMNS = {
+            DatabaseHelper.KEY_ID, DatabaseHelper.KEY_PATIENT_ID, DatabaseHelper.KEY_APPOINTMENT_DATE,
+            DatabaseHelper.KEY_APPOINTMENT_TIME, DatabaseHelper.KEY_REASON, DatabaseHelper.KEY_STATUS,
+            DatabaseHelper.KEY_NOTES, DatabaseHelper.KEY_CREATED_AT
+    };
+
+    private static final String PATIENTS_QUERY =
+            "SELECT * FROM " + DatabaseHelper.TABLE_PATIENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?" +
+                    " ORDER BY " + DatabaseHelper.KEY_FIRST_NAME + ", " + DatabaseHelper.KEY_ID;
+
+    // CROSS JOIN keeps patients as the outer loop so rows come out in patient order
+    private static final String CONSULTATIONS_QUERY =
+            "SELECT c.*, p." + DatabaseHelper.KEY_FIRST_NAME + " AS " + SORT_NAME +
+                    " FROM " + DatabaseHelper.TABLE_PATIENTS + " p CROSS JOIN " +
+                    DatabaseHelper.TABLE_CONSULTATIONS + " c ON c." + DatabaseHelper.KEY_PATIENT_ID +
+                    " = p." + DatabaseHelper.KEY_ID +
+                    " WHERE p." + DatabaseHelper.KEY_DOCTOR_ID + " = ?" +
+                    " ORDER BY p." + DatabaseHelper.KEY_FIRST_NAME + ", p." + DatabaseHelper.KEY_ID +
+                    ", c." + DatabaseHelper.KEY_CONSULTATION_DATE + ", c." + DatabaseHelper.KEY_ID;
+
+    private static final String APPOINTMENTS_QUERY =
+            "SELECT a.*, p." + DatabaseHelper.KEY_FIRST_NAME + " AS " + SORT_NAME +
+                    " FROM " + DatabaseHelper.TABLE_PATIENTS + " p CROSS JOIN " +
+                    DatabaseHelper.TABLE_APPOINTMENTS + " a ON a." + DatabaseHelper.KEY_PATIENT_ID +
+                    " = p." + DatabaseHelper.KEY_ID +
+                    " WHERE p." + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND a." +
+                    DatabaseHelper.KEY_DOCTOR_ID + " = ?" +
+                    " ORDER BY p." + DatabaseHelper.KEY_FIRST_NAME + ", p." + DatabaseHelper.KEY_ID +
+                    ", a." + DatabaseHelper.KEY_APPOINTMENT_DATE + ", a." + DatabaseHelper.KEY_ID;
+
+    private final DatabaseHelper dbHelper;
+
+    public PracticeExporter(Context context) {
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Export the doctor's practice to the stream, which is closed when done. Throws
+     * {@link android.os.OperationCanceledException} if the signal is cancelled.
+     */
+    public Result export(int doctorId, OutputStream output, Format format, boolean gzip,
+                         CancellationSignal signal, ProgressListener listener) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        Result result = new Result();
+        SQLiteDatabase database = dbHelper.getReadableDatabase();
+        String doctor = String.valueOf(doctorId);
+
+        int total = (int) DatabaseUtils.queryNumEntries(database, DatabaseHelper.TABLE_PATIENTS,
+                DatabaseHelper.KEY_DOCTOR_ID + " = ?", new String[]{doctor});
+
+        Cursor patients = null;
+        Cursor consultations = null;
+        Cursor appointments = null;
+        Writer writer = null;
+        try {
+            OutputStream stream = gzip ? new GZIPOutputStream(output, BUFFER_SIZE) : output;
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            RecordWriter records = format == Format.CSV ? new CsvRecordWriter(writer) : new JsonRecordWriter(writer);
+
+            patients = database.rawQuery(PATIENTS_QUERY, new String[]{doctor}, signal);
+            consultations = database.rawQuery(CONSULTATIONS_QUERY, new String[]{doctor}, signal);
+            appointments = database.rawQuery(APPOINTMENTS_QUERY, new String[]{doctor, doctor}, signal);
+
+            ChildRows consultationRows = new ChildRows(consultations, CONSULTATION_COLUMNS);
+            ChildRows appointmentRows = new ChildRows(appointments, APPOINTMENT_COLUMNS);
+            int[] patientIndexes = columnIndexes(patients, PATIENT_COLUMNS);
+            int nameIndex = patients.getColumnIndexOrThrow(DatabaseHelper.KEY_FIRST_NAME);
+            int idIndex = patients.getColumnIndexOrThrow(DatabaseHelper.KEY_ID);
+
+            while (patients.moveToNext()) {
+                if (signal != null) {
+                    signal.throwIfCanceled();
+                }
+
+                String name = patients.getString(nameIndex);
+                int id = patients.getInt(idIndex);
+                consultationRows.skipBefore(name, id);
+                appointmentRows.skipBefore(name, id);
+
+                records.beginPatient(patients, patientIndexes);
+                records.beginChildren(TYPE_CONSULTATION);
+                while (consultationRows.belongsTo(id)) {
+                    records.child(TYPE_CONSULTATION, consultations, consultationRows.indexes);
+                    result.consultations++;
+                    consultationRows.advance();
+                }
+                records.endChildren();
+                records.beginChildren(TYPE_APPOINTMENT);
+                while (appointmentRows.belongsTo(id)) {
+                    records.child(TYPE_APPOINTMENT, appointments, appointmentRows.indexes);
+                    result.appointments++;
+                    appointmentRows.advance();
+                }
+                records.endChildren();
+                records.endPatient();
+
+                result.patients++;
+                if (listener != null && result.patients % PROGRESS_INTERVAL == 0) {
+                    listener.onProgress(result.patients, total);
+                }
+            }
+
+            writer.flush();
+        } finally {
+            closeQuietly(patients);
+            closeQuietly(consultations);
+            closeQuietly(appointments);
+            if (writer != null) {
+                writer.close();
+            } else {
+                output.close();
+            }
+        }
+
+        if (listener != null) {
+            listener.onProgress(result.patients, total);
+        }
+        result.elapsedMillis = SystemClock.elapsedRealtime() - start;
+        Log.i(TAG, "Exported " + result.patients + " patients, " + result.consultations +
+                " consultations, " + result.appointments + " appointments in " +
+                result.elapsedMillis + " ms");
+        return result;
+    }
+
+    private static int[] columnIndexes(Cursor cursor, String[] columns) {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = cursor.getColumnIndexOrThrow(columns[i]);
+        }
+        return indexes;
+    }
+
+    private static void closeQuietly(Cursor cursor) {
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Position of a child cursor in the merge. The cursor is ordered by the same
+     * (first_name, id) key as the patients cursor; child rows of patients that are not in
+     * the patients cursor (added while exporting) are skipped.
+     */
+    private static final class ChildRows {
+        final Cursor cursor;
+        final int[] indexes;
+        private final int nameIndex;
+        private final int patientIdIndex;
+        private boolean hasRow;
+
+        ChildRows(Cursor cursor, String[] columns) {
+            this.cursor = cursor;
+            indexes = columnIndexes(cursor, columns);
+            nameIndex = cursor.getColumnIndexOrThrow(SORT_NAME);
+            patientIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PATIENT_ID);
+            hasRow = cursor.moveToFirst();
+        }
+
+        void skipBefore(String name, int patientId) {
+            while (hasRow && compare(cursor.getString(nameIndex), cursor.getInt(patientIdIndex),
+                    name, patientId) < 0) {
+                advance();
+            }
+        }
+
+        boolean belongsTo(int patientId) {
+            return hasRow && cursor.getInt(patientIdIndex) == patientId;
+        }
+
+        void advance() {
+            hasRow = cursor.moveToNext();
+        }
+
+        private static int compare(String name, int id, String otherName, int otherId) {
+            int byName = name.compareTo(otherName);
+            return byName != 0 ? byName : Integer.compare(id, otherId);
+        }
+    }
+
+    private interface RecordWriter {
+        void beginPatient(Cursor patient, int[] indexes) throws IOException;
+
+        void beginChildren(String type) throws IOException;
+
+        void child(String type, Cursor row, int[] indexes) throws IOException;
+
+        void endChildren() throws IOException;
+
+        void endPatient() throws IOException;
+    }
+
+    private static final class CsvRecordWriter implements RecordWriter {
+        private final Writer writer;
+        private final List<String> header = new ArrayList<>();
+        private final int[] patientPositions;
+        private final int[] consultationPositions;
+        private final int[] appointmentPositions;
+        private final String[] row;
+
+        CsvRecordWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            header.add(RECORD_TYPE);
+            patientPositions = addColumns(PATIENT_COLUMNS);
+            consultationPositions = addColumns(CONSULTATION_COLUMNS);
+            appointmentPositions = addColumns(APPOINTMENT_COLUMNS);
+            row = new String[header.size()];
+            writeRow(header.toArray(new String[0]));
+        }
+
+        // Position of each column in the shared header, adding columns not seen yet
+        private int[] addColumns(String[] columns) {
+            int[] positions = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                int position = header.indexOf(columns[i]);
+                if (position == -1) {
+                    position = header.size();
+                    header.add(columns[i]);
+                }
+                positions[i] = position;
+            }
+            return positions;
+        }
+
+        @Override
+        public void beginPatient(Cursor patient, int[] indexes) throws IOException {
+            write(TYPE_PATIENT, patient, indexes, patientPositions);
+        }
+
+        @Override
+        public void beginChildren(String type) {
+        }
+
+        @Override
+        public void child(String type, Cursor row, int[] indexes) throws IOException {
+            write(type, row, indexes,
+                    TYPE_CONSULTATION.equals(type) ? consultationPositions : appointmentPositions);
+        }
+
+        @Override
+        public void endChildren() {
+        }
+
+        @Override
+        public void endPatient() {
+        }
+
+        private void write(String type, Cursor cursor, int[] indexes, int[] positions) throws IOException {
+            Arrays.fill(row, null);
+            row[0] = type;
+            for (int i = 0; i < indexes.length; i++) {
+                row[positions[i]] = cursor.getString(indexes[i]);
+            }
+            writeRow(row);
+        }
+
+        private void writeRow(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(values[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class JsonRecordWriter implements RecordWriter {
+        private final Writer writer;
+        private final JsonWriter json;
+
+        JsonRecordWriter(Writer writer) {
+            this.writer = writer;
+            json = new JsonWriter(writer);
+            json.setLenient(true); // one top-level object per line
+        }
+
+        @Override
+        public void beginPatient(Cursor patient, int[] indexes) throws IOException {
+            json.beginObject();
+            writeFields(patient, indexes, PATIENT_COLUMNS);
+        }
+
+        @Override
+        public void beginChildren(String type) throws IOException {
+            json.name(TYPE_CONSULTATION.equals(type) ? "consultations" : "appointments");
+            json.beginArray();
+        }
+
+        @Override
+        public void child(String type, Cursor row, int[] indexes) throws IOException {
+            json.beginObject();
+            writeFields(row, indexes,
+                    TYPE_CONSULTATION.equals(type) ? CONSULTATION_COLUMNS : APPOINTMENT_COLUMNS);
+            json.endObject();
+        }
+
+        @Override
+        public void endChildren() throws IOException {
+            json.endArray();
+        }
+
+        @Override
+        public void endPatient() throws IOException {
+            json.endObject();
+            // JsonWriter writes straight through to the buffered writer, so no flush is needed
+            writer.write('\n');
+        }
+
+        private void writeFields(Cursor cursor, int[] indexes, String[] columns) throws IOException {
+            for (int i = 0; i < indexes.length; i++) {
+                if (cursor.isNull(indexes[i])) {
+                    continue;
+                }
+                json.name(columns[i]);
+                if (DatabaseHelper.KEY_ID.equals(columns[i]) || DatabaseHelper.KEY_PATIENT_ID.equals(columns[i])) {
+                    json.value(cursor.getLong(indexes[i]));
+                } else {
+                    json.value(cursor.getString(indexes[i]));
+                }
+            }
+        }
+    }
+}
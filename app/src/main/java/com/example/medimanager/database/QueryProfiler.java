@@ -0,0 +1,442 @@
+package com.example.medimanager.database;
+
+import android.database.Cursor;
+import android.database.CursorWindow;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+import android.util.Log;
+
+import com.example.medimanager.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency, row counts and cursor window refills for every statement, grouped by the DAO
+ * method that ran it and the SQL it ran.
+ *
+ * Queries are timed through the CursorFactory DatabaseHelper opens the database with:
+ * each cursor measures filling its windows, which is where SQLite does the work, and
+ * reports when it is closed. StatementPool and the ContentValues writes report directly.
+ * The method is found with a stack walk on every statement, since the same SQL can come
+ * from several methods. That costs tens of microseconds, so profiling is off until it is
+ * switched on from the Diagnostics screen, in any build.
+ *
+ * Each method and SQL pair keeps its last SAMPLES_PER_METHOD timings for p50/p95/p99. A
+ * statement slower than the threshold is logged, and the first time a given query is slow
+ * its EXPLAIN QUERY PLAN is logged too, from the reader executor.
+ */
+public final class QueryProfiler {
+
+    private static final String TAG = "QueryProfiler";
+    private static final int SAMPLES_PER_METHOD = 256;
+    private static final String APP_PACKAGE = "com.example.medimanager.";
+    private static final String QUERY_PREFIX = "SQLiteQuery: ";
+    private static final String EXPLAIN_PREFIX = "EXPLAIN";
+    private static final int MAX_PRINTED_SQL = 160;
+
+    private static final QueryProfiler instance = new QueryProfiler();
+
+    // Keyed by label and SQL; guarded by itself
+    private final Map<String, Series> series = new HashMap<>();
+    private final Set<String> explained = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final SQLiteDatabase.CursorFactory cursorFactory = this::newCursor;
+    private volatile long slowThresholdNanos = Constants.SLOW_QUERY_MILLIS * 1_000_000L;
+    private volatile boolean enabled;
+
+    private QueryProfiler() {
+    }
+
+    public static QueryProfiler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Timings for one statement run by one DAO method since the last reset.
+     */
+    public static final class Entry {
+        private final String label;
+        private final String sql;
+        private final long count;
+        private final long slowCount;
+        private final long p50Micros;
+        private final long p95Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+        private final long averageRows;
+        private final int maxRowsPerWindow;
+        private final long windowRefills;
+
+        Entry(String label, String sql, long count, long slowCount, long p50Micros, long p95Micros,
+              long p99Micros, long maxMicros, long averageRows, int maxRowsPerWindow, long windowRefills) {
+            this.label = label;
+            this.sql = sql;
+            this.count = count;
+            this.slowCount = slowCount;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+            this.averageRows = averageRows;
+            this.maxRowsPerWindow = maxRowsPerWindow;
+            this.windowRefills = windowRefills;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        // For ContentValues writes only the statement and table, e.g. "UPDATE patients"
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSlowCount() {
+            return slowCount;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP95Micros() {
+            return p95Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public long getAverageRows() {
+            return averageRows;
+        }
+
+        // Most rows the first cursor window held, a count and not a size in bytes; a result
+        // larger than that needs refills
+        public int getMaxRowsPerWindow() {
+            return maxRowsPerWindow;
+        }
+
+        public long getWindowRefills() {
+            return windowRefills;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s n=%d slow=%d p50=%dus p95=%dus p99=%dus max=%dus rows=%d rowsPerWindow=%d refills=%d\n  %s",
+                    label, count, slowCount, p50Micros, p95Micros, p99Micros, maxMicros,
+                    averageRows, maxRowsPerWindow, windowRefills,
+                    sql.length() > MAX_PRINTED_SQL ? sql.substring(0, MAX_PRINTED_SQL) + "…" : sql);
+        }
+    }
+
+    // Rolling samples and totals for one label and SQL
+    private static final class Series {
+        final String label;
+        final String sql;
+        final long[] samples = new long[SAMPLES_PER_METHOD];
+        int next;
+        int filled;
+        long count;
+        long slowCount;
+        long maxNanos;
+        long totalRows;
+        int maxRowsPerWindow;
+        long windowRefills;
+
+        Series(String label, String sql) {
+            this.label = label;
+            this.sql = sql;
+        }
+
+        void add(long nanos, long rows, int rowsPerWindow, int refills, boolean slow) {
+            samples[next] = nanos;
+            next = (next + 1) % SAMPLES_PER_METHOD;
+            if (filled < SAMPLES_PER_METHOD) {
+                filled++;
+            }
+            count++;
+            if (slow) {
+                slowCount++;
+            }
+            maxNanos = Math.max(maxNanos, nanos);
+            totalRows += rows;
+            maxRowsPerWindow = Math.max(maxRowsPerWindow, rowsPerWindow);
+            windowRefills += refills;
+        }
+
+        Entry toEntry() {
+            long[] sorted = Arrays.copyOf(samples, filled);
+            Arrays.sort(sorted);
+            return new Entry(label, sql, count, slowCount,
+                    percentile(sorted, 50) / 1000, percentile(sorted, 95) / 1000,
+                    percentile(sorted, 99) / 1000, maxNanos / 1000,
+                    count == 0 ? 0 : totalRows / count, maxRowsPerWindow, windowRefills);
+        }
+
+        private static long percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(sorted.length * percent / 100.0) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /**
+     * Factory that DatabaseHelper passes to SQLiteOpenHelper so queries are timed while enabled.
+     */
+    SQLiteDatabase.CursorFactory cursorFactory() {
+        return cursorFactory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop timing statements. While stopped, queries get plain cursors and
+     * nothing is recorded or explained; samples taken so far are kept.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowThresholdNanos / 1_000_000L;
+    }
+
+    public void setSlowQueryThresholdMillis(long millis) {
+        slowThresholdNanos = Math.max(1, millis) * 1_000_000L;
+    }
+
+    /**
+     * Per-method, per-statement timings, slowest p95 first.
+     */
+    public List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>();
+        synchronized (series) {
+            for (Series entry : series.values()) {
+                entries.add(entry.toEntry());
+            }
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(b.p95Micros, a.p95Micros));
+        return entries;
+    }
+
+    /**
+     * Drop all samples, for example before a benchmark run. Plans are logged again too.
+     */
+    public void reset() {
+        synchronized (series) {
+            series.clear();
+        }
+        explained.clear();
+    }
+
+    /**
+     * Record a pooled statement. rows is the inserted, changed or returned row count.
+     */
+    void recordStatement(SQLiteDatabase database, String sql, long startNanos, long rows) {
+        if (!enabled) {
+            return;
+        }
+        record(database, sql, findCaller(), System.nanoTime() - startNanos, rows, 0, 0);
+    }
+
+    /**
+     * Record a ContentValues insert or update. The SQL is built inside SQLiteDatabase,
+     * so statement only names it ("UPDATE patients") and no plan is logged.
+     */
+    void recordWrite(String statement, long startNanos, long rows) {
+        if (!enabled) {
+            return;
+        }
+        record(null, statement, findCaller(), System.nanoTime() - startNanos, rows, 0, 0);
+    }
+
+    private void record(SQLiteDatabase database, String sql, String label, long nanos,
+                        long rows, int rowsPerWindow, int refills) {
+        boolean slow = nanos >= slowThresholdNanos;
+        String key = label + '\n' + sql;
+        synchronized (series) {
+            Series entry = series.get(key);
+            if (entry == null) {
+                entry = new Series(label, sql);
+                series.put(key, entry);
+            }
+            entry.add(nanos, rows, rowsPerWindow, refills, slow);
+        }
+        if (slow) {
+            Log.w(TAG, String.format(Locale.US, "Slow statement in %s: %d ms, %d rows: %s",
+                    label, nanos / 1_000_000L, rows, sql));
+            if (database != null && explained.add(sql)) {
+                explainAsync(database, sql, label);
+            }
+        }
+    }
+
+    private Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver, String editTable, SQLiteQuery query) {
+        if (!enabled) {
+            return new SQLiteCursor(driver, editTable, query);
+        }
+        String sql = sqlOf(query);
+        // The plans logged below are queries too; don't time or explain them
+        if (sql.regionMatches(true, 0, EXPLAIN_PREFIX, 0, EXPLAIN_PREFIX.length())) {
+            return new SQLiteCursor(driver, editTable, query);
+        }
+        return new ProfiledCursor(driver, editTable, query, sql, findCaller());
+    }
+
+    // SQLiteQuery has no public accessor for its SQL, but toString() includes it
+    private static String sqlOf(SQLiteQuery query) {
+        String text = query.toString();
+        return text.startsWith(QUERY_PREFIX) ? text.substring(QUERY_PREFIX.length()) : text;
+    }
+
+    // The innermost app frame outside the database plumbing, e.g. "PatientDAO.getPatientsPage"
+    private static String findCaller() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (!className.startsWith(APP_PACKAGE)
+                    || className.equals(QueryProfiler.class.getName())
+                    || className.startsWith(QueryProfiler.class.getName() + "$")
+                    || className.equals(StatementPool.class.getName())) {
+                continue;
+            }
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            int nested = simpleName.indexOf('$');
+            if (nested > 0) {
+                simpleName = simpleName.substring(0, nested);
+            }
+            return simpleName + "." + frame.getMethodName();
+        }
+        return "other";
+    }
+
+    private static void explainAsync(SQLiteDatabase database, String sql, String label) {
+        try {
+            DatabaseExecutors.getInstance().reader().execute(() -> explain(database, sql, label));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Unable to schedule query plan", e);
+        }
+    }
+
+    private static void explain(SQLiteDatabase database, String sql, String label) {
+        Cursor cursor = null;
+        try {
+            if (!database.isOpen()) {
+                return;
+            }
+            cursor = database.rawQuery(EXPLAIN_PREFIX + " QUERY PLAN " + withPlaceholderValues(sql), null);
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            StringBuilder plan = new StringBuilder();
+            while (cursor.moveToNext()) {
+                if (plan.length() > 0) {
+                    plan.append("; ");
+                }
+                plan.append(cursor.getString(detail));
+            }
+            Log.w(TAG, "Plan for " + label + ": " + plan);
+        } catch (Exception e) {
+            Log.e(TAG, "Error explaining " + label, e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * The original bind arguments are not available here, and a query with unbound
+     * parameters is rejected, so each ? outside a string literal becomes 0. The plan
+     * depends on the indexes, not on these values.
+     */
+    static String withPlaceholderValues(String sql) {
+        StringBuilder result = new StringBuilder(sql.length());
+        boolean inLiteral = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            result.append(c == '?' && !inLiteral ? "0" : String.valueOf(c));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Times the window fills: the first on getCount(), and any refill when a move
+     * leaves the current window. Reports once, on close.
+     */
+    private static final class ProfiledCursor extends SQLiteCursor {
+        private final String sql;
+        private final String label;
+        private long fillNanos;
+        private int rows = -1;
+        private int firstWindowRows;
+        private int refills;
+        private boolean reported;
+
+        ProfiledCursor(SQLiteCursorDriver driver, String editTable, SQLiteQuery query, String sql, String label) {
+            super(driver, editTable, query);
+            this.sql = sql;
+            this.label = label;
+        }
+
+        @Override
+        public int getCount() {
+            if (rows >= 0) {
+                return rows;
+            }
+            long start = System.nanoTime();
+            int count = super.getCount();
+            fillNanos += System.nanoTime() - start;
+            rows = count;
+            CursorWindow window = getWindow();
+            firstWindowRows = window != null ? window.getNumRows() : 0;
+            return count;
+        }
+
+        @Override
+        public boolean onMove(int oldPosition, int newPosition) {
+            CursorWindow window = getWindow();
+            if (window != null && newPosition >= window.getStartPosition()
+                    && newPosition < window.getStartPosition() + window.getNumRows()) {
+                return super.onMove(oldPosition, newPosition);
+            }
+            long start = System.nanoTime();
+            boolean moved = super.onMove(oldPosition, newPosition);
+            fillNanos += System.nanoTime() - start;
+            refills++;
+            return moved;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (!reported && rows >= 0) {
+                reported = true;
+                instance.record(getDatabase(), sql, label, fillNanos, rows, firstWindowRows, refills);
+            }
+        }
+    }
+}
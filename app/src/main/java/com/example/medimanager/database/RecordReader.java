@@ -0,0 +1,197 @@
+package com.example.medimanager.database;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams flat records out of an import file one at a time.
+ *
+ * CSV files need a header row naming the columns. JSON files are either an array of
+ * objects or newline-delimited objects. Column names are lower-cased; empty values
+ * and JSON nulls are left out of the record.
+ */
+abstract class RecordReader implements Closeable {
+
+    private static final int DETECT_LIMIT = 1024;
+
+    protected final Map<String, String> record = new HashMap<>();
+
+    /**
+     * Open a reader for the stream, choosing CSV or JSON from its first non-blank character.
+     */
+    static RecordReader open(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        reader.mark(DETECT_LIMIT);
+        int c;
+        int read = 0;
+        do {
+            c = reader.read();
+            read++;
+        } while (c != -1 && read < DETECT_LIMIT && (Character.isWhitespace(c) || c == '\uFEFF'));
+        reader.reset();
+
+        if (c == '[' || c == '{') {
+            return new Json(reader);
+        }
+        return new Csv(reader);
+    }
+
+    /**
+     * Read the next record. The returned map is reused by the following call, so copy
+     * anything that must outlive it. Returns null at the end of the input.
+     */
+    abstract Map<String, String> next() throws IOException;
+
+    private static final class Csv extends RecordReader {
+        private final BufferedReader reader;
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> values = new ArrayList<>();
+        private String[] header;
+
+        Csv(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        Map<String, String> next() throws IOException {
+            if (header == null) {
+                if (!readRow()) {
+                    return null;
+                }
+                header = new String[values.size()];
+                for (int i = 0; i < header.length; i++) {
+                    header[i] = values.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                }
+            }
+
+            while (readRow()) {
+                if (values.size() == 1 && values.get(0).isEmpty()) {
+                    continue; // blank line
+                }
+                record.clear();
+                for (int i = 0; i < header.length && i < values.size(); i++) {
+                    String value = values.get(i).trim();
+                    if (!value.isEmpty()) {
+                        record.put(header[i], value);
+                    }
+                }
+                return record;
+            }
+            return null;
+        }
+
+        // Read one RFC 4180 row into values; quoted fields may contain separators and line breaks
+        private boolean readRow() throws IOException {
+            values.clear();
+            field.setLength(0);
+
+            int c = reader.read();
+            if (c == -1) {
+                return false;
+            }
+
+            boolean quoted = false;
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+
+            values.add(field.toString());
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class Json extends RecordReader {
+        private final JsonReader reader;
+        private boolean started;
+
+        Json(BufferedReader source) {
+            reader = new JsonReader(source);
+            reader.setLenient(true); // newline-delimited objects are several top-level values
+        }
+
+        @Override
+        Map<String, String> next() throws IOException {
+            if (!started) {
+                started = true;
+                if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                }
+            }
+
+            while (true) {
+                JsonToken token = reader.peek();
+                if (token == JsonToken.END_ARRAY || token == JsonToken.END_DOCUMENT) {
+                    return null;
+                }
+                if (token != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                record.clear();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName().trim().toLowerCase(Locale.ROOT);
+                    JsonToken valueToken = reader.peek();
+                    if (valueToken == JsonToken.STRING || valueToken == JsonToken.NUMBER) {
+                        String value = reader.nextString().trim();
+                        if (!value.isEmpty()) {
+                            record.put(name, value);
+                        }
+                    } else if (valueToken == JsonToken.BOOLEAN) {
+                        record.put(name, String.valueOf(reader.nextBoolean()));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                return record;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
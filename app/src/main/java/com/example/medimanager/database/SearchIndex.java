@@ -0,0 +1,188 @@
+package com.example.medimanager.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import java.util.Locale;
+
+/**
+ * Full-text search tables for patients and consultations.
+ *
+ * The tables are created with FTS5 when the platform SQLite has it, otherwise with FTS4.
+ * They hold a copy of the searchable columns keyed by the source row id and are kept
+ * in sync by triggers, so DAOs only ever write to the base tables.
+ */
+public final class SearchIndex {
+
+    private static final String TAG = "SearchIndex";
+
+    public static final String TABLE_PATIENTS_FTS = "patients_fts";
+    public static final String TABLE_CONSULTATIONS_FTS = "consultations_fts";
+
+    private static final String PATIENT_COLUMNS =
+            DatabaseHelper.KEY_FIRST_NAME + ", " + DatabaseHelper.KEY_LAST_NAME + ", " +
+                    DatabaseHelper.KEY_PHONE + ", " + DatabaseHelper.KEY_EMAIL;
+    private static final String CONSULTATION_COLUMNS =
+            DatabaseHelper.KEY_DIAGNOSIS + ", " + DatabaseHelper.KEY_TREATMENT + ", " +
+                    DatabaseHelper.KEY_PRESCRIPTION + ", " + DatabaseHelper.KEY_NOTES;
+
+    // Module clauses in order of preference
+    private static final String[] MODULES = {
+            "fts5(%s)",
+            "fts4(%s, tokenize=unicode61)",
+            "fts4(%s)"
+    };
+
+    private static volatile Boolean fts5;
+
+    private SearchIndex() {
+    }
+
+    /**
+     * Create the search tables and their triggers if they do not exist yet, filling
+     * newly created tables from the base tables.
+     */
+    static void create(SQLiteDatabase db) {
+        if (!tableExists(db, TABLE_PATIENTS_FTS)) {
+            String module = createTable(db, TABLE_PATIENTS_FTS, PATIENT_COLUMNS);
+            db.execSQL("INSERT INTO " + TABLE_PATIENTS_FTS + "(rowid, " + PATIENT_COLUMNS + ") " +
+                    "SELECT " + DatabaseHelper.KEY_ID + ", " + PATIENT_COLUMNS +
+                    " FROM " + DatabaseHelper.TABLE_PATIENTS);
+            Log.i(TAG, "Created " + TABLE_PATIENTS_FTS + " using " + module);
+        }
+        if (!tableExists(db, TABLE_CONSULTATIONS_FTS)) {
+            String module = createTable(db, TABLE_CONSULTATIONS_FTS, CONSULTATION_COLUMNS);
+            db.execSQL("INSERT INTO " + TABLE_CONSULTATIONS_FTS + "(rowid, " + CONSULTATION_COLUMNS + ") " +
+                    "SELECT " + DatabaseHelper.KEY_ID + ", " + CONSULTATION_COLUMNS +
+                    " FROM " + DatabaseHelper.TABLE_CONSULTATIONS);
+            Log.i(TAG, "Created " + TABLE_CONSULTATIONS_FTS + " using " + module);
+        }
+
+        createTriggers(db, DatabaseHelper.TABLE_PATIENTS, TABLE_PATIENTS_FTS, PATIENT_COLUMNS);
+        createTriggers(db, DatabaseHelper.TABLE_CONSULTATIONS, TABLE_CONSULTATIONS_FTS, CONSULTATION_COLUMNS);
+        fts5 = null;
+    }
+
+    /**
+     * Whether the search tables use FTS5, which provides the bm25 {@code rank} column.
+     */
+    static boolean isFts5(SQLiteDatabase db) {
+        Boolean cached = fts5;
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean result = false;
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT sql FROM sqlite_master WHERE type='table' AND name=?",
+                    new String[]{TABLE_PATIENTS_FTS});
+            if (cursor.moveToFirst()) {
+                String sql = cursor.getString(0);
+                result = sql != null && sql.toLowerCase(Locale.ROOT).contains("using fts5");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading search table definition", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        fts5 = result;
+        return result;
+    }
+
+    /**
+     * Turn free text typed by the user into a MATCH expression where every word is a
+     * prefix term, optionally restricted to one column. Returns null when the input
+     * has no searchable words.
+     *
+     * Words are lower-cased so they are never read as AND/OR/NOT operators, and
+     * anything other than letters and digits is treated as a separator.
+     */
+    public static String buildMatchQuery(String input, String column) {
+        if (input == null) {
+            return null;
+        }
+
+        StringBuilder match = new StringBuilder();
+        for (String word : input.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(word).append('*');
+        }
+
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    private static String createTable(SQLiteDatabase db, String table, String columns) {
+        String module = String.format(Locale.ROOT, supportedModule(), columns);
+        db.execSQL("CREATE VIRTUAL TABLE " + table + " USING " + module);
+        return module;
+    }
+
+    // The first module clause this SQLite build accepts. Probed on a scratch in-memory
+    // database: a failed CREATE VIRTUAL TABLE inside onCreate's transaction can leave the
+    // table name behind in the schema, so the next module would fail with "already exists".
+    private static String supportedModule() {
+        SQLiteDatabase probe = SQLiteDatabase.create(null);
+        try {
+            for (String moduleFormat : MODULES) {
+                try {
+                    probe.execSQL("CREATE VIRTUAL TABLE probe USING " +
+                            String.format(Locale.ROOT, moduleFormat, "probe_text"));
+                    return moduleFormat;
+                } catch (SQLiteException e) {
+                    Log.w(TAG, "Full-text module unavailable: " + moduleFormat);
+                }
+            }
+        } finally {
+            probe.close();
+        }
+        throw new SQLiteException("No full-text search module available");
+    }
+
+    private static void createTriggers(SQLiteDatabase db, String table, String ftsTable, String columns) {
+        StringBuilder newValues = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        for (String column : columns.split(", ")) {
+            if (newValues.length() > 0) {
+                newValues.append(", ");
+                assignments.append(", ");
+            }
+            newValues.append("new.").append(column);
+            assignments.append(column).append(" = new.").append(column);
+        }
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + table + "_fts_insert AFTER INSERT ON " + table +
+                " BEGIN INSERT INTO " + ftsTable + "(rowid, " + columns + ") VALUES (new." +
+                DatabaseHelper.KEY_ID + ", " + newValues + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + table + "_fts_delete AFTER DELETE ON " + table +
+                " BEGIN DELETE FROM " + ftsTable + " WHERE rowid = old." + DatabaseHelper.KEY_ID + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + table + "_fts_update AFTER UPDATE OF " + columns +
+                " ON " + table + " BEGIN UPDATE " + ftsTable + " SET " + assignments +
+                " WHERE rowid = old." + DatabaseHelper.KEY_ID + "; END");
+    }
+
+    private static boolean tableExists(SQLiteDatabase db, String tableName) {
+        Cursor cursor = db.rawQuery(
+                "SELECT name FROM sqlite_master WHERE type='table' AND name=?",
+                new String[]{tableName}
+        );
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+}
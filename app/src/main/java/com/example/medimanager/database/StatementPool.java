@@ -0,0 +1,119 @@
+package com.example.medimanager.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled statements for the DAOs' hot writes and counts, reused across calls.
+ *
+ * Statements are kept per thread. A SQLiteStatement holds its bind arguments, so one
+ * instance can only be used by one thread at a time; keeping one per SQL per thread
+ * needs no locking, and the executors' threads are few and long-lived. Writes always
+ * run on the primary connection, so the writer thread's statements line up with that
+ * connection's prepared statements. A SQLiteStatement is not tied to a connection:
+ * each execution runs on whichever connection the thread's session holds, which
+ * prepares the SQL once in its own statement cache. Reader threads therefore reuse
+ * their statement object on every read connection.
+ *
+ * Statements belong to the database they were compiled on; if the helper hands out a
+ * different SQLiteDatabase (after a close and reopen), a thread's statements are
+ * dropped the next time it uses the pool. Every execution is reported to QueryProfiler.
+ */
+final class StatementPool {
+
+    interface Binder {
+        void bind(SQLiteStatement statement);
+    }
+
+    private static final class ThreadStatements {
+        SQLiteDatabase owner;
+        final Map<String, SQLiteStatement> idle = new HashMap<>();
+    }
+
+    private final ThreadLocal<ThreadStatements> statements = new ThreadLocal<ThreadStatements>() {
+        @Override
+        protected ThreadStatements initialValue() {
+            return new ThreadStatements();
+        }
+    };
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
+
+    long executeInsert(SQLiteDatabase database, String sql, Binder binder) {
+        SQLiteStatement statement = acquire(database, sql);
+        long start = System.nanoTime();
+        try {
+            binder.bind(statement);
+            long id = statement.executeInsert();
+            profiler.recordStatement(database, sql, start, id != -1 ? 1 : 0);
+            return id;
+        } finally {
+            release(database, sql, statement);
+        }
+    }
+
+    int executeUpdateDelete(SQLiteDatabase database, String sql, Binder binder) {
+        SQLiteStatement statement = acquire(database, sql);
+        long start = System.nanoTime();
+        try {
+            binder.bind(statement);
+            int rows = statement.executeUpdateDelete();
+            profiler.recordStatement(database, sql, start, rows);
+            return rows;
+        } finally {
+            release(database, sql, statement);
+        }
+    }
+
+    long simpleQueryForLong(SQLiteDatabase database, String sql, Binder binder) {
+        SQLiteStatement statement = acquire(database, sql);
+        long start = System.nanoTime();
+        try {
+            binder.bind(statement);
+            long value = statement.simpleQueryForLong();
+            profiler.recordStatement(database, sql, start, 1);
+            return value;
+        } finally {
+            release(database, sql, statement);
+        }
+    }
+
+    // Bind a string that may be null; bindString rejects null
+    static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private SQLiteStatement acquire(SQLiteDatabase database, String sql) {
+        ThreadStatements local = statements.get();
+        if (database != local.owner) {
+            closeIdle(local);
+            local.owner = database;
+        }
+        // Taken out while in use, so a nested call for the same SQL compiles its own
+        SQLiteStatement statement = local.idle.remove(sql);
+        return statement != null ? statement : database.compileStatement(sql);
+    }
+
+    private void release(SQLiteDatabase database, String sql, SQLiteStatement statement) {
+        statement.clearBindings();
+        ThreadStatements local = statements.get();
+        if (database == local.owner && database.isOpen() && !local.idle.containsKey(sql)) {
+            local.idle.put(sql, statement);
+        } else {
+            statement.close();
+        }
+    }
+
+    private static void closeIdle(ThreadStatements local) {
+        for (SQLiteStatement statement : local.idle.values()) {
+            statement.close();
+        }
+        local.idle.clear();
+    }
+}
@@ -7,13 +7,20 @@ import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
 import com.example.medimanager.models.User;
+import com.example.medimanager.utils.Constants;
 import com.example.medimanager.utils.PasswordUtils;
 
 public class UserDAO {
 
     private final DatabaseHelper dbHelper;
+    private final DatabaseChangeBus changes = DatabaseChangeBus.getInstance();
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
     private static final String TAG = "UserDAO";
 
+    // Shared by all instances; getUserById reads through it
+    private static final ModelCache<Long, User> cache =
+            new ModelCache<>(Constants.USER_CACHE_SIZE, User::new);
+
     public UserDAO(Context context) {
         dbHelper = DatabaseHelper.getInstance(context);
     }
@@ -37,7 +44,13 @@ public class UserDAO {
         values.put(DatabaseHelper.KEY_USER_PHONE, user.getPhone());
 
         try {
-            return db.insert(DatabaseHelper.TABLE_USERS, null, values);
+            long start = System.nanoTime();
+            long id = db.insert(DatabaseHelper.TABLE_USERS, null, values);
+            profiler.recordWrite("INSERT INTO " + DatabaseHelper.TABLE_USERS, start, id != -1 ? 1 : 0);
+            if (id != -1) {
+                changes.publish(DatabaseHelper.TABLE_USERS, id, DatabaseChangeBus.Operation.INSERT);
+            }
+            return id;
         } catch (Exception e) {
             Log.e(TAG, "Error registering user", e);
             return -1;
@@ -45,7 +58,9 @@ public class UserDAO {
     }
 
     /**
-     * Authenticate user by email and password
+     * Authenticate user by email and password. Verifying runs PBKDF2, so call it on the
+     * reader pool (AsyncDAO.read). A stored password that needs upgrading is re-hashed on
+     * the reader pool afterwards, and only the update goes to the writer.
      */
     public User authenticateUser(String email, String password, String role) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
@@ -71,8 +86,8 @@ public class UserDAO {
                 String storedPassword = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_PASSWORD));
                 if (PasswordUtils.verifyPassword(password, storedPassword)) {
                     user = cursorToUser(cursor);
-                    if (!PasswordUtils.isHashed(storedPassword)) {
-                        updateUserPassword(user.getId(), PasswordUtils.hashPassword(password));
+                    if (PasswordUtils.needsRehash(storedPassword)) {
+                        upgradePasswordAsync(user.getId(), password);
                     }
                 }
             }
@@ -120,9 +135,15 @@ public class UserDAO {
     }
 
     /**
-     * Get user by ID
+     * Get user by ID, served from the cache when possible
      */
     public User getUserById(long id) {
+        User cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cache.generation();
         SQLiteDatabase db = dbHelper.getReadableDatabase();
 
         String selection = DatabaseHelper.KEY_ID + " = ?";
@@ -152,6 +173,7 @@ public class UserDAO {
             }
         }
 
+        cache.putIfCurrent(id, user, generation);
         return user;
     }
 
@@ -206,10 +228,36 @@ public class UserDAO {
         String[] whereArgs = {String.valueOf(user.getId())};
 
         try {
-            return db.update(DatabaseHelper.TABLE_USERS, values, whereClause, whereArgs);
+            long start = System.nanoTime();
+            int rows = db.update(DatabaseHelper.TABLE_USERS, values, whereClause, whereArgs);
+            profiler.recordWrite("UPDATE " + DatabaseHelper.TABLE_USERS, start, rows);
+            if (rows > 0) {
+                changes.publish(DatabaseHelper.TABLE_USERS, user.getId(), DatabaseChangeBus.Operation.UPDATE);
+            }
+            return rows;
         } catch (Exception e) {
             Log.e(TAG, "Error updating user", e);
             return 0;
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    // The new hash costs as much as the verify; compute it without holding up the login or
+    // the writer. If either queue refuses, the next login tries again
+    private void upgradePasswordAsync(long userId, String password) {
+        DatabaseExecutors executors = DatabaseExecutors.getInstance();
+        try {
+            executors.reader().execute(() -> {
+                String hashedPassword = PasswordUtils.hashPassword(password);
+                try {
+                    executors.writer().execute(() -> updateUserPassword(userId, hashedPassword));
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Unable to schedule password upgrade", e);
+                }
+            });
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Unable to schedule password upgrade", e);
         }
     }
 
@@ -221,12 +269,23 @@ public class UserDAO {
         String whereClause = DatabaseHelper.KEY_ID + " = ?";
         String[] whereArgs = {String.valueOf(userId)};
         try {
-            db.update(DatabaseHelper.TABLE_USERS, values, whereClause, whereArgs);
+            long start = System.nanoTime();
+            int rows = db.update(DatabaseHelper.TABLE_USERS, values, whereClause, whereArgs);
+            profiler.recordWrite("UPDATE " + DatabaseHelper.TABLE_USERS, start, rows);
         } catch (Exception e) {
             Log.e(TAG, "Error updating password", e);
+        } finally {
+            cache.invalidate(userId);
         }
     }
 
+    /**
+     * Cache counters for sizing USER_CACHE_SIZE
+     */
+    public static CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
     /**
      * Convert cursor to User object
      */
@@ -8,11 +8,10 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Toast;
 
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
+import androidx.core.os.BundleCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
@@ -20,14 +19,21 @@ import com.example.medimanager.R;
 import com.example.medimanager.activities.AddAppointmentActivity;
 import com.example.medimanager.activities.PatientDetailsActivity;
 import com.example.medimanager.adapters.AppointmentAdapter;
+import com.example.medimanager.adapters.PagingScrollListener;
 import com.example.medimanager.database.AppointmentDAO;
+import com.example.medimanager.database.AppointmentScheduler;
+import com.example.medimanager.database.AsyncDAO;
+import com.example.medimanager.database.DatabaseChangeBus;
+import com.example.medimanager.database.DatabaseHelper;
 import com.example.medimanager.database.PatientDAO;
 import com.example.medimanager.databinding.FragmentAppointmentsBinding;
 import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.AppointmentRow;
 import com.example.medimanager.models.Patient;
 import com.example.medimanager.utils.AppointmentApprovalHelper;
 import com.example.medimanager.utils.AppointmentStatusUtils;
 import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
 import com.example.medimanager.utils.SessionManager;
 import com.example.medimanager.utils.NotificationHelper;
 
@@ -36,29 +42,30 @@ import java.util.List;
 
 public class AppointmentsFragment extends Fragment {
 
+    private static final String STATE_FILTER = "filter";
+    private static final String STATE_APPOINTMENTS = "appointments";
+    private static final String STATE_FILTERED = "filtered_appointments";
+    private static final String STATE_HAS_MORE_PAGES = "has_more_pages";
+    private static final String STATE_PATIENT_ID = "patient_id";
+
     private FragmentAppointmentsBinding binding;
 
     // Data
     private AppointmentDAO appointmentDAO;
+    private AppointmentScheduler appointmentScheduler;
     private PatientDAO patientDAO;
+    private AsyncDAO asyncDAO;
     private AppointmentAdapter appointmentAdapter;
-    private List<Appointment> appointmentList;
-    private List<Appointment> filteredList;
+    private List<AppointmentRow> appointmentList;
+    private List<AppointmentRow> filteredList;
     private String currentFilter = "all";
+    private boolean isLoadingPage = false;
+    private boolean hasMorePages = false;
     private boolean isDoctor = true;
     private int doctorId = -1;
-    private int patientId = -1;
+    private volatile int patientId = -1;
     private SessionManager sessionManager;
 
-    private final ActivityResultLauncher<Intent> addAppointmentLauncher = registerForActivityResult(
-            new ActivityResultContracts.StartActivityForResult(),
-            result -> {
-                if (result.getResultCode() == getActivity().RESULT_OK) {
-                    loadAppointments();
-                }
-            }
-    );
-
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -72,45 +79,102 @@ public class AppointmentsFragment extends Fragment {
 
         // Initialize DAO
         appointmentDAO = new AppointmentDAO(requireContext());
+        appointmentScheduler = new AppointmentScheduler(requireContext());
         patientDAO = new PatientDAO(requireContext());
+        asyncDAO = new AsyncDAO(getViewLifecycleOwner(), "AppointmentsFragment");
 
         // Load current user info
         sessionManager = new SessionManager(requireContext());
         isDoctor = sessionManager.isDoctor();
         doctorId = sessionManager.getUserId();
-        if (!isDoctor) {
-            String email = sessionManager.getUserEmail();
-            Patient patient = patientDAO.getPatientByEmail(email);
-            if (patient != null) {
-                patientId = patient.getId();
-            }
-        }
 
         // Initialize UI
+        if (savedInstanceState != null) {
+            currentFilter = savedInstanceState.getString(STATE_FILTER, "all");
+        }
         setupRecyclerView();
         setupFilterChips();
         setupClickListeners();
 
-        // Load data
-        loadAppointments();
+        // Reload whenever appointments change; rows also show patient and doctor names
+        DatabaseChangeBus.ChangeFilter tables = DatabaseChangeBus.onTables(DatabaseHelper.TABLE_APPOINTMENTS,
+                DatabaseHelper.TABLE_PATIENTS, DatabaseHelper.TABLE_USERS);
+        asyncDAO.onChange("appointments", tables, this::loadAppointments);
+        if (!restoreAppointments(savedInstanceState)) {
+            loadAppointments();
+        }
+    }
+
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_FILTER, currentFilter);
+
+        // Keep the loaded rows across a rotation; after process death they are reloaded
+        if (appointmentList != null && filteredList != null
+                && appointmentList.size() + filteredList.size() <= Constants.MAX_SAVED_LIST_ROWS
+                && getActivity() != null && getActivity().isChangingConfigurations()) {
+            outState.putParcelableArrayList(STATE_APPOINTMENTS, new ArrayList<>(appointmentList));
+            outState.putParcelableArrayList(STATE_FILTERED, new ArrayList<>(filteredList));
+            outState.putBoolean(STATE_HAS_MORE_PAGES, hasMorePages);
+            outState.putInt(STATE_PATIENT_ID, patientId);
+        }
+    }
+
+    private boolean restoreAppointments(@Nullable Bundle savedInstanceState) {
+        if (savedInstanceState == null) {
+            return false;
+        }
+        ArrayList<AppointmentRow> appointments = BundleCompat.getParcelableArrayList(
+                savedInstanceState, STATE_APPOINTMENTS, AppointmentRow.class);
+        ArrayList<AppointmentRow> filtered = BundleCompat.getParcelableArrayList(
+                savedInstanceState, STATE_FILTERED, AppointmentRow.class);
+        if (appointments == null || filtered == null) {
+            return false;
+        }
+        appointmentList = appointments;
+        hasMorePages = savedInstanceState.getBoolean(STATE_HAS_MORE_PAGES);
+        patientId = savedInstanceState.getInt(STATE_PATIENT_ID, -1);
+        showAppointments(filtered);
+        return true;
     }
 
     private void setupRecyclerView() {
         appointmentList = new ArrayList<>();
         filteredList = new ArrayList<>();
 
-        appointmentAdapter = new AppointmentAdapter(requireContext(), filteredList);
-        binding.rvAppointments.setLayoutManager(new LinearLayoutManager(requireContext()));
+        appointmentAdapter = new AppointmentAdapter(requireContext());
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        binding.rvAppointments.setLayoutManager(layoutManager);
         binding.rvAppointments.setAdapter(appointmentAdapter);
 
+        // Doctors' lists are paged; load the next page before the end is reached
+        binding.rvAppointments.addOnScrollListener(new PagingScrollListener(layoutManager,
+                Constants.PAGE_PREFETCH_DISTANCE, new PagingScrollListener.PageLoader() {
+            @Override
+            public boolean isLoading() {
+                return isLoadingPage;
+            }
+
+            @Override
+            public boolean hasMorePages() {
+                return hasMorePages;
+            }
+
+            @Override
+            public void loadNextPage() {
+                loadNextAppointmentsPage();
+            }
+        }));
+
         // Set click listeners
         appointmentAdapter.setOnItemClickListener(new AppointmentAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(Appointment appointment) {
+            public void onItemClick(AppointmentRow appointment) {
                 if (isDoctor) {
                     // If pending, show approval dialog
                     if (appointment.isPending()) {
-                        showApprovalDialog(appointment);
+                        openApprovalDialog(appointment);
                     } else {
                         // Doctors can open patient details
                         Intent intent = new Intent(requireContext(), PatientDetailsActivity.class);
@@ -132,21 +196,21 @@ public class AppointmentsFragment extends Fragment {
             }
 
             @Override
-            public void onStatusClick(Appointment appointment) {
+            public void onStatusClick(AppointmentRow appointment) {
                 if (!isDoctor) {
                     Toast.makeText(requireContext(), getString(R.string.toast_only_doctors_update_status), Toast.LENGTH_SHORT).show();
                     return;
                 }
                 // If pending, show approval dialog instead of cycling status
                 if (appointment.isPending()) {
-                    showApprovalDialog(appointment);
+                    openApprovalDialog(appointment);
                 } else {
                     updateAppointmentStatus(appointment);
                 }
             }
 
             @Override
-            public void onEditClick(Appointment appointment) {
+            public void onEditClick(AppointmentRow appointment) {
                 if (!isDoctor) {
                     return;
                 }
@@ -154,11 +218,11 @@ public class AppointmentsFragment extends Fragment {
                 Intent intent = new Intent(requireContext(), AddAppointmentActivity.class);
                 intent.putExtra(Constants.EXTRA_APPOINTMENT_ID, appointment.getId());
                 intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
-                addAppointmentLauncher.launch(intent);
+                startActivity(intent);
             }
 
             @Override
-            public void onDeleteClick(Appointment appointment) {
+            public void onDeleteClick(AppointmentRow appointment) {
                 if (!isDoctor) {
                     return;
                 }
@@ -180,17 +244,31 @@ public class AppointmentsFragment extends Fragment {
             }
 
             int checkedId = checkedIds.get(0);
+            String filter = currentFilter;
             if (checkedId == R.id.chipAll) {
-                currentFilter = "all";
+                filter = "all";
             } else if (checkedId == R.id.chipScheduled) {
-                currentFilter = Constants.STATUS_SCHEDULED;
+                filter = Constants.STATUS_SCHEDULED;
             } else if (checkedId == R.id.chipPending) {
-                currentFilter = Constants.STATUS_PENDING;
+                filter = Constants.STATUS_PENDING;
             } else if (checkedId == R.id.chipCompleted) {
-                currentFilter = Constants.STATUS_COMPLETED;
+                filter = Constants.STATUS_COMPLETED;
             }
 
-            filterAppointments();
+            // The restored chip fires this too; skip it if the filter did not change
+            if (filter.equals(currentFilter)) {
+                return;
+            }
+            currentFilter = filter;
+
+            if (isDoctor) {
+                // The status filter is applied by the page query, so start again from the first page
+                filteredList.clear();
+                appointmentAdapter.updateList(filteredList);
+                loadAppointments();
+            } else {
+                filterAppointments();
+            }
         });
     }
 
@@ -201,34 +279,77 @@ public class AppointmentsFragment extends Fragment {
     private void loadAppointments() {
         if (isDoctor) {
             if (doctorId == -1) {
-                appointmentList = new ArrayList<>();
-            } else {
-                appointmentList = appointmentDAO.getAllAppointments(doctorId);
+                showAppointments(new ArrayList<>());
+                return;
             }
-        } else {
+
+            // Reload at least as many rows as are already shown so a refresh keeps the scroll position
+            String status = currentFilter.equals("all") ? null : currentFilter;
+            int limit = Math.max(Constants.PAGE_SIZE, filteredList.size());
+            isLoadingPage = true;
+            asyncDAO.read("appointments", () -> appointmentDAO.getAppointmentsPage(doctorId, status, null, limit), appointments -> {
+                isLoadingPage = false;
+                hasMorePages = appointments.size() == limit;
+                showAppointments(appointments);
+            });
+            return;
+        }
+
+        String email = sessionManager.getUserEmail();
+        asyncDAO.read("appointments", () -> {
+            // Resolve the patient record on first load
             if (patientId == -1) {
-                appointmentList = new ArrayList<>();
-            } else {
-                appointmentList = appointmentDAO.getAppointmentsByPatient(patientId);
+                Patient patient = patientDAO.getPatientByEmail(email);
+                if (patient != null) {
+                    patientId = patient.getId();
+                }
             }
+            return patientId == -1 ? new ArrayList<AppointmentRow>() : appointmentDAO.getAppointmentsByPatient(patientId);
+        }, appointments -> {
+            appointmentList = appointments;
+            filterAppointments();
+        });
+    }
+
+    private void loadNextAppointmentsPage() {
+        if (!isDoctor || filteredList.isEmpty()) {
+            return;
         }
-        filterAppointments();
+
+        String status = currentFilter.equals("all") ? null : currentFilter;
+        AppointmentRow last = filteredList.get(filteredList.size() - 1);
+        isLoadingPage = true;
+        asyncDAO.read("appointments", () -> appointmentDAO.getAppointmentsPage(doctorId, status, last, Constants.PAGE_SIZE), appointments -> {
+            isLoadingPage = false;
+            hasMorePages = appointments.size() == Constants.PAGE_SIZE;
+            filteredList.addAll(appointments);
+            appointmentAdapter.updateList(filteredList);
+            updateUI();
+        });
+    }
+
+    private void showAppointments(List<AppointmentRow> appointments) {
+        filteredList.clear();
+        filteredList.addAll(appointments);
+        appointmentAdapter.updateList(filteredList);
+        updateUI();
     }
 
+    // Patients load all their appointments and filter by status locally
     private void filterAppointments() {
         filteredList.clear();
 
         if (currentFilter.equals("all")) {
             filteredList.addAll(appointmentList);
         } else {
-            for (Appointment appointment : appointmentList) {
+            for (AppointmentRow appointment : appointmentList) {
                 if (currentFilter.equals(appointment.getStatus())) {
                     filteredList.add(appointment);
                 }
             }
         }
 
-        appointmentAdapter.notifyDataSetChanged();
+        appointmentAdapter.updateList(filteredList);
         updateUI();
     }
 
@@ -243,7 +364,7 @@ public class AppointmentsFragment extends Fragment {
         }
     }
 
-    private void updateAppointmentStatus(Appointment appointment) {
+    private void updateAppointmentStatus(AppointmentRow appointment) {
         if (!isDoctor) {
             return;
         }
@@ -256,16 +377,33 @@ public class AppointmentsFragment extends Fragment {
             newStatus = Constants.STATUS_SCHEDULED;
         }
 
-        int result = appointmentDAO.updateAppointmentStatus(appointment.getId(), newStatus);
+        asyncDAO.write(() -> appointmentDAO.updateAppointmentStatus(appointment.getId(), newStatus), result -> {
+            if (result > 0) {
+                AppointmentRow updated = new AppointmentRow(appointment);
+                updated.setStatus(newStatus);
+                replaceAppointment(updated);
+                Toast.makeText(requireContext(), getString(R.string.status_updated), Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
+    }
+
+    // Swap in an updated copy; the adapter diffs by id and content, so only that row is rebound
+    private void replaceAppointment(AppointmentRow updated) {
+        replaceById(filteredList, updated);
+        replaceById(appointmentList, updated);
+        appointmentAdapter.updateList(filteredList);
+    }
 
-        if (result > 0) {
-            appointment.setStatus(newStatus);
-            appointmentAdapter.notifyDataSetChanged();
-            Toast.makeText(requireContext(), getString(R.string.status_updated), Toast.LENGTH_SHORT).show();
+    private static void replaceById(List<AppointmentRow> appointments, AppointmentRow updated) {
+        for (int i = 0; i < appointments.size(); i++) {
+            if (appointments.get(i).getId() == updated.getId()) {
+                appointments.set(i, updated);
+                return;
+            }
         }
     }
 
-    private void showDeleteConfirmationDialog(Appointment appointment) {
+    private void showDeleteConfirmationDialog(AppointmentRow appointment) {
         new AlertDialog.Builder(requireContext())
                 .setTitle(R.string.delete_appointment)
                 .setMessage(R.string.delete_appointment_message)
@@ -276,6 +414,15 @@ public class AppointmentsFragment extends Fragment {
                 .show();
     }
 
+    // Rows leave out notes, and approving rewrites the whole appointment, so load it first
+    private void openApprovalDialog(AppointmentRow row) {
+        asyncDAO.read("approval", () -> appointmentDAO.getAppointmentById(row.getId()), appointment -> {
+            if (appointment != null && appointment.isPending()) {
+                showApprovalDialog(appointment);
+            }
+        }, this::showError);
+    }
+
     private void showApprovalDialog(Appointment appointment) {
         AppointmentApprovalHelper.showApprovalDialog(requireContext(), appointment,
                 new AppointmentApprovalHelper.ApprovalActions() {
@@ -289,7 +436,7 @@ public class AppointmentsFragment extends Fragment {
                         Intent intent = new Intent(requireContext(), AddAppointmentActivity.class);
                         intent.putExtra(Constants.EXTRA_APPOINTMENT_ID, appt.getId());
                         intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
-                        addAppointmentLauncher.launch(intent);
+                        startActivity(intent);
                     }
 
                     @Override
@@ -300,16 +447,26 @@ public class AppointmentsFragment extends Fragment {
     }
 
     private void approveAppointment(Appointment appointment) {
-        int result = appointmentDAO.updateAppointmentStatus(appointment.getId(), Constants.STATUS_SCHEDULED);
-        if (result > 0) {
-            Toast.makeText(requireContext(), R.string.appointment_approved, Toast.LENGTH_SHORT).show();
-            // Notify patient about approval
-            NotificationHelper.notifyPatientAppointmentApproved(requireContext(), 
-                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
-            loadAppointments();
-        } else {
-            Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        // Pending requests do not hold a slot; booking checks the confirmed ones and approves
+        // in one transaction, so two approvals cannot take the same slot
+        Appointment approved = new Appointment(appointment);
+        approved.setStatus(Constants.STATUS_SCHEDULED);
+        asyncDAO.write(() -> appointmentScheduler.book(approved), booking -> {
+            if (booking.isSaved()) {
+                Toast.makeText(requireContext(), R.string.appointment_approved, Toast.LENGTH_SHORT).show();
+                // Notify patient about approval
+                NotificationHelper.notifyPatientAppointmentApproved(requireContext(),
+                        approved.getAppointmentDate(), approved.getAppointmentTime());
+            } else if (!booking.getSlotCheck().isFree()) {
+                AppointmentApprovalHelper.showSlotConflictDialog(requireContext(), booking.getSlotCheck(), startMinute -> {
+                    Appointment moved = new Appointment(appointment);
+                    moved.setAppointmentTime(DateUtils.formatMinutes(startMinute));
+                    approveAppointment(moved);
+                });
+            } else {
+                Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
     private void showRejectConfirmationDialog(Appointment appointment) {
@@ -324,32 +481,30 @@ public class AppointmentsFragment extends Fragment {
     }
 
     private void rejectAppointment(Appointment appointment) {
-        int result = appointmentDAO.deleteAppointment(appointment.getId());
-        if (result > 0) {
-            Toast.makeText(requireContext(), R.string.appointment_rejected, Toast.LENGTH_SHORT).show();
-            // Notify patient about rejection
-            NotificationHelper.notifyPatientAppointmentRejected(requireContext(),
-                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
-            loadAppointments();
-        } else {
-            Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        asyncDAO.write(() -> appointmentDAO.deleteAppointment(appointment.getId()), result -> {
+            if (result > 0) {
+                Toast.makeText(requireContext(), R.string.appointment_rejected, Toast.LENGTH_SHORT).show();
+                // Notify patient about rejection
+                NotificationHelper.notifyPatientAppointmentRejected(requireContext(),
+                        appointment.getAppointmentDate(), appointment.getAppointmentTime());
+            } else {
+                Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
-    private void deleteAppointment(Appointment appointment) {
-        int result = appointmentDAO.deleteAppointment(appointment.getId());
-        if (result > 0) {
-            loadAppointments();
-            Toast.makeText(requireContext(), R.string.appointment_deleted, Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+    private void deleteAppointment(AppointmentRow appointment) {
+        asyncDAO.write(() -> appointmentDAO.deleteAppointment(appointment.getId()), result -> {
+            if (result > 0) {
+                Toast.makeText(requireContext(), R.string.appointment_deleted, Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        loadAppointments();
+    private void showError(Throwable error) {
+        Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
     }
 
     @Override
@@ -22,13 +22,20 @@ import com.example.medimanager.activities.PatientDetailsActivity;
 import com.example.medimanager.adapters.AppointmentAdapter;
 import com.example.medimanager.adapters.PatientAdapter;
 import com.example.medimanager.database.AppointmentDAO;
-import com.example.medimanager.database.ConsultationDAO;
+import com.example.medimanager.database.AppointmentScheduler;
+import com.example.medimanager.database.AsyncDAO;
+import com.example.medimanager.database.DashboardDAO;
+import com.example.medimanager.database.DatabaseChangeBus;
+import com.example.medimanager.database.DatabaseHelper;
 import com.example.medimanager.database.PatientDAO;
 import com.example.medimanager.databinding.FragmentHomeBinding;
 import com.example.medimanager.models.Appointment;
-import com.example.medimanager.models.Patient;
+import com.example.medimanager.models.AppointmentRow;
+import com.example.medimanager.models.DashboardStats;
+import com.example.medimanager.models.PatientSummary;
 import com.example.medimanager.utils.AppointmentApprovalHelper;
 import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
 import com.example.medimanager.utils.NotificationHelper;
 import com.example.medimanager.utils.SessionManager;
 
@@ -47,13 +54,15 @@ public class HomeFragment extends Fragment {
     // Database
     private PatientDAO patientDAO;
     private AppointmentDAO appointmentDAO;
-    private ConsultationDAO consultationDAO;
+    private AppointmentScheduler appointmentScheduler;
+    private DashboardDAO dashboardDAO;
+    private AsyncDAO asyncDAO;
 
     // Adapters
     private AppointmentAdapter appointmentAdapter;
-    private List<Appointment> todayAppointments;
+    private List<AppointmentRow> todayAppointments;
     private PatientAdapter recentPatientsAdapter;
-    private List<Patient> recentPatients;
+    private List<PatientSummary> recentPatients;
     private int doctorId = -1;
     private SessionManager sessionManager;
 
@@ -72,7 +81,9 @@ public class HomeFragment extends Fragment {
         sessionManager = new SessionManager(requireContext());
         patientDAO = new PatientDAO(requireContext());
         appointmentDAO = new AppointmentDAO(requireContext());
-        consultationDAO = new ConsultationDAO(requireContext());
+        appointmentScheduler = new AppointmentScheduler(requireContext());
+        dashboardDAO = new DashboardDAO(requireContext());
+        asyncDAO = new AsyncDAO(getViewLifecycleOwner(), "HomeFragment");
         // Load current doctor id
         doctorId = sessionManager.getUserId();
 
@@ -80,17 +91,17 @@ public class HomeFragment extends Fragment {
         setupRecyclerView();
         setupClickListeners();
 
-        // Load data
+        // Load data; each query re-runs when a write touches the tables it reads
+        updateDate();
         loadStatistics();
         loadTodayAppointments();
         loadRecentPatients();
-        updateDate();
-        
-        // Check for pending appointment requests
-        checkPendingRequests();
     }
-    
-    private void checkPendingRequests() {
+
+    /**
+     * Check for pending appointment requests, using the count loaded with the statistics.
+     */
+    private void checkPendingRequests(int pendingCount) {
         // Only show once per session
         if (hasShownPendingAlert) return;
         
@@ -98,17 +109,7 @@ public class HomeFragment extends Fragment {
         if (!NotificationHelper.areNotificationsEnabled(requireContext())) {
             return;
         }
-        
-        if (doctorId == -1) return;
-        
-        List<Appointment> allAppointments = appointmentDAO.getAllAppointments(doctorId);
-        int pendingCount = 0;
-        for (Appointment apt : allAppointments) {
-            if (apt.isPending()) {
-                pendingCount++;
-            }
-        }
-        
+
         if (pendingCount > 0) {
             String message = pendingCount == 1 
                 ? getString(R.string.pending_request_single)
@@ -139,7 +140,7 @@ public class HomeFragment extends Fragment {
     private void setupRecyclerView() {
         // Today's Appointments
         todayAppointments = new ArrayList<>();
-        appointmentAdapter = new AppointmentAdapter(requireContext(), todayAppointments);
+        appointmentAdapter = new AppointmentAdapter(requireContext());
 
         binding.rvTodayAppointments.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.rvTodayAppointments.setAdapter(appointmentAdapter);
@@ -148,10 +149,10 @@ public class HomeFragment extends Fragment {
         // Set item click listener
         appointmentAdapter.setOnItemClickListener(new AppointmentAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(Appointment appointment) {
+            public void onItemClick(AppointmentRow appointment) {
                 // If pending, show approval dialog
                 if (appointment.isPending()) {
-                    showApprovalDialog(appointment);
+                    openApprovalDialog(appointment);
                 } else {
                     // Navigate to appointment details or patient details
                     Intent intent = new Intent(requireContext(), PatientDetailsActivity.class);
@@ -161,10 +162,10 @@ public class HomeFragment extends Fragment {
             }
 
             @Override
-            public void onStatusClick(Appointment appointment) {
+            public void onStatusClick(AppointmentRow appointment) {
                 // If pending, show approval dialog instead of cycling status
                 if (appointment.isPending()) {
-                    showApprovalDialog(appointment);
+                    openApprovalDialog(appointment);
                 } else {
                     // Update appointment status
                     updateAppointmentStatus(appointment);
@@ -172,7 +173,7 @@ public class HomeFragment extends Fragment {
             }
 
             @Override
-            public void onEditClick(Appointment appointment) {
+            public void onEditClick(AppointmentRow appointment) {
                 // Open AddAppointmentActivity in edit mode
                 Intent intent = new Intent(requireContext(), AddAppointmentActivity.class);
                 intent.putExtra(Constants.EXTRA_APPOINTMENT_ID, appointment.getId());
@@ -181,7 +182,7 @@ public class HomeFragment extends Fragment {
             }
 
             @Override
-            public void onDeleteClick(Appointment appointment) {
+            public void onDeleteClick(AppointmentRow appointment) {
                 // For dashboard, show a toast to go to Appointments tab
                 Toast.makeText(requireContext(), getString(R.string.toast_go_to_appointments_delete), Toast.LENGTH_SHORT).show();
             }
@@ -189,7 +190,7 @@ public class HomeFragment extends Fragment {
 
         // Recent Patients
         recentPatients = new ArrayList<>();
-        recentPatientsAdapter = new PatientAdapter(requireContext(), recentPatients);
+        recentPatientsAdapter = new PatientAdapter(requireContext());
 
         binding.rvRecentPatients.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.rvRecentPatients.setAdapter(recentPatientsAdapter);
@@ -197,14 +198,14 @@ public class HomeFragment extends Fragment {
 
         recentPatientsAdapter.setOnItemClickListener(new PatientAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(Patient patient) {
+            public void onItemClick(PatientSummary patient) {
                 Intent intent = new Intent(requireContext(), PatientDetailsActivity.class);
                 intent.putExtra(Constants.EXTRA_PATIENT_ID, patient.getId());
                 startActivity(intent);
             }
 
             @Override
-            public void onEditClick(Patient patient) {
+            public void onEditClick(PatientSummary patient) {
                 Intent intent = new Intent(requireContext(), AddPatientActivity.class);
                 intent.putExtra(Constants.EXTRA_PATIENT_ID, patient.getId());
                 intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
@@ -212,7 +213,7 @@ public class HomeFragment extends Fragment {
             }
 
             @Override
-            public void onDeleteClick(Patient patient) {
+            public void onDeleteClick(PatientSummary patient) {
                 // For dashboard, maybe just show a toast or navigate to details
                 Toast.makeText(requireContext(), getString(R.string.toast_go_to_patients_delete), Toast.LENGTH_SHORT).show();
             }
@@ -235,52 +236,65 @@ public class HomeFragment extends Fragment {
     }
 
     private void loadStatistics() {
-        // Get today's date
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-
-        // Load statistics
         // Load statistics (guard if doctorId missing)
-        int totalPatients = doctorId == -1 ? 0 : patientDAO.getTotalPatientsCount(doctorId);
-        int monthlyConsultations = consultationDAO.getMonthlyConsultationsCount();
-        int upcomingAppointments = doctorId == -1 ? 0 : appointmentDAO.getUpcomingAppointmentsCount(doctorId);
-        int todayAppointmentsCount = doctorId == -1 ? 0 : appointmentDAO.getTodayAppointmentsCount(doctorId, today);
+        if (doctorId == -1) {
+            showStatistics(new DashboardStats());
+            return;
+        }
 
+        DatabaseChangeBus.ChangeFilter tables = DatabaseChangeBus.onTables(DatabaseHelper.TABLE_PATIENTS,
+                DatabaseHelper.TABLE_APPOINTMENTS, DatabaseHelper.TABLE_CONSULTATIONS);
+        asyncDAO.observe("statistics", tables, () -> dashboardDAO.getDashboardStats(doctorId, today()), stats -> {
+            showStatistics(stats);
+            // Check for pending appointment requests
+            checkPendingRequests(stats.getPendingAppointments());
+        });
+    }
+
+    private void showStatistics(DashboardStats stats) {
         // Update UI
-        binding.tvTotalPatients.setText(String.valueOf(totalPatients));
-        binding.tvMonthlyConsultations.setText(String.valueOf(monthlyConsultations));
-        binding.tvUpcomingAppointments.setText(String.valueOf(upcomingAppointments));
-        binding.tvTodayAppointmentsCount.setText(String.valueOf(todayAppointmentsCount));
+        binding.tvTotalPatients.setText(String.valueOf(stats.getTotalPatients()));
+        binding.tvMonthlyConsultations.setText(String.valueOf(stats.getMonthlyConsultations()));
+        binding.tvUpcomingAppointments.setText(String.valueOf(stats.getUpcomingAppointments()));
+        binding.tvTodayAppointmentsCount.setText(String.valueOf(stats.getTodayAppointments()));
     }
 
     private void loadTodayAppointments() {
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
         if (doctorId == -1) {
             todayAppointments.clear();
-            appointmentAdapter.notifyDataSetChanged();
+            appointmentAdapter.updateList(todayAppointments);
             return;
         }
 
-        List<Appointment> appointments = appointmentDAO.getTodayAppointments(doctorId, today);
-
-        todayAppointments.clear();
-        todayAppointments.addAll(appointments);
-        appointmentAdapter.notifyDataSetChanged();
+        // Rows show the patient's name, so patient edits matter too
+        DatabaseChangeBus.ChangeFilter tables = DatabaseChangeBus.onTables(DatabaseHelper.TABLE_APPOINTMENTS,
+                DatabaseHelper.TABLE_PATIENTS);
+        asyncDAO.observe("todayAppointments", tables, () -> appointmentDAO.getTodayAppointments(doctorId, today()), appointments -> {
+            todayAppointments.clear();
+            todayAppointments.addAll(appointments);
+            appointmentAdapter.updateList(todayAppointments);
+            // The day's list is what a doctor opens the app for; later calls are ignored
+            requireActivity().reportFullyDrawn();
+        });
     }
 
     private void loadRecentPatients() {
         if (doctorId == -1) {
             recentPatients.clear();
-            recentPatientsAdapter.notifyDataSetChanged();
+            recentPatientsAdapter.updateList(recentPatients);
             return;
         }
 
-        List<Patient> patients = patientDAO.getRecentPatients(doctorId, 5); // Get last 5 patients
-        recentPatients.clear();
-        recentPatients.addAll(patients);
-        recentPatientsAdapter.notifyDataSetChanged();
+        // Get last 5 patients
+        DatabaseChangeBus.ChangeFilter tables = DatabaseChangeBus.onTables(DatabaseHelper.TABLE_PATIENTS);
+        asyncDAO.observe("recentPatients", tables, () -> patientDAO.getRecentPatients(doctorId, 5), patients -> {
+            recentPatients.clear();
+            recentPatients.addAll(patients);
+            recentPatientsAdapter.updateList(recentPatients);
+        });
     }
 
-    private void updateAppointmentStatus(Appointment appointment) {
+    private void updateAppointmentStatus(AppointmentRow appointment) {
         // Cycle status: Scheduled -> Completed -> Scheduled
         String newStatus;
         if (appointment.isScheduled()) {
@@ -289,13 +303,29 @@ public class HomeFragment extends Fragment {
             newStatus = Constants.STATUS_SCHEDULED;
         }
 
-        int result = appointmentDAO.updateAppointmentStatus(appointment.getId(), newStatus);
+        asyncDAO.write(() -> appointmentDAO.updateAppointmentStatus(appointment.getId(), newStatus), result -> {
+            if (result > 0) {
+                // Swap in an updated copy so the adapter rebinds just this row
+                AppointmentRow updated = new AppointmentRow(appointment);
+                updated.setStatus(newStatus);
+                for (int i = 0; i < todayAppointments.size(); i++) {
+                    if (todayAppointments.get(i).getId() == updated.getId()) {
+                        todayAppointments.set(i, updated);
+                    }
+                }
+                appointmentAdapter.updateList(todayAppointments);
+                Toast.makeText(requireContext(), getString(R.string.status_updated), Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
+    }
 
-        if (result > 0) {
-            appointment.setStatus(newStatus);
-            appointmentAdapter.notifyDataSetChanged();
-            Toast.makeText(requireContext(), getString(R.string.status_updated), Toast.LENGTH_SHORT).show();
-        }
+    // Rows leave out notes, and approving rewrites the whole appointment, so load it first
+    private void openApprovalDialog(AppointmentRow row) {
+        asyncDAO.read("approval", () -> appointmentDAO.getAppointmentById(row.getId()), appointment -> {
+            if (appointment != null && appointment.isPending()) {
+                showApprovalDialog(appointment);
+            }
+        }, this::showError);
     }
 
     private void showApprovalDialog(Appointment appointment) {
@@ -322,17 +352,26 @@ public class HomeFragment extends Fragment {
     }
 
     private void approveAppointment(Appointment appointment) {
-        int result = appointmentDAO.updateAppointmentStatus(appointment.getId(), Constants.STATUS_SCHEDULED);
-        if (result > 0) {
-            Toast.makeText(requireContext(), R.string.appointment_approved, Toast.LENGTH_SHORT).show();
-            // Notify patient about approval
-            NotificationHelper.notifyPatientAppointmentApproved(requireContext(),
-                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
-            loadTodayAppointments();
-            loadStatistics();
-        } else {
-            Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        // Pending requests do not hold a slot; booking checks the confirmed ones and approves
+        // in one transaction, so two approvals cannot take the same slot
+        Appointment approved = new Appointment(appointment);
+        approved.setStatus(Constants.STATUS_SCHEDULED);
+        asyncDAO.write(() -> appointmentScheduler.book(approved), booking -> {
+            if (booking.isSaved()) {
+                Toast.makeText(requireContext(), R.string.appointment_approved, Toast.LENGTH_SHORT).show();
+                // Notify patient about approval
+                NotificationHelper.notifyPatientAppointmentApproved(requireContext(),
+                        approved.getAppointmentDate(), approved.getAppointmentTime());
+            } else if (!booking.getSlotCheck().isFree()) {
+                AppointmentApprovalHelper.showSlotConflictDialog(requireContext(), booking.getSlotCheck(), startMinute -> {
+                    Appointment moved = new Appointment(appointment);
+                    moved.setAppointmentTime(DateUtils.formatMinutes(startMinute));
+                    approveAppointment(moved);
+                });
+            } else {
+                Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
     private void showRejectConfirmationDialog(Appointment appointment) {
@@ -347,17 +386,21 @@ public class HomeFragment extends Fragment {
     }
 
     private void rejectAppointment(Appointment appointment) {
-        int result = appointmentDAO.deleteAppointment(appointment.getId());
-        if (result > 0) {
-            Toast.makeText(requireContext(), R.string.appointment_rejected, Toast.LENGTH_SHORT).show();
-            // Notify patient about rejection
-            NotificationHelper.notifyPatientAppointmentRejected(requireContext(),
-                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
-            loadTodayAppointments();
-            loadStatistics();
-        } else {
-            Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        asyncDAO.write(() -> appointmentDAO.deleteAppointment(appointment.getId()), result -> {
+            if (result > 0) {
+                Toast.makeText(requireContext(), R.string.appointment_rejected, Toast.LENGTH_SHORT).show();
+                // Notify patient about rejection
+                NotificationHelper.notifyPatientAppointmentRejected(requireContext(),
+                        appointment.getAppointmentDate(), appointment.getAppointmentTime());
+            } else {
+                Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
+    }
+
+    // Evaluated on each run of an observed query, so it follows the date
+    private static String today() {
+        return DateUtils.getCurrentDate();
     }
 
     private void updateDate() {
@@ -376,13 +419,8 @@ public class HomeFragment extends Fragment {
         startActivity(intent);
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        // Refresh data when returning to this fragment
-        loadStatistics();
-        loadTodayAppointments();
-        loadRecentPatients();
+    private void showError(Throwable error) {
+        Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
     }
 
     @Override
@@ -18,10 +18,14 @@ import com.example.medimanager.R;
 import com.example.medimanager.adapters.AppointmentAdapter;
 import com.example.medimanager.adapters.ConsultationAdapter;
 import com.example.medimanager.database.AppointmentDAO;
+import com.example.medimanager.database.AsyncDAO;
 import com.example.medimanager.database.ConsultationDAO;
+import com.example.medimanager.database.DatabaseChangeBus;
+import com.example.medimanager.database.DatabaseHelper;
 import com.example.medimanager.database.PatientDAO;
 import com.example.medimanager.databinding.FragmentPatientHomeBinding;
 import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.AppointmentRow;
 import com.example.medimanager.models.Consultation;
 import com.example.medimanager.models.Patient;
 import com.example.medimanager.utils.AppointmentStatusUtils;
@@ -46,10 +50,11 @@ public class PatientHomeFragment extends Fragment {
     private AppointmentDAO appointmentDAO;
     private ConsultationDAO consultationDAO;
     private PatientDAO patientDAO;
+    private AsyncDAO asyncDAO;
 
     private AppointmentAdapter appointmentAdapter;
     private ConsultationAdapter consultationAdapter;
-    private List<Appointment> upcomingAppointments;
+    private List<AppointmentRow> upcomingAppointments;
     private List<Consultation> recentConsultations;
 
     private int patientId = -1;
@@ -72,21 +77,16 @@ public class PatientHomeFragment extends Fragment {
         appointmentDAO = new AppointmentDAO(requireContext());
         consultationDAO = new ConsultationDAO(requireContext());
         patientDAO = new PatientDAO(requireContext());
+        asyncDAO = new AsyncDAO(getViewLifecycleOwner(), "PatientHomeFragment");
         sessionManager = new SessionManager(requireContext());
 
-        // Get logged-in user info
-        loadUserInfo();
-
         // Initialize UI
         setupRecyclerViews();
         setupClickListeners();
 
-        // Load data
+        // Get logged-in user info; patient data is loaded once the record is resolved
+        loadUserInfo();
         updateDate();
-        loadPatientData();
-        
-        // Check for appointment status updates (show alert on login)
-        checkAppointmentUpdates();
     }
 
     private void loadUserInfo() {
@@ -96,22 +96,24 @@ public class PatientHomeFragment extends Fragment {
             patientName = getString(R.string.default_patient_name);
         }
 
+        binding.tvWelcome.setText(getString(R.string.welcome_user, patientName));
+
         // Find the patient record linked to this user account via user_id
         if (userId != -1) {
-            Patient patient = patientDAO.getPatientByUserId(userId);
-            if (patient != null) {
-                patientId = patient.getId();
-                doctorId = patient.getDoctorId(); // Get the assigned doctor
-            }
+            asyncDAO.read(() -> patientDAO.getPatientByUserId(userId), patient -> {
+                if (patient != null) {
+                    patientId = patient.getId();
+                    doctorId = patient.getDoctorId(); // Get the assigned doctor
+                }
+                loadPatientData();
+            });
         }
-
-        binding.tvWelcome.setText(getString(R.string.welcome_user, patientName));
     }
 
     private void setupRecyclerViews() {
         // Upcoming Appointments
         upcomingAppointments = new ArrayList<>();
-        appointmentAdapter = new AppointmentAdapter(requireContext(), upcomingAppointments);
+        appointmentAdapter = new AppointmentAdapter(requireContext());
         appointmentAdapter.setReadOnly(true); // Patients cannot edit appointments
         appointmentAdapter.setShowDoctorName(true); // Show doctor name instead of patient name
         binding.rvUpcomingAppointments.setLayoutManager(new LinearLayoutManager(requireContext()));
@@ -120,7 +122,7 @@ public class PatientHomeFragment extends Fragment {
 
         appointmentAdapter.setOnItemClickListener(new AppointmentAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(Appointment appointment) {
+            public void onItemClick(AppointmentRow appointment) {
                 // Show appointment details in a toast (read-only)
                 String info = getString(R.string.appointment_info,
                     appointment.getReason(),
@@ -131,25 +133,25 @@ public class PatientHomeFragment extends Fragment {
             }
 
             @Override
-            public void onStatusClick(Appointment appointment) {
+            public void onStatusClick(AppointmentRow appointment) {
                 // Patients cannot change appointment status
                 Toast.makeText(requireContext(), getString(R.string.contact_doctor_change_status), Toast.LENGTH_SHORT).show();
             }
 
             @Override
-            public void onEditClick(Appointment appointment) {
+            public void onEditClick(AppointmentRow appointment) {
                 // Patients cannot edit appointments
             }
 
             @Override
-            public void onDeleteClick(Appointment appointment) {
+            public void onDeleteClick(AppointmentRow appointment) {
                 // Patients cannot delete appointments
             }
         });
 
         // Recent Consultations
         recentConsultations = new ArrayList<>();
-        consultationAdapter = new ConsultationAdapter(requireContext(), recentConsultations);
+        consultationAdapter = new ConsultationAdapter(requireContext());
         binding.rvRecentConsultations.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.rvRecentConsultations.setAdapter(consultationAdapter);
         binding.rvRecentConsultations.setNestedScrollingEnabled(false);
@@ -252,15 +254,15 @@ public class PatientHomeFragment extends Fragment {
         appointment.setNotes(notes);
         appointment.setStatus(Constants.STATUS_PENDING); // Pending approval
 
-        long id = appointmentDAO.insertAppointment(appointment);
-        if (id > 0) {
-            Toast.makeText(requireContext(), R.string.appointment_request_sent, Toast.LENGTH_SHORT).show();
-            // Notify doctor about new request
-            NotificationHelper.notifyDoctorNewRequest(requireContext(), patientName, date, time, reason);
-            loadPatientData(); // Refresh the list
-        } else {
-            Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+        asyncDAO.write(() -> appointmentDAO.insertAppointment(appointment), id -> {
+            if (id > 0) {
+                Toast.makeText(requireContext(), R.string.appointment_request_sent, Toast.LENGTH_SHORT).show();
+                // Notify doctor about new request
+                NotificationHelper.notifyDoctorNewRequest(requireContext(), patientName, date, time, reason);
+            } else {
+                Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
     private void loadPatientData() {
@@ -273,17 +275,32 @@ public class PatientHomeFragment extends Fragment {
             return;
         }
 
-        // Load appointments for this patient
-        List<Appointment> appointments = appointmentDAO.getAppointmentsByPatient(patientId);
+        // Load appointments and consultations for this patient, again whenever either changes
+        DatabaseChangeBus.ChangeFilter appointmentTables = DatabaseChangeBus.onTables(
+                DatabaseHelper.TABLE_APPOINTMENTS, DatabaseHelper.TABLE_USERS);
+        DatabaseChangeBus.ChangeFilter consultationTables = DatabaseChangeBus.onTables(
+                DatabaseHelper.TABLE_CONSULTATIONS);
+        asyncDAO.observe("appointments", appointmentTables, () -> appointmentDAO.getAppointmentsByPatient(patientId), appointments -> {
+            showAppointments(appointments);
+            // Upcoming appointments are what a patient opens the app for; later calls are ignored
+            requireActivity().reportFullyDrawn();
+            // Check for appointment status updates (show alert on login)
+            checkAppointmentUpdates(appointments);
+        });
+        asyncDAO.observe("consultations", consultationTables, () -> consultationDAO.getConsultationsByPatient(patientId),
+                this::showConsultations);
+    }
+
+    private void showAppointments(List<AppointmentRow> appointments) {
         upcomingAppointments.clear();
 
         // Filter to only show upcoming (scheduled or pending) appointments
-        for (Appointment apt : appointments) {
+        for (AppointmentRow apt : appointments) {
             if (apt.isScheduled() || apt.isPending()) {
                 upcomingAppointments.add(apt);
             }
         }
-        appointmentAdapter.notifyDataSetChanged();
+        appointmentAdapter.updateList(upcomingAppointments);
 
         binding.tvMyAppointments.setText(String.valueOf(appointments.size()));
 
@@ -294,9 +311,9 @@ public class PatientHomeFragment extends Fragment {
             binding.tvNoAppointments.setVisibility(View.GONE);
             binding.rvUpcomingAppointments.setVisibility(View.VISIBLE);
         }
+    }
 
-        // Load consultations for this patient
-        List<Consultation> consultations = consultationDAO.getConsultationsByPatient(patientId);
+    private void showConsultations(List<Consultation> consultations) {
         recentConsultations.clear();
 
         // Show last 5 consultations
@@ -304,7 +321,7 @@ public class PatientHomeFragment extends Fragment {
         for (int i = 0; i < limit; i++) {
             recentConsultations.add(consultations.get(i));
         }
-        consultationAdapter.notifyDataSetChanged();
+        consultationAdapter.updateList(recentConsultations);
 
         binding.tvMyConsultations.setText(String.valueOf(consultations.size()));
 
@@ -327,7 +344,7 @@ public class PatientHomeFragment extends Fragment {
      * Check for appointment status updates (approved/scheduled requests).
      * Shows an alert if the patient has upcoming scheduled appointments.
      */
-    private void checkAppointmentUpdates() {
+    private void checkAppointmentUpdates(List<AppointmentRow> appointments) {
         // Only show once per session
         if (hasShownAppointmentAlert) return;
         
@@ -335,16 +352,12 @@ public class PatientHomeFragment extends Fragment {
         if (!NotificationHelper.areNotificationsEnabled(requireContext())) {
             return;
         }
-        
-        if (patientId == -1) return;
 
-        List<Appointment> appointments = appointmentDAO.getAppointmentsByPatient(patientId);
-        
         int scheduledCount = 0;
         int pendingCount = 0;
         StringBuilder scheduledDetails = new StringBuilder();
         
-        for (Appointment apt : appointments) {
+        for (AppointmentRow apt : appointments) {
             if (apt.isScheduled()) {
                 scheduledCount++;
                 if (scheduledCount <= 3) { // Show up to 3 appointments in detail
@@ -397,10 +410,8 @@ public class PatientHomeFragment extends Fragment {
         hasShownAppointmentAlert = false;
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        loadPatientData();
+    private void showError(Throwable error) {
+        Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
     }
 
     @Override
@@ -11,20 +11,23 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Toast;
 
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.BundleCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.medimanager.R;
 import com.example.medimanager.activities.AddPatientActivity;
 import com.example.medimanager.activities.PatientDetailsActivity;
+import com.example.medimanager.adapters.PagingScrollListener;
 import com.example.medimanager.adapters.PatientAdapter;
+import com.example.medimanager.database.AsyncDAO;
+import com.example.medimanager.database.DatabaseChangeBus;
+import com.example.medimanager.database.DatabaseHelper;
 import com.example.medimanager.database.PatientDAO;
 import com.example.medimanager.databinding.FragmentPatientsBinding;
-import com.example.medimanager.models.Patient;
+import com.example.medimanager.models.PatientSummary;
 import com.example.medimanager.utils.Constants;
 import com.example.medimanager.utils.SessionManager;
 
@@ -33,26 +36,26 @@ import java.util.List;
 
 public class PatientsFragment extends Fragment {
 
+    private static final String STATE_PATIENTS = "patients";
+    private static final String STATE_SEARCH_QUERY = "search_query";
+    private static final String STATE_TOTAL_PATIENTS = "total_patients";
+    private static final String STATE_HAS_MORE_PAGES = "has_more_pages";
+
     private FragmentPatientsBinding binding;
 
     // Data
     private PatientDAO patientDAO;
+    private AsyncDAO asyncDAO;
     private PatientAdapter patientAdapter;
-    private List<Patient> patientList;
-    private List<Patient> filteredList;
+    private List<PatientSummary> patientList;
+    private String searchQuery = "";
+    private int totalPatients = 0;
+    private boolean isLoadingPage = false;
+    private boolean hasMorePages = false;
 
     private int doctorId = -1;
     private SessionManager sessionManager;
 
-    private final ActivityResultLauncher<Intent> patientFormLauncher = registerForActivityResult(
-            new ActivityResultContracts.StartActivityForResult(),
-            result -> {
-                if (result.getResultCode() == getActivity().RESULT_OK) {
-                    loadPatients();
-                }
-            }
-    );
-
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -66,31 +69,86 @@ public class PatientsFragment extends Fragment {
 
         // Initialize DAO
         patientDAO = new PatientDAO(requireContext());
+        asyncDAO = new AsyncDAO(getViewLifecycleOwner(), "PatientsFragment");
 
         // Load current doctor id
         sessionManager = new SessionManager(requireContext());
         doctorId = sessionManager.getUserId();
 
         // Initialize UI
+        if (savedInstanceState != null) {
+            searchQuery = savedInstanceState.getString(STATE_SEARCH_QUERY, "");
+        }
         setupRecyclerView();
         setupSearchView();
 
-        // Load data
-        loadPatients();
+        // Reload whenever patients change, including edits made on other screens
+        asyncDAO.onChange("patients", DatabaseChangeBus.onTables(DatabaseHelper.TABLE_PATIENTS), this::loadPatients);
+        if (!restorePatients(savedInstanceState)) {
+            loadPatients();
+        }
+    }
+
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_SEARCH_QUERY, searchQuery);
+
+        // Keep the loaded rows across a rotation; after process death they are reloaded
+        if (patientList != null && patientList.size() <= Constants.MAX_SAVED_LIST_ROWS
+                && getActivity() != null && getActivity().isChangingConfigurations()) {
+            outState.putParcelableArrayList(STATE_PATIENTS, new ArrayList<>(patientList));
+            outState.putInt(STATE_TOTAL_PATIENTS, totalPatients);
+            outState.putBoolean(STATE_HAS_MORE_PAGES, hasMorePages);
+        }
+    }
+
+    private boolean restorePatients(@Nullable Bundle savedInstanceState) {
+        if (savedInstanceState == null) {
+            return false;
+        }
+        ArrayList<PatientSummary> patients = BundleCompat.getParcelableArrayList(
+                savedInstanceState, STATE_PATIENTS, PatientSummary.class);
+        if (patients == null) {
+            return false;
+        }
+        totalPatients = savedInstanceState.getInt(STATE_TOTAL_PATIENTS);
+        hasMorePages = savedInstanceState.getBoolean(STATE_HAS_MORE_PAGES);
+        showPatients(patients);
+        return true;
     }
 
     private void setupRecyclerView() {
         patientList = new ArrayList<>();
-        filteredList = new ArrayList<>();
 
-        patientAdapter = new PatientAdapter(requireContext(), filteredList);
-        binding.rvPatients.setLayoutManager(new LinearLayoutManager(requireContext()));
+        patientAdapter = new PatientAdapter(requireContext());
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        binding.rvPatients.setLayoutManager(layoutManager);
         binding.rvPatients.setAdapter(patientAdapter);
 
+        // Load the next page before the user reaches the end of the list
+        binding.rvPatients.addOnScrollListener(new PagingScrollListener(layoutManager,
+                Constants.PAGE_PREFETCH_DISTANCE, new PagingScrollListener.PageLoader() {
+            @Override
+            public boolean isLoading() {
+                return isLoadingPage;
+            }
+
+            @Override
+            public boolean hasMorePages() {
+                return hasMorePages;
+            }
+
+            @Override
+            public void loadNextPage() {
+                loadNextPatientsPage();
+            }
+        }));
+
         // Set click listeners
         patientAdapter.setOnItemClickListener(new PatientAdapter.OnItemClickListener() {
             @Override
-            public void onItemClick(Patient patient) {
+            public void onItemClick(PatientSummary patient) {
                 // Open patient details
                 Intent intent = new Intent(requireContext(), PatientDetailsActivity.class);
                 intent.putExtra(Constants.EXTRA_PATIENT_ID, patient.getId());
@@ -98,16 +156,16 @@ public class PatientsFragment extends Fragment {
             }
 
             @Override
-            public void onEditClick(Patient patient) {
+            public void onEditClick(PatientSummary patient) {
                 // Open edit patient
                 Intent intent = new Intent(requireContext(), AddPatientActivity.class);
                 intent.putExtra(Constants.EXTRA_PATIENT_ID, patient.getId());
                 intent.putExtra(Constants.EXTRA_IS_EDIT_MODE, true);
-                patientFormLauncher.launch(intent);
+                startActivity(intent);
             }
 
             @Override
-            public void onDeleteClick(Patient patient) {
+            public void onDeleteClick(PatientSummary patient) {
                 showDeleteConfirmationDialog(patient);
             }
         });
@@ -121,7 +179,13 @@ public class PatientsFragment extends Fragment {
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                filterPatients(s.toString());
+                // The restored search text fires this too; skip it if nothing changed
+                String query = s.toString().trim();
+                if (query.equals(searchQuery)) {
+                    return;
+                }
+                searchQuery = query;
+                loadPatients();
             }
 
             @Override
@@ -133,41 +197,67 @@ public class PatientsFragment extends Fragment {
     private void loadPatients() {
         if (doctorId == -1) {
             patientList.clear();
-            filterPatients("");
+            patientAdapter.updateList(patientList);
+            totalPatients = 0;
+            updateUI();
             return;
         }
 
-        patientList = patientDAO.getAllPatients(doctorId);
-        filterPatients(binding.etSearch.getText().toString().trim());
-    }
+        isLoadingPage = true;
+        String query = searchQuery;
+        if (!query.isEmpty()) {
+            // Search results are not paged
+            asyncDAO.read("patients", () -> patientDAO.searchPatients(doctorId, query), patients -> {
+                isLoadingPage = false;
+                hasMorePages = false;
+                showPatients(patients);
+            });
+            return;
+        }
 
-    private void filterPatients(String query) {
-        filteredList.clear();
+        // Reload at least as many rows as are already shown so a refresh keeps the scroll position
+        int limit = Math.max(Constants.PAGE_SIZE, patientList.size());
+        asyncDAO.read("patients", () -> patientDAO.getPatientsPage(doctorId, null, limit), patients -> {
+            isLoadingPage = false;
+            hasMorePages = patients.size() == limit;
+            showPatients(patients);
+        });
+        asyncDAO.read("patientCount", () -> patientDAO.getTotalPatientsCount(doctorId), count -> {
+            totalPatients = count;
+            updateUI();
+        });
+    }
 
-        if (query.isEmpty()) {
-            // Show all patients
-            filteredList.addAll(patientList);
-        } else {
-            // Filter by name
-            String lowerCaseQuery = query.toLowerCase();
-            for (Patient patient : patientList) {
-                String fullName = patient.getFullName().toLowerCase();
-                if (fullName.contains(lowerCaseQuery)) {
-                    filteredList.add(patient);
-                }
-            }
+    private void loadNextPatientsPage() {
+        if (!searchQuery.isEmpty() || patientList.isEmpty()) {
+            return;
         }
 
-        patientAdapter.notifyDataSetChanged();
+        isLoadingPage = true;
+        PatientSummary last = patientList.get(patientList.size() - 1);
+        asyncDAO.read("patients", () -> patientDAO.getPatientsPage(doctorId, last, Constants.PAGE_SIZE), patients -> {
+            isLoadingPage = false;
+            hasMorePages = patients.size() == Constants.PAGE_SIZE;
+            patientList.addAll(patients);
+            patientAdapter.updateList(patientList);
+            updateUI();
+        });
+    }
+
+    private void showPatients(List<PatientSummary> patients) {
+        patientList.clear();
+        patientList.addAll(patients);
+        patientAdapter.updateList(patientList);
         updateUI();
     }
 
     private void updateUI() {
-        // Update total count
-        binding.tvTotalPatients.setText(filteredList.size() + " Total");
+        // Update total count (search results are shown in full)
+        int total = searchQuery.isEmpty() ? totalPatients : patientList.size();
+        binding.tvTotalPatients.setText(total + " Total");
 
         // Show/hide empty state
-        if (filteredList.isEmpty()) {
+        if (patientList.isEmpty()) {
             binding.rvPatients.setVisibility(View.GONE);
             binding.tvEmptyState.setVisibility(View.VISIBLE);
 
@@ -183,7 +273,7 @@ public class PatientsFragment extends Fragment {
         }
     }
 
-    private void showDeleteConfirmationDialog(final Patient patient) {
+    private void showDeleteConfirmationDialog(final PatientSummary patient) {
         new AlertDialog.Builder(requireContext())
                 .setTitle(R.string.delete_confirmation)
                 .setMessage(R.string.delete_patient_message)
@@ -193,28 +283,25 @@ public class PatientsFragment extends Fragment {
                 .show();
     }
 
-    private void deletePatient(Patient patient) {
-        int result = patientDAO.deletePatient(patient.getId());
-
-        if (result > 0) {
-            Toast.makeText(requireContext(), R.string.patient_deleted, Toast.LENGTH_SHORT).show();
+    private void deletePatient(PatientSummary patient) {
+        asyncDAO.write(() -> patientDAO.deletePatient(patient.getId()), result -> {
+            if (result > 0) {
+                Toast.makeText(requireContext(), R.string.patient_deleted, Toast.LENGTH_SHORT).show();
 
-            // Remove from lists
-            patientList.remove(patient);
-            filteredList.remove(patient);
+                // Remove from list
+                patientList.remove(patient);
+                totalPatients = Math.max(0, totalPatients - 1);
 
-            patientAdapter.notifyDataSetChanged();
-            updateUI();
-        } else {
-            Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
-        }
+                patientAdapter.updateList(patientList);
+                updateUI();
+            } else {
+                Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
+            }
+        }, this::showError);
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        // Refresh data when returning to this fragment
-        loadPatients();
+    private void showError(Throwable error) {
+        Toast.makeText(requireContext(), R.string.error_occurred, Toast.LENGTH_SHORT).show();
     }
 
     @Override
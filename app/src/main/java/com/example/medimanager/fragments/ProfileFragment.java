@@ -2,30 +2,67 @@ package com.example.medimanager.fragments;
 
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.provider.DocumentsContract;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 
 import com.example.medimanager.R;
+import com.example.medimanager.activities.DiagnosticsActivity;
 import com.example.medimanager.activities.EditProfileActivity;
 import com.example.medimanager.activities.LoginActivity;
 import com.example.medimanager.activities.NotificationSettingsActivity;
+import com.example.medimanager.database.AsyncDAO;
+import com.example.medimanager.database.BulkImporter;
+import com.example.medimanager.database.DatabaseChangeBus;
+import com.example.medimanager.database.DatabaseExecutors;
+import com.example.medimanager.database.DatabaseHelper;
+import com.example.medimanager.database.PracticeExporter;
 import com.example.medimanager.database.UserDAO;
 import com.example.medimanager.databinding.FragmentProfileBinding;
 import com.example.medimanager.models.User;
 import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
 import com.example.medimanager.utils.SessionManager;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public class ProfileFragment extends Fragment {
 
+    private static final String TAG = "ProfileFragment";
+    private static final String[] IMPORT_MIME_TYPES = {"text/*", "application/json"};
+
     private FragmentProfileBinding binding;
     private UserDAO userDAO;
     private SessionManager sessionManager;
+    private AsyncDAO asyncDAO;
+    private BulkImporter.Type pendingImportType;
+    private PracticeExporter.Format pendingExportFormat;
+    private boolean pendingExportGzip;
+    private CancellationSignal exportSignal;
+
+    private final ActivityResultLauncher<String[]> importFilePicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importFile);
+    private final ActivityResultLauncher<String> csvExportPicker =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/csv"), this::exportTo);
+    private final ActivityResultLauncher<String> ndjsonExportPicker =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("application/x-ndjson"), this::exportTo);
+    private final ActivityResultLauncher<String> gzipExportPicker =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("application/gzip"), this::exportTo);
 
     @Nullable
     @Override
@@ -40,6 +77,7 @@ public class ProfileFragment extends Fragment {
 
         sessionManager = new SessionManager(requireContext());
         userDAO = new UserDAO(requireContext());
+        asyncDAO = new AsyncDAO(getViewLifecycleOwner(), "ProfileFragment");
 
         loadUserData();
 
@@ -51,18 +89,45 @@ public class ProfileFragment extends Fragment {
             startActivity(new Intent(requireContext(), NotificationSettingsActivity.class));
         });
 
+        binding.importButton.setVisibility(sessionManager.isDoctor() ? View.VISIBLE : View.GONE);
+        binding.importButton.setOnClickListener(v -> {
+            showImportTypeDialog();
+        });
+
+        binding.exportButton.setVisibility(sessionManager.isDoctor() ? View.VISIBLE : View.GONE);
+        binding.exportButton.setOnClickListener(v -> {
+            if (exportSignal != null) {
+                exportSignal.cancel();
+            } else {
+                showExportFormatDialog();
+            }
+        });
+
         binding.logoutButton.setOnClickListener(v -> {
             logout();
         });
+
+        // Hidden entry to query timings and the DAO benchmark
+        binding.logoutButton.setOnLongClickListener(v -> {
+            startActivity(new Intent(requireContext(), DiagnosticsActivity.class));
+            return true;
+        });
     }
 
     private void loadUserData() {
         String email = sessionManager.getUserEmail();
         boolean isDoctor = sessionManager.isDoctor();
 
-        // Get user from database
-        User user = userDAO.getUserByEmail(email);
+        // Get user from database, again after the profile is edited
+        DatabaseChangeBus.ChangeFilter users = DatabaseChangeBus.onTables(DatabaseHelper.TABLE_USERS);
+        asyncDAO.observe("user", users, () -> userDAO.getUserByEmail(email), user -> showUser(user, email, isDoctor));
+
+        // Show role badge
+        binding.tvRole.setText(isDoctor ? R.string.doctor : R.string.patient);
+        binding.tvRole.setVisibility(View.VISIBLE);
+    }
 
+    private void showUser(User user, String email, boolean isDoctor) {
         if (user != null) {
             String displayName = user.getFullName();
             if (isDoctor) {
@@ -83,10 +148,165 @@ public class ProfileFragment extends Fragment {
             binding.doctorName.setText(name);
             binding.doctorEmail.setText(email);
         }
+    }
 
-        // Show role badge
-        binding.tvRole.setText(isDoctor ? R.string.doctor : R.string.patient);
-        binding.tvRole.setVisibility(View.VISIBLE);
+    private void showImportTypeDialog() {
+        String[] types = {
+                getString(R.string.import_patients),
+                getString(R.string.import_appointments),
+                getString(R.string.import_consultations)
+        };
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.import_choose_type)
+                .setItems(types, (dialog, which) -> {
+                    pendingImportType = BulkImporter.Type.values()[which];
+                    importFilePicker.launch(IMPORT_MIME_TYPES);
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    private void importFile(Uri uri) {
+        if (uri == null || pendingImportType == null || binding == null) {
+            return;
+        }
+
+        BulkImporter.Type type = pendingImportType;
+        int doctorId = sessionManager.getUserId();
+        Context context = requireContext().getApplicationContext();
+
+        binding.importButton.setEnabled(false);
+        binding.importProgress.setText(getString(R.string.import_in_progress, 0, 0));
+        binding.importProgress.setVisibility(View.VISIBLE);
+
+        asyncDAO.write(() -> {
+            try (InputStream input = context.getContentResolver().openInputStream(uri)) {
+                if (input == null) {
+                    return null;
+                }
+                return new BulkImporter(context).importRecords(type, input, doctorId,
+                        (processed, imported) -> DatabaseExecutors.getInstance().mainThread().post(() -> {
+                            if (binding != null) {
+                                binding.importProgress.setText(
+                                        getString(R.string.import_in_progress, imported, processed));
+                            }
+                        }));
+            } catch (Exception e) {
+                Log.e(TAG, "Error importing " + type, e);
+                return null;
+            }
+        }, this::showImportResult);
+    }
+
+    private void showImportResult(BulkImporter.Result result) {
+        if (binding == null) {
+            return;
+        }
+
+        binding.importButton.setEnabled(true);
+        if (result == null) {
+            binding.importProgress.setVisibility(View.GONE);
+            Toast.makeText(requireContext(), R.string.import_failed, Toast.LENGTH_LONG).show();
+            return;
+        }
+
+        binding.importProgress.setText(getString(R.string.import_complete,
+                result.getImported(), result.getDuplicates(), result.getInvalid()));
+    }
+
+    private void showExportFormatDialog() {
+        String[] formats = {
+                getString(R.string.export_csv),
+                getString(R.string.export_csv_gzip),
+                getString(R.string.export_ndjson),
+                getString(R.string.export_ndjson_gzip)
+        };
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.export_choose_format)
+                .setItems(formats, (dialog, which) -> {
+                    pendingExportFormat = which < 2 ? PracticeExporter.Format.CSV : PracticeExporter.Format.NDJSON;
+                    pendingExportGzip = which % 2 == 1;
+
+                    String fileName = "medimanager-" + DateUtils.getCurrentDate() +
+                            (pendingExportFormat == PracticeExporter.Format.CSV ? ".csv" : ".ndjson");
+                    if (pendingExportGzip) {
+                        gzipExportPicker.launch(fileName + ".gz");
+                    } else if (pendingExportFormat == PracticeExporter.Format.CSV) {
+                        csvExportPicker.launch(fileName);
+                    } else {
+                        ndjsonExportPicker.launch(fileName);
+                    }
+                })
+                .setNegativeButton(R.string.cancel, null)
+                .show();
+    }
+
+    private void exportTo(Uri uri) {
+        if (uri == null || pendingExportFormat == null || binding == null) {
+            return;
+        }
+
+        PracticeExporter.Format format = pendingExportFormat;
+        boolean gzip = pendingExportGzip;
+        int doctorId = sessionManager.getUserId();
+        Context context = requireContext().getApplicationContext();
+        CancellationSignal signal = new CancellationSignal();
+        exportSignal = signal;
+
+        binding.exportProgress.setText(getString(R.string.export_in_progress, 0, 0));
+        binding.exportProgress.setVisibility(View.VISIBLE);
+
+        asyncDAO.read(() -> {
+            try {
+                OutputStream output = context.getContentResolver().openOutputStream(uri);
+                if (output == null) {
+                    return null;
+                }
+                return new PracticeExporter(context).export(doctorId, output, format, gzip, signal,
+                        (exported, total) -> DatabaseExecutors.getInstance().mainThread().post(() -> {
+                            if (binding != null && exportSignal == signal) {
+                                binding.exportProgress.setText(
+                                        getString(R.string.export_in_progress, exported, total));
+                            }
+                        }));
+            } catch (OperationCanceledException e) {
+                deletePartialExport(context, uri);
+                return null;
+            } catch (Exception e) {
+                Log.e(TAG, "Error exporting practice data", e);
+                deletePartialExport(context, uri);
+                return null;
+            }
+        }, result -> showExportResult(result, signal));
+    }
+
+    private void showExportResult(PracticeExporter.Result result, CancellationSignal signal) {
+        exportSignal = null;
+        if (binding == null) {
+            return;
+        }
+
+        if (result == null) {
+            binding.exportProgress.setVisibility(View.GONE);
+            Toast.makeText(requireContext(),
+                    signal.isCanceled() ? R.string.export_cancelled : R.string.export_failed,
+                    Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        binding.exportProgress.setText(getString(R.string.export_complete,
+                result.getPatients(), result.getConsultations(), result.getAppointments()));
+    }
+
+    // Helper method - Remove a file left incomplete by a failed or cancelled export
+    private static void deletePartialExport(Context context, Uri uri) {
+        try {
+            DocumentsContract.deleteDocument(context.getContentResolver(), uri);
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to delete partial export", e);
+        }
     }
 
     private void logout() {
@@ -104,15 +324,13 @@ public class ProfileFragment extends Fragment {
         requireActivity().finish();
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        loadUserData();
-    }
-
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (exportSignal != null) {
+            exportSignal.cancel();
+            exportSignal = null;
+        }
         binding = null;
     }
 }
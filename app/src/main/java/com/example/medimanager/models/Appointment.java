@@ -1,17 +1,19 @@
 package com.example.medimanager.models;
 
-import java.io.Serializable;
+import android.os.Parcel;
+import android.os.Parcelable;
 
 import com.example.medimanager.utils.Constants;
 
-public class Appointment implements Serializable {
+public class Appointment implements Parcelable {
     private int id;
     private int patientId;
     private int doctorId;
     private String patientName;
     private String doctorName;
     private String appointmentDate;
-    private String appointmentTime;
+    private String appointmentTime; // display text, e.g. "09:00 AM"
+    private int startMinute = -1; // minutes since midnight, used for sorting and scheduling
     private String reason;
     private String status; // scheduled, in_progress, completed, cancelled
     private String notes;
@@ -37,6 +39,13 @@ public class Appointment implements Serializable {
         this.createdAt = createdAt;
     }
 
+    public Appointment(Appointment other) {
+        this(other.id, other.patientId, other.doctorId, other.patientName, other.doctorName,
+                other.appointmentDate, other.appointmentTime, other.reason, other.status,
+                other.notes, other.createdAt);
+        this.startMinute = other.startMinute;
+    }
+
     // Getters and Setters
     public int getId() {
         return id;
@@ -94,6 +103,14 @@ public class Appointment implements Serializable {
         this.appointmentTime = appointmentTime;
     }
 
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public void setStartMinute(int startMinute) {
+        this.startMinute = startMinute;
+    }
+
     public String getReason() {
         return reason;
     }
@@ -155,6 +172,55 @@ public class Appointment implements Serializable {
         return status;
     }
 
+    // Parcelable
+    protected Appointment(Parcel in) {
+        id = in.readInt();
+        patientId = in.readInt();
+        doctorId = in.readInt();
+        patientName = in.readString();
+        doctorName = in.readString();
+        appointmentDate = in.readString();
+        appointmentTime = in.readString();
+        startMinute = in.readInt();
+        reason = in.readString();
+        status = in.readString();
+        notes = in.readString();
+        createdAt = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeInt(patientId);
+        dest.writeInt(doctorId);
+        dest.writeString(patientName);
+        dest.writeString(doctorName);
+        dest.writeString(appointmentDate);
+        dest.writeString(appointmentTime);
+        dest.writeInt(startMinute);
+        dest.writeString(reason);
+        dest.writeString(status);
+        dest.writeString(notes);
+        dest.writeString(createdAt);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<Appointment> CREATOR = new Creator<Appointment>() {
+        @Override
+        public Appointment createFromParcel(Parcel in) {
+            return new Appointment(in);
+        }
+
+        @Override
+        public Appointment[] newArray(int size) {
+            return new Appointment[size];
+        }
+    };
+
     @Override
     public String toString() {
         return "Appointment{" +
@@ -0,0 +1,198 @@
+package com.example.medimanager.models;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.example.medimanager.utils.Constants;
+
+/**
+ * The columns an appointment list row shows. Notes and timestamps are left out;
+ * screens that edit or approve an appointment load the full {@link Appointment} by id.
+ */
+public class AppointmentRow implements Parcelable {
+    private int id;
+    private int patientId;
+    private int doctorId;
+    private String patientName;
+    private String doctorName;
+    private String appointmentDate;
+    private String appointmentTime;
+    private int startMinute = -1;
+    private String reason;
+    private String status;
+
+    // Constructors
+    public AppointmentRow() {
+    }
+
+    public AppointmentRow(AppointmentRow other) {
+        this.id = other.id;
+        this.patientId = other.patientId;
+        this.doctorId = other.doctorId;
+        this.patientName = other.patientName;
+        this.doctorName = other.doctorName;
+        this.appointmentDate = other.appointmentDate;
+        this.appointmentTime = other.appointmentTime;
+        this.startMinute = other.startMinute;
+        this.reason = other.reason;
+        this.status = other.status;
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(int patientId) {
+        this.patientId = patientId;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(int doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public void setDoctorName(String doctorName) {
+        this.doctorName = doctorName;
+    }
+
+    public String getAppointmentDate() {
+        return appointmentDate;
+    }
+
+    public void setAppointmentDate(String appointmentDate) {
+        this.appointmentDate = appointmentDate;
+    }
+
+    public String getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public void setAppointmentTime(String appointmentTime) {
+        this.appointmentTime = appointmentTime;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public void setStartMinute(int startMinute) {
+        this.startMinute = startMinute;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    // Helper Methods
+    public boolean isPending() {
+        return Constants.STATUS_PENDING.equalsIgnoreCase(status);
+    }
+
+    public boolean isScheduled() {
+        return Constants.STATUS_SCHEDULED.equalsIgnoreCase(status);
+    }
+
+    public boolean isInProgress() {
+        return Constants.STATUS_IN_PROGRESS.equalsIgnoreCase(status);
+    }
+
+    public boolean isCompleted() {
+        return Constants.STATUS_COMPLETED.equalsIgnoreCase(status);
+    }
+
+    public boolean isCancelled() {
+        return Constants.STATUS_CANCELLED.equalsIgnoreCase(status);
+    }
+
+    // Parcelable
+    protected AppointmentRow(Parcel in) {
+        id = in.readInt();
+        patientId = in.readInt();
+        doctorId = in.readInt();
+        patientName = in.readString();
+        doctorName = in.readString();
+        appointmentDate = in.readString();
+        appointmentTime = in.readString();
+        startMinute = in.readInt();
+        reason = in.readString();
+        status = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeInt(patientId);
+        dest.writeInt(doctorId);
+        dest.writeString(patientName);
+        dest.writeString(doctorName);
+        dest.writeString(appointmentDate);
+        dest.writeString(appointmentTime);
+        dest.writeInt(startMinute);
+        dest.writeString(reason);
+        dest.writeString(status);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<AppointmentRow> CREATOR = new Creator<AppointmentRow>() {
+        @Override
+        public AppointmentRow createFromParcel(Parcel in) {
+            return new AppointmentRow(in);
+        }
+
+        @Override
+        public AppointmentRow[] newArray(int size) {
+            return new AppointmentRow[size];
+        }
+    };
+
+    @Override
+    public String toString() {
+        return "AppointmentRow{" +
+                "id=" + id +
+                ", patient='" + patientName + '\'' +
+                ", date='" + appointmentDate + '\'' +
+                ", time='" + appointmentTime + '\'' +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
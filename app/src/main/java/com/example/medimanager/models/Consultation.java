@@ -1,8 +1,9 @@
 package com.example.medimanager.models;
 
-import java.io.Serializable;
+import android.os.Parcel;
+import android.os.Parcelable;
 
-public class Consultation implements Serializable {
+public class Consultation implements Parcelable {
     private int id;
     private int patientId;
     private String consultationDate;
@@ -94,6 +95,47 @@ public class Consultation implements Serializable {
         this.createdAt = createdAt;
     }
 
+    // Parcelable
+    protected Consultation(Parcel in) {
+        id = in.readInt();
+        patientId = in.readInt();
+        consultationDate = in.readString();
+        diagnosis = in.readString();
+        treatment = in.readString();
+        prescription = in.readString();
+        notes = in.readString();
+        createdAt = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeInt(patientId);
+        dest.writeString(consultationDate);
+        dest.writeString(diagnosis);
+        dest.writeString(treatment);
+        dest.writeString(prescription);
+        dest.writeString(notes);
+        dest.writeString(createdAt);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<Consultation> CREATOR = new Creator<Consultation>() {
+        @Override
+        public Consultation createFromParcel(Parcel in) {
+            return new Consultation(in);
+        }
+
+        @Override
+        public Consultation[] newArray(int size) {
+            return new Consultation[size];
+        }
+    };
+
     @Override
     public String toString() {
         return "Consultation{" +
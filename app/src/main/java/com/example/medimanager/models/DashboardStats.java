@@ -0,0 +1,56 @@
+package com.example.medimanager.models;
+
+/**
+ * Counters shown on the doctor home screen, loaded together by DashboardDAO.
+ */
+public class DashboardStats {
+    private int totalPatients;
+    private int monthlyConsultations;
+    private int upcomingAppointments;
+    private int todayAppointments;
+    private int pendingAppointments;
+
+    public DashboardStats() {
+    }
+
+    // Getters and Setters
+    public int getTotalPatients() {
+        return totalPatients;
+    }
+
+    public void setTotalPatients(int totalPatients) {
+        this.totalPatients = totalPatients;
+    }
+
+    public int getMonthlyConsultations() {
+        return monthlyConsultations;
+    }
+
+    public void setMonthlyConsultations(int monthlyConsultations) {
+        this.monthlyConsultations = monthlyConsultations;
+    }
+
+    public int getUpcomingAppointments() {
+        return upcomingAppointments;
+    }
+
+    public void setUpcomingAppointments(int upcomingAppointments) {
+        this.upcomingAppointments = upcomingAppointments;
+    }
+
+    public int getTodayAppointments() {
+        return todayAppointments;
+    }
+
+    public void setTodayAppointments(int todayAppointments) {
+        this.todayAppointments = todayAppointments;
+    }
+
+    public int getPendingAppointments() {
+        return pendingAppointments;
+    }
+
+    public void setPendingAppointments(int pendingAppointments) {
+        this.pendingAppointments = pendingAppointments;
+    }
+}
@@ -1,13 +1,11 @@
 package com.example.medimanager.models;
 
-import java.io.Serializable;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
-
-public class Patient implements Serializable {
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.example.medimanager.utils.DateUtils;
+
+public class Patient implements Parcelable {
     private int id;
     private int doctorId;
     private Integer userId; // Links to user account (nullable for patients without accounts)
@@ -46,6 +44,12 @@ public class Patient implements Serializable {
         this.createdAt = createdAt;
     }
 
+    public Patient(Patient other) {
+        this(other.id, other.doctorId, other.userId, other.firstName, other.lastName, other.dateOfBirth,
+                other.gender, other.phone, other.email, other.address,
+                other.bloodGroup, other.allergies, other.lastVisit, other.createdAt);
+    }
+
     // Getters and Setters
     public int getId() {
         return id;
@@ -176,33 +180,65 @@ public class Patient implements Serializable {
     }
 
     public int getAge() {
-        if (dateOfBirth == null || dateOfBirth.isEmpty()) {
-            return 0;
-        }
-
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date birthDate = sdf.parse(dateOfBirth);
-            if (birthDate != null) {
-                Calendar birth = Calendar.getInstance();
-                birth.setTime(birthDate);
-                Calendar today = Calendar.getInstance();
-
-                int age = today.get(Calendar.YEAR) - birth.get(Calendar.YEAR);
-
-                if (today.get(Calendar.DAY_OF_YEAR) < birth.get(Calendar.DAY_OF_YEAR)) {
-                    age--;
-                }
+        return DateUtils.calculateAge(dateOfBirth);
+    }
+
+    // Parcelable
+    protected Patient(Parcel in) {
+        id = in.readInt();
+        doctorId = in.readInt();
+        userId = in.readByte() != 0 ? in.readInt() : null;
+        firstName = in.readString();
+        lastName = in.readString();
+        dateOfBirth = in.readString();
+        gender = in.readString();
+        phone = in.readString();
+        email = in.readString();
+        address = in.readString();
+        bloodGroup = in.readString();
+        allergies = in.readString();
+        lastVisit = in.readString();
+        createdAt = in.readString();
+    }
 
-                return age;
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeInt(doctorId);
+        dest.writeByte((byte) (userId != null ? 1 : 0));
+        if (userId != null) {
+            dest.writeInt(userId);
         }
+        dest.writeString(firstName);
+        dest.writeString(lastName);
+        dest.writeString(dateOfBirth);
+        dest.writeString(gender);
+        dest.writeString(phone);
+        dest.writeString(email);
+        dest.writeString(address);
+        dest.writeString(bloodGroup);
+        dest.writeString(allergies);
+        dest.writeString(lastVisit);
+        dest.writeString(createdAt);
+    }
 
+    @Override
+    public int describeContents() {
         return 0;
     }
 
+    public static final Creator<Patient> CREATOR = new Creator<Patient>() {
+        @Override
+        public Patient createFromParcel(Parcel in) {
+            return new Patient(in);
+        }
+
+        @Override
+        public Patient[] newArray(int size) {
+            return new Patient[size];
+        }
+    };
+
     @Override
     public String toString() {
         return "Patient{" +
@@ -0,0 +1,170 @@
+package com.example.medimanager.models;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import com.example.medimanager.utils.DateUtils;
+
+/**
+ * The columns a patient list row shows. Email, address and allergies are left out;
+ * the details and edit screens load the full {@link Patient} by id.
+ */
+public class PatientSummary implements Parcelable {
+    private int id;
+    private String firstName;
+    private String lastName;
+    private String dateOfBirth;
+    private String gender;
+    private String phone;
+    private String bloodGroup;
+    private String lastVisit;
+
+    // Constructors
+    public PatientSummary() {
+    }
+
+    public PatientSummary(PatientSummary other) {
+        this.id = other.id;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.dateOfBirth = other.dateOfBirth;
+        this.gender = other.gender;
+        this.phone = other.phone;
+        this.bloodGroup = other.bloodGroup;
+        this.lastVisit = other.lastVisit;
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(String dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public String getBloodGroup() {
+        return bloodGroup;
+    }
+
+    public void setBloodGroup(String bloodGroup) {
+        this.bloodGroup = bloodGroup;
+    }
+
+    public String getLastVisit() {
+        return lastVisit;
+    }
+
+    public void setLastVisit(String lastVisit) {
+        this.lastVisit = lastVisit;
+    }
+
+    // Helper Methods
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+
+    public String getInitials() {
+        String initials = "";
+        if (firstName != null && !firstName.isEmpty()) {
+            initials += firstName.charAt(0);
+        }
+        if (lastName != null && !lastName.isEmpty()) {
+            initials += lastName.charAt(0);
+        }
+        return initials.toUpperCase();
+    }
+
+    public int getAge() {
+        return DateUtils.calculateAge(dateOfBirth);
+    }
+
+    // Parcelable
+    protected PatientSummary(Parcel in) {
+        id = in.readInt();
+        firstName = in.readString();
+        lastName = in.readString();
+        dateOfBirth = in.readString();
+        gender = in.readString();
+        phone = in.readString();
+        bloodGroup = in.readString();
+        lastVisit = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(id);
+        dest.writeString(firstName);
+        dest.writeString(lastName);
+        dest.writeString(dateOfBirth);
+        dest.writeString(gender);
+        dest.writeString(phone);
+        dest.writeString(bloodGroup);
+        dest.writeString(lastVisit);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<PatientSummary> CREATOR = new Creator<PatientSummary>() {
+        @Override
+        public PatientSummary createFromParcel(Parcel in) {
+            return new PatientSummary(in);
+        }
+
+        @Override
+        public PatientSummary[] newArray(int size) {
+            return new PatientSummary[size];
+        }
+    };
+
+    @Override
+    public String toString() {
+        return "PatientSummary{" +
+                "id=" + id +
+                ", name='" + getFullName() + '\'' +
+                '}';
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.medimanager.models;
 
-public class User {
+import android.os.Parcel;
+import android.os.Parcelable;
+
+public class User implements Parcelable {
     private long id;
     private String firstName;
     private String lastName;
@@ -21,6 +24,13 @@ public class User {
         this.role = role;
     }
 
+    public User(User other) {
+        this(other.firstName, other.lastName, other.email, other.password, other.role);
+        this.id = other.id;
+        this.phone = other.phone;
+        this.createdAt = other.createdAt;
+    }
+
     // Getters and Setters
     public long getId() {
         return id;
@@ -97,4 +107,43 @@ public class User {
     public boolean isPatient() {
         return "patient".equalsIgnoreCase(role);
     }
+
+    // Parcelable - the password hash is left out, so a parcelled user never carries credentials
+    protected User(Parcel in) {
+        id = in.readLong();
+        firstName = in.readString();
+        lastName = in.readString();
+        email = in.readString();
+        role = in.readString();
+        phone = in.readString();
+        createdAt = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLong(id);
+        dest.writeString(firstName);
+        dest.writeString(lastName);
+        dest.writeString(email);
+        dest.writeString(role);
+        dest.writeString(phone);
+        dest.writeString(createdAt);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<User> CREATOR = new Creator<User>() {
+        @Override
+        public User createFromParcel(Parcel in) {
+            return new User(in);
+        }
+
+        @Override
+        public User[] newArray(int size) {
+            return new User[size];
+        }
+    };
 }
@@ -6,8 +6,11 @@ import android.content.DialogInterface;
 import androidx.appcompat.app.AlertDialog;
 
 import com.example.medimanager.R;
+import com.example.medimanager.database.AppointmentScheduler;
 import com.example.medimanager.models.Appointment;
 
+import java.util.List;
+
 public final class AppointmentApprovalHelper {
 
     public interface ApprovalActions {
@@ -16,6 +19,10 @@ public final class AppointmentApprovalHelper {
         void onReject(Appointment appointment);
     }
 
+    public interface SlotChooser {
+        void onSlotChosen(int startMinute);
+    }
+
     private AppointmentApprovalHelper() {
         throw new AssertionError("No instances.");
     }
@@ -39,4 +46,28 @@ public final class AppointmentApprovalHelper {
                 })
                 .show();
     }
+
+    /**
+     * Explain a failed slot check and offer the suggested free slots instead.
+     */
+    public static void showSlotConflictDialog(Context context, AppointmentScheduler.SlotCheck check,
+                                              SlotChooser chooser) {
+        String requested = DateUtils.formatMinutes(check.getStartMinute());
+        String bookedFor = check.getConflict().getPatientName();
+        List<Integer> alternatives = check.getAlternatives();
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(context)
+                .setNegativeButton(R.string.cancel, null);
+        if (alternatives.isEmpty()) {
+            builder.setMessage(context.getString(R.string.slot_taken_no_alternatives, requested, bookedFor));
+        } else {
+            String[] labels = new String[alternatives.size()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = DateUtils.formatMinutes(alternatives.get(i));
+            }
+            builder.setTitle(context.getString(R.string.slot_taken_title, requested, bookedFor))
+                    .setItems(labels, (dialog, which) -> chooser.onSlotChosen(alternatives.get(which)));
+        }
+        builder.show();
+    }
 }
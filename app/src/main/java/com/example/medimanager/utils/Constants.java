@@ -29,10 +29,42 @@ public class Constants {
     public static final String PREF_USER_EMAIL = "user_email";
     public static final String PREF_USER_ID = "user_id";
     public static final String PREF_USER_NAME = "user_name";
+    public static final String PREF_PASSWORD_ITERATIONS = "password_iterations";
+    public static final String PREF_SLOW_QUERY_MILLIS = "slow_query_millis";
+    public static final String PREF_QUERY_PROFILING = "query_profiling";
+
+    // Paging
+    public static final int PAGE_SIZE = 30;
+    public static final int PAGE_PREFETCH_DISTANCE = 10;
+    // Lists longer than this are reloaded rather than kept in saved state
+    public static final int MAX_SAVED_LIST_ROWS = 200;
+
+    // Caching
+    public static final int PATIENT_CACHE_SIZE = 200;
+    public static final int USER_CACHE_SIZE = 50;
+    public static final int SCHEDULE_CACHE_SIZE = 14;
+
+    // Scheduling (minutes since midnight)
+    public static final int APPOINTMENT_DURATION_MINUTES = 30;
+    public static final int WORKDAY_START_MINUTE = 8 * 60;
+    public static final int WORKDAY_END_MINUTE = 18 * 60;
+    public static final int SUGGESTED_SLOT_COUNT = 3;
+
+    // Reminders
+    public static final int REMINDER_LEAD_MINUTES = 60;
+    public static final int REMINDER_BATCH_WINDOW_MINUTES = 5;
 
     // Validation
     public static final int MIN_PASSWORD_LENGTH = 6;
 
+    // Password hashing (PBKDF2 iterations, calibrated per device within these bounds)
+    public static final int PASSWORD_MIN_ITERATIONS = 12000;
+    public static final int PASSWORD_MAX_ITERATIONS = 600000;
+    public static final int PASSWORD_TARGET_HASH_MILLIS = 250;
+
+    // Diagnostics (statements slower than this are logged with their query plan)
+    public static final long SLOW_QUERY_MILLIS = 50;
+
     // Private constructor to prevent instantiation
     private Constants() {
         throw new AssertionError("Cannot instantiate Constants class");
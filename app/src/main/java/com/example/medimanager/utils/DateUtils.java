@@ -4,36 +4,70 @@ import android.content.Context;
 
 import com.example.medimanager.R;
 
+import java.text.DateFormatSymbols;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
-
+import java.util.TimeZone;
+
+/**
+ * Date helpers. Stored dates are "yyyy-MM-dd" strings; comparisons and ages work on
+ * epoch days (days since 1970-01-01) decoded straight from the string, so they allocate
+ * nothing. SimpleDateFormat is only used for display text, and each thread keeps its own
+ * instance per pattern instead of building one per call.
+ */
 public class DateUtils {
 
+    /**
+     * Returned by {@link #toEpochDay} for text that is not a yyyy-MM-dd date
+     */
+    public static final int INVALID_EPOCH_DAY = Integer.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final String[] US_AM_PM = DateFormatSymbols.getInstance(Locale.US).getAmPmStrings();
+
+    // TimeZone.getDefault() clones the zone on every call, so the device zone is read once
+    // and again whenever today's epoch day is recomputed or the zone changes
+    private static volatile TimeZone deviceZone = TimeZone.getDefault();
+    // The default locale's AM/PM markers, rebuilt if the locale changes
+    private static volatile AmPm amPm;
+
+    // Stored dates parsed to local midnight, and the current time, in the device zone
+    private static final FormatCache STORED_DATE_FORMAT = new FormatCache(Constants.DATE_FORMAT, null);
+    private static final FormatCache TIME_FORMAT = new FormatCache(Constants.TIME_FORMAT, null);
+    private static final FormatCache DATETIME_FORMAT = new FormatCache(Constants.DATETIME_FORMAT, null);
+    // Display text for an epoch day; UTC so the result does not depend on the device zone
+    private static final FormatCache DISPLAY_FORMAT = new FormatCache(Constants.DATE_FORMAT_DISPLAY, UTC);
+    private static final FormatCache DAY_NAME_FORMAT = new FormatCache("EEEE", UTC);
+    private static final FormatCache MONTH_NAME_FORMAT = new FormatCache("MMMM", UTC);
+
+    // Today's epoch day and the span of wall-clock millis it holds for
+    private static volatile Today today;
+
     /**
      * Get current date in yyyy-MM-dd format
      */
     public static String getCurrentDate() {
-        SimpleDateFormat sdf = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault());
-        return sdf.format(new Date());
+        return fromEpochDay(todayEpochDay());
     }
 
     /**
      * Get current time in hh:mm a format
      */
     public static String getCurrentTime() {
-        SimpleDateFormat sdf = new SimpleDateFormat(Constants.TIME_FORMAT, Locale.getDefault());
-        return sdf.format(new Date());
+        return TIME_FORMAT.now();
     }
 
     /**
      * Get current date and time
      */
     public static String getCurrentDateTime() {
-        SimpleDateFormat sdf = new SimpleDateFormat(Constants.DATETIME_FORMAT, Locale.getDefault());
-        return sdf.format(new Date());
+        return DATETIME_FORMAT.now();
     }
 
     /**
@@ -44,47 +78,22 @@ public class DateUtils {
             return "";
         }
 
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault());
-            SimpleDateFormat outputFormat = new SimpleDateFormat(Constants.DATE_FORMAT_DISPLAY, Locale.getDefault());
-            Date date = inputFormat.parse(dateString);
-            return outputFormat.format(date);
-        } catch (ParseException e) {
-            e.printStackTrace();
-            return dateString;
-        }
+        String text = DISPLAY_FORMAT.formatEpochDay(toEpochDay(dateString));
+        return text != null ? text : dateString;
     }
 
     /**
-     * Calculate age from date of birth
+     * Calculate age in whole years from date of birth, or 0 if it is not a date
      */
     public static int calculateAge(String dateOfBirth) {
-        if (dateOfBirth == null || dateOfBirth.isEmpty()) {
+        int birth = parseYmd(dateOfBirth);
+        if (birth < 0) {
             return 0;
         }
 
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault());
-            Date birthDate = sdf.parse(dateOfBirth);
-
-            if (birthDate != null) {
-                Calendar birth = Calendar.getInstance();
-                birth.setTime(birthDate);
-                Calendar today = Calendar.getInstance();
-
-                int age = today.get(Calendar.YEAR) - birth.get(Calendar.YEAR);
-
-                if (today.get(Calendar.DAY_OF_YEAR) < birth.get(Calendar.DAY_OF_YEAR)) {
-                    age--;
-                }
-
-                return age;
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-
-        return 0;
+        // As yyyyMMdd numbers, the difference divided by 10000 counts completed years
+        int age = (ymdFromEpochDay(todayEpochDay()) - birth) / 10000;
+        return Math.max(age, 0);
     }
 
     /**
@@ -96,8 +105,7 @@ public class DateUtils {
         }
 
         try {
-            SimpleDateFormat sdf = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault());
-            return sdf.parse(dateString);
+            return STORED_DATE_FORMAT.format().parse(dateString);
         } catch (ParseException e) {
             e.printStackTrace();
             return null;
@@ -108,22 +116,21 @@ public class DateUtils {
      * Compare two dates (returns -1 if date1 < date2, 0 if equal, 1 if date1 > date2)
      */
     public static int compareDates(String date1, String date2) {
-        Date d1 = parseDate(date1);
-        Date d2 = parseDate(date2);
+        int d1 = toEpochDay(date1);
+        int d2 = toEpochDay(date2);
 
-        if (d1 == null || d2 == null) {
+        if (d1 == INVALID_EPOCH_DAY || d2 == INVALID_EPOCH_DAY) {
             return 0;
         }
 
-        return d1.compareTo(d2);
+        return Integer.compare(d1, d2);
     }
 
     /**
      * Check if date is today
      */
     public static boolean isToday(String dateString) {
-        String today = getCurrentDate();
-        return today.equals(dateString);
+        return toEpochDay(dateString) == todayEpochDay();
     }
 
     /**
@@ -148,26 +155,16 @@ public class DateUtils {
      * Get day name from date (e.g., "Monday")
      */
     public static String getDayName(String dateString) {
-        Date date = parseDate(dateString);
-        if (date == null) {
-            return "";
-        }
-
-        SimpleDateFormat sdf = new SimpleDateFormat("EEEE", Locale.getDefault());
-        return sdf.format(date);
+        String text = DAY_NAME_FORMAT.formatEpochDay(toEpochDay(dateString));
+        return text != null ? text : "";
     }
 
     /**
      * Get month name from date (e.g., "January")
      */
     public static String getMonthName(String dateString) {
-        Date date = parseDate(dateString);
-        if (date == null) {
-            return "";
-        }
-
-        SimpleDateFormat sdf = new SimpleDateFormat("MMMM", Locale.getDefault());
-        return sdf.format(date);
+        String text = MONTH_NAME_FORMAT.formatEpochDay(toEpochDay(dateString));
+        return text != null ? text : "";
     }
 
     /**
@@ -209,20 +206,324 @@ public class DateUtils {
     }
 
     /**
-     * Validate date format
+     * Parse a stored appointment time ("09:30 AM", a localized AM/PM marker, or "14:30")
+     * into minutes since midnight. Returns -1 if the text is not a time.
      */
-    public static boolean isValidDate(String dateString) {
-        if (dateString == null || dateString.isEmpty()) {
-            return false;
+    public static int parseTimeToMinutes(String time) {
+        if (time == null) {
+            return -1;
         }
 
+        String text = time.trim();
+        int colon = text.indexOf(':');
+        if (colon < 1 || colon + 3 > text.length()) {
+            return -1;
+        }
+
+        int hour;
+        int minute;
         try {
-            SimpleDateFormat sdf = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault());
-            sdf.setLenient(false);
-            sdf.parse(dateString);
-            return true;
-        } catch (ParseException e) {
-            return false;
+            hour = Integer.parseInt(text.substring(0, colon));
+            minute = Integer.parseInt(text.substring(colon + 1, colon + 3));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (minute < 0 || minute > 59) {
+            return -1;
+        }
+
+        String marker = text.substring(colon + 3).trim();
+        if (marker.isEmpty()) {
+            // 24-hour clock
+            return hour >= 0 && hour <= 23 ? hour * 60 + minute : -1;
+        }
+        if (hour < 1 || hour > 12) {
+            return -1;
+        }
+
+        // The time picker writes the device locale's markers; older rows use AM/PM
+        String[] localMarkers = amPmStrings();
+        String[] usMarkers = US_AM_PM;
+        boolean pm;
+        if (marker.equalsIgnoreCase(usMarkers[0]) || marker.equalsIgnoreCase(localMarkers[0])) {
+            pm = false;
+        } else if (marker.equalsIgnoreCase(usMarkers[1]) || marker.equalsIgnoreCase(localMarkers[1])) {
+            pm = true;
+        } else {
+            return -1;
+        }
+
+        return (hour % 12 + (pm ? 12 : 0)) * 60 + minute;
+    }
+
+    /**
+     * Format minutes since midnight the same way the time picker does (hh:mm AM/PM)
+     */
+    public static String formatMinutes(int minutes) {
+        if (minutes < 0) {
+            return "";
+        }
+
+        int hourOfDay = minutes / 60;
+        String[] amPmStrings = amPmStrings();
+        String amPm = hourOfDay >= 12 ? amPmStrings[1] : amPmStrings[0];
+        int displayHour = hourOfDay % 12;
+        if (displayHour == 0) displayHour = 12;
+        return String.format(Locale.getDefault(), "%02d:%02d %s", displayHour, minutes % 60, amPm);
+    }
+
+    /**
+     * Local wall-clock time of an appointment as epoch millis, or -1 if the date or minute is invalid
+     */
+    public static long toEpochMillis(String dateString, int startMinute) {
+        int ymd = parseYmd(dateString);
+        if (ymd < 0 || startMinute < 0) {
+            return -1;
+        }
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(ymd / 10000, ymd / 100 % 100 - 1, ymd % 100, startMinute / 60, startMinute % 60);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Current month as [first day, first day of next month) in DATE_FORMAT, for range
+     * comparisons on an indexed date column
+     */
+    public static String[] getMonthRange() {
+        int ymd = ymdFromEpochDay(todayEpochDay());
+        int year = ymd / 10000;
+        int month = ymd / 100 % 100;
+        int start = epochDayOf(year, month, 1);
+        int end = month == 12 ? epochDayOf(year + 1, 1, 1) : epochDayOf(year, month + 1, 1);
+        return new String[]{fromEpochDay(start), fromEpochDay(end)};
+    }
+
+    /**
+     * Validate date format: exactly yyyy-MM-dd with a real day of the month
+     */
+    public static boolean isValidDate(String dateString) {
+        return parseYmd(dateString) >= 0;
+    }
+
+    /**
+     * Days since 1970-01-01 for a yyyy-MM-dd date, or INVALID_EPOCH_DAY. Reads the
+     * characters directly, so it allocates nothing.
+     */
+    public static int toEpochDay(String dateString) {
+        int ymd = parseYmd(dateString);
+        if (ymd < 0) {
+            return INVALID_EPOCH_DAY;
+        }
+        return epochDayOf(ymd / 10000, ymd / 100 % 100, ymd % 100);
+    }
+
+    /**
+     * The yyyy-MM-dd text for an epoch day
+     */
+    public static String fromEpochDay(int epochDay) {
+        int ymd = ymdFromEpochDay(epochDay);
+        char[] text = new char[10];
+        writeDigits(text, 0, ymd / 10000, 4);
+        text[4] = '-';
+        writeDigits(text, 5, ymd / 100 % 100, 2);
+        text[7] = '-';
+        writeDigits(text, 8, ymd % 100, 2);
+        return new String(text);
+    }
+
+    /**
+     * Today's epoch day in the device time zone
+     */
+    public static int todayEpochDay() {
+        long now = System.currentTimeMillis();
+        Today current = today;
+        if (current == null || now < current.from || now >= current.until) {
+            current = new Today(now);
+            today = current;
+        }
+        return current.epochDay;
+    }
+
+    /**
+     * Epoch day of an instant in the device time zone
+     */
+    public static int toLocalEpochDay(long millis) {
+        return (int) Math.floorDiv(millis + deviceZone.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * Minutes since local midnight of an instant in the device time zone
+     */
+    public static int toLocalMinuteOfDay(long millis) {
+        return (int) (Math.floorMod(millis + deviceZone.getOffset(millis), MILLIS_PER_DAY) / 60_000L);
+    }
+
+    /**
+     * Drop the cached device zone and today's date; called when the time zone changes
+     */
+    public static void onTimeZoneChanged() {
+        deviceZone = TimeZone.getDefault();
+        today = null;
+    }
+
+    private static String[] amPmStrings() {
+        Locale locale = Locale.getDefault();
+        AmPm current = amPm;
+        if (current == null || !current.locale.equals(locale)) {
+            current = new AmPm(locale, DateFormatSymbols.getInstance(locale).getAmPmStrings());
+            amPm = current;
+        }
+        return current.strings;
+    }
+
+    // yyyy-MM-dd as the number yyyyMMdd, or -1 if the text is not a valid date
+    private static int parseYmd(String text) {
+        if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return -1;
+        }
+        int year = readDigits(text, 0, 4);
+        int month = readDigits(text, 5, 2);
+        int day = readDigits(text, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    private static int readDigits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void writeDigits(char[] text, int start, int value, int count) {
+        for (int i = start + count - 1; i >= start; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // Proleptic Gregorian conversions, counting years from March so the leap day comes last
+    private static int epochDayOf(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int ymdFromEpochDay(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Today's epoch day, valid until the next local midnight. It is also recomputed every
+     * hour, re-reading the device zone, so a zone change is picked up even if no
+     * onTimeZoneChanged call reports it.
+     */
+    private static final class Today {
+        final int epochDay;
+        final long from;
+        final long until;
+
+        Today(long now) {
+            TimeZone zone = TimeZone.getDefault();
+            deviceZone = zone;
+            long local = now + zone.getOffset(now);
+            epochDay = (int) Math.floorDiv(local, MILLIS_PER_DAY);
+            from = now;
+            until = Math.min(now + MILLIS_PER_HOUR, now + (epochDay + 1) * MILLIS_PER_DAY - local);
+        }
+    }
+
+    /**
+     * One SimpleDateFormat per thread for a pattern, since an instance is not safe to share.
+     * It is rebuilt if the default locale changes.
+     */
+    private static final class FormatCache extends ThreadLocal<FormatCache.Entry> {
+        private final String pattern;
+        private final TimeZone zone;
+
+        // A null zone follows the device zone
+        FormatCache(String pattern, TimeZone zone) {
+            this.pattern = pattern;
+            this.zone = zone;
+        }
+
+        SimpleDateFormat format() {
+            Locale locale = Locale.getDefault();
+            Entry entry = get();
+            if (entry == null || !entry.locale.equals(locale)) {
+                SimpleDateFormat format = new SimpleDateFormat(pattern, locale);
+                entry = new Entry(locale, format, zone != null ? zone : deviceZone);
+                set(entry);
+            } else if (zone == null && entry.zone != deviceZone) {
+                // Follow a device zone change; far cheaper than building a new format
+                entry.zone = deviceZone;
+                entry.format.setTimeZone(entry.zone);
+            }
+            return entry.format;
+        }
+
+        String now() {
+            return format().format(new Date());
+        }
+
+        // Only meaningful for UTC formats; null for INVALID_EPOCH_DAY
+        String formatEpochDay(int epochDay) {
+            if (epochDay == INVALID_EPOCH_DAY) {
+                return null;
+            }
+            return format().format(new Date(epochDay * MILLIS_PER_DAY));
+        }
+
+        static final class Entry {
+            final Locale locale;
+            final SimpleDateFormat format;
+            TimeZone zone;
+
+            Entry(Locale locale, SimpleDateFormat format, TimeZone zone) {
+                this.locale = locale;
+                this.format = format;
+                this.zone = zone;
+                format.setTimeZone(zone);
+            }
+        }
+    }
+
+    private static final class AmPm {
+        final Locale locale;
+        final String[] strings;
+
+        AmPm(Locale locale, String[] strings) {
+            this.locale = locale;
+            this.strings = strings;
         }
     }
 }
@@ -0,0 +1,247 @@
+package com.example.medimanager.utils;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.RequiresApi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Frame durations and dropped frames per screen, from the window's FrameMetrics.
+ *
+ * MainActivity attaches its window while resumed and names the screen after the fragment
+ * being shown, so frames are grouped by HomeFragment, PatientsFragment and so on. A frame
+ * longer than the display's frame budget counts as janky, and every further budget it
+ * spans as one dropped frame. Each screen keeps its last SAMPLES_PER_SCREEN frame times
+ * for percentiles. FrameMetrics needs API 24; on older devices nothing is recorded.
+ */
+public final class FrameMetricsCollector {
+
+    private static final int SAMPLES_PER_SCREEN = 600;
+    private static final long DEFAULT_BUDGET_NANOS = 1_000_000_000L / 60;
+
+    private static final FrameMetricsCollector instance = new FrameMetricsCollector();
+
+    // Guarded by itself
+    private final Map<String, Screen> screens = new LinkedHashMap<>();
+    private volatile String currentScreen = "other";
+    private Handler handler;
+    private Object listener;
+
+    private FrameMetricsCollector() {
+    }
+
+    public static FrameMetricsCollector getInstance() {
+        return instance;
+    }
+
+    /**
+     * Frame timings for one screen since the last reset.
+     */
+    public static final class Entry {
+        private final String screen;
+        private final long frames;
+        private final long jankyFrames;
+        private final long droppedFrames;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+
+        Entry(String screen, long frames, long jankyFrames, long droppedFrames,
+              double p50Millis, double p90Millis, double p95Millis, double p99Millis) {
+            this.screen = screen;
+            this.frames = frames;
+            this.jankyFrames = jankyFrames;
+            this.droppedFrames = droppedFrames;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+        }
+
+        public String getScreen() {
+            return screen;
+        }
+
+        public long getFrames() {
+            return frames;
+        }
+
+        public long getJankyFrames() {
+            return jankyFrames;
+        }
+
+        public long getDroppedFrames() {
+            return droppedFrames;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s frames=%d janky=%d dropped=%d p50=%.1fms p90=%.1fms p95=%.1fms p99=%.1fms",
+                    screen, frames, jankyFrames, droppedFrames, p50Millis, p90Millis, p95Millis, p99Millis);
+        }
+    }
+
+    // Rolling frame times and totals for one screen
+    private static final class Screen {
+        final long[] samples = new long[SAMPLES_PER_SCREEN];
+        int next;
+        int filled;
+        long frames;
+        long jankyFrames;
+        long droppedFrames;
+
+        void add(long durationNanos, long budgetNanos) {
+            samples[next] = durationNanos;
+            next = (next + 1) % SAMPLES_PER_SCREEN;
+            if (filled < SAMPLES_PER_SCREEN) {
+                filled++;
+            }
+            frames++;
+            if (durationNanos > budgetNanos) {
+                jankyFrames++;
+                droppedFrames += (durationNanos - 1) / budgetNanos;
+            }
+        }
+
+        Entry toEntry(String name) {
+            long[] sorted = Arrays.copyOf(samples, filled);
+            Arrays.sort(sorted);
+            return new Entry(name, frames, jankyFrames, droppedFrames,
+                    percentile(sorted, 50), percentile(sorted, 90),
+                    percentile(sorted, 95), percentile(sorted, 99));
+        }
+
+        private static double percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(sorted.length * percent / 100.0) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Name the screen that following frames belong to. Call on the main thread.
+     */
+    public void setScreen(String screen) {
+        currentScreen = screen;
+    }
+
+    /**
+     * Start recording the window's frames. Pair with {@link #detach(Window)}.
+     */
+    public void attach(Window window) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || listener != null) {
+            return;
+        }
+        if (handler == null) {
+            HandlerThread thread = new HandlerThread("FrameMetrics");
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        listener = Api24.attach(this, window, handler);
+    }
+
+    public void detach(Window window) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || listener == null) {
+            return;
+        }
+        Api24.detach(window, listener);
+        listener = null;
+    }
+
+    /**
+     * Per-screen frame timings, most dropped frames first.
+     */
+    public List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>();
+        synchronized (screens) {
+            for (Map.Entry<String, Screen> entry : screens.entrySet()) {
+                entries.add(entry.getValue().toEntry(entry.getKey()));
+            }
+        }
+        Collections.sort(entries, (a, b) -> Long.compare(b.droppedFrames, a.droppedFrames));
+        return entries;
+    }
+
+    public void reset() {
+        synchronized (screens) {
+            screens.clear();
+        }
+    }
+
+    private void record(long durationNanos, long budgetNanos) {
+        String name = currentScreen;
+        synchronized (screens) {
+            Screen screen = screens.get(name);
+            if (screen == null) {
+                screen = new Screen();
+                screens.put(name, screen);
+            }
+            screen.add(durationNanos, budgetNanos);
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.N)
+    private static final class Api24 {
+
+        static Object attach(FrameMetricsCollector collector, Window window, Handler handler) {
+            float refreshRate = window.getWindowManager().getDefaultDisplay().getRefreshRate();
+            long displayBudget = refreshRate > 0 ? (long) (1_000_000_000L / refreshRate) : DEFAULT_BUDGET_NANOS;
+
+            Window.OnFrameMetricsAvailableListener frameListener = (w, metrics, dropCount) -> {
+                // The first frame of a window is mostly layout; it is covered by reportFullyDrawn
+                if (metrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+                    return;
+                }
+                long budget = displayBudget;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                    long deadline = metrics.getMetric(FrameMetrics.DEADLINE);
+                    if (deadline > 0) {
+                        budget = deadline;
+                    }
+                }
+                collector.record(metrics.getMetric(FrameMetrics.TOTAL_DURATION), budget);
+            };
+            window.addOnFrameMetricsAvailableListener(frameListener, handler);
+            return frameListener;
+        }
+
+        static void detach(Window window, Object listener) {
+            try {
+                window.removeOnFrameMetricsAvailableListener((Window.OnFrameMetricsAvailableListener) listener);
+            } catch (IllegalArgumentException e) {
+                // Already removed with its window
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.medimanager.utils;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Base64;
+import android.util.Log;
 
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -9,13 +13,34 @@ import java.security.SecureRandom;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 
+/**
+ * PBKDF2 password hashes stored as "pbkdf2$iterations$salt$hash".
+ *
+ * Hashing is deliberately slow, so every call here belongs off the main thread. The
+ * iteration count for new hashes comes from {@link #calibrate}, which times a derivation
+ * once per install and picks the count that takes about PASSWORD_TARGET_HASH_MILLIS on
+ * this device. Stored hashes keep their own count, and {@link #needsRehash} reports the
+ * ones weaker than the current setting so a successful login can upgrade them.
+ */
 public final class PasswordUtils {
 
+    private static final String TAG = "PasswordUtils";
+
     private static final String PREFIX = "pbkdf2";
     private static final String DELIMITER = "$";
-    private static final int ITERATIONS = 12000;
     private static final int SALT_BYTES = 16;
     private static final int KEY_BYTES = 32;
+    private static final int CALIBRATION_ITERATIONS = 4000;
+
+    // SHA1 only where the device has no SHA256 variant (before API 26)
+    private static final String[] ALGORITHMS = {"PBKDF2WithHmacSHA256", "PBKDF2WithHmacSHA1"};
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    // A SecretKeyFactory is not documented as thread-safe, so each thread keeps its own
+    private static final ThreadLocal<SecretKeyFactory> FACTORY = new ThreadLocal<>();
+
+    private static volatile String algorithm;
+    private static volatile int iterations = Constants.PASSWORD_MIN_ITERATIONS;
 
     private PasswordUtils() {
         throw new AssertionError("No instances.");
@@ -26,14 +51,15 @@ public final class PasswordUtils {
             return null;
         }
 
+        int count = iterations;
         byte[] salt = new byte[SALT_BYTES];
-        new SecureRandom().nextBytes(salt);
-        byte[] hash = pbkdf2(password, salt, ITERATIONS, KEY_BYTES);
+        RANDOM.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, count, KEY_BYTES);
 
         String saltEncoded = Base64.encodeToString(salt, Base64.NO_WRAP);
         String hashEncoded = Base64.encodeToString(hash, Base64.NO_WRAP);
 
-        return PREFIX + DELIMITER + ITERATIONS + DELIMITER + saltEncoded + DELIMITER + hashEncoded;
+        return PREFIX + DELIMITER + count + DELIMITER + saltEncoded + DELIMITER + hashEncoded;
     }
 
     public static boolean verifyPassword(String password, String stored) {
@@ -50,17 +76,15 @@ public final class PasswordUtils {
             return false;
         }
 
-        int iterations;
-        try {
-            iterations = Integer.parseInt(parts[1]);
-        } catch (NumberFormatException e) {
+        int storedIterations = parseIterations(parts);
+        if (storedIterations <= 0) {
             return false;
         }
 
         byte[] salt = Base64.decode(parts[2], Base64.NO_WRAP);
         byte[] expected = Base64.decode(parts[3], Base64.NO_WRAP);
         try {
-            byte[] actual = pbkdf2(password, salt, iterations, expected.length);
+            byte[] actual = pbkdf2(password, salt, storedIterations, expected.length);
             return MessageDigest.isEqual(expected, actual);
         } catch (IllegalStateException e) {
             return false;
@@ -71,18 +95,103 @@ public final class PasswordUtils {
         return stored != null && stored.startsWith(PREFIX + DELIMITER);
     }
 
+    /**
+     * Whether a stored password should be replaced by a fresh hash after it verifies:
+     * it is plain text, or it was hashed with fewer iterations than new hashes now get.
+     * Hashes are only ever upgraded, never weakened to a lower count.
+     */
+    public static boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length == 4 && parseIterations(parts) < iterations;
+    }
+
+    /**
+     * Set the iteration count for new hashes. The first run on an install times a short
+     * derivation and saves the count that meets PASSWORD_TARGET_HASH_MILLIS; later runs
+     * read it back. Takes tens of milliseconds the first time, so call it off the main thread.
+     */
+    public static void calibrate(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(Constants.PREFS_NAME, Context.MODE_PRIVATE);
+        int saved = prefs.getInt(Constants.PREF_PASSWORD_ITERATIONS, 0);
+        if (saved > 0) {
+            iterations = clampIterations(saved);
+            return;
+        }
+
+        try {
+            int measured = measureIterations();
+            iterations = measured;
+            prefs.edit().putInt(Constants.PREF_PASSWORD_ITERATIONS, measured).apply();
+            Log.i(TAG, "Calibrated PBKDF2 to " + measured + " iterations (" + algorithm + ")");
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "Unable to calibrate password hashing", e);
+        }
+    }
+
+    private static int measureIterations() {
+        byte[] salt = new byte[SALT_BYTES];
+        // The first derivation loads the provider and warms up; time the second
+        pbkdf2("calibration", salt, CALIBRATION_ITERATIONS, KEY_BYTES);
+        long start = System.nanoTime();
+        pbkdf2("calibration", salt, CALIBRATION_ITERATIONS, KEY_BYTES);
+        long nanosPerIteration = Math.max(1, (System.nanoTime() - start) / CALIBRATION_ITERATIONS);
+
+        long target = Constants.PASSWORD_TARGET_HASH_MILLIS * 1_000_000L / nanosPerIteration;
+        // Round down to a whole thousand so stored counts stay readable
+        return clampIterations((int) Math.min(Integer.MAX_VALUE, target / 1000 * 1000));
+    }
+
+    private static int clampIterations(int count) {
+        return Math.max(Constants.PASSWORD_MIN_ITERATIONS, Math.min(Constants.PASSWORD_MAX_ITERATIONS, count));
+    }
+
+    // Iteration count from a split stored hash, or -1 if it is not a number
+    private static int parseIterations(String[] parts) {
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private static byte[] pbkdf2(String password, byte[] salt, int iterations, int keyBytes) {
         PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, keyBytes * 8);
         try {
-            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
-        } catch (Exception firstFailure) {
-            try {
-                return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
-            } catch (Exception fallbackFailure) {
-                throw new IllegalStateException("PBKDF2 unavailable", fallbackFailure);
-            }
+            return factory().generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 unavailable", e);
         } finally {
             spec.clearPassword();
         }
     }
+
+    private static SecretKeyFactory factory() throws NoSuchAlgorithmException {
+        SecretKeyFactory factory = FACTORY.get();
+        if (factory == null) {
+            factory = SecretKeyFactory.getInstance(algorithm());
+            FACTORY.set(factory);
+        }
+        return factory;
+    }
+
+    // Resolved once per process instead of failing over on every hash
+    private static String algorithm() throws NoSuchAlgorithmException {
+        String resolved = algorithm;
+        if (resolved != null) {
+            return resolved;
+        }
+        for (String candidate : ALGORITHMS) {
+            try {
+                SecretKeyFactory.getInstance(candidate);
+                algorithm = candidate;
+                return candidate;
+            } catch (NoSuchAlgorithmException e) {
+                Log.w(TAG, candidate + " unavailable");
+            }
+        }
+        throw new NoSuchAlgorithmException("No PBKDF2 implementation");
+    }
 }
@@ -0,0 +1,153 @@
+package com.example.medimanager.utils;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+
+import com.example.medimanager.AppointmentNotificationReceiver;
+import com.example.medimanager.database.AppointmentDAO;
+import com.example.medimanager.database.DatabaseChangeBus;
+import com.example.medimanager.database.DatabaseExecutors;
+import com.example.medimanager.database.DatabaseHelper;
+import com.example.medimanager.models.Appointment;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps a single alarm armed for the next appointment reminder.
+ *
+ * Reminders go out REMINDER_LEAD_MINUTES before a scheduled appointment. Instead of one
+ * alarm per appointment, only the earliest pending reminder has an alarm. When it fires,
+ * every reminder due within the next REMINDER_BATCH_WINDOW_MINUTES is delivered at once
+ * and the alarm is re-armed for the next one. Delivered appointments are flagged as
+ * reminded, so a reminder is never delivered twice, while one created or moved into an
+ * already delivered window still gets its own. Moving an appointment clears its flag.
+ *
+ * A reminder whose time passed while no alarm could fire (the device was off, the clock
+ * or zone changed, an inexact alarm ran late) is delivered late, as soon as the alarm is
+ * re-armed, provided its appointment has not started yet.
+ *
+ * The alarm is re-armed after every appointment write, after boot and on app start,
+ * each time with one query on the partial idx_appointments_reminder_due index.
+ */
+public final class ReminderScheduler {
+
+    private static final String TAG = "ReminderScheduler";
+
+    public static final String ACTION_REMINDERS_DUE = "com.example.medimanager.action.REMINDERS_DUE";
+
+    private static final long LEAD_MILLIS = Constants.REMINDER_LEAD_MINUTES * 60_000L;
+    private static final long BATCH_WINDOW_MILLIS = Constants.REMINDER_BATCH_WINDOW_MINUTES * 60_000L;
+
+    // After a batch could not be flagged, the earliest time to try again, so a failing
+    // database does not re-fire a late reminder's alarm in a loop
+    private static long retryAt;
+
+    private ReminderScheduler() {
+        throw new AssertionError("No instances.");
+    }
+
+    /**
+     * Re-arm the alarm whenever appointments change. Called once per process.
+     */
+    public static void observeAppointments(Context context) {
+        Context appContext = context.getApplicationContext();
+        DatabaseChangeBus.ChangeFilter appointments =
+                DatabaseChangeBus.onTables(DatabaseHelper.TABLE_APPOINTMENTS);
+        DatabaseChangeBus.getInstance().register(changes -> {
+            for (DatabaseChangeBus.Change change : changes) {
+                if (appointments.affects(change)) {
+                    rescheduleAsync(appContext);
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * {@link #reschedule} on a database thread.
+     */
+    public static void rescheduleAsync(Context context) {
+        Context appContext = context.getApplicationContext();
+        try {
+            DatabaseExecutors.getInstance().reader().execute(() -> reschedule(appContext));
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Unable to schedule reminder update", e);
+        }
+    }
+
+    /**
+     * Arm the alarm for the earliest reminder not yet delivered, or cancel it if there is
+     * none. A reminder whose time has passed fires at once, as long as its appointment has
+     * not started. Runs a query, so call it off the main thread.
+     */
+    public static synchronized void reschedule(Context context) {
+        long now = System.currentTimeMillis();
+        Appointment next = new AppointmentDAO(context)
+                .getNextScheduledAppointment(formatDate(now), DateUtils.toLocalMinuteOfDay(now));
+
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        PendingIntent pendingIntent = alarmIntent(context);
+        if (next == null) {
+            alarmManager.cancel(pendingIntent);
+            return;
+        }
+
+        // Late reminders go out now, through the same batch as any due with them
+        long triggerAt = Math.max(getReminderTime(next), Math.max(now, retryAt));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            // Without the exact alarm permission the reminder may arrive a few minutes late
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+        }
+    }
+
+    /**
+     * Scheduled appointments whose reminders are due now or within the batch window,
+     * including late ones, skipping those that have already started or been reminded.
+     * Flags them as reminded, so each reminder is returned once, and returns none if they
+     * cannot be flagged. Writes, so call it on the writer thread.
+     */
+    public static synchronized List<Appointment> collectDueReminders(Context context) {
+        long now = System.currentTimeMillis();
+        long to = now + LEAD_MILLIS + BATCH_WINDOW_MILLIS;
+
+        AppointmentDAO appointmentDAO = new AppointmentDAO(context);
+        List<Appointment> due = appointmentDAO.getScheduledAppointmentsBetween(
+                formatDate(now), DateUtils.toLocalMinuteOfDay(now),
+                formatDate(to), DateUtils.toLocalMinuteOfDay(to));
+        if (appointmentDAO.markReminded(due) != due.size()) {
+            // Nothing was flagged; delivering anyway would repeat these on every alarm
+            retryAt = now + BATCH_WINDOW_MILLIS;
+            return Collections.emptyList();
+        }
+        return due;
+    }
+
+    /**
+     * When the reminder for an appointment is due, or -1 if its date or time is invalid.
+     */
+    public static long getReminderTime(Appointment appointment) {
+        long start = DateUtils.toEpochMillis(appointment.getAppointmentDate(), appointment.getStartMinute());
+        return start < 0 ? -1 : start - LEAD_MILLIS;
+    }
+
+    private static PendingIntent alarmIntent(Context context) {
+        Intent intent = new Intent(context, AppointmentNotificationReceiver.class);
+        intent.setAction(ACTION_REMINDERS_DUE);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static String formatDate(long millis) {
+        return DateUtils.fromEpochDay(DateUtils.toLocalEpochDay(millis));
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Trace;
+import android.util.Log;
+
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+import com.example.medimanager.utils.PasswordUtils;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Fills the database with a synthetic practice for profiling: doctors, their patients,
+ * and appointments and consultations spread over those patients.
+ *
+ * The same Config always produces the same rows. Sizes are skewed the way real practices
+ * are: a few doctors hold most of the patients, and a minority of patients account for most
+ * visits. Appointments fall mostly in the two years before the anchor date, with the rest
+ * booked over the following two months. Rows go in through compiled statements in chunks of
+ * BulkImporter.CHUNK_SIZE per transaction, so readers are never blocked for long.
+ */
+public final class SyntheticDataGenerator {
+
+    private static final String TAG = "SyntheticDataGenerator";
+
+    private static final int PAST_APPOINTMENT_DAYS = 730;
+    private static final int FUTURE_APPOINTMENT_DAYS = 60;
+    private static final int CONSULTATION_DAYS = 3 * 365;
+    private static final int SLOT_COUNT = (Constants.WORKDAY_END_MINUTE - Constants.WORKDAY_START_MINUTE)
+            / Constants.APPOINTMENT_DURATION_MINUTES;
+    // Every synthetic account, doctor or patient, signs in with this password
+    static final String PASSWORD = "synthetic123";
+
+    private static final String[] MALE_NAMES = {"Mohamed", "Ahmed", "Ali", "Youssef", "Omar", "Hamza",
+            "Karim", "Mehdi", "Amine", "Bilel", "Sami", "Walid", "Nizar", "Anis", "Hichem", "Slim"};
+    private static final String[] FEMALE_NAMES = {"Amira", "Sarra", "Fatma", "Ines", "Mariem", "Nour",
+            "Yasmine", "Rania", "Salma", "Asma", "Olfa", "Hela", "Sonia", "Leila", "Emna", "Khadija"};
+    private static final String[] LAST_NAMES = {"Ben Ali", "Trabelsi", "Gharbi", "Jaziri", "Mejri",
+            "Ben Amor", "Hammami", "Bouazizi", "Chaabane", "Khelifi", "Dridi", "Sassi", "Mansouri",
+            "Ayari", "Baccouche", "Zouari", "Jlassi", "Ferchichi", "Hamdi", "Belhadj"};
+    private static final String[] CITIES = {"Tunis", "Sfax", "Sousse", "Kairouan", "Bizerte", "Gabès",
+            "Ariana", "Monastir", "Nabeul", "Gafsa"};
+    private static final String[] ALLERGIES = {"Penicillin", "Pollen", "Peanuts", "Latex", "Aspirin"};
+
+    // Blood groups with their approximate share of the population, in percent
+    private static final String[] BLOOD_GROUPS = {"O+", "A+", "B+", "AB+", "O-", "A-", "B-", "AB-"};
+    private static final int[] BLOOD_GROUP_SHARES = {39, 30, 9, 3, 7, 6, 4, 2};
+
+    private static final String[] REASONS = {"Consultation Générale", "Suivi", "Contrôle annuel",
+            "Vaccination", "Urgence", "Renouvellement d'ordonnance", "Bilan sanguin"};
+
+    // Diagnosis, treatment and prescription go together
+    private static final String[][] DIAGNOSES = {
+            {"Hypertension", "Low-salt diet, regular monitoring", "Amlodipine 5mg"},
+            {"Type 2 diabetes", "Diet and exercise plan", "Metformin 500mg"},
+            {"Upper respiratory infection", "Rest and fluids", "Paracetamol 1g"},
+            {"Seasonal allergy", "Avoid exposure", "Cetirizine 10mg"},
+            {"Lower back pain", "Physiotherapy", "Ibuprofen 400mg"},
+            {"Gastritis", "Dietary changes", "Omeprazole 20mg"},
+            {"Migraine", "Sleep hygiene", "Sumatriptan 50mg"},
+            {"Anxiety", "Follow-up sessions", "None"},
+    };
+
+    private static final String INSERT_USER = "INSERT INTO " + DatabaseHelper.TABLE_USERS + " (" +
+            DatabaseHelper.KEY_USER_FIRST_NAME + ", " + DatabaseHelper.KEY_USER_LAST_NAME + ", " +
+            DatabaseHelper.KEY_USER_EMAIL + ", " + DatabaseHelper.KEY_USER_PASSWORD + ", " +
+            DatabaseHelper.KEY_USER_ROLE + ", " + DatabaseHelper.KEY_USER_PHONE + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PATIENT = "INSERT INTO " + DatabaseHelper.TABLE_PATIENTS + " (" +
+            DatabaseHelper.KEY_DOCTOR_ID + ", " + DatabaseHelper.KEY_FIRST_NAME + ", " +
+            DatabaseHelper.KEY_LAST_NAME + ", " + DatabaseHelper.KEY_DATE_OF_BIRTH + ", " +
+            DatabaseHelper.KEY_GENDER + ", " + DatabaseHelper.KEY_PHONE + ", " +
+            DatabaseHelper.KEY_EMAIL + ", " + DatabaseHelper.KEY_ADDRESS + ", " +
+            DatabaseHelper.KEY_BLOOD_GROUP + ", " + DatabaseHelper.KEY_ALLERGIES +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_APPOINTMENT = "INSERT INTO " + DatabaseHelper.TABLE_APPOINTMENTS + " (" +
+            DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_DOCTOR_ID + ", " +
+            DatabaseHelper.KEY_APPOINTMENT_DATE + ", " + DatabaseHelper.KEY_APPOINTMENT_TIME + ", " +
+            DatabaseHelper.KEY_START_MINUTE + ", " + DatabaseHelper.KEY_REASON + ", " +
+            DatabaseHelper.KEY_STATUS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // doctor_id is bound directly so the consultations_doctor_insert trigger has nothing to do
+    private static final String INSERT_CONSULTATION = "INSERT INTO " + DatabaseHelper.TABLE_CONSULTATIONS + " (" +
+            DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_DOCTOR_ID + ", " +
+            DatabaseHelper.KEY_CONSULTATION_DATE + ", " + DatabaseHelper.KEY_DIAGNOSIS + ", " +
+            DatabaseHelper.KEY_TREATMENT + ", " + DatabaseHelper.KEY_PRESCRIPTION +
+            ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_LAST_VISITS = "UPDATE " + DatabaseHelper.TABLE_PATIENTS + " SET " +
+            DatabaseHelper.KEY_LAST_VISIT + " = (SELECT MAX(c." + DatabaseHelper.KEY_CONSULTATION_DATE + ") FROM " +
+            DatabaseHelper.TABLE_CONSULTATIONS + " c WHERE c." + DatabaseHelper.KEY_PATIENT_ID + " = " +
+            DatabaseHelper.TABLE_PATIENTS + "." + DatabaseHelper.KEY_ID + ") WHERE " +
+            DatabaseHelper.KEY_ID + " BETWEEN ? AND ?";
+
+    public interface ProgressListener {
+        // Called on the generating thread after each committed chunk
+        void onProgress(String table, int inserted, int total);
+    }
+
+    /**
+     * Sizes of the practice to generate. Dates are placed around anchorDate (yyyy-MM-dd),
+     * and the seed fixes every other choice.
+     */
+    public static final class Config {
+        final int doctors;
+        final int patients;
+        final int appointments;
+        final int consultations;
+        final String anchorDate;
+        final long seed;
+
+        public Config(int doctors, int patients, int appointments, int consultations,
+                      String anchorDate, long seed) {
+            this.doctors = Math.max(1, doctors);
+            this.patients = Math.max(0, patients);
+            this.appointments = this.patients == 0 ? 0 : Math.max(0, appointments);
+            this.consultations = this.patients == 0 ? 0 : Math.max(0, consultations);
+            this.anchorDate = anchorDate;
+            this.seed = seed;
+        }
+
+        /**
+         * 20 doctors, 10^5 patients, 10^6 appointments and 10^6 consultations around today
+         */
+        public static Config largePractice() {
+            return new Config(20, 100_000, 1_000_000, 1_000_000, DateUtils.getCurrentDate(), 42L);
+        }
+
+        /**
+         * The same practice with patients, appointments and consultations multiplied by scale
+         */
+        public Config scaled(double scale) {
+            return new Config(doctors, (int) (patients * scale), (int) (appointments * scale),
+                    (int) (consultations * scale), anchorDate, seed);
+        }
+    }
+
+    public static final class Result {
+        private int firstDoctorId = -1;
+        private int doctors;
+        private int patients;
+        private int appointments;
+        private int consultations;
+        private long elapsedMillis;
+
+        public int getFirstDoctorId() {
+            return firstDoctorId;
+        }
+
+        public int getDoctors() {
+            return doctors;
+        }
+
+        public int getPatients() {
+            return patients;
+        }
+
+        public int getAppointments() {
+            return appointments;
+        }
+
+        public int getConsultations() {
+            return consultations;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+
+    public SyntheticDataGenerator(Context context) {
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Insert the practice described by config alongside any existing data. Takes minutes
+     * at the largePractice() size, so run it off the main thread. Doctor emails embed
+     * the seed, so a seed can only be generated once per database.
+     */
+    public Result generate(Config config, ProgressListener listener) {
+        Trace.beginSection("SyntheticDataGenerator.generate");
+        long start = System.nanoTime();
+        Result result = new Result();
+        Random random = new Random(config.seed);
+        int anchorDay = DateUtils.toEpochDay(config.anchorDate);
+        if (anchorDay == DateUtils.INVALID_EPOCH_DAY) {
+            anchorDay = DateUtils.todayEpochDay();
+        }
+
+        SQLiteDatabase database = dbHelper.getWritableDatabase();
+        try {
+            int[] doctorIds = insertDoctors(database, config, result);
+            int[] patientIds = new int[config.patients];
+            int[] patientDoctors = new int[config.patients];
+            insertPatients(database, config, random, anchorDay, doctorIds, patientIds, patientDoctors, result, listener);
+            insertAppointments(database, config, random, anchorDay, patientIds, patientDoctors, result, listener);
+            insertConsultations(database, config, random, anchorDay, patientIds, patientDoctors, result, listener);
+            if (config.patients > 0) {
+                updateLastVisits(database, patientIds[0], patientIds[config.patients - 1]);
+            }
+        } finally {
+            PatientDAO.invalidateCachedPatients();
+            AppointmentScheduler.invalidateSchedules();
+            publishAll();
+            Trace.endSection();
+        }
+
+        result.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Log.i(TAG, "Generated " + result.doctors + " doctors, " + result.patients + " patients, " +
+                result.appointments + " appointments and " + result.consultations + " consultations in " +
+                result.elapsedMillis + " ms");
+        return result;
+    }
+
+    private int[] insertDoctors(SQLiteDatabase database, Config config, Result result) {
+        // One hash serves every synthetic account; they share a password
+        String password = PasswordUtils.hashPassword(PASSWORD);
+        int[] doctorIds = new int[config.doctors];
+        SQLiteStatement insert = database.compileStatement(INSERT_USER);
+        database.beginTransactionNonExclusive();
+        try {
+            for (int i = 0; i < config.doctors; i++) {
+                insert.clearBindings();
+                insert.bindString(1, MALE_NAMES[i % MALE_NAMES.length]);
+                insert.bindString(2, LAST_NAMES[i % LAST_NAMES.length]);
+                insert.bindString(3, "doctor" + (i + 1) + "." + config.seed + "@synthetic.medimanager.tn");
+                insert.bindString(4, password);
+                insert.bindString(5, "doctor");
+                insert.bindString(6, phone(70_000_000 + i));
+                doctorIds[i] = (int) insert.executeInsert();
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+            insert.close();
+        }
+        result.firstDoctorId = doctorIds[0];
+        result.doctors = config.doctors;
+        return doctorIds;
+    }
+
+    private void insertPatients(SQLiteDatabase database, Config config, Random random, int anchorDay,
+                                int[] doctorIds, int[] patientIds, int[] patientDoctors,
+                                Result result, ProgressListener listener) {
+        SQLiteStatement insert = database.compileStatement(INSERT_PATIENT);
+        try {
+            int i = 0;
+            while (i < config.patients) {
+                int chunkEnd = Math.min(config.patients, i + BulkImporter.CHUNK_SIZE);
+                database.beginTransactionNonExclusive();
+                try {
+                    for (; i < chunkEnd; i++) {
+                        boolean female = random.nextBoolean();
+                        String firstName = pick(random, female ? FEMALE_NAMES : MALE_NAMES);
+                        String lastName = pick(random, LAST_NAMES);
+                        int doctorId = doctorIds[skewed(random, doctorIds.length, 1.6)];
+
+                        insert.clearBindings();
+                        insert.bindLong(1, doctorId);
+                        insert.bindString(2, firstName);
+                        insert.bindString(3, lastName);
+                        insert.bindString(4, DateUtils.fromEpochDay(anchorDay - ageInDays(random)));
+                        insert.bindString(5, female ? "Female" : "Male");
+                        insert.bindString(6, phone(20_000_000 + i));
+                        insert.bindString(7, (firstName + "." + lastName).toLowerCase(Locale.ROOT).replace(' ', '-') +
+                                "." + i + "@example.tn");
+                        insert.bindString(8, (1 + random.nextInt(200)) + " Rue " + pick(random, LAST_NAMES) +
+                                ", " + pick(random, CITIES));
+                        insert.bindString(9, bloodGroup(random));
+                        if (random.nextInt(100) < 12) {
+                            insert.bindString(10, pick(random, ALLERGIES));
+                        } else {
+                            insert.bindNull(10);
+                        }
+                        patientIds[i] = (int) insert.executeInsert();
+                        patientDoctors[i] = doctorId;
+                    }
+                    database.setTransactionSuccessful();
+                } finally {
+                    database.endTransaction();
+                }
+                result.patients = i;
+                if (listener != null) {
+                    listener.onProgress(DatabaseHelper.TABLE_PATIENTS, i, config.patients);
+                }
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    private void insertAppointments(SQLiteDatabase database, Config config, Random random, int anchorDay,
+                                    int[] patientIds, int[] patientDoctors,
+                                    Result result, ProgressListener listener) {
+        SQLiteStatement insert = database.compileStatement(INSERT_APPOINTMENT);
+        try {
+            int i = 0;
+            while (i < config.appointments) {
+                int chunkEnd = Math.min(config.appointments, i + BulkImporter.CHUNK_SIZE);
+                database.beginTransactionNonExclusive();
+                try {
+                    for (; i < chunkEnd; i++) {
+                        int patient = skewed(random, patientIds.length, 1.5);
+                        boolean future = random.nextInt(100) < 15;
+                        int day = future
+                                ? anchorDay + 1 + random.nextInt(FUTURE_APPOINTMENT_DAYS)
+                                : anchorDay - random.nextInt(PAST_APPOINTMENT_DAYS);
+                        int startMinute = Constants.WORKDAY_START_MINUTE +
+                                random.nextInt(SLOT_COUNT) * Constants.APPOINTMENT_DURATION_MINUTES;
+
+                        insert.clearBindings();
+                        insert.bindLong(1, patientIds[patient]);
+                        insert.bindLong(2, patientDoctors[patient]);
+                        insert.bindString(3, DateUtils.fromEpochDay(day));
+                        insert.bindString(4, DateUtils.formatMinutes(startMinute));
+                        insert.bindLong(5, startMinute);
+                        insert.bindString(6, pick(random, REASONS));
+                        insert.bindString(7, appointmentStatus(random, future));
+                        insert.executeInsert();
+                    }
+                    database.setTransactionSuccessful();
+                } finally {
+                    database.endTransaction();
+                }
+                result.appointments = i;
+                if (listener != null) {
+                    listener.onProgress(DatabaseHelper.TABLE_APPOINTMENTS, i, config.appointments);
+                }
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    private void insertConsultations(SQLiteDatabase database, Config config, Random random, int anchorDay,
+                                     int[] patientIds, int[] patientDoctors,
+                                     Result result, ProgressListener listener) {
+        SQLiteStatement insert = database.compileStatement(INSERT_CONSULTATION);
+        try {
+            int i = 0;
+            while (i < config.consultations) {
+                int chunkEnd = Math.min(config.consultations, i + BulkImporter.CHUNK_SIZE);
+                database.beginTransactionNonExclusive();
+                try {
+                    for (; i < chunkEnd; i++) {
+                        int patient = skewed(random, patientIds.length, 1.5);
+                        String[] diagnosis = DIAGNOSES[skewed(random, DIAGNOSES.length, 1.3)];
+
+                        insert.clearBindings();
+                        insert.bindLong(1, patientIds[patient]);
+                        insert.bindLong(2, patientDoctors[patient]);
+                        insert.bindString(3, DateUtils.fromEpochDay(anchorDay - random.nextInt(CONSULTATION_DAYS)));
+                        insert.bindString(4, diagnosis[0]);
+                        insert.bindString(5, diagnosis[1]);
+                        insert.bindString(6, diagnosis[2]);
+                        insert.executeInsert();
+                    }
+                    database.setTransactionSuccessful();
+                } finally {
+                    database.endTransaction();
+                }
+                result.consultations = i;
+                if (listener != null) {
+                    listener.onProgress(DatabaseHelper.TABLE_CONSULTATIONS, i, config.consultations);
+                }
+            }
+        } finally {
+            insert.close();
+        }
+    }
+
+    // Set last_visit from the generated consultations in one statement
+    private void updateLastVisits(SQLiteDatabase database, int firstPatientId, int lastPatientId) {
+        SQLiteStatement update = database.compileStatement(UPDATE_LAST_VISITS);
+        try {
+            update.bindLong(1, firstPatientId);
+            update.bindLong(2, lastPatientId);
+            update.executeUpdateDelete();
+        } finally {
+            update.close();
+        }
+    }
+
+    private static void publishAll() {
+        DatabaseChangeBus changes = DatabaseChangeBus.getInstance();
+        changes.publish(DatabaseHelper.TABLE_USERS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.INSERT);
+        changes.publish(DatabaseHelper.TABLE_PATIENTS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.INSERT);
+        changes.publish(DatabaseHelper.TABLE_APPOINTMENTS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.INSERT);
+        changes.publish(DatabaseHelper.TABLE_CONSULTATIONS, DatabaseChangeBus.ALL_ROWS, DatabaseChangeBus.Operation.INSERT);
+    }
+
+    // Index in [0, size), weighted towards 0; a larger exponent gives a steeper skew
+    private static int skewed(Random random, int size, double exponent) {
+        return Math.min(size - 1, (int) (size * Math.pow(random.nextDouble(), exponent)));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Ages 0-95, mostly adults: children ~20%, most of the rest between 18 and 70
+    private static int ageInDays(Random random) {
+        int years;
+        int bucket = random.nextInt(100);
+        if (bucket < 20) {
+            years = random.nextInt(18);
+        } else if (bucket < 85) {
+            years = 18 + random.nextInt(52);
+        } else {
+            years = 70 + random.nextInt(26);
+        }
+        return years * 365 + random.nextInt(365);
+    }
+
+    private static String bloodGroup(Random random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < BLOOD_GROUPS.length; i++) {
+            roll -= BLOOD_GROUP_SHARES[i];
+            if (roll < 0) {
+                return BLOOD_GROUPS[i];
+            }
+        }
+        return BLOOD_GROUPS[0];
+    }
+
+    // Past visits are mostly completed; future ones mostly confirmed, some awaiting approval
+    private static String appointmentStatus(Random random, boolean future) {
+        int roll = random.nextInt(100);
+        if (future) {
+            return roll < 80 ? Constants.STATUS_SCHEDULED : Constants.STATUS_PENDING;
+        }
+        if (roll < 85) {
+            return Constants.STATUS_COMPLETED;
+        }
+        return roll < 95 ? Constants.STATUS_CANCELLED : Constants.STATUS_SCHEDULED;
+    }
+
+    private static String phone(int number) {
+        return "+216 " + number;
+    }
+}
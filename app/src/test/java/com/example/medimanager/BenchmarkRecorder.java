@@ -0,0 +1,238 @@
+package com.example.medimanager;
+
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Warm-up, timing and reporting shared by the JVM benchmarks (test classes named *Benchmark,
+ * run with -Pbenchmarks).
+ *
+ * Each operation is warmed up, then run until maxRuns or the time budget is reached, and the
+ * median and 95th percentile are reported, with the bytes the measuring thread allocated per
+ * run (-1 where the JVM cannot count them). Results are printed next to the committed numbers
+ * in benchmarks/baseline.csv and written to build/benchmarks/<suite>.csv. With
+ * -Pbenchmarks.maxRegression=1.5 a median more than 1.5 times its baseline fails the test.
+ */
+public final class BenchmarkRecorder {
+
+    private static final String BASELINE = System.getProperty("benchmarks.baseline", "benchmarks/baseline.csv");
+    private static final String OUTPUT = System.getProperty("benchmarks.output", "build/benchmarks");
+    private static final String HEADER = "suite,name,runs,rows,median_us,p95_us,alloc_bytes";
+
+    // Measurements of every suite run in this JVM, so each file holds the whole suite
+    private static final Map<String, List<Measurement>> results = new HashMap<>();
+    private static Map<String, Long> baseline;
+
+    public static final class Measurement {
+        private final String name;
+        private final int runs;
+        private final int rows;
+        private final long medianMicros;
+        private final long p95Micros;
+        private final long allocatedBytes;
+
+        Measurement(String name, int runs, int rows, long medianMicros, long p95Micros, long allocatedBytes) {
+            this.name = name;
+            this.runs = runs;
+            this.rows = rows;
+            this.medianMicros = medianMicros;
+            this.p95Micros = p95Micros;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        // Size of the collection one run returned, or -1 for other results
+        public int getRows() {
+            return rows;
+        }
+
+        public long getMedianMicros() {
+            return medianMicros;
+        }
+
+        public long getP95Micros() {
+            return p95Micros;
+        }
+
+        // Mean bytes allocated by the measuring thread per run, or -1 if not counted
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": median " + medianMicros + " us, p95 " + p95Micros + " us" +
+                    (rows >= 0 ? ", " + rows + " rows" : "") +
+                    (allocatedBytes >= 0 ? ", " + allocatedBytes + " bytes allocated" : "");
+        }
+    }
+
+    private final String suite;
+    private int warmupRuns = 2;
+    private int minRuns = 3;
+    private int maxRuns = 20;
+    private long budgetNanos = 2_000_000_000L;
+
+    public BenchmarkRecorder(String suite) {
+        this.suite = suite;
+    }
+
+    public BenchmarkRecorder warmupRuns(int runs) {
+        warmupRuns = runs;
+        return this;
+    }
+
+    public BenchmarkRecorder runs(int min, int max) {
+        minRuns = Math.max(1, min);
+        maxRuns = Math.max(minRuns, max);
+        return this;
+    }
+
+    public BenchmarkRecorder budgetMillis(long millis) {
+        budgetNanos = millis * 1_000_000L;
+        return this;
+    }
+
+    public Measurement measure(String name, Callable<?> operation) throws Exception {
+        int rows = -1;
+        for (int i = 0; i < warmupRuns; i++) {
+            rows = rowCount(operation.call());
+        }
+
+        long[] samples = new long[maxRuns];
+        int runs = 0;
+        long allocated = 0;
+        long budgetEnd = System.nanoTime() + budgetNanos;
+        while (runs < maxRuns && (runs < minRuns || System.nanoTime() < budgetEnd)) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            Object result = operation.call();
+            samples[runs++] = System.nanoTime() - start;
+            allocated += allocatedBytes() - allocatedBefore;
+            if (rows < 0) {
+                rows = rowCount(result);
+            }
+        }
+
+        return record(name, Arrays.copyOf(samples, runs), rows, allocatedBytes() < 0 ? -1 : allocated / runs);
+    }
+
+    /**
+     * Report durations that were timed by the caller, for operations that need work around
+     * each run that must stay out of the timing.
+     */
+    public Measurement record(String name, long[] sampleNanos, int rows) throws IOException {
+        return record(name, sampleNanos, rows, -1);
+    }
+
+    private Measurement record(String name, long[] sampleNanos, int rows, long allocatedBytes) throws IOException {
+        long[] samples = sampleNanos.clone();
+        int runs = samples.length;
+        Arrays.sort(samples);
+        long median = samples[runs / 2] / 1000;
+        long p95 = samples[Math.min(runs - 1, (int) Math.ceil(runs * 0.95) - 1)] / 1000;
+        Measurement measurement = new Measurement(name, runs, rows, median, p95, allocatedBytes);
+        report(measurement);
+        return measurement;
+    }
+
+    private void report(Measurement measurement) throws IOException {
+        String key = suite + "," + measurement.name;
+        Long expected = baseline().get(key);
+        System.out.println("[" + suite + "] " + measurement +
+                (expected != null ? " (baseline " + expected + " us)" : ""));
+
+        List<Measurement> measurements;
+        synchronized (results) {
+            measurements = results.get(suite);
+            if (measurements == null) {
+                measurements = new ArrayList<>();
+                results.put(suite, measurements);
+            }
+            measurements.add(measurement);
+            write(measurements);
+        }
+
+        String maxRegression = System.getProperty("benchmarks.maxRegression");
+        if (maxRegression != null && expected != null && expected > 0 &&
+                measurement.medianMicros > expected * Double.parseDouble(maxRegression)) {
+            fail(key + " median " + measurement.medianMicros + " us against a baseline of " + expected + " us");
+        }
+    }
+
+    private void write(List<Measurement> measurements) throws IOException {
+        File directory = new File(OUTPUT);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        try (Writer writer = new FileWriter(new File(directory, suite + ".csv"))) {
+            writer.write(HEADER + "\n");
+            for (Measurement measurement : measurements) {
+                writer.write(String.format(Locale.US, "%s,%s,%d,%d,%d,%d,%d\n", suite, measurement.name,
+                        measurement.runs, measurement.rows, measurement.medianMicros, measurement.p95Micros,
+                        measurement.allocatedBytes));
+            }
+        }
+    }
+
+    // suite,name -> median from the committed baseline
+    private static synchronized Map<String, Long> baseline() throws IOException {
+        if (baseline != null) {
+            return baseline;
+        }
+        baseline = new HashMap<>();
+        File file = new File(BASELINE);
+        if (!file.isFile()) {
+            return baseline;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length >= 6 && !line.startsWith("suite,")) {
+                    baseline.put(fields[0] + "," + fields[1], Long.parseLong(fields[4]));
+                }
+            }
+        }
+        return baseline;
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 where HotSpot's counter is missing
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+    private static int rowCount(Object result) {
+        return result instanceof Collection ? ((Collection<?>) result).size() : -1;
+    }
+}
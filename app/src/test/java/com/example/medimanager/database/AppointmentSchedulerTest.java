@@ -0,0 +1,122 @@
+package com.example.medimanager.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.medimanager.models.Appointment;
+import com.example.medimanager.utils.Constants;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppointmentSchedulerTest {
+
+    private static final String DATE = "2099-06-01";
+
+    // The database outlives each test and a seed can only be generated once, so every
+    // test gets a practice of its own: one doctor with one patient and no appointments
+    private static long nextSeed = 13L;
+
+    private AppointmentScheduler scheduler;
+    private SQLiteDatabase database;
+    private int doctorId;
+    private int patientId;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        doctorId = new SyntheticDataGenerator(context).generate(
+                new SyntheticDataGenerator.Config(1, 1, 0, 0, DATE, nextSeed++), null).getFirstDoctorId();
+        database = DatabaseHelper.getInstance(context).getReadableDatabase();
+        Cursor cursor = database.rawQuery("SELECT " + DatabaseHelper.KEY_ID + " FROM " +
+                DatabaseHelper.TABLE_PATIENTS + " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?",
+                new String[]{String.valueOf(doctorId)});
+        try {
+            cursor.moveToFirst();
+            patientId = cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+        scheduler = new AppointmentScheduler(context);
+    }
+
+    @Test
+    public void secondBookingOfTheSameSlotIsRefused() throws Exception {
+        // Both bookings queue on the writer, as two approvals from different screens would
+        Future<AppointmentScheduler.Booking> first = DatabaseExecutors.getInstance().writer()
+                .submit(() -> scheduler.book(appointment("10:00", Constants.STATUS_SCHEDULED)));
+        Future<AppointmentScheduler.Booking> second = DatabaseExecutors.getInstance().writer()
+                .submit(() -> scheduler.book(appointment("10:15", Constants.STATUS_SCHEDULED)));
+
+        assertTrue(first.get().isSaved());
+        assertFalse(second.get().isSaved());
+        assertEquals(first.get().getResult(), second.get().getSlotCheck().getConflict().getId());
+        assertEquals(1, countOnDate());
+    }
+
+    @Test
+    public void staleCachedDayDoesNotLetABookingThrough() {
+        // Cache the empty day, then book it without going through AppointmentDAO,
+        // so the cache is not dropped
+        assertTrue(scheduler.checkSlot(doctorId, DATE, 10 * 60, -1).isFree());
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.KEY_PATIENT_ID, patientId);
+        values.put(DatabaseHelper.KEY_DOCTOR_ID, doctorId);
+        values.put(DatabaseHelper.KEY_APPOINTMENT_DATE, DATE);
+        values.put(DatabaseHelper.KEY_APPOINTMENT_TIME, "10:00");
+        values.put(DatabaseHelper.KEY_START_MINUTE, 10 * 60);
+        values.put(DatabaseHelper.KEY_STATUS, Constants.STATUS_SCHEDULED);
+        database.insertOrThrow(DatabaseHelper.TABLE_APPOINTMENTS, null, values);
+        assertTrue(scheduler.checkSlot(doctorId, DATE, 10 * 60, -1).isFree());
+
+        AppointmentScheduler.Booking booking = scheduler.book(appointment("10:00", Constants.STATUS_SCHEDULED));
+
+        assertFalse(booking.isSaved());
+        assertEquals(1, countOnDate());
+    }
+
+    @Test
+    public void cancelledAppointmentIsSavedWithoutACheck() {
+        assertTrue(scheduler.book(appointment("10:00", Constants.STATUS_SCHEDULED)).isSaved());
+
+        AppointmentScheduler.Booking booking = scheduler.book(appointment("10:00", Constants.STATUS_CANCELLED));
+
+        assertTrue(booking.isSaved());
+        assertEquals(2, countOnDate());
+    }
+
+    private Appointment appointment(String time, String status) {
+        Appointment appointment = new Appointment();
+        appointment.setPatientId(patientId);
+        appointment.setDoctorId(doctorId);
+        appointment.setAppointmentDate(DATE);
+        appointment.setAppointmentTime(time);
+        appointment.setReason("Check-up");
+        appointment.setStatus(status);
+        return appointment;
+    }
+
+    private int countOnDate() {
+        Cursor cursor = database.rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
+                " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND " + DatabaseHelper.KEY_APPOINTMENT_DATE + " = ?",
+                new String[]{String.valueOf(doctorId), DATE});
+        try {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
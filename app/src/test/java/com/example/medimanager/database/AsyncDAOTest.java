@@ -0,0 +1,131 @@
+package com.example.medimanager.database;
+
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class AsyncDAOTest {
+
+    private final Owner owner = new Owner();
+    private final List<Object> delivered = new ArrayList<>();
+    private AsyncDAO asyncDAO;
+
+    @Before
+    public void setUp() {
+        owner.lifecycle.setCurrentState(Lifecycle.State.RESUMED);
+        asyncDAO = new AsyncDAO(owner);
+    }
+
+    @Test
+    public void failedWriteReachesTheErrorCallback() throws Exception {
+        IllegalStateException failure = new IllegalStateException("disk full");
+        asyncDAO.<Object>write(() -> {
+            throw failure;
+        }, delivered::add, delivered::add);
+
+        drainWriter();
+        assertEquals(Collections.singletonList(failure), delivered);
+    }
+
+    @Test
+    public void failedReadReachesTheErrorCallback() throws Exception {
+        IllegalStateException failure = new IllegalStateException("no such table");
+        asyncDAO.<Object>read("key", () -> {
+            throw failure;
+        }, delivered::add, delivered::add);
+
+        // The reader pool has no ordering to wait on, so poll for the delivery
+        for (int i = 0; i < 100 && delivered.isEmpty(); i++) {
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        assertEquals(Collections.singletonList(failure), delivered);
+    }
+
+    @Test
+    public void noErrorIsDeliveredOnceTheOwnerIsDestroyed() throws Exception {
+        asyncDAO.<Object>write(() -> {
+            throw new IllegalStateException("disk full");
+        }, delivered::add, delivered::add);
+        DatabaseExecutors.getInstance().writer().submit(() -> { }).get();
+        owner.lifecycle.setCurrentState(Lifecycle.State.DESTROYED);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void writeRejectedByAFullQueueReachesTheErrorCallback() throws Exception {
+        ExecutorService writer = DatabaseExecutors.getInstance().writer();
+        CountDownLatch release = new CountDownLatch(1);
+        boolean full = false;
+        try {
+            writer.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // Fill the queue behind the blocked task until the writer refuses one
+            while (!full) {
+                try {
+                    writer.execute(() -> { });
+                } catch (RejectedExecutionException e) {
+                    full = true;
+                }
+            }
+
+            asyncDAO.<Object>write(() -> "written", delivered::add, delivered::add);
+        } finally {
+            release.countDown();
+        }
+
+        // The queue stays full until the writer takes the first filler task
+        while (true) {
+            try {
+                drainWriter();
+                break;
+            } catch (RejectedExecutionException e) {
+                Thread.sleep(1);
+            }
+        }
+        assertEquals(1, delivered.size());
+        assertTrue(delivered.get(0) instanceof RejectedExecutionException);
+    }
+
+    // The writer runs tasks in order, so an empty one finishes after every earlier one
+    private static void drainWriter() throws Exception {
+        DatabaseExecutors.getInstance().writer().submit(() -> { }).get();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static final class Owner implements LifecycleOwner {
+        final LifecycleRegistry lifecycle = new LifecycleRegistry(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+    }
+}
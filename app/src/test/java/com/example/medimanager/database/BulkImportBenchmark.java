@@ -0,0 +1,155 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+
+import com.example.medimanager.BenchmarkRecorder;
+import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.Patient;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Importing ROWS patients and ROWS appointments with {@link BulkImporter} against one DAO
+ * insert per row, each in its own implicit transaction.
+ *
+ * Every run writes new rows (patients get fresh emails and phones, so the importer's
+ * duplicate check lets them through). The bulk figures include reading the CSV; the
+ * per-row figures start from built models. Pass -Dbenchmarks.importRows to change ROWS.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BulkImportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmarks.importRows", 10_000);
+
+    // The database outlives each test, so the doctor is generated once
+    private static SyntheticDataGenerator.Result practice;
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("import")
+            .warmupRuns(1).runs(3, 5).budgetMillis(30_000);
+    private Context context;
+    private int doctorId;
+    private int patientId;
+    private int batch;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        synchronized (BulkImportBenchmark.class) {
+            if (practice == null) {
+                practice = new SyntheticDataGenerator(context).generate(
+                        new SyntheticDataGenerator.Config(1, 1, 0, 0, DateUtils.getCurrentDate(), 8L), null);
+            }
+        }
+        doctorId = practice.getFirstDoctorId();
+        patientId = new PatientDAO(context).getPatientsPage(doctorId, null, 1).get(0).getId();
+    }
+
+    @Test
+    public void importPatients() throws Exception {
+        PatientDAO patientDAO = new PatientDAO(context);
+        recorder.measure("patients.perRow", () -> {
+            Patient[] patients = patients(batch++);
+            for (Patient patient : patients) {
+                patientDAO.insertPatient(patient);
+            }
+            return patients.length;
+        });
+        recorder.measure("patients.bulk", () -> importCsv(BulkImporter.Type.PATIENTS, patientsCsv(batch++)));
+    }
+
+    @Test
+    public void importAppointments() throws Exception {
+        AppointmentDAO appointmentDAO = new AppointmentDAO(context);
+        recorder.measure("appointments.perRow", () -> {
+            Appointment[] appointments = appointments();
+            for (Appointment appointment : appointments) {
+                appointmentDAO.insertAppointment(appointment);
+            }
+            return appointments.length;
+        });
+        recorder.measure("appointments.bulk", () -> importCsv(BulkImporter.Type.APPOINTMENTS, appointmentsCsv()));
+    }
+
+    private int importCsv(BulkImporter.Type type, String csv) throws Exception {
+        BulkImporter.Result result = new BulkImporter(context).importRecords(type,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), doctorId, null);
+        assertEquals(ROWS, result.getImported());
+        return result.getImported();
+    }
+
+    private Patient[] patients(int batch) {
+        Patient[] patients = new Patient[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            Patient patient = new Patient();
+            patient.setDoctorId(doctorId);
+            patient.setFirstName("Import" + i);
+            patient.setLastName("Batch" + batch);
+            patient.setDateOfBirth("1980-01-01");
+            patient.setGender("Female");
+            patient.setPhone(phone(batch, i));
+            patient.setEmail(email(batch, i));
+            patients[i] = patient;
+        }
+        return patients;
+    }
+
+    private static String patientsCsv(int batch) {
+        StringBuilder csv = new StringBuilder("first_name,last_name,date_of_birth,gender,phone,email\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("Import").append(i).append(",Batch").append(batch).append(",1980-01-01,Female,")
+                    .append(phone(batch, i)).append(',').append(email(batch, i)).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private Appointment[] appointments() {
+        Appointment[] appointments = new Appointment[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setPatientId(patientId);
+            appointment.setDoctorId(doctorId);
+            appointment.setAppointmentDate(DateUtils.fromEpochDay(DateUtils.todayEpochDay() + i % 365));
+            appointment.setAppointmentTime(DateUtils.formatMinutes(time(i)));
+            appointment.setReason("Import");
+            appointment.setStatus(Constants.STATUS_SCHEDULED);
+            appointments[i] = appointment;
+        }
+        return appointments;
+    }
+
+    private String appointmentsCsv() {
+        StringBuilder csv = new StringBuilder("patient_id,appointment_date,appointment_time,reason,status\n");
+        for (int i = 0; i < ROWS; i++) {
+            int minutes = time(i);
+            csv.append(patientId).append(',')
+                    .append(DateUtils.fromEpochDay(DateUtils.todayEpochDay() + i % 365)).append(',')
+                    .append(String.format(Locale.US, "%02d:%02d", minutes / 60, minutes % 60))
+                    .append(",Import,").append(Constants.STATUS_SCHEDULED).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static int time(int row) {
+        return Constants.WORKDAY_START_MINUTE + row % 16 * 30;
+    }
+
+    private static String phone(int batch, int row) {
+        return String.format(Locale.US, "+1555%03d%04d", batch, row);
+    }
+
+    private static String email(int batch, int row) {
+        return "import" + batch + "." + row + "@example.com";
+    }
+}
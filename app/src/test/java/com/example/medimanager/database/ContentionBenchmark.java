@@ -0,0 +1,150 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.medimanager.BenchmarkRecorder;
+import com.example.medimanager.utils.Constants;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Read latency while a write transaction is open, with the app's WAL configuration and with
+ * the rollback journal the app used before.
+ *
+ * The reader loads the first page of a doctor's appointment list. For the ".writing" runs,
+ * a writer thread first opens a transaction of BulkImporter.CHUNK_SIZE note updates, the
+ * size of one import chunk, and the read is timed from then on. The rollback copy is the
+ * same practice in a second file; without WAL its pool has a single connection, so the
+ * read waits for the writer's commit. Uses the DaoBenchmark practice, so
+ * -Dbenchmarks.practiceScale applies here too.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ContentionBenchmark {
+
+    private static final int RUNS = 30;
+    private static final String ROLLBACK_COPY = "contention-rollback.db";
+
+    private static final String READ_PAGE =
+            "SELECT " + DatabaseHelper.KEY_ID + ", " + DatabaseHelper.KEY_APPOINTMENT_DATE + ", " +
+                    DatabaseHelper.KEY_START_MINUTE + ", " + DatabaseHelper.KEY_STATUS +
+                    " FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ?" +
+                    " ORDER BY " + DatabaseHelper.KEY_APPOINTMENT_DATE + ", " +
+                    DatabaseHelper.KEY_START_MINUTE + " LIMIT " + Constants.PAGE_SIZE;
+    private static final String WRITE_NOTE =
+            "UPDATE " + DatabaseHelper.TABLE_APPOINTMENTS + " SET " + DatabaseHelper.KEY_NOTES +
+                    " = ? WHERE " + DatabaseHelper.KEY_ID + " = ?";
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("contention").runs(RUNS, RUNS);
+
+    @Test
+    public void readsDuringAWrite() throws Exception {
+        Context context = RuntimeEnvironment.getApplication();
+        SyntheticDataGenerator.Result practice = DaoBenchmark.generatePractice(context);
+        String doctorId = String.valueOf(practice.getFirstDoctorId());
+
+        SQLiteDatabase wal = DatabaseHelper.getInstance(context).getWritableDatabase();
+        assertTrue(wal.isWriteAheadLoggingEnabled());
+        SQLiteDatabase rollback = openRollbackCopy(context, wal);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("delete", pragma(rollback, "journal_mode"));
+            measure("wal", wal, writer, doctorId, practice.getAppointments());
+            measure("rollback", rollback, writer, doctorId, practice.getAppointments());
+        } finally {
+            writer.shutdown();
+            rollback.close();
+            SQLiteDatabase.deleteDatabase(context.getDatabasePath(ROLLBACK_COPY));
+        }
+    }
+
+    private void measure(String journal, SQLiteDatabase database, ExecutorService writer,
+                         String doctorId, int appointments) throws Exception {
+        recorder.measure(journal + ".readPage.idle", () -> readPage(database, doctorId));
+
+        Random random = new Random(1);
+        long[] samples = new long[RUNS];
+        for (int run = -1; run < RUNS; run++) {
+            CountDownLatch inTransaction = new CountDownLatch(1);
+            Future<?> write = writer.submit(() -> writeChunk(database, random, appointments, inTransaction));
+            inTransaction.await();
+            long start = System.nanoTime();
+            readPage(database, doctorId);
+            long elapsed = System.nanoTime() - start;
+            write.get();
+            // The first run warms up the writer
+            if (run >= 0) {
+                samples[run] = elapsed;
+            }
+        }
+        recorder.record(journal + ".readPage.writing", samples, -1);
+    }
+
+    private static int readPage(SQLiteDatabase database, String doctorId) {
+        Cursor cursor = database.rawQuery(READ_PAGE, new String[]{doctorId});
+        try {
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                rows++;
+            }
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void writeChunk(SQLiteDatabase database, Random random, int appointments,
+                                   CountDownLatch inTransaction) {
+        database.beginTransactionNonExclusive();
+        try {
+            for (int i = 0; i < BulkImporter.CHUNK_SIZE; i++) {
+                // Synthetic ids start at 1 in a fresh practice; a miss simply updates nothing
+                database.execSQL(WRITE_NOTE, new Object[]{
+                        "Contention " + i, 1 + random.nextInt(Math.max(1, appointments))});
+                inTransaction.countDown();
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    // The same practice in a second file, opened the way the app did before WAL
+    private static SQLiteDatabase openRollbackCopy(Context context, SQLiteDatabase wal) throws Exception {
+        pragma(wal, "wal_checkpoint(TRUNCATE)");
+        File copy = context.getDatabasePath(ROLLBACK_COPY);
+        Files.copy(new File(wal.getPath()).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        SQLiteDatabase database = SQLiteDatabase.openDatabase(copy.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        database.disableWriteAheadLogging();
+        // SQLite's own default; the platform's may differ between releases and Robolectric
+        pragma(database, "journal_mode=DELETE");
+        return database;
+    }
+
+    private static String pragma(SQLiteDatabase database, String pragma) {
+        Cursor cursor = database.rawQuery("PRAGMA " + pragma, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.medimanager.BenchmarkRecorder;
+import com.example.medimanager.models.Appointment;
+import com.example.medimanager.utils.DateUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Mapping a ROWS-row appointment cursor to models with the column lookups resolved once
+ * per cursor ({@link AppointmentDAO.AppointmentColumns}) against the per-row
+ * getColumnIndexOrThrow lookups the DAOs used before.
+ *
+ * Every run executes the same query; "walk" only moves through the rows, so the mapping
+ * cost of each variant is its median minus that of walk.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CursorMappingBenchmark {
+
+    private static final int ROWS = 50_000;
+
+    private static final String QUERY =
+            "SELECT a.*, p." + DatabaseHelper.KEY_FIRST_NAME + " || ' ' || p." +
+                    DatabaseHelper.KEY_LAST_NAME + " as patient_name, " +
+                    "u." + DatabaseHelper.KEY_USER_FIRST_NAME + " || ' ' || u." +
+                    DatabaseHelper.KEY_USER_LAST_NAME + " as doctor_name FROM " +
+                    DatabaseHelper.TABLE_APPOINTMENTS + " a " +
+                    "LEFT JOIN " + DatabaseHelper.TABLE_PATIENTS + " p ON a." +
+                    DatabaseHelper.KEY_PATIENT_ID + " = p." + DatabaseHelper.KEY_ID +
+                    " LEFT JOIN " + DatabaseHelper.TABLE_USERS + " u ON a." +
+                    DatabaseHelper.KEY_DOCTOR_ID + " = u." + DatabaseHelper.KEY_ID +
+                    " WHERE a." + DatabaseHelper.KEY_DOCTOR_ID + " = ?";
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("mapping").runs(10, 40).budgetMillis(30_000);
+
+    @Test
+    public void appointments() throws Exception {
+        Context context = RuntimeEnvironment.getApplication();
+        SyntheticDataGenerator.Result practice = new SyntheticDataGenerator(context).generate(
+                new SyntheticDataGenerator.Config(1, 1_000, ROWS, 0, DateUtils.getCurrentDate(), 17L), null);
+        SQLiteDatabase database = DatabaseHelper.getInstance(context).getReadableDatabase();
+        String[] args = {String.valueOf(practice.getFirstDoctorId())};
+
+        recorder.measure("appointments.walk", () -> {
+            Cursor cursor = database.rawQuery(QUERY, args);
+            try {
+                int rows = 0;
+                while (cursor.moveToNext()) {
+                    rows++;
+                }
+                assertEquals(ROWS, rows);
+                return rows;
+            } finally {
+                cursor.close();
+            }
+        });
+        recorder.measure("appointments.lookupPerRow", () -> {
+            Cursor cursor = database.rawQuery(QUERY, args);
+            try {
+                List<Appointment> appointments = new ArrayList<>();
+                while (cursor.moveToNext()) {
+                    appointments.add(lookupPerRow(cursor));
+                }
+                assertEquals(ROWS, appointments.size());
+                return appointments;
+            } finally {
+                cursor.close();
+            }
+        });
+        recorder.measure("appointments.columnsOnce", () -> {
+            Cursor cursor = database.rawQuery(QUERY, args);
+            try {
+                List<Appointment> appointments = new ArrayList<>();
+                AppointmentDAO.AppointmentColumns columns = new AppointmentDAO.AppointmentColumns(cursor);
+                while (cursor.moveToNext()) {
+                    appointments.add(columns.read(cursor));
+                }
+                assertEquals(ROWS, appointments.size());
+                return appointments;
+            } finally {
+                cursor.close();
+            }
+        });
+    }
+
+    // AppointmentDAO.cursorToAppointment as it was before the column lookups were cached
+    private static Appointment lookupPerRow(Cursor cursor) {
+        Appointment appointment = new Appointment();
+        appointment.setId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ID)));
+        appointment.setPatientId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_PATIENT_ID)));
+        appointment.setDoctorId(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_DOCTOR_ID)));
+        appointment.setAppointmentDate(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_DATE)));
+        appointment.setAppointmentTime(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_APPOINTMENT_TIME)));
+        appointment.setStartMinute(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_START_MINUTE)));
+        appointment.setReason(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_REASON)));
+        appointment.setStatus(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_STATUS)));
+        appointment.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_NOTES)));
+        appointment.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_CREATED_AT)));
+        int nameIndex = cursor.getColumnIndex("patient_name");
+        if (nameIndex != -1) {
+            appointment.setPatientName(cursor.getString(nameIndex));
+        }
+        int doctorNameIndex = cursor.getColumnIndex("doctor_name");
+        if (doctorNameIndex != -1) {
+            appointment.setDoctorName(cursor.getString(doctorNameIndex));
+        }
+        return appointment;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+
+import com.example.medimanager.BenchmarkRecorder;
+import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.AppointmentRow;
+import com.example.medimanager.models.Consultation;
+import com.example.medimanager.models.Patient;
+import com.example.medimanager.models.PatientSummary;
+import com.example.medimanager.models.User;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Times the public DAO methods against a {@link SyntheticDataGenerator.Config#largePractice()}
+ * database (10^5 patients, 10^6 appointments and consultations), on Robolectric's native
+ * SQLite.
+ *
+ * Writes are measured as round trips that leave the data as it was: an insert followed by
+ * a delete of the same row, or an update to the values the row already has. Register is
+ * left out (its cost is the PBKDF2 hash, which PasswordBenchmark covers) because it cannot
+ * be undone. Pass -Dbenchmarks.practiceScale=0.1 for a quicker run on a smaller practice.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DaoBenchmark {
+
+    private static final double PRACTICE_SCALE =
+            Double.parseDouble(System.getProperty("benchmarks.practiceScale", "1"));
+
+    // The practice is generated once per JVM; the helper keeps its database open between tests
+    private static SyntheticDataGenerator.Result practice;
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("dao");
+    private PatientDAO patientDAO;
+    private AppointmentDAO appointmentDAO;
+    private ConsultationDAO consultationDAO;
+    private UserDAO userDAO;
+    private DashboardDAO dashboardDAO;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        generatePractice(context);
+        patientDAO = new PatientDAO(context);
+        appointmentDAO = new AppointmentDAO(context);
+        consultationDAO = new ConsultationDAO(context);
+        userDAO = new UserDAO(context);
+        dashboardDAO = new DashboardDAO(context);
+    }
+
+    static synchronized SyntheticDataGenerator.Result generatePractice(Context context) {
+        if (practice == null) {
+            SyntheticDataGenerator.Config config = SyntheticDataGenerator.Config.largePractice().scaled(PRACTICE_SCALE);
+            practice = new SyntheticDataGenerator(context).generate(config, null);
+            System.out.println("[dao] generated " + practice.getPatients() + " patients, " +
+                    practice.getAppointments() + " appointments and " + practice.getConsultations() +
+                    " consultations in " + practice.getElapsedMillis() + " ms");
+        }
+        return practice;
+    }
+
+    @Test
+    public void daoMethods() throws Exception {
+        int doctorId = practice.getFirstDoctorId();
+        String password = SyntheticDataGenerator.PASSWORD;
+        String today = DateUtils.getCurrentDate();
+        User doctor = userDAO.getUserById(doctorId);
+        List<PatientSummary> firstPatients = patientDAO.getPatientsPage(doctorId, null, 1);
+        assertNotNull(doctor);
+        assertFalse(firstPatients.isEmpty());
+        PatientSummary summary = firstPatients.get(0);
+        Patient patient = patientDAO.getPatientById(summary.getId());
+        List<AppointmentRow> firstAppointments = appointmentDAO.getAppointmentsPage(doctorId, null, null, 1);
+        Appointment appointment = firstAppointments.isEmpty()
+                ? null : appointmentDAO.getAppointmentById(firstAppointments.get(0).getId());
+        List<Consultation> recent = consultationDAO.getRecentConsultations(doctorId, 1);
+        Consultation consultation = recent.isEmpty() ? null : recent.get(0);
+        String searchTerm = patient.getLastName().split(" ")[0];
+
+        // PatientDAO
+        measure("PatientDAO.getPatientById", () -> patientDAO.getPatientById(patient.getId()));
+        measure("PatientDAO.getAllPatients", () -> patientDAO.getAllPatients(doctorId));
+        measure("PatientDAO.getPatientsPage", () -> patientDAO.getPatientsPage(doctorId, null, Constants.PAGE_SIZE));
+        measure("PatientDAO.getPatientsPage(after)", () -> patientDAO.getPatientsPage(doctorId, summary, Constants.PAGE_SIZE));
+        measure("PatientDAO.getRecentPatients", () -> patientDAO.getRecentPatients(doctorId, 5));
+        measure("PatientDAO.searchPatients", () -> patientDAO.searchPatients(doctorId, searchTerm));
+        measure("PatientDAO.getPatientByEmail", () -> patientDAO.getPatientByEmail(patient.getEmail()));
+        measure("PatientDAO.getPatientByUserId", () -> patientDAO.getPatientByUserId(doctorId));
+        measure("PatientDAO.getTotalPatientsCount", () -> patientDAO.getTotalPatientsCount(doctorId));
+        measure("PatientDAO.getPatientsByDoctor", () -> patientDAO.getPatientsByDoctor(doctorId));
+        measure("PatientDAO.updatePatient", () -> patientDAO.updatePatient(patient));
+        measure("PatientDAO.updateLastVisit", () -> patientDAO.updateLastVisit(patient.getId(), patient.getLastVisit()));
+        measure("PatientDAO.insertPatient+deletePatient", () -> {
+            Patient copy = new Patient(patient);
+            copy.setUserId(null);
+            return patientDAO.deletePatient((int) patientDAO.insertPatient(copy));
+        });
+
+        // AppointmentDAO
+        measure("AppointmentDAO.getAllAppointments", () -> appointmentDAO.getAllAppointments(doctorId));
+        measure("AppointmentDAO.getAppointmentsByPatient", () -> appointmentDAO.getAppointmentsByPatient(patient.getId()));
+        measure("AppointmentDAO.getTodayAppointments", () -> appointmentDAO.getTodayAppointments(doctorId, today));
+        measure("AppointmentDAO.getAppointmentsByStatus", () -> appointmentDAO.getAppointmentsByStatus(doctorId, Constants.STATUS_PENDING));
+        measure("AppointmentDAO.getAppointmentsPage", () -> appointmentDAO.getAppointmentsPage(doctorId, null, null, Constants.PAGE_SIZE));
+        measure("AppointmentDAO.getAppointmentsInRange", () -> appointmentDAO.getAppointmentsInRange(doctorId, today,
+                Constants.WORKDAY_START_MINUTE, Constants.WORKDAY_END_MINUTE));
+        measure("AppointmentDAO.getNextScheduledAppointment", () -> appointmentDAO.getNextScheduledAppointment(today, 0));
+        measure("AppointmentDAO.getScheduledAppointmentsBetween", () -> appointmentDAO.getScheduledAppointmentsBetween(
+                today, 0, today, 24 * 60));
+        if (appointment != null) {
+            measure("AppointmentDAO.getAppointmentById", () -> appointmentDAO.getAppointmentById(appointment.getId()));
+            measure("AppointmentDAO.updateAppointment", () -> appointmentDAO.updateAppointment(appointment));
+            measure("AppointmentDAO.updateAppointmentStatus", () -> appointmentDAO.updateAppointmentStatus(
+                    appointment.getId(), appointment.getStatus()));
+            measure("AppointmentDAO.insertAppointment+deleteAppointment", () ->
+                    appointmentDAO.deleteAppointment((int) appointmentDAO.insertAppointment(new Appointment(appointment))));
+        }
+
+        // ConsultationDAO
+        measure("ConsultationDAO.getConsultationsByPatient", () -> consultationDAO.getConsultationsByPatient(patient.getId()));
+        measure("ConsultationDAO.getAllConsultations(doctor)", () -> consultationDAO.getAllConsultations(doctorId));
+        measure("ConsultationDAO.getConsultationsByDate", () -> consultationDAO.getConsultationsByDate(today));
+        measure("ConsultationDAO.getMonthlyConsultationsCount", () -> consultationDAO.getMonthlyConsultationsCount());
+        measure("ConsultationDAO.getMonthlyConsultationsCount(doctor)", () -> consultationDAO.getMonthlyConsultationsCount(doctorId));
+        measure("ConsultationDAO.getTotalConsultationsCount", () -> consultationDAO.getTotalConsultationsCount());
+        measure("ConsultationDAO.getTotalConsultationsCount(doctor)", () -> consultationDAO.getTotalConsultationsCount(doctorId));
+        measure("ConsultationDAO.getRecentConsultations", () -> consultationDAO.getRecentConsultations(5));
+        measure("ConsultationDAO.getRecentConsultations(doctor)", () -> consultationDAO.getRecentConsultations(doctorId, 5));
+        if (consultation != null) {
+            String diagnosis = consultation.getDiagnosis().split(" ")[0];
+            measure("ConsultationDAO.getConsultationById", () -> consultationDAO.getConsultationById(consultation.getId()));
+            measure("ConsultationDAO.searchByDiagnosis", () -> consultationDAO.searchByDiagnosis(diagnosis));
+            measure("ConsultationDAO.searchConsultations", () -> consultationDAO.searchConsultations(doctorId, diagnosis));
+            measure("ConsultationDAO.updateConsultation", () -> consultationDAO.updateConsultation(consultation));
+            measure("ConsultationDAO.insertConsultation+deleteConsultation", () ->
+                    consultationDAO.deleteConsultation((int) consultationDAO.insertConsultation(consultation)));
+        }
+        // Loads every consultation in the database; last, as it is the slowest
+        measure("ConsultationDAO.getAllConsultations", () -> consultationDAO.getAllConsultations());
+
+        // UserDAO
+        measure("UserDAO.getUserById", () -> userDAO.getUserById(doctorId));
+        measure("UserDAO.getUserByEmail", () -> userDAO.getUserByEmail(doctor.getEmail()));
+        measure("UserDAO.isEmailRegistered", () -> userDAO.isEmailRegistered(doctor.getEmail()));
+        measure("UserDAO.updateUser", () -> userDAO.updateUser(doctor));
+        measure("UserDAO.authenticateUser", () -> userDAO.authenticateUser(doctor.getEmail(),
+                password != null ? password : "", doctor.getRole()));
+
+        // DashboardDAO
+        measure("DashboardDAO.getDashboardStats", () -> dashboardDAO.getDashboardStats(doctorId, today));
+    }
+
+    private void measure(String name, Callable<?> operation) throws Exception {
+        recorder.measure(name, operation);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.medimanager.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class PragmaProfileTest {
+
+    // temp_store reads back as a number
+    private static final long TEMP_STORE_MEMORY = 2;
+
+    @Test
+    public void readerConnectionsUseTheProfile() throws Exception {
+        SQLiteDatabase database = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication())
+                .getWritableDatabase();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        // While this thread holds the primary connection, the reader's SELECTs get another one
+        database.beginTransactionNonExclusive();
+        try {
+            assertEquals(DatabaseHelper.PragmaProfile.DEFAULT.cacheSize,
+                    (long) reader.submit(() -> readPragma(database, "cache_size")).get());
+            assertEquals(TEMP_STORE_MEMORY,
+                    (long) reader.submit(() -> readPragma(database, "temp_store")).get());
+        } finally {
+            database.endTransaction();
+            reader.shutdown();
+        }
+    }
+
+    // The table-valued form is a SELECT, which the pool may run on a reader connection
+    private static long readPragma(SQLiteDatabase database, String pragma) {
+        Cursor cursor = database.rawQuery("SELECT * FROM pragma_" + pragma + "()", null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.medimanager.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.medimanager.models.Appointment;
+import com.example.medimanager.models.AppointmentRow;
+import com.example.medimanager.models.Consultation;
+import com.example.medimanager.models.Patient;
+import com.example.medimanager.models.PatientSummary;
+import com.example.medimanager.models.User;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs every DAO method with the profiler on, then checks the EXPLAIN QUERY PLAN of each
+ * statement it recorded: every table must be reached with SEARCH through an index or
+ * the rowid, never with a SCAN, and no result may be sorted in a temporary b-tree.
+ *
+ * Full-text MATCH queries show up as a scan of the virtual table's own index, and sort
+ * their matches afterwards; both are allowed. So are the few unscoped methods in WHOLE_TABLE_METHODS: they have no WHERE
+ * clause, so the best plan walks an index in order, which is still checked.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class QueryPlanTest {
+
+    // Only the plans matter here, so a small practice is enough
+    private static final SyntheticDataGenerator.Config PRACTICE =
+            new SyntheticDataGenerator.Config(3, 300, 3_000, 3_000, DateUtils.getCurrentDate(), 7L);
+
+    // Methods that read or count a whole table; the app itself no longer calls them
+    private static final List<String> WHOLE_TABLE_METHODS = Arrays.asList(
+            "ConsultationDAO.getAllConsultations",
+            "ConsultationDAO.getRecentConsultations",
+            "ConsultationDAO.getTotalConsultationsCount");
+
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
+    private SyntheticDataGenerator.Result practice;
+    private SQLiteDatabase database;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        practice = new SyntheticDataGenerator(context).generate(PRACTICE, null);
+        database = DatabaseHelper.getInstance(context).getReadableDatabase();
+        PatientDAO.invalidateCachedPatients();
+        profiler.reset();
+        profiler.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        profiler.setEnabled(false);
+        profiler.reset();
+    }
+
+    @Test
+    public void everyDaoStatementUsesAnIndex() {
+        runEveryDaoMethod();
+
+        List<String> failures = new ArrayList<>();
+        int explained = 0;
+        for (QueryProfiler.Entry entry : profiler.snapshot()) {
+            String sql = entry.getSql();
+            if (!hasPlan(sql)) {
+                continue;
+            }
+            explained++;
+            boolean wholeTable = WHOLE_TABLE_METHODS.contains(entry.getLabel()) && !sql.contains(" WHERE ");
+            boolean fullText = sql.contains(" MATCH ");
+            for (String step : plan(sql)) {
+                boolean scan = step.startsWith("SCAN") && !step.contains("VIRTUAL TABLE")
+                        && !(wholeTable && step.contains(" USING "));
+                boolean sort = step.contains("TEMP B-TREE") && !fullText;
+                if (scan || sort) {
+                    failures.add(entry.getLabel() + ": " + step + "\n    " + sql);
+                }
+            }
+        }
+
+        assertTrue("No statements were recorded", explained > 0);
+        if (!failures.isEmpty()) {
+            fail("Statements without an index:\n" + String.join("\n", failures));
+        }
+    }
+
+    private void runEveryDaoMethod() {
+        Context context = RuntimeEnvironment.getApplication();
+        PatientDAO patientDAO = new PatientDAO(context);
+        AppointmentDAO appointmentDAO = new AppointmentDAO(context);
+        ConsultationDAO consultationDAO = new ConsultationDAO(context);
+        UserDAO userDAO = new UserDAO(context);
+        DashboardDAO dashboardDAO = new DashboardDAO(context);
+        AppointmentScheduler scheduler = new AppointmentScheduler(context);
+
+        int doctorId = practice.getFirstDoctorId();
+        String today = DateUtils.getCurrentDate();
+        User doctor = userDAO.getUserById(doctorId);
+        List<PatientSummary> patients = patientDAO.getPatientsPage(doctorId, null, Constants.PAGE_SIZE);
+        PatientSummary lastPatient = patients.get(patients.size() - 1);
+        Patient patient = patientDAO.getPatientById(patients.get(0).getId());
+        List<AppointmentRow> appointments = appointmentDAO.getAppointmentsPage(doctorId, null, null, Constants.PAGE_SIZE);
+        Appointment appointment = appointmentDAO.getAppointmentById(appointments.get(0).getId());
+        Consultation consultation = consultationDAO.getRecentConsultations(doctorId, 1).get(0);
+
+        patientDAO.getAllPatients(doctorId);
+        patientDAO.getPatientsPage(doctorId, lastPatient, Constants.PAGE_SIZE);
+        patientDAO.getRecentPatients(doctorId, 5);
+        patientDAO.searchPatients(doctorId, patient.getLastName());
+        patientDAO.getPatientByEmail(patient.getEmail());
+        patientDAO.getPatientByUserId(doctorId);
+        patientDAO.getTotalPatientsCount(doctorId);
+        patientDAO.getPatientsByDoctor(doctorId);
+        patientDAO.updatePatient(patient);
+        patientDAO.updateLastVisit(patient.getId(), patient.getLastVisit());
+        Patient copy = new Patient(patient);
+        copy.setUserId(null);
+        patientDAO.deletePatient((int) patientDAO.insertPatient(copy));
+
+        appointmentDAO.getAllAppointments(doctorId);
+        appointmentDAO.getAppointmentsByPatient(patient.getId());
+        appointmentDAO.getTodayAppointments(doctorId, today);
+        appointmentDAO.getAppointmentsByStatus(doctorId, Constants.STATUS_PENDING);
+        appointmentDAO.getAppointmentsPage(doctorId, Constants.STATUS_SCHEDULED, null, Constants.PAGE_SIZE);
+        appointmentDAO.getAppointmentsPage(doctorId, null, appointments.get(appointments.size() - 1), Constants.PAGE_SIZE);
+        appointmentDAO.getAppointmentsInRange(doctorId, today, Constants.WORKDAY_START_MINUTE, Constants.WORKDAY_END_MINUTE);
+        appointmentDAO.getNextScheduledAppointment(today, 0);
+        appointmentDAO.getScheduledAppointmentsBetween(today, 0, today, 24 * 60);
+        appointmentDAO.updateAppointment(appointment);
+        appointmentDAO.updateAppointmentStatus(appointment.getId(), appointment.getStatus());
+        appointmentDAO.deleteAppointment((int) appointmentDAO.insertAppointment(new Appointment(appointment)));
+        scheduler.checkSlot(appointment);
+        scheduler.findFreeSlots(doctorId, today, Constants.WORKDAY_START_MINUTE, 3);
+
+        consultationDAO.getConsultationById(consultation.getId());
+        consultationDAO.getConsultationsByPatient(patient.getId());
+        consultationDAO.getAllConsultations();
+        consultationDAO.getAllConsultations(doctorId);
+        consultationDAO.getConsultationsByDate(today);
+        consultationDAO.getMonthlyConsultationsCount();
+        consultationDAO.getMonthlyConsultationsCount(doctorId);
+        consultationDAO.getTotalConsultationsCount();
+        consultationDAO.getTotalConsultationsCount(doctorId);
+        consultationDAO.getRecentConsultations(5);
+        consultationDAO.searchByDiagnosis(consultation.getDiagnosis());
+        consultationDAO.searchConsultations(doctorId, consultation.getDiagnosis());
+        consultationDAO.updateConsultation(consultation);
+        consultationDAO.deleteConsultation((int) consultationDAO.insertConsultation(consultation));
+
+        userDAO.getUserByEmail(doctor.getEmail());
+        userDAO.isEmailRegistered(doctor.getEmail());
+        userDAO.updateUser(doctor);
+        userDAO.authenticateUser(doctor.getEmail(), SyntheticDataGenerator.PASSWORD, doctor.getRole());
+
+        dashboardDAO.getDashboardStats(doctorId, today);
+    }
+
+    // ContentValues writes are recorded as "UPDATE patients" and the like, with no SQL to
+    // explain; schema lookups in sqlite_master are not DAO queries
+    private static boolean hasPlan(String sql) {
+        return (sql.indexOf(' ') != sql.lastIndexOf(' ') || sql.startsWith("SELECT"))
+                && !sql.contains("sqlite_master");
+    }
+
+    private List<String> plan(String sql) {
+        List<String> steps = new ArrayList<>();
+        Cursor cursor = database.rawQuery("EXPLAIN QUERY PLAN " + QueryProfiler.withPlaceholderValues(sql), null);
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                steps.add(cursor.getString(detail));
+            }
+        } finally {
+            cursor.close();
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.medimanager.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class QueryProfilerTest {
+
+    private static final String SQL = "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_USERS;
+
+    private final QueryProfiler profiler = QueryProfiler.getInstance();
+    private SQLiteDatabase database;
+
+    @Before
+    public void setUp() {
+        database = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication()).getReadableDatabase();
+        profiler.reset();
+        profiler.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        profiler.setEnabled(false);
+        profiler.reset();
+    }
+
+    @Test
+    public void sameSqlFromTwoMethodsIsAttributedToEach() {
+        countFromFirstMethod();
+        countFromSecondMethod();
+        countFromSecondMethod();
+
+        List<String> labels = new ArrayList<>();
+        for (QueryProfiler.Entry entry : profiler.snapshot()) {
+            if (SQL.equals(entry.getSql())) {
+                labels.add(entry.getLabel() + " x" + entry.getCount());
+            }
+        }
+        Collections.sort(labels);
+        assertEquals("[QueryProfilerTest.countFromFirstMethod x1, QueryProfilerTest.countFromSecondMethod x2]",
+                labels.toString());
+    }
+
+    @Test
+    public void nothingIsRecordedWhileDisabled() {
+        profiler.setEnabled(false);
+        countFromFirstMethod();
+
+        assertTrue(profiler.snapshot().isEmpty());
+    }
+
+    @Test
+    public void placeholdersOutsideLiteralsAreReplaced() {
+        assertEquals("SELECT * FROM t WHERE a = 0 AND b = '?' AND c > 0",
+                QueryProfiler.withPlaceholderValues("SELECT * FROM t WHERE a = ? AND b = '?' AND c > ?"));
+    }
+
+    // Each runs the query itself: the label is the innermost app method on the stack.
+    // A cursor is recorded once its window has been filled, hence the move
+    private void countFromFirstMethod() {
+        Cursor cursor = database.rawQuery(SQL, null);
+        cursor.moveToFirst();
+        cursor.close();
+    }
+
+    private void countFromSecondMethod() {
+        Cursor cursor = database.rawQuery(SQL, null);
+        cursor.moveToFirst();
+        cursor.close();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.medimanager.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.medimanager.BenchmarkRecorder;
+import com.example.medimanager.models.AppointmentRow;
+import com.example.medimanager.utils.Constants;
+import com.example.medimanager.utils.DateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * OPERATIONS status updates, inserts and counts through the {@link StatementPool}, against
+ * the ContentValues and rawQuery calls the DAOs made before. Each run is OPERATIONS calls,
+ * so the per-operation latency is the median divided by OPERATIONS.
+ *
+ * Both sides run the statements directly, without the DAOs' change events, so only the
+ * statement handling differs. Inserted appointments are left in place, on a day of their
+ * own so they do not add to the counted rows.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StatementPoolBenchmark {
+
+    private static final int OPERATIONS = 10_000;
+    private static final String INSERT_DATE = "2099-12-31";
+
+    private static final String UPDATE_STATUS =
+            "UPDATE " + DatabaseHelper.TABLE_APPOINTMENTS + " SET " + DatabaseHelper.KEY_STATUS +
+                    " = ? WHERE " + DatabaseHelper.KEY_ID + " = ?";
+    private static final String INSERT_APPOINTMENT =
+            "INSERT INTO " + DatabaseHelper.TABLE_APPOINTMENTS + " (" +
+                    DatabaseHelper.KEY_PATIENT_ID + ", " + DatabaseHelper.KEY_DOCTOR_ID + ", " +
+                    DatabaseHelper.KEY_APPOINTMENT_DATE + ", " + DatabaseHelper.KEY_APPOINTMENT_TIME + ", " +
+                    DatabaseHelper.KEY_START_MINUTE + ", " + DatabaseHelper.KEY_STATUS +
+                    ") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String COUNT_TODAY =
+            "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_APPOINTMENTS +
+                    " WHERE " + DatabaseHelper.KEY_DOCTOR_ID + " = ? AND " +
+                    DatabaseHelper.KEY_APPOINTMENT_DATE + " = ?";
+
+    // The database outlives each test, so the practice is generated once
+    private static SyntheticDataGenerator.Result practice;
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("statements")
+            .runs(5, 10).budgetMillis(10_000);
+    private SQLiteDatabase database;
+    private StatementPool statements;
+    private int doctorId;
+    private int patientId;
+    private long[] appointmentIds;
+    private String today;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        synchronized (StatementPoolBenchmark.class) {
+            if (practice == null) {
+                practice = new SyntheticDataGenerator(context).generate(
+                        new SyntheticDataGenerator.Config(1, 100, 1_000, 0, DateUtils.getCurrentDate(), 16L), null);
+            }
+        }
+        DatabaseHelper helper = DatabaseHelper.getInstance(context);
+        database = helper.getWritableDatabase();
+        statements = helper.getStatementPool();
+        doctorId = practice.getFirstDoctorId();
+        today = DateUtils.getCurrentDate();
+
+        List<AppointmentRow> rows = new AppointmentDAO(context).getAppointmentsPage(doctorId, null, null, 1_000);
+        patientId = rows.get(0).getPatientId();
+        appointmentIds = new long[rows.size()];
+        for (int i = 0; i < appointmentIds.length; i++) {
+            appointmentIds[i] = rows.get(i).getId();
+        }
+    }
+
+    @Test
+    public void updateStatus() throws Exception {
+        recorder.measure("updateStatus.contentValues", () -> {
+            int rows = 0;
+            for (int i = 0; i < OPERATIONS; i++) {
+                ContentValues values = new ContentValues();
+                values.put(DatabaseHelper.KEY_STATUS, Constants.STATUS_SCHEDULED);
+                rows += database.update(DatabaseHelper.TABLE_APPOINTMENTS, values,
+                        DatabaseHelper.KEY_ID + " = ?", new String[]{String.valueOf(appointmentId(i))});
+            }
+            return rows;
+        });
+        recorder.measure("updateStatus.pooled", () -> {
+            int rows = 0;
+            for (int i = 0; i < OPERATIONS; i++) {
+                long id = appointmentId(i);
+                rows += statements.executeUpdateDelete(database, UPDATE_STATUS, statement -> {
+                    statement.bindString(1, Constants.STATUS_SCHEDULED);
+                    statement.bindLong(2, id);
+                });
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    public void insert() throws Exception {
+        recorder.measure("insertAppointment.contentValues", () -> {
+            long last = -1;
+            for (int i = 0; i < OPERATIONS; i++) {
+                ContentValues values = new ContentValues();
+                values.put(DatabaseHelper.KEY_PATIENT_ID, patientId);
+                values.put(DatabaseHelper.KEY_DOCTOR_ID, doctorId);
+                values.put(DatabaseHelper.KEY_APPOINTMENT_DATE, INSERT_DATE);
+                values.put(DatabaseHelper.KEY_APPOINTMENT_TIME, "09:00 AM");
+                values.put(DatabaseHelper.KEY_START_MINUTE, 9 * 60);
+                values.put(DatabaseHelper.KEY_STATUS, Constants.STATUS_CANCELLED);
+                last = database.insert(DatabaseHelper.TABLE_APPOINTMENTS, null, values);
+            }
+            return last;
+        });
+        recorder.measure("insertAppointment.pooled", () -> {
+            long last = -1;
+            for (int i = 0; i < OPERATIONS; i++) {
+                last = statements.executeInsert(database, INSERT_APPOINTMENT, statement -> {
+                    statement.bindLong(1, patientId);
+                    statement.bindLong(2, doctorId);
+                    statement.bindString(3, INSERT_DATE);
+                    statement.bindString(4, "09:00 AM");
+                    statement.bindLong(5, 9 * 60);
+                    statement.bindString(6, Constants.STATUS_CANCELLED);
+                });
+            }
+            return last;
+        });
+    }
+
+    @Test
+    public void count() throws Exception {
+        recorder.measure("countToday.rawQuery", () -> {
+            long total = 0;
+            for (int i = 0; i < OPERATIONS; i++) {
+                Cursor cursor = database.rawQuery(COUNT_TODAY, new String[]{String.valueOf(doctorId), today});
+                try {
+                    if (cursor.moveToFirst()) {
+                        total += cursor.getLong(0);
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+            return total;
+        });
+        recorder.measure("countToday.pooled", () -> {
+            long total = 0;
+            for (int i = 0; i < OPERATIONS; i++) {
+                total += statements.simpleQueryForLong(database, COUNT_TODAY, statement -> {
+                    statement.bindLong(1, doctorId);
+                    statement.bindString(2, today);
+                });
+            }
+            return total;
+        });
+    }
+
+    private long appointmentId(int operation) {
+        return appointmentIds[operation % appointmentIds.length];
+    }
+}
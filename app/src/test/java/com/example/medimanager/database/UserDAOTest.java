@@ -0,0 +1,49 @@
+package com.example.medimanager.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.medimanager.utils.PasswordUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserDAOTest {
+
+    private static final String EMAIL = "plain.text@example.com";
+    private static final String PASSWORD = "legacy-password";
+
+    @Test
+    public void plainTextPasswordIsUpgradedAfterLogin() throws Exception {
+        Context context = RuntimeEnvironment.getApplication();
+        SQLiteDatabase database = DatabaseHelper.getInstance(context).getWritableDatabase();
+        // A row as versions before hashing stored it
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.KEY_USER_FIRST_NAME, "Plain");
+        values.put(DatabaseHelper.KEY_USER_LAST_NAME, "Text");
+        values.put(DatabaseHelper.KEY_USER_EMAIL, EMAIL);
+        values.put(DatabaseHelper.KEY_USER_PASSWORD, PASSWORD);
+        values.put(DatabaseHelper.KEY_USER_ROLE, "doctor");
+        database.insertOrThrow(DatabaseHelper.TABLE_USERS, null, values);
+
+        UserDAO userDAO = new UserDAO(context);
+        assertNotNull(userDAO.authenticateUser(EMAIL, PASSWORD, "doctor"));
+
+        // The new hash is computed on the reader pool, then written on the writer
+        String stored = PASSWORD;
+        for (int i = 0; i < 200 && !PasswordUtils.isHashed(stored); i++) {
+            Thread.sleep(10);
+            DatabaseExecutors.getInstance().writer().submit(() -> { }).get();
+            stored = userDAO.getUserByEmail(EMAIL).getPassword();
+        }
+        assertTrue(PasswordUtils.isHashed(stored));
+        assertTrue(PasswordUtils.verifyPassword(PASSWORD, stored));
+    }
+}
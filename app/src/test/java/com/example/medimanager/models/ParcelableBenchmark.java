@@ -0,0 +1,182 @@
+package com.example.medimanager.models;
+
+import android.os.Parcel;
+
+import com.example.medimanager.BenchmarkRecorder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Marshalling and unmarshalling ITEMS-item patient and appointment lists as Parcelable
+ * lists, the way saved state and Intent extras now carry them, against Java serialization
+ * of the same fields, the way the models travelled before they were Parcelable.
+ *
+ * The Serializable side uses field-for-field copies of the old models. Each unmarshal run
+ * reads bytes produced once, outside the timing.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ParcelableBenchmark {
+
+    private static final int ITEMS = 1_000;
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("parcel").runs(10, 200);
+
+    @Test
+    public void patients() throws Exception {
+        List<Patient> patients = new ArrayList<>();
+        ArrayList<SerializablePatient> serializable = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Patient patient = new Patient(i + 1, 1, i % 3 == 0 ? null : i, "First" + i, "Last" + i,
+                    "1980-01-01", "Female", "+15550100" + i, "patient" + i + "@example.com",
+                    i + " Main Street", "O+", i % 2 == 0 ? "Penicillin" : null, "2024-05-01",
+                    "2024-01-01 09:00:00");
+            patients.add(patient);
+            serializable.add(new SerializablePatient(patient));
+        }
+
+        recorder.measure("patients.parcel.marshal", () -> marshal(patients));
+        byte[] parcelled = marshal(patients);
+        recorder.measure("patients.parcel.unmarshal", () -> unmarshal(parcelled, Patient.CREATOR));
+        recorder.measure("patients.serializable.marshal", () -> serialize(serializable));
+        byte[] serialized = serialize(serializable);
+        recorder.measure("patients.serializable.unmarshal", () -> deserialize(serialized));
+    }
+
+    @Test
+    public void appointments() throws Exception {
+        List<Appointment> appointments = new ArrayList<>();
+        ArrayList<SerializableAppointment> serializable = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Appointment appointment = new Appointment(i + 1, i, 1, "Patient " + i, "Doctor",
+                    "2024-06-01", "09:30 AM", "Check-up", "scheduled", i % 2 == 0 ? "Fasting" : null,
+                    "2024-01-01 09:00:00");
+            appointment.setStartMinute(9 * 60 + 30);
+            appointments.add(appointment);
+            serializable.add(new SerializableAppointment(appointment));
+        }
+
+        recorder.measure("appointments.parcel.marshal", () -> marshal(appointments));
+        byte[] parcelled = marshal(appointments);
+        recorder.measure("appointments.parcel.unmarshal", () -> unmarshal(parcelled, Appointment.CREATOR));
+        recorder.measure("appointments.serializable.marshal", () -> serialize(serializable));
+        byte[] serialized = serialize(serializable);
+        recorder.measure("appointments.serializable.unmarshal", () -> deserialize(serialized));
+    }
+
+    private static <T extends android.os.Parcelable> byte[] marshal(List<T> items) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.writeTypedList(items);
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static <T> List<T> unmarshal(byte[] bytes, android.os.Parcelable.Creator<T> creator) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(bytes, 0, bytes.length);
+            parcel.setDataPosition(0);
+            List<T> items = parcel.createTypedArrayList(creator);
+            assertEquals(ITEMS, items.size());
+            return items;
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static byte[] serialize(ArrayList<?> items) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(items);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<?> deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            List<?> items = (List<?>) input.readObject();
+            assertEquals(ITEMS, items.size());
+            return items;
+        }
+    }
+
+    // The fields of Patient as it was when it implemented Serializable
+    private static final class SerializablePatient implements Serializable {
+        private final int id;
+        private final int doctorId;
+        private final Integer userId;
+        private final String firstName;
+        private final String lastName;
+        private final String dateOfBirth;
+        private final String gender;
+        private final String phone;
+        private final String email;
+        private final String address;
+        private final String bloodGroup;
+        private final String allergies;
+        private final String lastVisit;
+        private final String createdAt;
+
+        SerializablePatient(Patient patient) {
+            id = patient.getId();
+            doctorId = patient.getDoctorId();
+            userId = patient.getUserId();
+            firstName = patient.getFirstName();
+            lastName = patient.getLastName();
+            dateOfBirth = patient.getDateOfBirth();
+            gender = patient.getGender();
+            phone = patient.getPhone();
+            email = patient.getEmail();
+            address = patient.getAddress();
+            bloodGroup = patient.getBloodGroup();
+            allergies = patient.getAllergies();
+            lastVisit = patient.getLastVisit();
+            createdAt = patient.getCreatedAt();
+        }
+    }
+
+    // The fields of Appointment as it was when it implemented Serializable
+    private static final class SerializableAppointment implements Serializable {
+        private final int id;
+        private final int patientId;
+        private final int doctorId;
+        private final String patientName;
+        private final String doctorName;
+        private final String appointmentDate;
+        private final String appointmentTime;
+        private final int startMinute;
+        private final String reason;
+        private final String status;
+        private final String notes;
+        private final String createdAt;
+
+        SerializableAppointment(Appointment appointment) {
+            id = appointment.getId();
+            patientId = appointment.getPatientId();
+            doctorId = appointment.getDoctorId();
+            patientName = appointment.getPatientName();
+            doctorName = appointment.getDoctorName();
+            appointmentDate = appointment.getAppointmentDate();
+            appointmentTime = appointment.getAppointmentTime();
+            startMinute = appointment.getStartMinute();
+            reason = appointment.getReason();
+            status = appointment.getStatus();
+            notes = appointment.getNotes();
+            createdAt = appointment.getCreatedAt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.medimanager.utils;
+
+import com.example.medimanager.BenchmarkRecorder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * DateUtils calls made per bound list row, CALLS per run, against the SimpleDateFormat
+ * code they replaced. Divide the median and the allocated bytes by CALLS for the cost of
+ * one call.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DateCodecBenchmark {
+
+    private static final int CALLS = 10_000;
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("dates").runs(10, 100);
+    private final String[] dates = new String[CALLS];
+    private final String[] times = new String[CALLS];
+
+    @Test
+    public void dateCalls() throws Exception {
+        for (int i = 0; i < CALLS; i++) {
+            dates[i] = DateUtils.fromEpochDay(i % 20_000);
+            times[i] = DateUtils.formatMinutes(i % (24 * 60));
+        }
+
+        recorder.measure("compareDates.epochDay", () -> {
+            int sum = 0;
+            for (int i = 1; i < CALLS; i++) {
+                sum += DateUtils.compareDates(dates[i - 1], dates[i]);
+            }
+            return sum;
+        });
+        recorder.measure("compareDates.simpleDateFormat", () -> {
+            int sum = 0;
+            for (int i = 1; i < CALLS; i++) {
+                sum += compareWithFormat(dates[i - 1], dates[i]);
+            }
+            return sum;
+        });
+        recorder.measure("calculateAge.epochDay", () -> {
+            int sum = 0;
+            for (String date : dates) {
+                sum += DateUtils.calculateAge(date);
+            }
+            return sum;
+        });
+        recorder.measure("calculateAge.simpleDateFormat", () -> {
+            int sum = 0;
+            for (String date : dates) {
+                sum += ageWithFormat(date);
+            }
+            return sum;
+        });
+        recorder.measure("formatDate.cachedFormat", () -> {
+            int length = 0;
+            for (String date : dates) {
+                length += DateUtils.formatDate(date).length();
+            }
+            return length;
+        });
+        recorder.measure("formatDate.simpleDateFormat", () -> {
+            int length = 0;
+            for (String date : dates) {
+                length += formatWithFormat(date).length();
+            }
+            return length;
+        });
+        recorder.measure("parseTimeToMinutes.cachedMarkers", () -> {
+            int sum = 0;
+            for (String time : times) {
+                sum += DateUtils.parseTimeToMinutes(time);
+            }
+            return sum;
+        });
+        recorder.measure("parseTimeToMinutes.symbolsPerCall", () -> {
+            int sum = 0;
+            for (String time : times) {
+                sum += parseWithSymbols(time);
+            }
+            return sum;
+        });
+    }
+
+    // The DateUtils methods as they were, with new formatters on every call
+
+    private static int compareWithFormat(String date1, String date2) throws ParseException {
+        Date d1 = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault()).parse(date1);
+        Date d2 = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault()).parse(date2);
+        return d1.compareTo(d2);
+    }
+
+    private static int ageWithFormat(String dateOfBirth) throws ParseException {
+        Date birthDate = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault()).parse(dateOfBirth);
+        Calendar birth = Calendar.getInstance();
+        birth.setTime(birthDate);
+        Calendar today = Calendar.getInstance();
+        int age = today.get(Calendar.YEAR) - birth.get(Calendar.YEAR);
+        if (today.get(Calendar.DAY_OF_YEAR) < birth.get(Calendar.DAY_OF_YEAR)) {
+            age--;
+        }
+        return age;
+    }
+
+    // Only the 12-hour path the benchmark's times take, looking the markers up per call
+    private static int parseWithSymbols(String time) {
+        int colon = time.indexOf(':');
+        int hour = Integer.parseInt(time.substring(0, colon));
+        int minute = Integer.parseInt(time.substring(colon + 1, colon + 3));
+        String marker = time.substring(colon + 3).trim();
+        String[] localMarkers = DateFormatSymbols.getInstance().getAmPmStrings();
+        String[] usMarkers = DateFormatSymbols.getInstance(Locale.US).getAmPmStrings();
+        boolean pm = marker.equalsIgnoreCase(usMarkers[1]) || marker.equalsIgnoreCase(localMarkers[1]);
+        return (hour % 12 + (pm ? 12 : 0)) * 60 + minute;
+    }
+
+    private static String formatWithFormat(String dateString) throws ParseException {
+        SimpleDateFormat inputFormat = new SimpleDateFormat(Constants.DATE_FORMAT, Locale.getDefault());
+        SimpleDateFormat outputFormat = new SimpleDateFormat(Constants.DATE_FORMAT_DISPLAY, Locale.getDefault());
+        return outputFormat.format(inputFormat.parse(dateString));
+    }
+}
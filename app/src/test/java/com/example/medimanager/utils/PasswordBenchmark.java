@@ -0,0 +1,72 @@
+package com.example.medimanager.utils;
+
+import com.example.medimanager.BenchmarkRecorder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PBKDF2 hash and verify latency at PASSWORD_MIN_ITERATIONS, the count used until
+ * {@link PasswordUtils#calibrate} has run; calibration scales the count so that a hash
+ * takes PASSWORD_TARGET_HASH_MILLIS on the device. "derive.factoryPerCall" is one
+ * derivation the way verifyPassword used to run it, looking up SHA256 (then SHA1) on
+ * every call, against "derive.cachedFactory".
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PasswordBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+    private static final String[] ALGORITHMS = {"PBKDF2WithHmacSHA256", "PBKDF2WithHmacSHA1"};
+
+    private final BenchmarkRecorder recorder = new BenchmarkRecorder("password").runs(5, 30).budgetMillis(5_000);
+
+    @Test
+    public void hashAndVerify() throws Exception {
+        String stored = PasswordUtils.hashPassword(PASSWORD);
+        assertTrue(stored.contains("$" + Constants.PASSWORD_MIN_ITERATIONS + "$"));
+
+        recorder.measure("hash.minIterations", () -> PasswordUtils.hashPassword(PASSWORD));
+        recorder.measure("verify.minIterations", () -> PasswordUtils.verifyPassword(PASSWORD, stored));
+        recorder.measure("verify.wrongPassword", () -> PasswordUtils.verifyPassword("wrong-password", stored));
+    }
+
+    @Test
+    public void factoryLookup() throws Exception {
+        byte[] salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        SecretKeyFactory cached = SecretKeyFactory.getInstance(ALGORITHMS[0]);
+
+        recorder.measure("derive.factoryPerCall", () -> derive(lookUpFactory(), salt));
+        recorder.measure("derive.cachedFactory", () -> derive(cached, salt));
+    }
+
+    private static byte[] derive(SecretKeyFactory factory, byte[] salt) throws Exception {
+        PBEKeySpec spec = new PBEKeySpec(PASSWORD.toCharArray(), salt, Constants.PASSWORD_MIN_ITERATIONS, 256);
+        try {
+            return factory.generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // PasswordUtils before the factory was cached
+    private static SecretKeyFactory lookUpFactory() throws NoSuchAlgorithmException {
+        for (String algorithm : ALGORITHMS) {
+            try {
+                return SecretKeyFactory.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                // Try the next one
+            }
+        }
+        throw new NoSuchAlgorithmException("No PBKDF2 implementation");
+    }
+}
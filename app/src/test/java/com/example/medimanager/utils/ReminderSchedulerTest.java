@@ -0,0 +1,148 @@
+package com.example.medimanager.utils;
+
+import android.app.AlarmManager;
+import android.content.Context;
+
+import com.example.medimanager.database.AppointmentDAO;
+import com.example.medimanager.database.PatientDAO;
+import com.example.medimanager.database.SyntheticDataGenerator;
+import com.example.medimanager.models.Appointment;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowAlarmManager;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReminderSchedulerTest {
+
+    private static final long MINUTE = 60_000L;
+
+    // The database outlives each test, so the practice is generated once
+    private static SyntheticDataGenerator.Result practice;
+
+    private Context context;
+    private AppointmentDAO appointmentDAO;
+    private int doctorId;
+    private int patientId;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        if (practice == null) {
+            practice = new SyntheticDataGenerator(context).generate(
+                    new SyntheticDataGenerator.Config(1, 1, 0, 0, DateUtils.getCurrentDate(), 11L), null);
+        }
+        doctorId = practice.getFirstDoctorId();
+        patientId = new PatientDAO(context).getPatientsPage(doctorId, null, 1).get(0).getId();
+        appointmentDAO = new AppointmentDAO(context);
+        // Earlier tests in this JVM may have left reminders due
+        ReminderScheduler.collectDueReminders(context);
+    }
+
+    @Test
+    public void eachReminderIsDeliveredOnce() {
+        int id = insertAt(System.currentTimeMillis() + 30 * MINUTE);
+
+        assertEquals("[" + id + "]", collectIds(id).toString());
+        assertTrue(collectIds(id).isEmpty());
+    }
+
+    @Test
+    public void appointmentAddedInsideADeliveredWindowIsReminded() {
+        long now = System.currentTimeMillis();
+        int first = insertAt(now + 30 * MINUTE);
+        assertEquals("[" + first + "]", collectIds(first).toString());
+
+        // Starts after the lead time but inside the window the first delivery covered
+        int second = insertAt(now + (Constants.REMINDER_LEAD_MINUTES + 2) * MINUTE);
+
+        assertEquals("[" + second + "]", collectIds(first, second).toString());
+    }
+
+    @Test
+    public void movedAppointmentIsRemindedForItsNewTime() {
+        long now = System.currentTimeMillis();
+        int id = insertAt(now + 30 * MINUTE);
+        assertEquals("[" + id + "]", collectIds(id).toString());
+
+        Appointment appointment = appointmentDAO.getAppointmentById(id);
+        appointmentDAO.updateAppointmentStatus(id, Constants.STATUS_SCHEDULED);
+        assertTrue(collectIds(id).isEmpty());
+
+        setStart(appointment, now + 50 * MINUTE);
+        appointmentDAO.updateAppointment(appointment);
+
+        assertEquals("[" + id + "]", collectIds(id).toString());
+    }
+
+    @Test
+    public void batchLargerThanOneStatementIsFlaggedWhole() {
+        // More ids than one UPDATE binds, and more than older SQLite allows in total
+        int[] ids = new int[1_200];
+        long start = System.currentTimeMillis() + 30 * MINUTE;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = insertAt(start);
+        }
+
+        assertEquals(ids.length, collectIds(ids).size());
+        assertTrue(collectIds(ids).isEmpty());
+    }
+
+    @Test
+    public void lateReminderIsArmedToFireAtOnce() {
+        long now = System.currentTimeMillis();
+        // Its reminder time passed half an hour ago, but the appointment has not started
+        int id = insertAt(now + 30 * MINUTE);
+
+        ReminderScheduler.reschedule(context);
+
+        ShadowAlarmManager.ScheduledAlarm alarm =
+                shadowOf(context.getSystemService(AlarmManager.class)).peekNextScheduledAlarm();
+        assertTrue(alarm.getTriggerAtMs() >= now && alarm.getTriggerAtMs() <= System.currentTimeMillis());
+        assertEquals("[" + id + "]", collectIds(id).toString());
+    }
+
+    // Ids among the given ones in the next delivered batch, in start order
+    private List<Integer> collectIds(int... ids) {
+        List<Integer> collected = new ArrayList<>();
+        for (Appointment appointment : ReminderScheduler.collectDueReminders(context)) {
+            for (int id : ids) {
+                if (appointment.getId() == id) {
+                    collected.add(id);
+                }
+            }
+        }
+        return collected;
+    }
+
+    private int insertAt(long millis) {
+        Appointment appointment = new Appointment();
+        appointment.setPatientId(patientId);
+        appointment.setDoctorId(doctorId);
+        appointment.setReason("Check-up");
+        appointment.setStatus(Constants.STATUS_SCHEDULED);
+        setStart(appointment, millis);
+        return (int) appointmentDAO.insertAppointment(appointment);
+    }
+
+    private static void setStart(Appointment appointment, long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        appointment.setAppointmentDate(new SimpleDateFormat(Constants.DATE_FORMAT, Locale.US).format(millis));
+        appointment.setAppointmentTime(DateUtils.formatMinutes(
+                calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE)));
+    }
+}
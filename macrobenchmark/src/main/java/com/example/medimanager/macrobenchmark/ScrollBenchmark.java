@@ -0,0 +1,108 @@
+package com.example.medimanager.macrobenchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Frame timing while scrolling each of the doctor's lists on the synthetic large practice.
+ * Every iteration opens the practice through the benchmark build's SyntheticPracticeActivity,
+ * which generates it on the first run (several minutes on a device), switches to the screen
+ * and waits for its list. Only the flings are traced; FrameTimingMetric reports the
+ * frameDurationCpuMs and frameOverrunMs percentiles (P50, P90, P95, P99) for them.
+ *
+ * The patient's home screen is not covered: the synthetic patients have no accounts.
+ * Pass -Pandroid.testInstrumentationRunnerArguments.scale=0.1 for a smaller practice.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+
+    static final String PACKAGE_NAME = "com.example.medimanager";
+
+    private static final int ITERATIONS = 5;
+    private static final int FLINGS = 5;
+    private static final long PRACTICE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final long SCREEN_TIMEOUT_MILLIS = 10_000L;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollHome() {
+        // The home screen scrolls as a whole, its two short lists included
+        scroll("nav_home", "fragment_container");
+    }
+
+    @Test
+    public void scrollAppointments() {
+        scroll("nav_appointments", "rvAppointments");
+    }
+
+    @Test
+    public void scrollPatients() {
+        scroll("nav_patients", "rvPatients");
+    }
+
+    private void scroll(String tab, String list) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                null,
+                ITERATIONS,
+                scope -> {
+                    openPractice(scope);
+                    UiDevice device = scope.getDevice();
+                    device.findObject(By.res(PACKAGE_NAME, tab)).click();
+                    device.wait(Until.hasObject(By.res(PACKAGE_NAME, list)), SCREEN_TIMEOUT_MILLIS);
+                    device.waitForIdle();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiObject2 scrollable = scope.getDevice().findObject(By.res(PACKAGE_NAME, list));
+                    assertNotNull(list + " not shown", scrollable);
+                    // Keep the gestures clear of the system navigation area
+                    scrollable.setGestureMargin(scope.getDevice().getDisplayWidth() / 5);
+                    for (int i = 0; i < FLINGS; i++) {
+                        scrollable.fling(Direction.DOWN);
+                        scope.getDevice().waitForIdle();
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+
+    // Generates the practice if needed, signs in as its busiest doctor and waits for MainActivity
+    static void openPractice(MacrobenchmarkScope scope) {
+        Intent intent = new Intent();
+        intent.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".activities.SyntheticPracticeActivity");
+        String scale = InstrumentationRegistry.getArguments().getString("scale");
+        if (scale != null) {
+            intent.putExtra("scale", Double.parseDouble(scale));
+        }
+        scope.startActivityAndWait(intent);
+        UiDevice device = scope.getDevice();
+        assertTrue("The synthetic practice did not open", Boolean.TRUE.equals(
+                device.wait(Until.hasObject(By.res(PACKAGE_NAME, "bottomNavigation")), PRACTICE_TIMEOUT_MILLIS)));
+    }
+}
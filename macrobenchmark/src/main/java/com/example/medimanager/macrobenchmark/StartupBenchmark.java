@@ -0,0 +1,58 @@
+package com.example.medimanager.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Cold start of the launcher screen on a clean install: the app's data is cleared before
+ * every iteration, so each start creates the database and runs DatabaseSeeder, which the
+ * benchmark build type enables. StartupTimingMetric reports timeToInitialDisplayMs and,
+ * through LoginActivity's reportFullyDrawn, timeToFullDisplayMs.
+ *
+ * Clearing the data also removes the synthetic practice, so ScrollBenchmark generates it
+ * again on its next run.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartCleanInstall() {
+        benchmarkRule.measureRepeated(
+                ScrollBenchmark.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                CompilationMode.DEFAULT,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    try {
+                        scope.getDevice().executeShellCommand("pm clear " + ScrollBenchmark.PACKAGE_NAME);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
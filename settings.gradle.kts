@@ -24,3 +24,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "MediManager"
 include(":app")
+include(":macrobenchmark")